@@ -0,0 +1,49 @@
+package org.tron.common.crypto;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Keccak-256 and SHA-256 (or SM3 with {@code crypto.engine = "sm2"}) over inputs of the sizes
+ * hashed in practice: an address or hash, a transaction's raw data and a large contract call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HashBenchmark {
+
+  @Param({"32", "256", "4096"})
+  private int size;
+
+  private byte[] input;
+
+  @Setup
+  public void setUp() {
+    input = new byte[size];
+    new Random(size).nextBytes(input);
+  }
+
+  @Benchmark
+  public byte[] sha3() {
+    return Hash.sha3(input);
+  }
+
+  @Benchmark
+  public byte[] sha256Sm3() {
+    return Sha256Sm3Hash.hash(input);
+  }
+}
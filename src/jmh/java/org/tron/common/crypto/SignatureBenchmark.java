@@ -0,0 +1,78 @@
+package org.tron.common.crypto;
+
+import java.security.SignatureException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tron.common.crypto.ECKey.ECDSASignature;
+import org.tron.common.crypto.sm2.SM2;
+import org.tron.common.crypto.sm2.SM2.SM2Signature;
+import org.tron.common.utils.ByteArray;
+
+/**
+ * Signing, verification and public key recovery with the secp256k1 and SM2 engines, on one fixed
+ * key and message hash.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignatureBenchmark {
+
+  static final byte[] PRIVATE_KEY = ByteArray.fromHexString(
+      "b5a4cea271ff424d7c31dc12a3e43e401df7a40d7412a15750f3f0b6b5449a28");
+
+  private ECKey ecKey;
+  private SM2 sm2;
+  private byte[] hash;
+  private ECDSASignature ecSignature;
+  private SM2Signature sm2Signature;
+  private byte[] ecPublicKey;
+  private byte[] sm2PublicKey;
+
+  @Setup
+  public void setUp() {
+    ecKey = ECKey.fromPrivate(PRIVATE_KEY);
+    sm2 = SM2.fromPrivate(PRIVATE_KEY);
+    hash = Hash.sha3("wallet-cli benchmark".getBytes());
+    ecSignature = ecKey.sign(hash);
+    sm2Signature = sm2.sign(hash);
+    ecPublicKey = ecKey.getPubKey();
+    sm2PublicKey = sm2.getPubKey();
+  }
+
+  @Benchmark
+  public ECDSASignature ecKeySign() {
+    return ecKey.sign(hash);
+  }
+
+  @Benchmark
+  public boolean ecKeyVerify() {
+    return ECKey.verify(hash, ecSignature, ecPublicKey);
+  }
+
+  @Benchmark
+  public byte[] ecKeySignatureToAddress() throws SignatureException {
+    return ECKey.signatureToAddress(hash, ecSignature);
+  }
+
+  @Benchmark
+  public SM2Signature sm2Sign() {
+    return sm2.sign(hash);
+  }
+
+  @Benchmark
+  public boolean sm2Verify() {
+    return SM2.verify(hash, sm2Signature, sm2PublicKey);
+  }
+}
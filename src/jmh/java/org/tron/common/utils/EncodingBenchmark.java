@@ -0,0 +1,85 @@
+package org.tron.common.utils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tron.common.utils.Bech32.Bech32Data;
+import org.tron.walletserver.WalletApi;
+
+/**
+ * Base58 and Base58Check of a 21 byte account address, and Bech32 of a shielded payment
+ * address.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncodingBenchmark {
+
+  /**
+   * 5 bit groups of a 43 byte sapling payment address.
+   */
+  private static final int PAYMENT_ADDRESS_GROUPS = ((32 + 11) * 8 + 4) / 5;
+
+  private byte[] address;
+  private String base58;
+  private String base58Check;
+  private byte[] paymentAddress;
+  private String bech32;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(1);
+    address = new byte[21];
+    random.nextBytes(address);
+    address[0] = WalletApi.getAddressPreFixByte();
+    base58 = Base58.encode(address);
+    base58Check = WalletApi.encode58Check(address);
+    paymentAddress = new byte[PAYMENT_ADDRESS_GROUPS];
+    for (int i = 0; i < paymentAddress.length; i++) {
+      paymentAddress[i] = (byte) random.nextInt(32);
+    }
+    bech32 = Bech32.encode("ztron", paymentAddress);
+  }
+
+  @Benchmark
+  public String base58Encode() {
+    return Base58.encode(address);
+  }
+
+  @Benchmark
+  public byte[] base58Decode() {
+    return Base58.decode(base58);
+  }
+
+  @Benchmark
+  public String encode58Check() {
+    return WalletApi.encode58Check(address);
+  }
+
+  @Benchmark
+  public byte[] decodeFromBase58Check() {
+    return WalletApi.decodeFromBase58Check(base58Check);
+  }
+
+  @Benchmark
+  public String bech32Encode() {
+    return Bech32.encode("ztron", paymentAddress);
+  }
+
+  @Benchmark
+  public Bech32Data bech32Decode() {
+    return Bech32.decode(bech32);
+  }
+}
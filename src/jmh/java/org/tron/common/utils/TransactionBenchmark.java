@@ -0,0 +1,105 @@
+package org.tron.common.utils;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tron.common.crypto.ECKey;
+import org.tron.common.crypto.sm2.SM2;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.contract.BalanceContract.TransferContract;
+import org.tron.walletserver.WalletApi;
+
+/**
+ * Building the data of a TRC20 {@code transfer} call with {@link AbiUtil#parseMethod} and
+ * signing a TRX transfer with {@link TransactionUtils#sign}, the per transaction work of a
+ * payout.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionBenchmark {
+
+  private static final byte[] PRIVATE_KEY = ByteArray.fromHexString(
+      "b5a4cea271ff424d7c31dc12a3e43e401df7a40d7412a15750f3f0b6b5449a28");
+
+  private ECKey ecKey;
+  private SM2 sm2;
+  private Transaction transaction;
+  private String transferParams;
+  private PrintStream out;
+
+  @Setup
+  public void setUp() {
+    ecKey = ECKey.fromPrivate(PRIVATE_KEY);
+    sm2 = SM2.fromPrivate(PRIVATE_KEY);
+    byte[] to = new byte[21];
+    new Random(1).nextBytes(to);
+    to[0] = WalletApi.getAddressPreFixByte();
+    transferParams = "\"" + WalletApi.encode58Check(to) + "\",1000000";
+
+    TransferContract transfer = TransferContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(ecKey.getAddress()))
+        .setToAddress(ByteString.copyFrom(to))
+        .setAmount(1_000_000L)
+        .build();
+    Transaction.raw raw = Transaction.raw.newBuilder()
+        .addContract(Transaction.Contract.newBuilder()
+            .setType(Transaction.Contract.ContractType.TransferContract)
+            .setParameter(Any.pack(transfer)))
+        .setRefBlockBytes(ByteString.copyFrom(new byte[] {0x12, 0x34}))
+        .setRefBlockHash(ByteString.copyFrom(new byte[8]))
+        .setTimestamp(1_600_000_000_000L)
+        .setExpiration(1_600_000_060_000L)
+        .build();
+    transaction = Transaction.newBuilder().setRawData(raw).build();
+
+    // parseMethod prints the selector of every call
+    out = System.out;
+    System.setOut(new PrintStream(new OutputStream() {
+      @Override
+      public void write(int b) {
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+      }
+    }));
+  }
+
+  @TearDown
+  public void tearDown() {
+    System.setOut(out);
+  }
+
+  @Benchmark
+  public String parseMethod() {
+    return AbiUtil.parseMethod("transfer(address,uint256)", transferParams);
+  }
+
+  @Benchmark
+  public Transaction signEcKey() {
+    return TransactionUtils.sign(transaction, ecKey);
+  }
+
+  @Benchmark
+  public Transaction signSm2() {
+    return TransactionUtils.sign(transaction, sm2);
+  }
+}
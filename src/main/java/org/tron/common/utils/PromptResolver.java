@@ -0,0 +1,103 @@
+package org.tron.common.utils;
+
+import java.io.File;
+import java.util.Arrays;
+import org.tron.keystore.StringUtils;
+
+/**
+ * Answers for the console prompts when commands run from a script. Once {@link #enable}d, the
+ * keystore choice, permission id, confirmations and password are taken from here instead of
+ * being read from {@code System.in}; a prompt without an answer fails rather than blocks.
+ */
+public class PromptResolver {
+
+  private static volatile boolean enabled;
+  private static String keystore;
+  private static int permissionId;
+  private static boolean confirm;
+  private static char[] password;
+
+  private PromptResolver() {
+  }
+
+  /**
+   * @param keystore keystore file name, part of it such as the address, or 1-based position;
+   *     null when there is a single keystore
+   * @param confirm the answer to every yes/no confirmation
+   * @param password kept until {@link #disable}, null when no password may be asked for
+   */
+  public static synchronized void enable(String keystore, int permissionId, boolean confirm,
+      char[] password) {
+    disable();
+    PromptResolver.keystore = keystore;
+    PromptResolver.permissionId = permissionId;
+    PromptResolver.confirm = confirm;
+    PromptResolver.password = password;
+    enabled = true;
+  }
+
+  public static synchronized void disable() {
+    enabled = false;
+    if (password != null) {
+      StringUtils.clear(password);
+      password = null;
+    }
+    keystore = null;
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static synchronized File selectKeystore(File[] wallets) {
+    if (wallets.length == 1 && keystore == null) {
+      return wallets[0];
+    }
+    if (keystore == null) {
+      throw new IllegalStateException(
+          "There are " + wallets.length + " keystore files, choose one with --keystore");
+    }
+    for (File wallet : wallets) {
+      if (wallet.getName().equals(keystore)) {
+        return wallet;
+      }
+    }
+    if (!keystore.isEmpty() && keystore.length() < 10 && Utils.isNumericString(keystore)) {
+      int n = Integer.parseInt(keystore);
+      if (n >= 1 && n <= wallets.length) {
+        return wallets[n - 1];
+      }
+    }
+    File match = null;
+    for (File wallet : wallets) {
+      if (wallet.getName().contains(keystore)) {
+        if (match != null) {
+          throw new IllegalStateException("Several keystore files match " + keystore);
+        }
+        match = wallet;
+      }
+    }
+    if (match != null) {
+      return match;
+    }
+    throw new IllegalStateException("No keystore file matches " + keystore);
+  }
+
+  public static synchronized int getPermissionId() {
+    return permissionId;
+  }
+
+  public static synchronized boolean confirm() {
+    return confirm;
+  }
+
+  /**
+   * A copy of the password, for the caller to clear.
+   */
+  public static synchronized char[] password() {
+    if (password == null) {
+      throw new IllegalStateException("A password is needed, give one with --password-file");
+    }
+    return Arrays.copyOf(password, password.length);
+  }
+}
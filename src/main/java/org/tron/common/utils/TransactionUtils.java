@@ -16,6 +16,9 @@
 package org.tron.common.utils;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
 import java.security.SignatureException;
 import java.util.Arrays;
 import java.util.List;
@@ -29,15 +32,20 @@ import org.tron.core.exception.CancelException;
 import org.tron.protos.Protocol.Transaction;
 import org.tron.protos.contract.AccountContract.AccountCreateContract;
 import org.tron.protos.contract.AccountContract.AccountPermissionUpdateContract;
+import org.tron.protos.contract.AccountContract.AccountUpdateContract;
+import org.tron.protos.contract.AccountContract.SetAccountIdContract;
 import org.tron.protos.contract.AssetIssueContractOuterClass.AssetIssueContract;
 import org.tron.protos.contract.AssetIssueContractOuterClass.ParticipateAssetIssueContract;
 import org.tron.protos.contract.AssetIssueContractOuterClass.TransferAssetContract;
 import org.tron.protos.contract.AssetIssueContractOuterClass.UnfreezeAssetContract;
 import org.tron.protos.contract.AssetIssueContractOuterClass.UpdateAssetContract;
+import org.tron.protos.contract.BalanceContract.DelegateResourceContract;
 import org.tron.protos.contract.BalanceContract.FreezeBalanceContract;
 import org.tron.protos.contract.BalanceContract.TransferContract;
+import org.tron.protos.contract.BalanceContract.UnDelegateResourceContract;
 import org.tron.protos.contract.BalanceContract.UnfreezeBalanceContract;
 import org.tron.protos.contract.BalanceContract.WithdrawBalanceContract;
+import org.tron.protos.contract.ShieldContract.ShieldedTransferContract;
 import org.tron.protos.contract.SmartContractOuterClass.CreateSmartContract;
 import org.tron.protos.contract.SmartContractOuterClass.TriggerSmartContract;
 import org.tron.protos.contract.VoteAssetContractOuterClass.VoteAssetContract;
@@ -173,8 +181,23 @@ public class TransactionUtils {
                   .unpack(AccountPermissionUpdateContract.class)
                   .getOwnerAddress();
           break;
+        case AccountUpdateContract:
+          owner =
+              contract
+                  .getParameter()
+                  .unpack(AccountUpdateContract.class)
+                  .getOwnerAddress();
+          break;
+        case SetAccountIdContract:
+          owner =
+              contract
+                  .getParameter()
+                  .unpack(SetAccountIdContract.class)
+                  .getOwnerAddress();
+          break;
         default:
-          return null;
+          owner = readOwnerAddress(contract.getParameter().getValue());
+          return owner.isEmpty() ? null : owner.toByteArray();
       }
       return owner.toByteArray();
     } catch (Exception ex) {
@@ -183,6 +206,110 @@ public class TransactionUtils {
     }
   }
 
+  /**
+   * Field 1 of an encoded contract, which is its {@code owner_address} in every contract type
+   * not listed in {@link #getOwner}, the V2 resource, exchange, market, proposal and witness
+   * contracts among them.
+   */
+  private static ByteString readOwnerAddress(ByteString parameter) throws IOException {
+    CodedInputStream input = parameter.newCodedInput();
+    for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+      if (WireFormat.getTagFieldNumber(tag) == 1
+          && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+        return input.readBytes();
+      }
+      input.skipField(tag);
+    }
+    return ByteString.EMPTY;
+  }
+
+  /**
+   * Address receiving TRX, an asset, resources or a contract call through {@code contract}, null
+   * when the contract type has no recipient or none is set.
+   */
+  public static byte[] getRecipient(Transaction.Contract contract) {
+    ByteString recipient;
+    try {
+      switch (contract.getType()) {
+        case AccountCreateContract:
+          recipient =
+              contract
+                  .getParameter()
+                  .unpack(AccountCreateContract.class).getAccountAddress();
+          break;
+        case TransferContract:
+          recipient =
+              contract
+                  .getParameter()
+                  .unpack(TransferContract.class)
+                  .getToAddress();
+          break;
+        case TransferAssetContract:
+          recipient =
+              contract
+                  .getParameter()
+                  .unpack(TransferAssetContract.class)
+                  .getToAddress();
+          break;
+        case ParticipateAssetIssueContract:
+          recipient =
+              contract
+                  .getParameter()
+                  .unpack(ParticipateAssetIssueContract.class)
+                  .getToAddress();
+          break;
+        case TriggerSmartContract:
+          recipient =
+              contract
+                  .getParameter()
+                  .unpack(TriggerSmartContract.class)
+                  .getContractAddress();
+          break;
+        case FreezeBalanceContract:
+          recipient =
+              contract
+                  .getParameter()
+                  .unpack(FreezeBalanceContract.class)
+                  .getReceiverAddress();
+          break;
+        case UnfreezeBalanceContract:
+          recipient =
+              contract
+                  .getParameter()
+                  .unpack(UnfreezeBalanceContract.class)
+                  .getReceiverAddress();
+          break;
+        case DelegateResourceContract:
+          recipient =
+              contract
+                  .getParameter()
+                  .unpack(DelegateResourceContract.class)
+                  .getReceiverAddress();
+          break;
+        case UnDelegateResourceContract:
+          recipient =
+              contract
+                  .getParameter()
+                  .unpack(UnDelegateResourceContract.class)
+                  .getReceiverAddress();
+          break;
+        case ShieldedTransferContract:
+          recipient =
+              contract
+                  .getParameter()
+                  .unpack(ShieldedTransferContract.class)
+                  .getTransparentToAddress();
+          break;
+        default:
+          return null;
+      }
+      return recipient.isEmpty() ? null : recipient.toByteArray();
+    } catch (Exception ex) {
+      ex.printStackTrace();
+      return null;
+    }
+  }
+
   public static String getBase64FromByteString(ByteString sign) {
     byte[] r = sign.substring(0, 32).toByteArray();
     byte[] s = sign.substring(32, 64).toByteArray();
@@ -284,6 +411,9 @@ public class TransactionUtils {
   }
 
   private static int inputPermissionId() {
+    if (PromptResolver.isEnabled()) {
+      return PromptResolver.getPermissionId();
+    }
     Scanner in = new Scanner(System.in);
     while (true) {
       String input = in.nextLine().trim();
@@ -258,6 +258,14 @@ public class Utils {
 
   public static char[] inputPassword(boolean checkStrength) throws IOException {
     char[] password;
+    if (PromptResolver.isEnabled()) {
+      password = PromptResolver.password();
+      if (checkStrength && !WalletApi.passwordValid(password)) {
+        StringUtils.clear(password);
+        throw new IllegalStateException("The password of --password-file is invalid");
+      }
+      return password;
+    }
     Console cons = System.console();
     while (true) {
       if (cons != null) {
@@ -663,6 +671,9 @@ public class Utils {
   public static boolean confirmEncrption() {
     System.out.println(
         "Please confirm encryption module,if input y or Y means default Eckey, other means SM2.");
+    if (PromptResolver.isEnabled()) {
+      return true;
+    }
     Scanner in = new Scanner(System.in);
     String input = in.nextLine().trim();
     String str = input.split("\\s+")[0];
@@ -1,15 +1,25 @@
 package org.tron.walletcli;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.Base64.Decoder;
 import java.util.Base64.Encoder;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
 import com.google.common.primitives.Longs;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
@@ -31,6 +41,7 @@ import org.tron.common.utils.AbiUtil;
 import org.tron.common.utils.Base58;
 import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.ByteUtil;
+import org.tron.common.utils.PromptResolver;
 import org.tron.common.utils.Utils;
 import org.tron.common.zksnark.JLibrustzcash;
 import org.tron.common.zksnark.LibrustzcashParam;
@@ -65,6 +76,11 @@ import org.tron.protos.contract.SmartContractOuterClass.SmartContract;
 import org.tron.protos.Protocol.Transaction;
 import org.tron.protos.Protocol.TransactionInfo;
 import org.tron.protos.contract.SmartContractOuterClass.SmartContractDataWrapper;
+import org.tron.walletserver.BulkAccountQuery;
+import org.tron.walletserver.ConfirmationTracker;
+import org.tron.walletserver.NodeEndpoint;
+import org.tron.walletserver.PayoutEngine;
+import org.tron.walletserver.TransferExporter;
 import org.tron.walletserver.WalletApi;
 import org.tron.protos.contract.Common.ResourceCode;
 
@@ -75,6 +91,29 @@ public class Client {
   private WalletApiWrapper walletApiWrapper = new WalletApiWrapper();
   private static int retryTime = 3;
 
+  @Parameter(names = {"--execute", "-e"},
+      description = "Run the commands of this file, one per line, or of stdin for -, then exit")
+  private String script;
+
+  @Parameter(names = "--keystore",
+      description = "Keystore file to use in --execute mode: its name, part of it or its number")
+  private String keystore;
+
+  @Parameter(names = "--permission-id", description = "Permission id to sign with in --execute mode")
+  private int permissionId = 0;
+
+  @Parameter(names = "--yes", description = "Answer yes to confirmations in --execute mode")
+  private boolean yes;
+
+  @Parameter(names = "--password-file",
+      description = "Read the password from the first line of this file in --execute mode, "
+          + "such as /dev/fd/3")
+  private String passwordFile;
+
+  private BufferedReader scriptReader;
+  private int failures;
+  private boolean commandFailed;
+
   // note: this is sorted by alpha
   private static String[] commandHelp = {
       "AddTransactionSign",
@@ -84,7 +123,9 @@ public class Client {
       "BackupShieldedTRC20Wallet",
       "BackupWallet",
       "BackupWallet2Base64",
+      "BatchSign InputFile OutputFile [Threads]",
       "BroadcastTransaction",
+      "BulkQueryAccounts",
       "CancelAllUnfreezeV2",
       "ChangePassword",
       "ClearContractABI",
@@ -92,6 +133,7 @@ public class Client {
       "CreateAccount",
       "CreateProposal",
       "CreateWitness",
+      "DecodeEvents",
       "DelegateResource",
       "DeleteProposal",
       "DeployContract contractName ABI byteCode constructor params isHex fee_limit consume_user_resource_percent origin_energy_limit value token_value token_id <library:address,library:address,...> <lib_compiler_version(e.g:v5)>",
@@ -100,6 +142,8 @@ public class Client {
       "ExchangeInject",
       "ExchangeTransaction",
       "ExchangeWithdraw",
+      "ExportBlocks",
+      "ExportTransfers",
       "FreezeBalance",
       "FreezeBalanceV2",
       "GenerateAddress",
@@ -163,11 +207,13 @@ public class Client {
       // "ImportShieldedWallet",
       "ImportWallet",
       "ImportWalletByBase64",
+      "IndexBlocks",
       "ListAssetIssue",
       "ListAssetIssuePaginated",
       "ListExchanges",
       "ListExchangesPaginated",
       "ListNodes",
+      "ListNodeRanking",
       // "ListShieldedAddress",
       // "ListShieldedNote",
       "ListShieldedTRC20Address",
@@ -177,6 +223,7 @@ public class Client {
       // "ListShieldedAddress",
       // "ListShieldedNote",
       "ListWitnesses",
+      "Lock",
       // "LoadShieldedWallet",
       "Login",
       "Logout",
@@ -185,6 +232,7 @@ public class Client {
       "MarketCancelOrder",
       "MarketSellAsset",
       "ParticipateAssetIssue",
+      "Payout CsvFile JournalFile [RequestsPerSecond] [Window]",
       "RegisterWallet",
       // "ResetShieldedNote",
       "ResetShieldedTRC20Note",
@@ -202,6 +250,7 @@ public class Client {
       "SetShieldedTRC20ContractAddress",
       // "ShowShieldedAddressInfo",
       "ShowShieldedTRC20AddressInfo",
+      "Stats [reset]",
       "TransferAsset",
       "TriggerConstantContract contractAddress method args isHex",
       "TriggerContract contractAddress method args isHex fee_limit value",
@@ -209,6 +258,7 @@ public class Client {
       "UnfreezeAsset",
       "UnfreezeBalance",
       "UnfreezeBalanceV2",
+      "Unlock [IdleSeconds]",
       "UpdateAccount",
       "UpdateAccountPermission",
       "UpdateAsset",
@@ -217,6 +267,7 @@ public class Client {
       "UpdateSetting contract_address consume_user_resource_percent",
       "UpdateWitness",
       "VoteWitness",
+      "WaitForTransactions TimeoutSeconds Txid [Txid ...]",
       "WithdrawBalance",
       "WithdrawExpireUnfreeze",
   };
@@ -230,7 +281,9 @@ public class Client {
       "BackupShieldedTRC20Wallet",
       "BackupWallet",
       "BackupWallet2Base64",
+      "BatchSign",
       "BroadcastTransaction",
+      "BulkQueryAccounts",
       "CancelAllUnfreezeV2",
       "ChangePassword",
       "ClearContractABI",
@@ -238,6 +291,7 @@ public class Client {
       "CreateAccount",
       "CreateProposal",
       "CreateWitness",
+      "DecodeEvents",
       "DelegateResource",
       "DeleteProposal",
       "DeployContract",
@@ -246,6 +300,8 @@ public class Client {
       "ExchangeInject",
       "ExchangeTransaction",
       "ExchangeWithdraw",
+      "ExportBlocks",
+      "ExportTransfers",
       "FreezeBalance",
       "FreezeBalanceV2",
       "GenerateAddress",
@@ -310,11 +366,13 @@ public class Client {
       // "ImportShieldedWallet",
       "ImportWallet",
       "ImportWalletByBase64",
+      "IndexBlocks",
       "ListAssetIssue",
       "ListAssetIssuePaginated",
       "ListExchanges",
       "ListExchangesPaginated",
       "ListNodes",
+      "ListNodeRanking",
       // "ListShieldedAddress",
       // "ListShieldedNote",
       "ListShieldedTRC20Address",
@@ -324,6 +382,7 @@ public class Client {
       // "ListShieldedAddress",
       // "ListShieldedNote",
       "ListWitnesses",
+      "Lock",
       "Login",
       "Logout",
       "LoadShieldedTRC20Wallet",
@@ -331,6 +390,7 @@ public class Client {
       "MarketCancelOrder",
       "MarketSellAsset",
       "ParticipateAssetIssue",
+      "Payout",
       "RegisterWallet",
       // "ResetShieldedNote",
       "ResetShieldedTRC20Note",
@@ -348,6 +408,7 @@ public class Client {
       "SetShieldedTRC20ContractAddress",
       // "ShowShieldedAddressInfo",
       "ShowShieldedTRC20AddressInfo",
+      "Stats",
       "TransferAsset",
       "TriggerConstantContract",
       "TriggerContract",
@@ -355,6 +416,7 @@ public class Client {
       "UnfreezeAsset",
       "UnfreezeBalance",
       "UnfreezeBalanceV2",
+      "Unlock",
       "UpdateAccount",
       "UpdateAccountPermission",
       "UpdateAsset",
@@ -363,6 +425,7 @@ public class Client {
       "UpdateSetting",
       "UpdateWitness",
       "VoteWitness",
+      "WaitForTransactions",
       "WithdrawBalance",
       "WithdrawExpireUnfreeze",
   };
@@ -419,7 +482,7 @@ public class Client {
     StringUtils.clear(password);
 
     if (null == fileName) {
-      System.out.println("Register wallet failed !!");
+      printFailure("Register wallet failed !!");
       return;
     }
     System.out.println("Register a wallet successful, keystore file name is " + fileName);
@@ -434,7 +497,7 @@ public class Client {
     StringUtils.clear(priKey);
 
     if (null == fileName) {
-      System.out.println("Import wallet failed !!");
+      printFailure("Import wallet failed !!");
       return;
     }
     System.out.println("Import a wallet successful, keystore file name is " + fileName);
@@ -449,7 +512,7 @@ public class Client {
     StringUtils.clear(priKey);
 
     if (null == fileName) {
-      System.out.println("Import wallet failed !!");
+      printFailure("Import wallet failed !!");
       return;
     }
     System.out.println("Import a wallet successful, keystore file name is " + fileName);
@@ -463,7 +526,7 @@ public class Client {
     if (walletApiWrapper.changePassword(oldPassword, newPassword)) {
       System.out.println("ChangePassword successful !!");
     } else {
-      System.out.println("ChangePassword failed !!");
+      printFailure("ChangePassword failed !!");
     }
   }
 
@@ -472,7 +535,7 @@ public class Client {
     if (result) {
       System.out.println("Login successful !!!");
     } else {
-      System.out.println("Login failed !!!");
+      printFailure("Login failed !!!");
     }
   }
 
@@ -486,7 +549,7 @@ public class Client {
     if (result) {
       System.out.println("LoadShieldedWallet successful !!!");
     } else {
-      System.out.println("LoadShieldedWallet failed !!!");
+      printFailure("LoadShieldedWallet failed !!!");
     }
   }
 
@@ -524,7 +587,7 @@ public class Client {
       System.out.println("GetAddress successful !!");
       System.out.println("address = " + address);
     } else {
-      System.out.println("Warning: GetAddress failed,  Please login first !!");
+      printFailure("Warning: GetAddress failed,  Please login first !!");
     }
   }
 
@@ -539,13 +602,13 @@ public class Client {
       }
       account = WalletApi.queryAccount(addressBytes);
     } else {
-      System.out.println("GetBalance needs no parameter or 1 parameter like the following: ");
+      printFailure("GetBalance needs no parameter or 1 parameter like the following: ");
       System.out.println("GetBalance Address ");
       return;
     }
 
     if (account == null) {
-      System.out.println("GetBalance failed !!!!");
+      printFailure("GetBalance failed !!!!");
     } else {
       long balance = account.getBalance();
       System.out.println("Balance = " + balance);
@@ -554,7 +617,7 @@ public class Client {
 
   private void getAccount(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("GetAccount needs 1 parameter like the following: ");
+      printFailure("GetAccount needs 1 parameter like the following: ");
       System.out.println("GetAccount Address ");
       return;
     }
@@ -566,7 +629,7 @@ public class Client {
 
     Account account = WalletApi.queryAccount(addressBytes);
     if (account == null) {
-      System.out.println("GetAccount failed !!!!");
+      printFailure("GetAccount failed !!!!");
     } else {
       System.out.println(Utils.formatMessageString(account));
     }
@@ -574,7 +637,7 @@ public class Client {
 
   private void getAccountById(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("GetAccountById needs 1 parameter like the following: ");
+      printFailure("GetAccountById needs 1 parameter like the following: ");
       System.out.println("GetAccountById accountId ");
       return;
     }
@@ -582,7 +645,7 @@ public class Client {
 
     Account account = WalletApi.queryAccountById(accountId);
     if (account == null) {
-      System.out.println("GetAccountById failed !!!!");
+      printFailure("GetAccountById failed !!!!");
     } else {
       System.out.println(Utils.formatMessageString(account));
     }
@@ -591,7 +654,7 @@ public class Client {
   private void updateAccount(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || (parameters.length != 1 && parameters.length != 2)) {
-      System.out.println("UpdateAccount needs 1 parameter like the following: ");
+      printFailure("UpdateAccount needs 1 parameter like the following: ");
       System.out.println("UpdateAccount [OwnerAddress] AccountName ");
       return;
     }
@@ -601,7 +664,7 @@ public class Client {
     if (parameters.length == 2) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -612,14 +675,14 @@ public class Client {
     if (ret) {
       System.out.println("Update Account successful !!!!");
     } else {
-      System.out.println("Update Account failed !!!!");
+      printFailure("Update Account failed !!!!");
     }
   }
 
   private void setAccountId(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || (parameters.length != 1 && parameters.length != 2)) {
-      System.out.println("SetAccountId needs 1 parameter like the following: ");
+      printFailure("SetAccountId needs 1 parameter like the following: ");
       System.out.println("SetAccountId [OwnerAddress] AccountId ");
       return;
     }
@@ -629,7 +692,7 @@ public class Client {
     if (parameters.length == 2) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -640,14 +703,14 @@ public class Client {
     if (ret) {
       System.out.println("Set AccountId successful !!!!");
     } else {
-      System.out.println("Set AccountId failed !!!!");
+      printFailure("Set AccountId failed !!!!");
     }
   }
 
   private void updateAsset(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || (parameters.length != 4 && parameters.length != 5)) {
-      System.out.println("UpdateAsset needs 4 parameters like the following: ");
+      printFailure("UpdateAsset needs 4 parameters like the following: ");
       System.out.println("UpdateAsset [OwnerAddress] newLimit newPublicLimit description url");
       return;
     }
@@ -657,7 +720,7 @@ public class Client {
     if (parameters.length == 5) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -676,13 +739,13 @@ public class Client {
     if (ret) {
       System.out.println("Update Asset successful !!!!");
     } else {
-      System.out.println("Update Asset failed !!!!");
+      printFailure("Update Asset failed !!!!");
     }
   }
 
   private void getAssetIssueByAccount(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("GetAssetIssueByAccount needs 1 parameter like following: ");
+      printFailure("GetAssetIssueByAccount needs 1 parameter like following: ");
       System.out.println("GetAssetIssueByAccount Address ");
       return;
     }
@@ -697,13 +760,13 @@ public class Client {
       AssetIssueList assetIssueList = result.get();
       System.out.println(Utils.formatMessageString(assetIssueList));
     } else {
-      System.out.println("GetAssetIssueByAccount failed !!");
+      printFailure("GetAssetIssueByAccount failed !!");
     }
   }
 
   private void getAccountNet(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("GetAccountNet needs 1 parameter like following: ");
+      printFailure("GetAccountNet needs 1 parameter like following: ");
       System.out.println("GetAccountNet Address ");
       return;
     }
@@ -715,7 +778,7 @@ public class Client {
 
     AccountNetMessage result = WalletApi.getAccountNet(addressBytes);
     if (result == null) {
-      System.out.println("GetAccountNet failed !!");
+      printFailure("GetAccountNet failed !!");
     } else {
       System.out.println(Utils.formatMessageString(result));
     }
@@ -723,7 +786,7 @@ public class Client {
 
   private void getAccountResource(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("getAccountResource needs 1 parameter like following: ");
+      printFailure("getAccountResource needs 1 parameter like following: ");
       System.out.println("getAccountResource Address ");
       return;
     }
@@ -735,7 +798,7 @@ public class Client {
 
     AccountResourceMessage result = WalletApi.getAccountResource(addressBytes);
     if (result == null) {
-      System.out.println("getAccountResource failed !!");
+      printFailure("getAccountResource failed !!");
     } else {
       System.out.println(Utils.formatMessageString(result));
     }
@@ -746,7 +809,7 @@ public class Client {
   // This function just remains for compatibility.
   private void getAssetIssueByName(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("GetAssetIssueByName needs 1 parameter like following: ");
+      printFailure("GetAssetIssueByName needs 1 parameter like following: ");
       System.out.println("GetAssetIssueByName AssetName ");
       return;
     }
@@ -756,13 +819,13 @@ public class Client {
     if (assetIssueContract != null) {
       System.out.println(Utils.formatMessageString(assetIssueContract));
     } else {
-      System.out.println("getAssetIssueByName failed !!");
+      printFailure("getAssetIssueByName failed !!");
     }
   }
 
   private void getAssetIssueListByName(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("getAssetIssueListByName needs 1 parameter like following: ");
+      printFailure("getAssetIssueListByName needs 1 parameter like following: ");
       System.out.println("getAssetIssueListByName AssetName ");
       return;
     }
@@ -773,13 +836,13 @@ public class Client {
       AssetIssueList assetIssueList = result.get();
       System.out.println(Utils.formatMessageString(assetIssueList));
     } else {
-      System.out.println("getAssetIssueListByName failed !!");
+      printFailure("getAssetIssueListByName failed !!");
     }
   }
 
   private void getAssetIssueById(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("getAssetIssueById needs 1 parameter like following: ");
+      printFailure("getAssetIssueById needs 1 parameter like following: ");
       System.out.println("getAssetIssueById AssetId ");
       return;
     }
@@ -789,13 +852,13 @@ public class Client {
     if (assetIssueContract != null) {
       System.out.println(Utils.formatMessageString(assetIssueContract));
     } else {
-      System.out.println("getAssetIssueById failed !!");
+      printFailure("getAssetIssueById failed !!");
     }
   }
 
   private void sendCoin(String[] parameters) throws IOException, CipherException, CancelException {
     if (parameters == null || (parameters.length != 2 && parameters.length != 3)) {
-      System.out.println("SendCoin needs 2 parameters like following: ");
+      printFailure("SendCoin needs 2 parameters like following: ");
       System.out.println("SendCoin [OwnerAddress] ToAddress Amount");
       return;
     }
@@ -805,7 +868,7 @@ public class Client {
     if (parameters.length == 3) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -813,7 +876,7 @@ public class Client {
     String base58ToAddress = parameters[index++];
     byte[] toAddress = WalletApi.decodeFromBase58Check(base58ToAddress);
     if (toAddress == null) {
-      System.out.println("Invalid toAddress.");
+      printFailure("Invalid toAddress.");
       return;
     }
 
@@ -824,14 +887,14 @@ public class Client {
     if (result) {
       System.out.println("Send " + amount + " Sun to " + base58ToAddress + " successful !!");
     } else {
-      System.out.println("Send " + amount + " Sun to " + base58ToAddress + " failed !!");
+      printFailure("Send " + amount + " Sun to " + base58ToAddress + " failed !!");
     }
   }
 
   private void transferAsset(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || (parameters.length != 3 && parameters.length != 4)) {
-      System.out.println("TransferAsset needs 3 parameters using the following syntax: ");
+      printFailure("TransferAsset needs 3 parameters using the following syntax: ");
       System.out.println("TransferAsset [OwnerAddress] ToAddress AssertID Amount");
       return;
     }
@@ -841,7 +904,7 @@ public class Client {
     if (parameters.length == 4) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -849,7 +912,7 @@ public class Client {
     String base58Address = parameters[index++];
     byte[] toAddress = WalletApi.decodeFromBase58Check(base58Address);
     if (toAddress == null) {
-      System.out.println("Invalid toAddress.");
+      printFailure("Invalid toAddress.");
       return;
     }
     String assertName = parameters[index++];
@@ -860,14 +923,14 @@ public class Client {
     if (result) {
       System.out.println("TransferAsset " + amount + " to " + base58Address + " successful !!");
     } else {
-      System.out.println("TransferAsset " + amount + " to " + base58Address + " failed !!");
+      printFailure("TransferAsset " + amount + " to " + base58Address + " failed !!");
     }
   }
 
   private void participateAssetIssue(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || (parameters.length != 3 && parameters.length != 4)) {
-      System.out.println("ParticipateAssetIssue needs 3 parameters using the following syntax: ");
+      printFailure("ParticipateAssetIssue needs 3 parameters using the following syntax: ");
       System.out.println("ParticipateAssetIssue [OwnerAddress] ToAddress AssetID Amount");
       return;
     }
@@ -877,7 +940,7 @@ public class Client {
     if (parameters.length == 4) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -885,7 +948,7 @@ public class Client {
     String base58Address = parameters[index++];
     byte[] toAddress = WalletApi.decodeFromBase58Check(base58Address);
     if (toAddress == null) {
-      System.out.println("Invalid toAddress.");
+      printFailure("Invalid toAddress.");
       return;
     }
 
@@ -899,7 +962,7 @@ public class Client {
       System.out.println("ParticipateAssetIssue " + assertName + " " + amount + " from " + base58Address
               + " successful !!");
     } else {
-      System.out.println("ParticipateAssetIssue " + assertName + " " + amount + " from " + base58Address
+      printFailure("ParticipateAssetIssue " + assertName + " " + amount + " from " + base58Address
               + " failed !!");
     }
   }
@@ -921,7 +984,7 @@ public class Client {
     if ((parameters.length & 1) == 1) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -953,7 +1016,7 @@ public class Client {
     if (startDate == null || endDate == null) {
       System.out
           .println("The StartDate and EndDate format should look like 2018-03-01 2018-03-21 .");
-      System.out.println("AssetIssue " + name + " failed !!");
+      printFailure("AssetIssue " + name + " failed !!");
       return;
     }
     long startTime = startDate.getTime();
@@ -967,14 +1030,14 @@ public class Client {
     if (result) {
       System.out.println("AssetIssue " + name + " successful !!");
     } else {
-      System.out.println("AssetIssue " + name + " failed !!");
+      printFailure("AssetIssue " + name + " failed !!");
     }
   }
 
   private void createAccount(String[] parameters)
       throws CipherException, IOException, CancelException {
     if (parameters == null || (parameters.length != 1 && parameters.length != 2)) {
-      System.out.println("CreateAccount needs 1 parameter using the following syntax: ");
+      printFailure("CreateAccount needs 1 parameter using the following syntax: ");
       System.out.println("CreateAccount [OwnerAddress] Address");
       return;
     }
@@ -984,14 +1047,14 @@ public class Client {
     if (parameters.length == 2) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
 
     byte[] address = WalletApi.decodeFromBase58Check(parameters[index++]);
     if (address == null) {
-      System.out.println("Invalid Address.");
+      printFailure("Invalid Address.");
       return;
     }
 
@@ -999,14 +1062,14 @@ public class Client {
     if (result) {
       System.out.println("CreateAccount successful !!");
     } else {
-      System.out.println("CreateAccount failed !!");
+      printFailure("CreateAccount failed !!");
     }
   }
 
   private void createWitness(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || (parameters.length != 1 && parameters.length != 2)) {
-      System.out.println("CreateWitness needs 1 parameter using the following syntax: ");
+      printFailure("CreateWitness needs 1 parameter using the following syntax: ");
       System.out.println("CreateWitness [OwnerAddress] Url");
       return;
     }
@@ -1016,7 +1079,7 @@ public class Client {
     if (parameters.length == 2) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -1027,14 +1090,14 @@ public class Client {
     if (result) {
       System.out.println("CreateWitness successful !!");
     } else {
-      System.out.println("CreateWitness failed !!");
+      printFailure("CreateWitness failed !!");
     }
   }
 
   private void updateWitness(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || (parameters.length != 1 && parameters.length != 2)) {
-      System.out.println("updateWitness needs 1 parameter using the following syntax: ");
+      printFailure("updateWitness needs 1 parameter using the following syntax: ");
       System.out.println("updateWitness [OwnerAddress] Url");
       return;
     }
@@ -1044,7 +1107,7 @@ public class Client {
     if (parameters.length == 2) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -1054,7 +1117,7 @@ public class Client {
     if (result) {
       System.out.println("updateWitness successful !!");
     } else {
-      System.out.println("updateWitness failed !!");
+      printFailure("updateWitness failed !!");
     }
   }
 
@@ -1064,7 +1127,7 @@ public class Client {
       WitnessList witnessList = result.get();
       System.out.println(Utils.formatMessageString(witnessList));
     } else {
-      System.out.println("List witnesses failed !!");
+      printFailure("List witnesses failed !!");
     }
   }
 
@@ -1074,13 +1137,13 @@ public class Client {
       AssetIssueList assetIssueList = result.get();
       System.out.println(Utils.formatMessageString(assetIssueList));
     } else {
-      System.out.println("GetAssetIssueList failed !!");
+      printFailure("GetAssetIssueList failed !!");
     }
   }
 
   private void getAssetIssueList(String[] parameters) {
     if (parameters == null || parameters.length != 2) {
-      System.out.println("ListAssetIssuePaginated needs 2 parameters using the following syntax: ");
+      printFailure("ListAssetIssuePaginated needs 2 parameters using the following syntax: ");
       System.out.println("ListAssetIssuePaginated offset limit ");
       return;
     }
@@ -1091,13 +1154,13 @@ public class Client {
       AssetIssueList assetIssueList = result.get();
       System.out.println(Utils.formatMessageString(assetIssueList));
     } else {
-      System.out.println("GetAssetIssueListPaginated failed !!!");
+      printFailure("GetAssetIssueListPaginated failed !!!");
     }
   }
 
   private void getProposalsListPaginated(String[] parameters) {
     if (parameters == null || parameters.length != 2) {
-      System.out.println("ListProposalsPaginated needs 2 parameters use the following syntax:");
+      printFailure("ListProposalsPaginated needs 2 parameters use the following syntax:");
       System.out.println("ListProposalsPaginated offset limit ");
       return;
     }
@@ -1108,7 +1171,7 @@ public class Client {
       ProposalList proposalList = result.get();
       System.out.println(Utils.formatMessageString(proposalList));
     } else {
-      System.out.println("ListProposalsPaginated failed !!!");
+      printFailure("ListProposalsPaginated failed !!!");
     }
   }
 
@@ -1126,7 +1189,7 @@ public class Client {
       ExchangeList exchangeList = result.get();
       System.out.println(Utils.formatMessageString(exchangeList));
     } else {
-      System.out.println("ListExchangesPaginated failed !!!");
+      printFailure("ListExchangesPaginated failed !!!");
     }
   }
 
@@ -1141,7 +1204,7 @@ public class Client {
         System.out.println("Port::" + node.getAddress().getPort());
       }
     } else {
-      System.out.println("GetAssetIssueList " + " failed !!!");
+      printFailure("GetAssetIssueList " + " failed !!!");
     }
   }
 
@@ -1164,14 +1227,14 @@ public class Client {
     if (WalletApi.getRpcVersion() == 2) {
       BlockExtention blockExtention = walletApiWrapper.getBlock2(blockNum);
       if (blockExtention == null) {
-        System.out.println("No block for num : " + blockNum);
+        printFailure("No block for num : " + blockNum);
         return;
       }
       System.out.println(Utils.printBlockExtention(blockExtention));
     } else {
       Block block = walletApiWrapper.getBlock(blockNum);
       if (block == null) {
-        System.out.println("No block for num : " + blockNum);
+        printFailure("No block for num : " + blockNum);
         return;
       }
       System.out.println(Utils.printBlock(block));
@@ -1203,7 +1266,7 @@ public class Client {
     if ((parameters.length & 1) != 0) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -1219,7 +1282,7 @@ public class Client {
     if (result) {
       System.out.println("VoteWitness successful !!!");
     } else {
-      System.out.println("VoteWitness failed !!!");
+      printFailure("VoteWitness failed !!!");
     }
   }
 
@@ -1272,7 +1335,7 @@ public class Client {
     if (result) {
       System.out.println("FreezeBalance successful !!!");
     } else {
-      System.out.println("FreezeBalance failed !!!");
+      printFailure("FreezeBalance failed !!!");
     }
   }
 
@@ -1311,7 +1374,7 @@ public class Client {
     if (result) {
       System.out.println("freezeBalanceV2 successful !!!");
     } else {
-      System.out.println("freezeBalanceV2 failed !!!");
+      printFailure("freezeBalanceV2 failed !!!");
     }
   }
 
@@ -1349,7 +1412,7 @@ public class Client {
     if (result) {
       System.out.println("UnfreezeBalance successful !!!");
     } else {
-      System.out.println("UnfreezeBalance failed !!!");
+      printFailure("UnfreezeBalance failed !!!");
     }
   }
 
@@ -1386,7 +1449,7 @@ public class Client {
     if (result) {
       System.out.println("unfreezeBalanceV2 successful !!!");
     } else {
-      System.out.println("unfreezeBalanceV2 failed !!!");
+      printFailure("unfreezeBalanceV2 failed !!!");
     }
   }
 
@@ -1413,7 +1476,7 @@ public class Client {
     if (result) {
       System.out.println("withdrawExpireUnfreeze successful !!!");
     } else {
-      System.out.println("withdrawExpireUnfreeze failed !!!");
+      printFailure("withdrawExpireUnfreeze failed !!!");
     }
   }
 
@@ -1472,7 +1535,7 @@ public class Client {
     if (result) {
       System.out.println("delegateResource successful !!!");
     } else {
-      System.out.println("delegateResource failed !!!");
+      printFailure("delegateResource failed !!!");
     }
   }
 
@@ -1520,7 +1583,7 @@ public class Client {
     if (result) {
       System.out.println("unDelegateResource successful !!!");
     } else {
-      System.out.println("unDelegateResource failed !!!");
+      printFailure("unDelegateResource failed !!!");
     }
   }
 
@@ -1535,7 +1598,7 @@ public class Client {
     if (result) {
       System.out.println("cancelAllUnfreezeV2 successful !!!");
     } else {
-      System.out.println("cancelAllUnfreezeV2 failed !!!");
+      printFailure("cancelAllUnfreezeV2 failed !!!");
     }
   }
 
@@ -1578,7 +1641,7 @@ public class Client {
     if (parameters != null && parameters.length > 0) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[0]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -1587,7 +1650,7 @@ public class Client {
     if (result) {
       System.out.println("UnfreezeAsset successful !!!");
     } else {
-      System.out.println("UnfreezeAsset failed !!!");
+      printFailure("UnfreezeAsset failed !!!");
     }
   }
 
@@ -1604,7 +1667,7 @@ public class Client {
     if ((parameters.length & 1) != 0) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -1619,7 +1682,7 @@ public class Client {
     if (result) {
       System.out.println("CreateProposal successful !!");
     } else {
-      System.out.println("CreateProposal failed !!");
+      printFailure("CreateProposal failed !!");
     }
   }
 
@@ -1636,7 +1699,7 @@ public class Client {
     if (parameters.length == 3) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -1647,7 +1710,7 @@ public class Client {
     if (result) {
       System.out.println("ApproveProposal successful !!!");
     } else {
-      System.out.println("ApproveProposal failed !!!");
+      printFailure("ApproveProposal failed !!!");
     }
   }
 
@@ -1664,7 +1727,7 @@ public class Client {
     if (parameters.length == 2) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -1674,7 +1737,7 @@ public class Client {
     if (result) {
       System.out.println("DeleteProposal successful !!!");
     } else {
-      System.out.println("DeleteProposal failed !!!");
+      printFailure("DeleteProposal failed !!!");
     }
   }
 
@@ -1684,13 +1747,13 @@ public class Client {
       ProposalList proposalList = result.get();
       System.out.println(Utils.formatMessageString(proposalList));
     } else {
-      System.out.println("List witnesses failed !!!");
+      printFailure("List witnesses failed !!!");
     }
   }
 
   private void getProposal(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("Using getProposal command needs 1 parameter like: ");
+      printFailure("Using getProposal command needs 1 parameter like: ");
       System.out.println("getProposal id ");
       return;
     }
@@ -1701,14 +1764,14 @@ public class Client {
       Proposal proposal = result.get();
       System.out.println(Utils.formatMessageString(proposal));
     } else {
-      System.out.println("GetProposal failed !!!");
+      printFailure("GetProposal failed !!!");
     }
   }
 
 
   private void getDelegatedResource(String[] parameters) {
     if (parameters == null || parameters.length != 2) {
-      System.out.println("Using getDelegatedResource command needs 2 parameters like: ");
+      printFailure("Using getDelegatedResource command needs 2 parameters like: ");
       System.out.println("getDelegatedResource fromAddress toAddress");
       return;
     }
@@ -1719,13 +1782,13 @@ public class Client {
       DelegatedResourceList delegatedResourceList = result.get();
       System.out.println(Utils.formatMessageString(delegatedResourceList));
     } else {
-      System.out.println("GetDelegatedResource failed !!!");
+      printFailure("GetDelegatedResource failed !!!");
     }
   }
 
   private void getDelegatedResourceAccountIndex(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("Using getDelegatedResourceAccountIndex command needs 1 parameters like: ");
+      printFailure("Using getDelegatedResourceAccountIndex command needs 1 parameters like: ");
       System.out.println("getDelegatedResourceAccountIndex ownerAddress");
       return;
     }
@@ -1735,13 +1798,13 @@ public class Client {
       DelegatedResourceAccountIndex delegatedResourceAccountIndex = result.get();
       System.out.println(Utils.formatMessageString(delegatedResourceAccountIndex));
     } else {
-      System.out.println("GetDelegatedResourceAccountIndex failed !!!");
+      printFailure("GetDelegatedResourceAccountIndex failed !!!");
     }
   }
 
   private void getDelegatedResourceV2(String[] parameters) {
     if (parameters == null || parameters.length != 2) {
-      System.out.println("Using getdelegatedresourcev2 command needs 2 parameters like: ");
+      printFailure("Using getdelegatedresourcev2 command needs 2 parameters like: ");
       System.out.println("getdelegatedresourcev2 fromAddress toAddress");
       return;
     }
@@ -1752,13 +1815,13 @@ public class Client {
       DelegatedResourceList delegatedResourceList = result.get();
       System.out.println(Utils.formatMessageString(delegatedResourceList));
     } else {
-      System.out.println("GetDelegatedResourceV2 failed !!!");
+      printFailure("GetDelegatedResourceV2 failed !!!");
     }
   }
 
   private void getDelegatedResourceAccountIndexV2(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("Using getDelegatedResourceAccountIndexV2 command needs 1 parameters like: ");
+      printFailure("Using getDelegatedResourceAccountIndexV2 command needs 1 parameters like: ");
       System.out.println("getdelegatedresourceaccountindexv2 ownerAddress");
       return;
     }
@@ -1768,12 +1831,12 @@ public class Client {
       DelegatedResourceAccountIndex delegatedResourceAccountIndex = result.get();
       System.out.println(Utils.formatMessageString(delegatedResourceAccountIndex));
     } else {
-      System.out.println("GetDelegatedResourceAccountIndexV2 failed !!!");
+      printFailure("GetDelegatedResourceAccountIndexV2 failed !!!");
     }
   }
 
   private void outputGetCanWithdrawUnfreezeAmountTip() {
-    System.out.println("Using getCanWithdrawUnfreezeAmount command needs 2 parameters like: ");
+    printFailure("Using getCanWithdrawUnfreezeAmount command needs 2 parameters like: ");
     System.out.println("getcanwithdrawunfreezeamount ownerAddress timestamp");
   }
 
@@ -1790,7 +1853,7 @@ public class Client {
       try {
         timestamp = Long.parseLong(parameters[index]);
         if (timestamp < 0) {
-          System.out.println("Invalid param, timestamp >= 0");
+          printFailure("Invalid param, timestamp >= 0");
           return;
         }
       } catch (NumberFormatException nfe) {
@@ -1813,7 +1876,7 @@ public class Client {
       try {
         timestamp = Long.parseLong(parameters[index]);
         if (timestamp < 0) {
-          System.out.println("Invalid param, timestamp >= 0");
+          printFailure("Invalid param, timestamp >= 0");
           return;
         }
       } catch (NumberFormatException nfe) {
@@ -1828,13 +1891,13 @@ public class Client {
       CanWithdrawUnfreezeAmountResponseMessage canWithdrawUnfreezeAmountResponseMessage = result.get();
       System.out.println(Utils.formatMessageString(canWithdrawUnfreezeAmountResponseMessage));
     } else {
-      System.out.println("GetCanWithdrawUnfreezeAmount failed !!!");
+      printFailure("GetCanWithdrawUnfreezeAmount failed !!!");
     }
   }
 
 
   private void outputGetCanDelegatedMaxSizeTip() {
-    System.out.println("Using getcandelegatedmaxsize command needs 2 parameters like: ");
+    printFailure("Using getcandelegatedmaxsize command needs 2 parameters like: ");
     System.out.println("getcandelegatedmaxsize ownerAddress type");
   }
 
@@ -1888,12 +1951,12 @@ public class Client {
       CanDelegatedMaxSizeResponseMessage canDelegatedMaxSizeResponseMessage = result.get();
       System.out.println(Utils.formatMessageString(canDelegatedMaxSizeResponseMessage));
     } else {
-      System.out.println("GetCanDelegatedMaxSize failed !!!");
+      printFailure("GetCanDelegatedMaxSize failed !!!");
     }
   }
 
   private void outputGetAvailableUnfreezeCountTip() {
-    System.out.println("Using getavailableunfreezecount command needs 1 parameters like: ");
+    printFailure("Using getavailableunfreezecount command needs 1 parameters like: ");
     System.out.println("getavailableunfreezecount owner_address ");
   }
 
@@ -1923,14 +1986,14 @@ public class Client {
       GetAvailableUnfreezeCountResponseMessage getAvailableUnfreezeCountResponseMessage = result.get();
       System.out.println(Utils.formatMessageString(getAvailableUnfreezeCountResponseMessage));
     } else {
-      System.out.println("GetAvailableUnfreezeCount failed !!!");
+      printFailure("GetAvailableUnfreezeCount failed !!!");
     }
   }
 
   private void exchangeCreate(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || (parameters.length != 4 && parameters.length != 5)) {
-      System.out.println("Using exchangeCreate command needs 4 or 5 parameters like: ");
+      printFailure("Using exchangeCreate command needs 4 or 5 parameters like: ");
       System.out.println("exchangeCreate [OwnerAddress] first_token_id first_token_balance "
           + "second_token_id second_token_balance");
       return;
@@ -1941,7 +2004,7 @@ public class Client {
     if (parameters.length == 5) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -1955,14 +2018,14 @@ public class Client {
     if (result) {
       System.out.println("ExchangeCreate successful !!!");
     } else {
-      System.out.println("ExchangeCreate failed !!!");
+      printFailure("ExchangeCreate failed !!!");
     }
   }
 
   private void exchangeInject(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || (parameters.length != 3 && parameters.length != 4)) {
-      System.out.println("Using exchangeInject command needs 3 or 4 parameters like: ");
+      printFailure("Using exchangeInject command needs 3 or 4 parameters like: ");
       System.out.println("exchangeInject [OwnerAddress] exchange_id token_id quantity");
       return;
     }
@@ -1972,7 +2035,7 @@ public class Client {
     if (parameters.length == 4) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -1984,14 +2047,14 @@ public class Client {
     if (result) {
       System.out.println("ExchangeInject successful !!!");
     } else {
-      System.out.println("ExchangeInject failed !!!");
+      printFailure("ExchangeInject failed !!!");
     }
   }
 
   private void exchangeWithdraw(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || (parameters.length != 3 && parameters.length != 4)) {
-      System.out.println("Using exchangeWithdraw command needs 3 or 4 parameters like: ");
+      printFailure("Using exchangeWithdraw command needs 3 or 4 parameters like: ");
       System.out.println("exchangeWithdraw [OwnerAddress] exchange_id token_id quantity");
       return;
     }
@@ -2001,7 +2064,7 @@ public class Client {
     if (parameters.length == 4) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -2013,14 +2076,14 @@ public class Client {
     if (result) {
       System.out.println("ExchangeWithdraw successful !!!");
     } else {
-      System.out.println("ExchangeWithdraw failed !!!");
+      printFailure("ExchangeWithdraw failed !!!");
     }
   }
 
   private void exchangeTransaction(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || (parameters.length != 4 && parameters.length != 5)) {
-      System.out.println("Using exchangeTransaction command needs 4 or 5 parameters like: ");
+      printFailure("Using exchangeTransaction command needs 4 or 5 parameters like: ");
       System.out
           .println("exchangeTransaction [OwnerAddress] exchange_id token_id quantity expected");
       return;
@@ -2031,7 +2094,7 @@ public class Client {
     if (parameters.length == 5) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -2045,7 +2108,7 @@ public class Client {
     if (result) {
       System.out.println("ExchangeTransaction successful !!!");
     } else {
-      System.out.println("ExchangeTransaction failed !!!");
+      printFailure("ExchangeTransaction failed !!!");
     }
   }
 
@@ -2055,13 +2118,13 @@ public class Client {
       ExchangeList exchangeList = result.get();
       System.out.println(Utils.formatMessageString(exchangeList));
     } else {
-      System.out.println("ListExchanges failed !!!");
+      printFailure("ListExchanges failed !!!");
     }
   }
 
   private void getExchange(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("Using getExchange command needs 1 parameter like: ");
+      printFailure("Using getExchange command needs 1 parameter like: ");
       System.out.println("getExchange id");
       return;
     }
@@ -2072,7 +2135,7 @@ public class Client {
       Exchange exchange = result.get();
       System.out.println(Utils.formatMessageString(exchange));
     } else {
-      System.out.println("GetExchange failed !!!");
+      printFailure("GetExchange failed !!!");
     }
   }
 
@@ -2084,7 +2147,7 @@ public class Client {
     if (parameters != null && parameters.length > 0) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[0]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -2093,7 +2156,7 @@ public class Client {
     if (result) {
       System.out.println("WithdrawBalance successful !!!");
     } else {
-      System.out.println("WithdrawBalance failed !!!");
+      printFailure("WithdrawBalance failed !!!");
     }
   }
 
@@ -2112,7 +2175,7 @@ public class Client {
   private void getTransactionById(String[] parameters) {
     String txid = "";
     if (parameters == null || parameters.length != 1) {
-      System.out.println("Using getTransactionById command needs 1 parameter, transaction id");
+      printFailure("Using getTransactionById command needs 1 parameter, transaction id");
       return;
     } else {
       txid = parameters[0];
@@ -2122,14 +2185,14 @@ public class Client {
       Transaction transaction = result.get();
       System.out.println(Utils.printTransaction(transaction));
     } else {
-      System.out.println("GetTransactionById failed !!");
+      printFailure("GetTransactionById failed !!");
     }
   }
 
   private void getTransactionInfoById(String[] parameters) {
     String txid = "";
     if (parameters == null || parameters.length != 1) {
-      System.out.println("Using getTransactionInfoById command needs 1 parameter, transaction id");
+      printFailure("Using getTransactionInfoById command needs 1 parameter, transaction id");
       return;
     } else {
       txid = parameters[0];
@@ -2139,13 +2202,13 @@ public class Client {
       TransactionInfo transactionInfo = result.get();
       System.out.println(Utils.formatMessageString(transactionInfo));
     } else {
-      System.out.println("GetTransactionInfoById failed !!!");
+      printFailure("GetTransactionInfoById failed !!!");
     }
   }
 
   private void getTransactionsFromThis(String[] parameters) {
     if (parameters == null || parameters.length != 3) {
-      System.out.println("Using getTransactionsFromThis command needs 3 parameters like: ");
+      printFailure("Using getTransactionsFromThis command needs 3 parameters like: ");
       System.out.println("getTransactionsFromThis Address offset limit");
       return;
     }
@@ -2168,7 +2231,7 @@ public class Client {
         }
         System.out.println(Utils.printTransactionList(transactionList));
       } else {
-        System.out.println("GetTransactionsFromThis failed !!!");
+        printFailure("GetTransactionsFromThis failed !!!");
       }
     } else {
       Optional<TransactionList> result = WalletApi
@@ -2181,7 +2244,7 @@ public class Client {
         }
         System.out.println(Utils.printTransactionList(transactionList));
       } else {
-        System.out.println("GetTransactionsFromThis failed !!!");
+        printFailure("GetTransactionsFromThis failed !!!");
       }
     }
   }
@@ -2211,7 +2274,7 @@ public class Client {
         }
         System.out.println(Utils.printTransactionList(transactionList));
       } else {
-        System.out.println("getTransactionsToThis failed !!!");
+        printFailure("getTransactionsToThis failed !!!");
       }
     } else {
       Optional<TransactionList> result = WalletApi
@@ -2224,7 +2287,7 @@ public class Client {
         }
         System.out.println(Utils.printTransactionList(transactionList));
       } else {
-        System.out.println("getTransactionsToThis failed !!!");
+        printFailure("getTransactionsToThis failed !!!");
       }
     }
   }
@@ -2248,7 +2311,7 @@ public class Client {
   private void getBlockById(String[] parameters) {
     String blockID = "";
     if (parameters == null || parameters.length != 1) {
-      System.out.println("Using getBlockById command needs 1 parameter like: ");
+      printFailure("Using getBlockById command needs 1 parameter like: ");
       return;
     } else {
       blockID = parameters[0];
@@ -2258,7 +2321,7 @@ public class Client {
       Block block = result.get();
       System.out.println(Utils.printBlock(block));
     } else {
-      System.out.println("GetBlockById failed !!");
+      printFailure("GetBlockById failed !!");
     }
   }
 
@@ -2281,7 +2344,7 @@ public class Client {
         BlockListExtention blockList = result.get();
         System.out.println(Utils.printBlockList(blockList));
       } else {
-        System.out.println("GetBlockByLimitNext failed !!");
+        printFailure("GetBlockByLimitNext failed !!");
       }
     } else {
       Optional<BlockList> result = WalletApi.getBlockByLimitNext(start, end);
@@ -2289,7 +2352,7 @@ public class Client {
         BlockList blockList = result.get();
         System.out.println(Utils.printBlockList(blockList));
       } else {
-        System.out.println("GetBlockByLimitNext failed !!");
+        printFailure("GetBlockByLimitNext failed !!");
       }
     }
   }
@@ -2297,7 +2360,7 @@ public class Client {
   private void getBlockByLatestNum(String[] parameters) {
     long num = 0;
     if (parameters == null || parameters.length != 1) {
-      System.out.println("Using getBlockByLatestNum command needs 1 parameter, block_num");
+      printFailure("Using getBlockByLatestNum command needs 1 parameter, block_num");
       return;
     } else {
       num = Long.parseLong(parameters[0]);
@@ -2312,7 +2375,7 @@ public class Client {
         }
         System.out.println(Utils.printBlockList(blockList));
       } else {
-        System.out.println("GetBlockByLimitNext failed !!");
+        printFailure("GetBlockByLimitNext failed !!");
       }
     } else {
       Optional<BlockList> result = WalletApi.getBlockByLatestNum(num);
@@ -2324,7 +2387,7 @@ public class Client {
         }
         System.out.println(Utils.printBlockList(blockList));
       } else {
-        System.out.println("GetBlockByLimitNext failed !!");
+        printFailure("GetBlockByLimitNext failed !!");
       }
     }
   }
@@ -2342,14 +2405,14 @@ public class Client {
     if (parameters.length == 3) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
 
     byte[] contractAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
     if (contractAddress == null) {
-      System.out.println("Invalid contractAddress.");
+      printFailure("Invalid contractAddress.");
       return;
     }
 
@@ -2363,14 +2426,14 @@ public class Client {
     if (result) {
       System.out.println("UpdateSetting successful !!!");
     } else {
-      System.out.println("UpdateSetting failed !!!");
+      printFailure("UpdateSetting failed !!!");
     }
   }
 
   private void updateEnergyLimit(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || (parameters.length != 2 && parameters.length != 3)) {
-      System.out.println("Using updateEnergyLimit command needs 2 parameters like: ");
+      printFailure("Using updateEnergyLimit command needs 2 parameters like: ");
       System.out.println("updateEnergyLimit [OwnerAddress] contract_address energy_limit");
       return;
     }
@@ -2380,20 +2443,20 @@ public class Client {
     if (parameters.length == 3) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
 
     byte[] contractAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
     if (contractAddress == null) {
-      System.out.println("Invalid contractAddress.");
+      printFailure("Invalid contractAddress.");
       return;
     }
 
     long originEnergyLimit = Long.valueOf(parameters[index++]).longValue();
     if (originEnergyLimit < 0) {
-      System.out.println("origin_energy_limit need > 0 ");
+      printFailure("origin_energy_limit need > 0 ");
       return;
     }
     boolean result = walletApiWrapper
@@ -2401,14 +2464,14 @@ public class Client {
     if (result) {
       System.out.println("UpdateSetting for origin_energy_limit successful !!!");
     } else {
-      System.out.println("UpdateSetting for origin_energy_limit failed !!!");
+      printFailure("UpdateSetting for origin_energy_limit failed !!!");
     }
   }
 
   private void clearContractABI(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || (parameters.length != 1 && parameters.length != 2)) {
-      System.out.println("Using clearContractABI command needs 1 or 2 parameters like: ");
+      printFailure("Using clearContractABI command needs 1 or 2 parameters like: ");
       System.out.println("clearContractABI [OwnerAddress] contract_address");
       return;
     }
@@ -2418,7 +2481,7 @@ public class Client {
     if (parameters.length == 2) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -2432,14 +2495,14 @@ public class Client {
     if (result) {
       System.out.println("ClearContractABI successful !!!");
     } else {
-      System.out.println("ClearContractABI failed !!!");
+      printFailure("ClearContractABI failed !!!");
     }
   }
 
   private void updateBrokerage(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || parameters.length != 2) {
-      System.out.println("Using updateBrokerage command needs 2 parameters like: ");
+      printFailure("Using updateBrokerage command needs 2 parameters like: ");
       System.out.println("updateBrokerage OwnerAddress brokerage");
       return;
     }
@@ -2449,7 +2512,7 @@ public class Client {
 
     ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
     if (ownerAddress == null) {
-      System.out.println("Invalid OwnerAddress.");
+      printFailure("Invalid OwnerAddress.");
       return;
     }
 
@@ -2462,7 +2525,7 @@ public class Client {
     if (result) {
       System.out.println("UpdateBrokerage successful !!!");
     } else {
-      System.out.println("UpdateBrokerage failed !!!");
+      printFailure("UpdateBrokerage failed !!!");
     }
   }
 
@@ -2472,11 +2535,11 @@ public class Client {
     if (parameters.length == 1) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     } else {
-      System.out.println("Using getReward command needs 1 parameter like: ");
+      printFailure("Using getReward command needs 1 parameter like: ");
       System.out.println("getReward [OwnerAddress]");
       return;
     }
@@ -2490,7 +2553,7 @@ public class Client {
     if (parameters.length == 1) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     } else {
@@ -2504,7 +2567,7 @@ public class Client {
 
   private void getTransactionInfoByBlockNum(String[] parameters) {
     if (parameters.length != 1) {
-      System.out.println("You need input number with the following syntax:");
+      printFailure("You need input number with the following syntax:");
       System.out.println("GetTransactionInfoByBlockNum number");
       return;
     }
@@ -2520,7 +2583,7 @@ public class Client {
         System.out.println(Utils.printTransactionInfoList(transactionInfoList));
       }
     } else {
-      System.out.println("GetTransactionInfoByBlockNum failed !!!");
+      printFailure("GetTransactionInfoByBlockNum failed !!!");
     }
 
   }
@@ -2629,7 +2692,7 @@ public class Client {
       System.out.println("Broadcast the createSmartContract successful.\n"
           + "Please check the given transaction id to confirm deploy status on blockchain using getTransactionInfoById command.");
     } else {
-      System.out.println("Broadcast the createSmartContract failed !!!");
+      printFailure("Broadcast the createSmartContract failed !!!");
     }
   }
 
@@ -2637,7 +2700,7 @@ public class Client {
       throws IOException, CipherException, CancelException {
 
     if (parameters == null || (parameters.length != 5 && parameters.length != 8)) {
-      System.out.println("DeployConstantContract needs at least 4 parameters like: ");
+      printFailure("DeployConstantContract needs at least 4 parameters like: ");
       System.out.println("DeployConstantContract ownerAddress(use # if you own)"
           + " byteCode constructor params isHex [value token_value token_id]");
       return;
@@ -2650,7 +2713,7 @@ public class Client {
     if (!"#".equals(ownerAddressStr)) {
       ownerAddress = WalletApi.decodeFromBase58Check(ownerAddressStr);
       if (ownerAddress == null) {
-        System.out.println("Invalid Owner Address.");
+        printFailure("Invalid Owner Address.");
         return;
       }
     }
@@ -2688,7 +2751,7 @@ public class Client {
       throws IOException, CipherException, CancelException {
 
     if (parameters == null || (parameters.length != 8 && parameters.length != 9)) {
-      System.out.println("TriggerContract needs 8 or 9 parameters like: ");
+      printFailure("TriggerContract needs 8 or 9 parameters like: ");
       System.out.println("TriggerContract [OwnerAddress] contractAddress method args isHex"
           + " fee_limit value token_value token_id(e.g: TRXTOKEN, use # if don't provided)");
       return;
@@ -2699,7 +2762,7 @@ public class Client {
     if (parameters.length == 9) {
       ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
       if (ownerAddress == null) {
-        System.out.println("Invalid OwnerAddress.");
+        printFailure("Invalid OwnerAddress.");
         return;
       }
     }
@@ -2733,7 +2796,7 @@ public class Client {
       System.out.println("Broadcast the TriggerContract successful.\n"
           + "Please check the given transaction id to get the result on blockchain using getTransactionInfoById command");
     } else {
-      System.out.println("Broadcast the TriggerContract failed");
+      printFailure("Broadcast the TriggerContract failed");
     }
   }
 
@@ -2741,7 +2804,7 @@ public class Client {
       throws IOException, CipherException, CancelException {
 
     if (parameters == null || (parameters.length != 5 && parameters.length != 8)) {
-      System.out.println("TriggerConstantContract needs 5 or 8 parameters like: ");
+      printFailure("TriggerConstantContract needs 5 or 8 parameters like: ");
       System.out.println("TriggerConstantContract ownerAddress(use # if you own)"
           + " contractAddress method args isHex [value token_value token_id(e.g: TRXTOKEN, use # if don't provided)]");
       return;
@@ -2754,7 +2817,7 @@ public class Client {
     if (!"#".equals(ownerAddressStr)) {
       ownerAddress = WalletApi.decodeFromBase58Check(ownerAddressStr);
       if (ownerAddress == null) {
-        System.out.println("Invalid Owner Address.");
+        printFailure("Invalid Owner Address.");
         return;
       }
     }
@@ -2762,7 +2825,7 @@ public class Client {
     String contractAddressStr = parameters[idx++];
     byte[] contractAddress = WalletApi.decodeFromBase58Check(contractAddressStr);
     if (contractAddress == null) {
-      System.out.println("Invalid Contract Address.");
+      printFailure("Invalid Contract Address.");
       return;
     }
 
@@ -2799,7 +2862,7 @@ public class Client {
       throws IOException, CipherException, CancelException  {
 
     if (parameters == null || (parameters.length != 5 && parameters.length != 8)) {
-      System.out.println("EstimateEnergy needs 5 or 8 parameters like: ");
+      printFailure("EstimateEnergy needs 5 or 8 parameters like: ");
       System.out.println("EstimateEnergy ownerAddress(use # if you own)"
           + " contractAddress method args isHex "
           + "[value token_value token_id(e.g: TRXTOKEN, use # if don't provided)]");
@@ -2813,7 +2876,7 @@ public class Client {
     if (!"#".equals(ownerAddressStr)) {
       ownerAddress = WalletApi.decodeFromBase58Check(ownerAddressStr);
       if (ownerAddress == null) {
-        System.out.println("Invalid Owner Address.");
+        printFailure("Invalid Owner Address.");
         return;
       }
     }
@@ -2821,7 +2884,7 @@ public class Client {
     String contractAddressStr = parameters[idx++];
     byte[] contractAddress = WalletApi.decodeFromBase58Check(contractAddressStr);
     if (contractAddress == null) {
-      System.out.println("Invalid Contract Address.");
+      printFailure("Invalid Contract Address.");
       return;
     }
 
@@ -2872,7 +2935,7 @@ public class Client {
     if (contractDeployContract != null) {
       System.out.println(Utils.formatMessageString(contractDeployContract));
     } else {
-      System.out.println("Query contract failed !!!");
+      printFailure("Query contract failed !!!");
     }
   }
 
@@ -2894,7 +2957,7 @@ public class Client {
     if (contractDeployContract != null) {
       System.out.println(Utils.formatMessageString(contractDeployContract));
     } else {
-      System.out.println("Query contract failed !!!");
+      printFailure("Query contract failed !!!");
     }
   }
 
@@ -2912,7 +2975,7 @@ public class Client {
       builder.setPrivateKey(priKeyStr);
       System.out.println(Utils.formatMessageString(builder.build()));
     } catch (Exception e) {
-      System.out.println("GenerateAddress failed !!!");
+      printFailure("GenerateAddress failed !!!");
     }
   }
 
@@ -2934,7 +2997,7 @@ public class Client {
     if (ret) {
       System.out.println("UpdateAccountPermission successful !!!");
     } else {
-      System.out.println("UpdateAccountPermission failed !!!");
+      printFailure("UpdateAccountPermission failed !!!");
     }
   }
 
@@ -2953,7 +3016,7 @@ public class Client {
     if (transactionSignWeight != null) {
       System.out.println(Utils.printTransactionSignWeight(transactionSignWeight));
     } else {
-      System.out.println("GetTransactionSignWeight failed !!!");
+      printFailure("GetTransactionSignWeight failed !!!");
     }
   }
 
@@ -2973,7 +3036,7 @@ public class Client {
     if (transactionApprovedList != null) {
       System.out.println(Utils.printTransactionApprovedList(transactionApprovedList));
     } else {
-      System.out.println("GetTransactionApprovedList failed !!!");
+      printFailure("GetTransactionApprovedList failed !!!");
     }
   }
 
@@ -2988,7 +3051,7 @@ public class Client {
     String transactionStr = parameters[0];
     Transaction transaction = Transaction.parseFrom(ByteArray.fromHexString(transactionStr));
     if (transaction == null || transaction.getRawData().getContractCount() == 0) {
-      System.out.println("Invalid transaction !!!");
+      printFailure("Invalid transaction !!!");
       return;
     }
 
@@ -2998,7 +3061,7 @@ public class Client {
       System.out.println("Transaction hex string is " +
           ByteArray.toHexString(transaction.toByteArray()));
     } else {
-      System.out.println("AddTransactionSign failed !!!");
+      printFailure("AddTransactionSign failed !!!");
     }
 
   }
@@ -3013,7 +3076,7 @@ public class Client {
     String transactionStr = parameters[0];
     Transaction transaction = Transaction.parseFrom(ByteArray.fromHexString(transactionStr));
     if (transaction == null || transaction.getRawData().getContractCount() == 0) {
-      System.out.println("Invalid transaction");
+      printFailure("Invalid transaction");
       return;
     }
 
@@ -3021,7 +3084,7 @@ public class Client {
     if (ret) {
       System.out.println("BroadcastTransaction successful !!!");
     } else {
-      System.out.println("BroadcastTransaction failed !!!");
+      printFailure("BroadcastTransaction failed !!!");
     }
   }
 
@@ -3048,7 +3111,7 @@ public class Client {
 
   private void listShieldedAddress() {
     if (!ShieldedWrapper.getInstance().ifShieldedWalletLoaded()) {
-      System.out.println("ListShieldedAddress failed, please loadShieldedWallet first!");
+      printFailure("ListShieldedAddress failed, please loadShieldedWallet first!");
       return;
     }
 
@@ -3067,7 +3130,7 @@ public class Client {
     }
 
     if (!ShieldedWrapper.getInstance().ifShieldedWalletLoaded()) {
-      System.out.println("ShowShieldedAddressInfo failed, please loadShieldedWallet first!");
+      printFailure("ShowShieldedAddressInfo failed, please loadShieldedWallet first!");
       return;
     }
 
@@ -3151,7 +3214,7 @@ public class Client {
       shieldedOutputNum = Integer.valueOf(amountString);
     }
     if ((parameters.length - parameterIndex) % 3 != 0) {
-      System.out.println("Invalid parameter number!");
+      printFailure("Invalid parameter number!");
       return false;
     }
 
@@ -3215,7 +3278,7 @@ public class Client {
   private void sendShieldedCoin(String[] parameters) throws IOException, CipherException,
       CancelException, ZksnarkException {
     if (parameters == null || parameters.length < 6) {
-      System.out.println("Using SendShieldedCoin command needs more than 6 parameters like: ");
+      printFailure("Using SendShieldedCoin command needs more than 6 parameters like: ");
       System.out.println("SendShieldedCoin [publicFromAddress] fromAmount shieldedInputNum "
           + "input1 input2 input3 ... publicToAddress toAmount shieldedOutputNum shieldedAddress1"
           + " amount1 memo1 shieldedAddress2 amount2 memo2 ... ");
@@ -3223,12 +3286,12 @@ public class Client {
     }
 
     if (isFromPublicAddress(parameters) && !walletApiWrapper.isLoginState()) {
-      System.out.println("SendShieldedCoin failed, Please login first !!");
+      printFailure("SendShieldedCoin failed, Please login first !!");
       return;
     }
 
     if (isFromShieldedNote(parameters) && !ShieldedWrapper.getInstance().ifShieldedWalletLoaded()) {
-      System.out.println("SendShieldedCoin failed, please loadShieldedWallet first !!!");
+      printFailure("SendShieldedCoin failed, please loadShieldedWallet first !!!");
       return;
     }
 
@@ -3236,7 +3299,7 @@ public class Client {
     if (result) {
       System.out.println("SendShieldedCoin successful !!!");
     } else {
-      System.out.println("SendShieldedCoin failed !!!");
+      printFailure("SendShieldedCoin failed !!!");
     }
   }
 
@@ -3252,12 +3315,12 @@ public class Client {
     }
 
     if (isFromPublicAddress(parameters) && !walletApiWrapper.isLoginState()) {
-      System.out.println("SendShieldedCoinWithoutAsk failed, Please login first !!");
+      printFailure("SendShieldedCoinWithoutAsk failed, Please login first !!");
       return;
     }
 
     if (isFromShieldedNote(parameters) && !ShieldedWrapper.getInstance().ifShieldedWalletLoaded()) {
-      System.out.println("SendShieldedCoinWithoutAsk failed, please loadShieldedWallet first !!!");
+      printFailure("SendShieldedCoinWithoutAsk failed, please loadShieldedWallet first !!!");
       return;
     }
 
@@ -3265,13 +3328,13 @@ public class Client {
     if (result) {
       System.out.println("SendShieldedCoinWithoutAsk successful !!!");
     } else {
-      System.out.println("SendShieldedCoinWithoutAsk failed !!!");
+      printFailure("SendShieldedCoinWithoutAsk failed !!!");
     }
   }
 
   private void listShieldedNote(String[] parameters) {
     if (!ShieldedWrapper.getInstance().ifShieldedWalletLoaded()) {
-      System.out.println("ListShieldedNote failed, please loadShieldedWallet first!");
+      printFailure("ListShieldedNote failed, please loadShieldedWallet first!");
       return;
     }
 
@@ -3332,7 +3395,7 @@ public class Client {
 
   private void resetShieldedNote() {
     if (!ShieldedWrapper.getInstance().ifShieldedWalletLoaded()) {
-      System.out.println("ResetShieldedNote failed, please loadShieldedWallet first!");
+      printFailure("ResetShieldedNote failed, please loadShieldedWallet first!");
       return;
     }
 
@@ -3341,7 +3404,7 @@ public class Client {
 
   private void scanNoteByIvk(String[] parameters) {
     if (parameters == null || parameters.length != 3) {
-      System.out.println("Using ScanNotebyIvk command needs 3 parameters like: ");
+      printFailure("Using ScanNotebyIvk command needs 3 parameters like: ");
       System.out.println("ScanNotebyIvk ivk startNum endNum ");
       return;
     }
@@ -3351,7 +3414,7 @@ public class Client {
       startNum = Long.parseLong(parameters[1]);
       endNum = Long.parseLong(parameters[2]);
     } catch (NumberFormatException e) {
-      System.out.println("Invalid parameter: startNum, endNum.");
+      printFailure("Invalid parameter: startNum, endNum.");
       return;
     }
 
@@ -3369,7 +3432,7 @@ public class Client {
       startNum = Long.parseLong(parameters[1]);
       endNum = Long.parseLong(parameters[2]);
     } catch (NumberFormatException e) {
-      System.out.println("Invalid parameter: startNum, endNum.");
+      printFailure("Invalid parameter: startNum, endNum.");
       return;
     }
 
@@ -3378,7 +3441,7 @@ public class Client {
 
   private void ScanNoteByOvk(String[] parameters) {
     if (parameters == null || parameters.length != 3) {
-      System.out.println("Using scanNotebyOvk command needs 3 parameters like: ");
+      printFailure("Using scanNotebyOvk command needs 3 parameters like: ");
       System.out.println("scanNotebyOvk ovk startNum endNum");
       return;
     }
@@ -3387,7 +3450,7 @@ public class Client {
       startNum = Long.parseLong(parameters[1]);
       endNum = Long.parseLong(parameters[2]);
     } catch (NumberFormatException e) {
-      System.out.println("Invalid parameter: startNum, endNum.");
+      printFailure("Invalid parameter: startNum, endNum.");
       return;
     }
 
@@ -3405,7 +3468,7 @@ public class Client {
     if (hash != null) {
       System.out.println("ShieldedNullifier:" + hash);
     } else {
-      System.out.println("GetShieldedNullifier failed !!!");
+      printFailure("GetShieldedNullifier failed !!!");
     }
   }
 
@@ -3425,13 +3488,13 @@ public class Client {
 
   private void getExpandedSpendingKey(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("Using getExpandedSpendingKey command needs 1 parameter like: ");
+      printFailure("Using getExpandedSpendingKey command needs 1 parameter like: ");
       System.out.println("getExpandedSpendingKey sk ");
       return;
     }
     byte[] spendingKey = ByteArray.fromHexString(parameters[0]);
     if (spendingKey.length != 32) {
-      System.out.println("GetExpandedSpendingKey failed !!!");
+      printFailure("GetExpandedSpendingKey failed !!!");
       return;
     }
     try {
@@ -3440,7 +3503,7 @@ public class Client {
       System.out.println("nsk:" + ByteArray.toHexString(esk.getNsk()));
       System.out.println("ovk:" + ByteArray.toHexString(esk.getOvk()));
     } catch (ZksnarkException e) {
-      System.out.println("GetExpandedSpendingKey failed !!!");
+      printFailure("GetExpandedSpendingKey failed !!!");
     }
   }
 
@@ -3455,7 +3518,7 @@ public class Client {
       byte[] ak = ExpandedSpendingKey.getAkFromAsk(ask);
       System.out.println("ak:" + ByteArray.toHexString(ak));
     } catch (ZksnarkException e) {
-      System.out.println("GetAkFromAsk failed !!!");
+      printFailure("GetAkFromAsk failed !!!");
     }
   }
 
@@ -3470,7 +3533,7 @@ public class Client {
       byte[] nk = ExpandedSpendingKey.getNkFromNsk(nsk);
       System.out.println("nk:" + ByteArray.toHexString(nk));
     } catch (ZksnarkException e) {
-      System.out.println("GetNkFromNsk failed !!!");
+      printFailure("GetNkFromNsk failed !!!");
     }
   }
 
@@ -3489,7 +3552,7 @@ public class Client {
       JLibrustzcash.librustzcashCrhIvk(new LibrustzcashParam.CrhIvkParams(ak, nk, ivk));
       System.out.println("ivk:" + ByteArray.toHexString(ivk));
     } catch (ZksnarkException e) {
-      System.out.println("GetIncomingViewingKey failed !!!");
+      printFailure("GetIncomingViewingKey failed !!!");
     }
   }
 
@@ -3498,13 +3561,13 @@ public class Client {
       DiversifierT d = new DiversifierT().random();
       System.out.println(ByteArray.toHexString(d.getData()));
     } catch (ZksnarkException e) {
-      System.out.println("GetDiversifier failed !!!");
+      printFailure("GetDiversifier failed !!!");
     }
   }
 
   private void getShieldedPaymentAddress(String[] parameters) {
     if (parameters == null || parameters.length != 2 || parameters[1].length() != 22) {
-      System.out.println("Using getShieldedPaymentAddress command needs 2 parameters like: ");
+      printFailure("Using getShieldedPaymentAddress command needs 2 parameters like: ");
       System.out.println("getShieldedPaymentAddress ivk[64] d[22] ");
       return;
     }
@@ -3516,14 +3579,14 @@ public class Client {
     try {
       Optional<PaymentAddress> paymentAddress = ivk.address(new DiversifierT(d));
       if (!paymentAddress.isPresent()) {
-        System.out.println("GetShieldedPaymentAddress failed !!!");
+        printFailure("GetShieldedPaymentAddress failed !!!");
       } else {
         PaymentAddress pa = paymentAddress.get();
         System.out.println("pkd:" + ByteArray.toHexString(pa.getPkD()));
         System.out.println("shieldedAddress:" + KeyIo.encodePaymentAddress(pa));
       }
     } catch (ZksnarkException e) {
-      System.out.println("GetShieldedPaymentAddress failed !!!");
+      printFailure("GetShieldedPaymentAddress failed !!!");
     }
   }
 
@@ -3534,7 +3597,7 @@ public class Client {
       System.out.println("d :" + ByteArray.toHexString(addressInfo.getD().getData()));
       System.out.println("BackupShieldedWallet successful !!!");
     } else {
-      System.out.println("BackupShieldedWallet failed !!!");
+      printFailure("BackupShieldedWallet failed !!!");
     }
   }
 
@@ -3552,17 +3615,17 @@ public class Client {
         System.out.println("Import new shielded wallet address is: " + addressInfo.get().getAddress());
         System.out.println("ImportShieldedWallet successful !!!");
       } else {
-        System.out.println("ImportShieldedWallet failed !!!");
+        printFailure("ImportShieldedWallet failed !!!");
       }
     } else {
-      System.out.println("ImportShieldedWallet failed !!!");
+      printFailure("ImportShieldedWallet failed !!!");
     }
   }
 
   private void marketSellAsset(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || parameters.length != 5) {
-      System.out.println("Using MarketSellAsset command needs 5 parameters like: ");
+      printFailure("Using MarketSellAsset command needs 5 parameters like: ");
       System.out.println(
           "MarketSellAsset ownerAddress sellTokenId sellTokenQuantity buyTokenId buyTokenQuantity");
       return;
@@ -3571,7 +3634,7 @@ public class Client {
     int index = 0;
     byte[] ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
     if (ownerAddress == null) {
-      System.out.println("Invalid OwnerAddress.");
+      printFailure("Invalid OwnerAddress.");
       return;
     }
 
@@ -3586,7 +3649,7 @@ public class Client {
     if (result) {
       System.out.println("MarketSellAsset successful !!!");
     } else {
-      System.out.println("MarketSellAsset failed !!!");
+      printFailure("MarketSellAsset failed !!!");
     }
   }
 
@@ -3594,7 +3657,7 @@ public class Client {
   private void marketCancelOrder(String[] parameters)
       throws IOException, CipherException, CancelException {
     if (parameters == null || parameters.length != 2) {
-      System.out.println("Using MarketCancelOrder command needs 2 parameters like: ");
+      printFailure("Using MarketCancelOrder command needs 2 parameters like: ");
       System.out.println(
           "MarketCancelOrder ownerAddress orderId");
       return;
@@ -3603,7 +3666,7 @@ public class Client {
     int index = 0;
     byte[] ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
     if (ownerAddress == null) {
-      System.out.println("Invalid OwnerAddress.");
+      printFailure("Invalid OwnerAddress.");
       return;
     }
 
@@ -3614,14 +3677,14 @@ public class Client {
     if (result) {
       System.out.println("MarketCancelOrder successful !!!");
     } else {
-      System.out.println("MarketCancelOrder failed !!!");
+      printFailure("MarketCancelOrder failed !!!");
     }
   }
 
 
   private void getMarketOrderByAccount(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("Using GetMarketOrderByAccount command needs 1 parameters like: ");
+      printFailure("Using GetMarketOrderByAccount command needs 1 parameters like: ");
       System.out.println(
           "GetMarketOrderByAccount ownerAddress");
       return;
@@ -3630,14 +3693,14 @@ public class Client {
     int index = 0;
     byte[] ownerAddress = WalletApi.decodeFromBase58Check(parameters[index++]);
     if (ownerAddress == null) {
-      System.out.println("Invalid OwnerAddress.");
+      printFailure("Invalid OwnerAddress.");
       return;
     }
 
     Optional<MarketOrderList> marketOrderList = walletApiWrapper
         .getMarketOrderByAccount(ownerAddress);
     if (!marketOrderList.isPresent()) {
-      System.out.println("GetMarketOrderByAccount failed !!!");
+      printFailure("GetMarketOrderByAccount failed !!!");
     } else {
       System.out.println(Utils.formatMessageString(marketOrderList.get()));
     }
@@ -3645,7 +3708,7 @@ public class Client {
 
   private void getMarketPriceByPair(String[] parameters) {
     if (parameters == null || parameters.length != 2) {
-      System.out.println("Using GetMarketPriceByPair command needs 2 parameters like: ");
+      printFailure("Using GetMarketPriceByPair command needs 2 parameters like: ");
       System.out.println(
           "GetMarketPriceByPair sellTokenId buyTokenId");
       return;
@@ -3658,7 +3721,7 @@ public class Client {
     Optional<MarketPriceList> marketPriceList = walletApiWrapper
         .getMarketPriceByPair(sellTokenId, buyTokenId);
     if (!marketPriceList.isPresent()) {
-      System.out.println("GetMarketPriceByPair failed !!!");
+      printFailure("GetMarketPriceByPair failed !!!");
     } else {
       System.out.println(Utils.formatMessageString(marketPriceList.get()));
     }
@@ -3667,7 +3730,7 @@ public class Client {
 
   private void getMarketOrderListByPair(String[] parameters) {
     if (parameters == null || parameters.length != 2) {
-      System.out.println("Using getMarketOrderListByPair command needs 2 parameters like: ");
+      printFailure("Using getMarketOrderListByPair command needs 2 parameters like: ");
       System.out.println(
           "getMarketOrderListByPair sellTokenId buyTokenId");
       return;
@@ -3680,7 +3743,7 @@ public class Client {
     Optional<MarketOrderList> orderListByPair = walletApiWrapper
         .getMarketOrderListByPair(sellTokenId, buyTokenId);
     if (!orderListByPair.isPresent()) {
-      System.out.println("getMarketOrderListByPair failed !!!");
+      printFailure("getMarketOrderListByPair failed !!!");
     } else {
       System.out.println(Utils.formatMessageString(orderListByPair.get()));
     }
@@ -3698,7 +3761,7 @@ public class Client {
     Optional<MarketOrderPairList> pairList = walletApiWrapper
         .getMarketPairList();
     if (!pairList.isPresent()) {
-      System.out.println("getMarketPairList failed !!!");
+      printFailure("getMarketPairList failed !!!");
     } else {
       System.out.println(Utils.formatMessageString(pairList.get()));
     }
@@ -3706,7 +3769,7 @@ public class Client {
 
   private void getMarketOrderById(String[] parameters) {
     if (parameters == null || parameters.length != 1) {
-      System.out.println("Using getMarketOrderById command needs 1 parameters like:");
+      printFailure("Using getMarketOrderById command needs 1 parameters like:");
       System.out.println(
           "getMarketOrderById orderId");
       return;
@@ -3716,7 +3779,7 @@ public class Client {
     Optional<MarketOrder> order = walletApiWrapper
         .getMarketOrderById(orderId);
     if (!order.isPresent()) {
-      System.out.println("getMarketOrderById failed !!!");
+      printFailure("getMarketOrderById failed !!!");
     } else {
       System.out.println(Utils.formatMessageString(order.get()));
     }
@@ -3725,7 +3788,7 @@ public class Client {
 
   private void create2(String[] parameters) {
     if (parameters == null || parameters.length != 3) {
-      System.out.println("Using create2 command needs 3 parameters like: ");
+      printFailure("Using create2 command needs 3 parameters like: ");
       System.out.println("create2 address code salt");
       return;
     }
@@ -3739,7 +3802,7 @@ public class Client {
     byte[] code = Hex.decode(parameters[1]);
     byte[] temp = Longs.toByteArray(Long.parseLong(parameters[2]));
     if (temp.length != 8) {
-      System.out.println("Invalid salt!");
+      printFailure("Invalid salt!");
       return;
     }
     byte[] salt = new byte[32];
@@ -3771,10 +3834,10 @@ public class Client {
               + "multiple of " + scalingFactor.toString());
         }
       } else {
-        System.out.println("SetShieldedTRC20ContractAddress failed !!! Invalid Address !!!");
+        printFailure("SetShieldedTRC20ContractAddress failed !!! Invalid Address !!!");
       }
     } else {
-      System.out.println("SetShieldedTRC20ContractAddress command needs 2 parameters like:");
+      printFailure("SetShieldedTRC20ContractAddress command needs 2 parameters like:");
       System.out.println("SetShieldedTRC20ContractAddress TRC20ContractAddress"
           + " ShieldedContractAddress");
     }
@@ -3782,7 +3845,7 @@ public class Client {
 
   private void backupShieldedTRC20Wallet() throws IOException, CipherException {
     if (!ShieldedTRC20Wrapper.isSetShieldedTRC20WalletPath()) {
-      System.out.println("BackupShieldedTRC20Wallet failed !!!"
+      printFailure("BackupShieldedTRC20Wallet failed !!!"
           + " Please SetShieldedTRC20ContractAddress first !!!");
       return;
     }
@@ -3794,14 +3857,14 @@ public class Client {
       System.out.println("d :" + ByteArray.toHexString(addressInfo.getD().getData()));
       System.out.println("BackupShieldedTRC20Wallet successful !!!");
     } else {
-      System.out.println("BackupShieldedTRC20Wallet failed !!!");
+      printFailure("BackupShieldedTRC20Wallet failed !!!");
     }
   }
 
   private void generateShieldedTRC20Address(String[] parameters) throws IOException,
       CipherException, ZksnarkException {
     if (!ShieldedTRC20Wrapper.isSetShieldedTRC20WalletPath()) {
-      System.out.println("GenerateShieldedTRC20Address failed !!!"
+      printFailure("GenerateShieldedTRC20Address failed !!!"
           + " Please SetShieldedTRC20ContractAddress first !!!");
       return;
     }
@@ -3815,7 +3878,7 @@ public class Client {
           return;
         }
       } catch (NumberFormatException e) {
-        System.out.println("Invalid parameter!");
+        printFailure("Invalid parameter!");
         return;
       }
     }
@@ -3836,7 +3899,7 @@ public class Client {
 
   private void importShieldedTRC20Wallet() throws CipherException, IOException, ZksnarkException {
     if (!ShieldedTRC20Wrapper.isSetShieldedTRC20WalletPath()) {
-      System.out.println("ImportShieldedTRC20Wallet failed !!!"
+      printFailure("ImportShieldedTRC20Wallet failed !!!"
           + " Please SetShieldedTRC20ContractAddress first !!!");
       return;
     }
@@ -3855,16 +3918,16 @@ public class Client {
             + addressInfo.get().getAddress());
         System.out.println("ImportShieldedTRC20Wallet successfully !!!");
       } else {
-        System.out.println("ImportShieldedTRC20Wallet failed !!!");
+        printFailure("ImportShieldedTRC20Wallet failed !!!");
       }
     } else {
-      System.out.println("ImportShieldedTRC20Wallet failed !!!");
+      printFailure("ImportShieldedTRC20Wallet failed !!!");
     }
   }
 
   private void listShieldedTRC20Address() {
     if (!ShieldedTRC20Wrapper.getInstance().ifShieldedTRC20WalletLoaded()) {
-      System.out.println("ListShieldedTRC20Address failed, please LoadShieldedTRC20Wallet " +
+      printFailure("ListShieldedTRC20Address failed, please LoadShieldedTRC20Wallet " +
           "first!");
       return;
     }
@@ -3878,7 +3941,7 @@ public class Client {
 
   private void listShieldedTRC20Note(String[] parameters) {
     if (!ShieldedTRC20Wrapper.getInstance().ifShieldedTRC20WalletLoaded()) {
-      System.out.println("ListShieldedTRC20Note failed, please LoadShieldedTRC20Wallet first!");
+      printFailure("ListShieldedTRC20Note failed, please LoadShieldedTRC20Wallet first!");
       return;
     }
 
@@ -3893,7 +3956,7 @@ public class Client {
         try {
           showType = Integer.valueOf(parameters[0]);
         } catch (NumberFormatException e) {
-          System.out.println("Invalid parameter!");
+          printFailure("Invalid parameter!");
           return;
         }
       }
@@ -3958,17 +4021,17 @@ public class Client {
       if (result) {
         System.out.println("LoadShieldedTRC20Wallet successful !!!");
       } else {
-        System.out.println("LoadShieldedTRC20Wallet failed !!!");
+        printFailure("LoadShieldedTRC20Wallet failed !!!");
       }
     } else {
-      System.out.println("LoadShieldedTRC20Wallet failed !!!"
+      printFailure("LoadShieldedTRC20Wallet failed !!!"
           + " Please SetShieldedTRC20ContractAddress first !!!");
     }
   }
 
   private void resetShieldedTRC20Note() {
     if (!ShieldedTRC20Wrapper.getInstance().ifShieldedTRC20WalletLoaded()) {
-      System.out.println("ResetShieldedTRC20Note failed, please LoadShieldedTRC20Wallet first!");
+      printFailure("ResetShieldedTRC20Note failed, please LoadShieldedTRC20Wallet first!");
       return;
     } else {
       System.out.println("Start to reset shieldedTRC20 notes, please wait ...");
@@ -3978,14 +4041,14 @@ public class Client {
 
   private void scanShieldedTRC20NoteByIvk(String[] parameters) {
     if (parameters == null || parameters.length < 6) {
-      System.out.println("ScanShieldedTRC20NoteByIvk command needs at least 6 parameters like: ");
+      printFailure("ScanShieldedTRC20NoteByIvk command needs at least 6 parameters like: ");
       System.out.println("ScanShieldedTRC20NoteByIvk shieldedContractAddress ivk ak nk " +
               "startNum endNum [event1] [event2]");
       return;
     }
     byte[] contractAddress = WalletApi.decodeFromBase58Check(parameters[0]);
     if (contractAddress == null) {
-      System.out.println("ScanShieldedTRC20NoteByIvk failed! Invalid shieldedTRC20ContractAddress");
+      printFailure("ScanShieldedTRC20NoteByIvk failed! Invalid shieldedTRC20ContractAddress");
       return;
     }
     String ak = parameters[2];
@@ -4000,7 +4063,7 @@ public class Client {
       startNum = Long.parseLong(parameters[4]);
       endNum = Long.parseLong(parameters[5]);
     } catch (NumberFormatException e) {
-      System.out.println("Invalid parameter: startNum, endNum.");
+      printFailure("Invalid parameter: startNum, endNum.");
       return;
     }
     int eventNum = parameters.length - 6;
@@ -4019,14 +4082,14 @@ public class Client {
 
   private void scanShieldedTRC20NoteByOvk(String[] parameters) {
     if (parameters == null || parameters.length < 4) {
-      System.out.println("ScanShieldedTRC20NoteByOvk command needs at lease 4 parameters like: ");
+      printFailure("ScanShieldedTRC20NoteByOvk command needs at lease 4 parameters like: ");
       System.out.println("ScanShieldedTRC20NoteByOvk shieldedTRC20ContractAddress ovk startNum " +
               "endNum [event1] [event2] ");
       return;
     }
     byte[] contractAddress = WalletApi.decodeFromBase58Check(parameters[0]);
     if (contractAddress == null) {
-      System.out.println("ScanShieldedTRC20NoteByOvk failed! Invalid shieldedTRC20ContractAddress");
+      printFailure("ScanShieldedTRC20NoteByOvk failed! Invalid shieldedTRC20ContractAddress");
       return;
     }
     long startNum;
@@ -4035,7 +4098,7 @@ public class Client {
       startNum = Long.parseLong(parameters[2]);
       endNum = Long.parseLong(parameters[3]);
     } catch (NumberFormatException e) {
-      System.out.println("Invalid parameter: startNum, endNum.");
+      printFailure("Invalid parameter: startNum, endNum.");
       return;
     }
 
@@ -4065,7 +4128,7 @@ public class Client {
       if (result) {
         System.out.println("SendShieldedTRC20Coin successfully !!!");
       } else {
-        System.out.println("SendShieldedTRC20Coin failed !!!");
+        printFailure("SendShieldedTRC20Coin failed !!!");
       }
     }
   }
@@ -4082,7 +4145,7 @@ public class Client {
       if (result) {
         System.out.println("SendShieldedTRC20CoinWithoutAsk successfully !!!");
       } else {
-        System.out.println("SendShieldedTRC20CoinWithoutAsk failed !!!");
+        printFailure("SendShieldedTRC20CoinWithoutAsk failed !!!");
       }
     }
   }
@@ -4102,7 +4165,7 @@ public class Client {
     }
 
     if (!ShieldedTRC20Wrapper.getInstance().ifShieldedTRC20WalletLoaded()) {
-      System.out.println("SendShieldedTRC20Coin failed, please LoadShieldedTRC20Wallet first !!!");
+      printFailure("SendShieldedTRC20Coin failed, please LoadShieldedTRC20Wallet first !!!");
       return false;
     }
     return true;
@@ -4118,7 +4181,7 @@ public class Client {
     try {
       fromPublicAmount = new BigInteger(parameters[parameterIndex++]);
     } catch (NumberFormatException e) {
-      System.out.println("Invalid fromPublicAmount!");
+      printFailure("Invalid fromPublicAmount!");
       return false;
     }
     if (!checkAmountValid(fromPublicAmount, scalingFactor)) {
@@ -4133,7 +4196,7 @@ public class Client {
       try {
         shieldedInputNum = Integer.valueOf(amountString);
       } catch (NumberFormatException e) {
-        System.out.println("Invalid shieldedInputNum!");
+        printFailure("Invalid shieldedInputNum!");
         return false;
       }
     }
@@ -4145,7 +4208,7 @@ public class Client {
       try {
         mapIndex = Long.valueOf(parameters[parameterIndex++]);
       } catch (NumberFormatException e) {
-        System.out.println("Invalid the " + (i + 1) + "shielded input");
+        printFailure("Invalid the " + (i + 1) + "shielded input");
         return false;
       }
       ShieldedTRC20NoteInfo noteInfo =
@@ -4176,7 +4239,7 @@ public class Client {
         try {
           toPublicAmount = new BigInteger(amountString);
         } catch (NumberFormatException e) {
-          System.out.println("Invalid toPublicAmount!");
+          printFailure("Invalid toPublicAmount!");
           return false;
         }
         if (!checkAmountValid(toPublicAmount, scalingFactor)) {
@@ -4193,7 +4256,7 @@ public class Client {
       try {
         shieldedOutputNum = Integer.valueOf(amountString);
       } catch (NumberFormatException e) {
-        System.out.println("Invalid shieldedOutputNum!");
+        printFailure("Invalid shieldedOutputNum!");
         return false;
       }
     }
@@ -4201,12 +4264,12 @@ public class Client {
     try {
       parameterNum = shieldedOutputNum * 3 + parameterIndex;
     } catch (Exception e) {
-      System.out.println("Invalid parameter number!");
+      printFailure("Invalid parameter number!");
       return false;
     }
 
     if (parameters.length != parameterNum) {
-      System.out.println("Invalid parameter number!");
+      printFailure("Invalid parameter number!");
       return false;
     }
 
@@ -4223,7 +4286,7 @@ public class Client {
         try {
           shieldedAmountBi = new BigInteger(amountString);
         } catch (NumberFormatException e) {
-          System.out.println("Invalid shielded output amount");
+          printFailure("Invalid shielded output amount");
           return false;
         }
         if (!checkAmountValid(shieldedAmountBi, scalingFactor)) {
@@ -4294,7 +4357,7 @@ public class Client {
     }
 
     if (!ShieldedTRC20Wrapper.getInstance().ifShieldedTRC20WalletLoaded()) {
-      System.out.println("ShowShieldedTRC20AddressInfo failed, " +
+      printFailure("ShowShieldedTRC20AddressInfo failed, " +
           "please loadShieldedTRC20Wallet first!");
       return;
     }
@@ -4327,6 +4390,416 @@ public class Client {
     }
   }
 
+  private void listNodeRanking() {
+    List<NodeEndpoint> ranking = walletApiWrapper.getNodeRanking();
+    for (int i = 0; i < ranking.size(); i++) {
+      NodeEndpoint node = ranking.get(i);
+      System.out.println((i + 1) + ". " + node.getTarget()
+          + (node.isDiscovered() ? " (discovered)" : ""));
+      System.out.println("   healthy: " + node.isHealthy()
+          + ", head block: " + node.getHeadBlockNum()
+          + ", latency: " + String.format("%.1f", node.getEwmaLatencyMs()) + " ms"
+          + ", in flight: " + node.getInFlight());
+    }
+  }
+
+  private void bulkQueryAccounts(String[] parameters) {
+    if (parameters == null || parameters.length < 2 || parameters.length > 5) {
+      printFailure("BulkQueryAccounts needs 2 to 5 parameters like the following: ");
+      System.out.println("BulkQueryAccounts AddressFile OutputFile [ndjson|csv] [Concurrency] "
+          + "[account,resource,reward,withdrawable]");
+      System.out.println("AddressFile has one base58 address per line.");
+      return;
+    }
+    BulkAccountQuery.Format format = BulkAccountQuery.Format.NDJSON;
+    int concurrency = 32;
+    Set<BulkAccountQuery.Query> queries = EnumSet.noneOf(BulkAccountQuery.Query.class);
+    try {
+      if (parameters.length > 2) {
+        format = BulkAccountQuery.Format.valueOf(parameters[2].toUpperCase());
+      }
+      if (parameters.length > 3) {
+        concurrency = Integer.parseInt(parameters[3]);
+      }
+      if (parameters.length > 4) {
+        for (String query : parameters[4].split(",")) {
+          queries.add(BulkAccountQuery.Query.valueOf(query.trim().toUpperCase()));
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      printFailure("Invalid parameter: " + e.getMessage());
+      return;
+    }
+
+    long start = System.currentTimeMillis();
+    try {
+      int succeeded = walletApiWrapper.bulkQueryAccounts(Paths.get(parameters[0]),
+          Paths.get(parameters[1]), format, concurrency, queries);
+      System.out.println("BulkQueryAccounts wrote " + succeeded + " accounts to " + parameters[1]
+          + " in " + (System.currentTimeMillis() - start) + " ms.");
+    } catch (IOException e) {
+      printFailure("BulkQueryAccounts failed: " + e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      System.out.println("BulkQueryAccounts interrupted.");
+    }
+  }
+
+  private void stats(String[] parameters) {
+    if (parameters != null && parameters.length == 1 && "reset".equalsIgnoreCase(parameters[0])) {
+      walletApiWrapper.resetStats();
+      System.out.println("Stats reset.");
+      return;
+    }
+    if (parameters != null && parameters.length > 0) {
+      printFailure("Stats needs no parameter or reset like the following: ");
+      System.out.println("Stats [reset]");
+      return;
+    }
+    String stats = walletApiWrapper.getStats();
+    if (stats.isEmpty()) {
+      System.out.println("No stats, rpc.metrics.enable is false.");
+    } else {
+      System.out.print(stats);
+    }
+  }
+
+  private void exportBlocks(String[] parameters) {
+    if (parameters == null || parameters.length < 3 || parameters.length > 5) {
+      printFailure("ExportBlocks needs 3 to 5 parameters like the following: ");
+      System.out.println("ExportBlocks StartNum EndNum OutputFile [ndjson|protobuf] [Concurrency]");
+      System.out.println("Blocks StartNum to EndNum - 1 are exported.");
+      return;
+    }
+    long start;
+    long end;
+    boolean protobuf = false;
+    int concurrency = 8;
+    try {
+      start = Long.parseLong(parameters[0]);
+      end = Long.parseLong(parameters[1]);
+      if (parameters.length > 3) {
+        if ("protobuf".equalsIgnoreCase(parameters[3])) {
+          protobuf = true;
+        } else if (!"ndjson".equalsIgnoreCase(parameters[3])) {
+          throw new IllegalArgumentException("unknown format " + parameters[3]);
+        }
+      }
+      if (parameters.length > 4) {
+        concurrency = Integer.parseInt(parameters[4]);
+      }
+    } catch (IllegalArgumentException e) {
+      printFailure("Invalid parameter: " + e.getMessage());
+      return;
+    }
+    if (start < 0 || end <= start) {
+      printFailure("Invalid parameter: EndNum must be greater than StartNum.");
+      return;
+    }
+
+    long begin = System.currentTimeMillis();
+    try {
+      long blocks = walletApiWrapper.exportBlocks(start, end, Paths.get(parameters[2]),
+          protobuf, concurrency);
+      System.out.println("ExportBlocks wrote " + blocks + " blocks to " + parameters[2]
+          + " in " + (System.currentTimeMillis() - begin) + " ms.");
+    } catch (IOException e) {
+      printFailure("ExportBlocks failed: " + e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      System.out.println("ExportBlocks interrupted.");
+    }
+  }
+
+  private void indexBlocks(String[] parameters) {
+    if (parameters == null || parameters.length < 2 || parameters.length > 3) {
+      printFailure("IndexBlocks needs 2 or 3 parameters like the following: ");
+      System.out.println("IndexBlocks StartNum EndNum [Concurrency]");
+      System.out.println("The senders and receivers of blocks StartNum to EndNum - 1 are added "
+          + "to the address index used by GetTransactionsFromThis and GetTransactionsToThis.");
+      return;
+    }
+    long start;
+    long end;
+    int concurrency = 8;
+    try {
+      start = Long.parseLong(parameters[0]);
+      end = Long.parseLong(parameters[1]);
+      if (parameters.length > 2) {
+        concurrency = Integer.parseInt(parameters[2]);
+      }
+    } catch (NumberFormatException e) {
+      printFailure("Invalid parameter: " + e.getMessage());
+      return;
+    }
+    if (start < 0 || end <= start) {
+      printFailure("Invalid parameter: EndNum must be greater than StartNum.");
+      return;
+    }
+
+    long begin = System.currentTimeMillis();
+    try {
+      long blocks = walletApiWrapper.indexBlocks(start, end, concurrency);
+      System.out.println("IndexBlocks indexed " + blocks + " blocks in "
+          + (System.currentTimeMillis() - begin) + " ms.");
+    } catch (IOException e) {
+      printFailure("IndexBlocks failed: " + e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      System.out.println("IndexBlocks interrupted.");
+    }
+  }
+
+  private void exportTransfers(String[] parameters) {
+    if (parameters == null || parameters.length < 3 || parameters.length > 5) {
+      printFailure("ExportTransfers needs 3 to 5 parameters like the following: ");
+      System.out.println("ExportTransfers StartNum EndNum OutputFile [csv|columnar] [Concurrency]");
+      System.out.println("The TRX, TRC10 and TRC20 transfers of blocks StartNum to EndNum - 1 are "
+          + "exported.");
+      return;
+    }
+    long start;
+    long end;
+    TransferExporter.Format format = TransferExporter.Format.CSV;
+    int concurrency = 8;
+    try {
+      start = Long.parseLong(parameters[0]);
+      end = Long.parseLong(parameters[1]);
+      if (parameters.length > 3) {
+        format = TransferExporter.Format.valueOf(parameters[3].toUpperCase());
+      }
+      if (parameters.length > 4) {
+        concurrency = Integer.parseInt(parameters[4]);
+      }
+    } catch (IllegalArgumentException e) {
+      printFailure("Invalid parameter: " + e.getMessage());
+      return;
+    }
+    if (start < 0 || end <= start) {
+      printFailure("Invalid parameter: EndNum must be greater than StartNum.");
+      return;
+    }
+
+    long begin = System.currentTimeMillis();
+    try {
+      long rows = walletApiWrapper.exportTransfers(start, end, Paths.get(parameters[2]), format,
+          concurrency);
+      System.out.println("ExportTransfers wrote " + rows + " transfers to " + parameters[2]
+          + " in " + (System.currentTimeMillis() - begin) + " ms.");
+    } catch (IOException e) {
+      printFailure("ExportTransfers failed: " + e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      System.out.println("ExportTransfers interrupted.");
+    }
+  }
+
+  private void decodeEvents(String[] parameters) {
+    if (parameters == null || parameters.length < 3 || parameters.length > 4) {
+      printFailure("DecodeEvents needs 3 or 4 parameters like the following: ");
+      System.out.println("DecodeEvents StartNum EndNum OutputFile [Concurrency]");
+      System.out.println("The event logs of blocks StartNum to EndNum - 1 are decoded and written "
+          + "as one JSON object per line.");
+      return;
+    }
+    long start;
+    long end;
+    int concurrency = 16;
+    try {
+      start = Long.parseLong(parameters[0]);
+      end = Long.parseLong(parameters[1]);
+      if (parameters.length > 3) {
+        concurrency = Integer.parseInt(parameters[3]);
+      }
+    } catch (IllegalArgumentException e) {
+      printFailure("Invalid parameter: " + e.getMessage());
+      return;
+    }
+    if (start < 0 || end <= start) {
+      printFailure("Invalid parameter: EndNum must be greater than StartNum.");
+      return;
+    }
+
+    long begin = System.currentTimeMillis();
+    try {
+      long events = walletApiWrapper.decodeEvents(start, end, Paths.get(parameters[2]),
+          concurrency);
+      System.out.println("DecodeEvents wrote " + events + " events to " + parameters[2]
+          + " in " + (System.currentTimeMillis() - begin) + " ms.");
+    } catch (IOException e) {
+      printFailure("DecodeEvents failed: " + e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      System.out.println("DecodeEvents interrupted.");
+    }
+  }
+
+  private void unlock(String[] parameters) throws IOException, CipherException {
+    if (parameters == null || parameters.length > 1) {
+      printFailure("Unlock needs 0 or 1 parameter like the following: ");
+      System.out.println("Unlock [IdleSeconds]");
+      System.out.println("Transactions signed with the unlocked key need no password until Lock, "
+          + "Logout or IdleSeconds (default 300) without a signature.");
+      return;
+    }
+    long idleSeconds = 300;
+    if (parameters.length > 0) {
+      try {
+        idleSeconds = Long.parseLong(parameters[0]);
+      } catch (NumberFormatException e) {
+        printFailure("Invalid parameter: " + e.getMessage());
+        return;
+      }
+    }
+    if (idleSeconds <= 0) {
+      printFailure("Invalid parameter: IdleSeconds must be positive.");
+      return;
+    }
+
+    String address = walletApiWrapper.unlock(idleSeconds * 1000);
+    if (address != null) {
+      System.out.println("Unlock successful, " + address + " signs without password until "
+          + idleSeconds + " s pass without a signature !!!");
+    } else {
+      printFailure("Unlock failed !!!");
+    }
+  }
+
+  private void lock() {
+    int count = walletApiWrapper.lock();
+    System.out.println("Lock successful, " + count + " unlocked keys cleared !!!");
+  }
+
+  private void batchSign(String[] parameters) throws CipherException {
+    if (parameters == null || parameters.length < 2 || parameters.length > 3) {
+      printFailure("BatchSign needs 2 or 3 parameters like the following: ");
+      System.out.println("BatchSign InputFile OutputFile [Threads]");
+      System.out.println("InputFile holds one unsigned transaction hex string per line, the signed "
+          + "ones are written to OutputFile in the same order.");
+      return;
+    }
+    int threads = Runtime.getRuntime().availableProcessors();
+    if (parameters.length > 2) {
+      try {
+        threads = Integer.parseInt(parameters[2]);
+      } catch (NumberFormatException e) {
+        printFailure("Invalid parameter: " + e.getMessage());
+        return;
+      }
+    }
+    if (threads <= 0) {
+      printFailure("Invalid parameter: Threads must be positive.");
+      return;
+    }
+
+    long begin = System.currentTimeMillis();
+    try {
+      long signed = walletApiWrapper.batchSign(Paths.get(parameters[0]), Paths.get(parameters[1]),
+          threads);
+      if (signed >= 0) {
+        System.out.println("BatchSign signed " + signed + " transactions to " + parameters[1]
+            + " in " + (System.currentTimeMillis() - begin) + " ms.");
+      } else {
+        // the wallet already said why
+        commandFailed = true;
+      }
+    } catch (IOException e) {
+      printFailure("BatchSign failed: " + e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      printFailure("BatchSign interrupted.");
+    }
+  }
+
+  private void payout(String[] parameters) throws CipherException {
+    if (parameters == null || parameters.length < 2 || parameters.length > 4) {
+      printFailure("Payout needs 2 to 4 parameters like the following: ");
+      System.out.println("Payout CsvFile JournalFile [RequestsPerSecond] [Window]");
+      System.out.println("Each address,amount line of CsvFile is paid in sun from the login "
+          + "account; running again with the same JournalFile resumes.");
+      return;
+    }
+    double requestsPerSecond = 100;
+    int window = 64;
+    try {
+      if (parameters.length > 2) {
+        requestsPerSecond = Double.parseDouble(parameters[2]);
+      }
+      if (parameters.length > 3) {
+        window = Integer.parseInt(parameters[3]);
+      }
+    } catch (NumberFormatException e) {
+      printFailure("Invalid parameter: " + e.getMessage());
+      return;
+    }
+    if (requestsPerSecond <= 0 || window <= 0) {
+      printFailure("Invalid parameter: RequestsPerSecond and Window must be positive.");
+      return;
+    }
+
+    long begin = System.currentTimeMillis();
+    try {
+      PayoutEngine.Summary summary = walletApiWrapper.payout(Paths.get(parameters[0]),
+          Paths.get(parameters[1]), window, requestsPerSecond);
+      if (summary != null) {
+        System.out.println("Payout " + summary + " in " + (System.currentTimeMillis() - begin)
+            + " ms.");
+        if (summary.getFailed() > 0 || summary.getPending() > 0) {
+          printFailure("Run Payout again with the same files to retry the failed and "
+              + "pending payouts.");
+        }
+      } else {
+        // the wallet already said why
+        commandFailed = true;
+      }
+    } catch (IOException e) {
+      printFailure("Payout failed: " + e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      printFailure("Payout interrupted.");
+    }
+  }
+
+  private void waitForTransactions(String[] parameters) {
+    if (parameters == null || parameters.length < 2) {
+      printFailure("WaitForTransactions needs 2 or more parameters like the following: ");
+      System.out.println("WaitForTransactions TimeoutSeconds Txid [Txid ...]");
+      System.out.println("Waits until every transaction is solidified, or dropped for having "
+          + "expired without being included.");
+      return;
+    }
+    long timeoutMs;
+    try {
+      timeoutMs = Long.parseLong(parameters[0]) * 1000;
+    } catch (NumberFormatException e) {
+      printFailure("Invalid parameter: " + e.getMessage());
+      return;
+    }
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    List<CompletableFuture<ConfirmationTracker.Confirmation>> tracked = new ArrayList<>();
+    for (int i = 1; i < parameters.length; i++) {
+      tracked.add(WalletApi.trackTransaction(parameters[i]));
+    }
+    for (int i = 1; i < parameters.length; i++) {
+      String txid = parameters[i];
+      try {
+        TransactionInfo info = tracked.get(i - 1)
+            .get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)
+            .getSolidified()
+            .get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        System.out.println(txid + " solidified in block " + info.getBlockNumber());
+      } catch (ExecutionException e) {
+        printFailure(txid + " failed: " + e.getCause().getMessage());
+      } catch (TimeoutException e) {
+        printFailure(txid + " is not solidified yet.");
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        printFailure("WaitForTransactions interrupted.");
+        return;
+      }
+    }
+  }
+
   private void help() {
     System.out.println("Help: List of Tron Wallet-cli commands");
     System.out.println(
@@ -4384,29 +4857,34 @@ public class Client {
   }
 
   private void run() {
-    System.out.println(" ");
-    System.out.println("Welcome to Tron Wallet-Cli");
-    System.out.println("Please type one of the following commands to proceed.");
-    System.out.println("Login, RegisterWallet or ImportWallet");
-    System.out.println(" ");
-    System.out.println(
-        "You may also use the Help command at anytime to display a full list of commands.");
-    System.out.println(" ");
+    if (scriptReader == null) {
+      System.out.println(" ");
+      System.out.println("Welcome to Tron Wallet-Cli");
+      System.out.println("Please type one of the following commands to proceed.");
+      System.out.println("Login, RegisterWallet or ImportWallet");
+      System.out.println(" ");
+      System.out.println(
+          "You may also use the Help command at anytime to display a full list of commands.");
+      System.out.println(" ");
+    }
 
     try {
-      Terminal terminal = TerminalBuilder.builder().system(true).dumb(true).build();
-      Completer commandCompleter = new StringsCompleter(commandList);
-      LineReader lineReader = LineReaderBuilder.builder()
-          .terminal(terminal)
-          .completer(commandCompleter)
-          .option(LineReader.Option.CASE_INSENSITIVE, true)
-          .build();
+      LineReader lineReader = null;
+      if (scriptReader == null) {
+        Terminal terminal = TerminalBuilder.builder().system(true).dumb(true).build();
+        Completer commandCompleter = new StringsCompleter(commandList);
+        lineReader = LineReaderBuilder.builder()
+            .terminal(terminal)
+            .completer(commandCompleter)
+            .option(LineReader.Option.CASE_INSENSITIVE, true)
+            .build();
+      }
       String prompt = "wallet> ";
 
       while (true) {
         String cmd = "";
         try {
-          String cmdLine = lineReader.readLine(prompt).trim();
+          String cmdLine = readCommand(lineReader, prompt);
           String[] cmdArray = getCmd(cmdLine);
           // split on trim() string will always return at the minimum: [""]
           cmd = cmdArray[0];
@@ -4415,6 +4893,7 @@ public class Client {
           }
           String[] parameters = Arrays.copyOfRange(cmdArray, 1, cmdArray.length);
           String cmdLowerCase = cmd.toLowerCase();
+          commandFailed = false;
 
           switch (cmdLowerCase) {
             case "help": {
@@ -4987,29 +5466,85 @@ public class Client {
               getMemoFee(parameters);
               break;
             }
+            case "listnoderanking": {
+              listNodeRanking();
+              break;
+            }
+            case "bulkqueryaccounts": {
+              bulkQueryAccounts(parameters);
+              break;
+            }
+            case "stats": {
+              stats(parameters);
+              break;
+            }
+            case "exportblocks": {
+              exportBlocks(parameters);
+              break;
+            }
+            case "indexblocks": {
+              indexBlocks(parameters);
+              break;
+            }
+            case "exporttransfers": {
+              exportTransfers(parameters);
+              break;
+            }
+            case "decodeevents": {
+              decodeEvents(parameters);
+              break;
+            }
+            case "unlock": {
+              unlock(parameters);
+              break;
+            }
+            case "lock": {
+              lock();
+              break;
+            }
+            case "batchsign": {
+              batchSign(parameters);
+              break;
+            }
+            case "payout": {
+              payout(parameters);
+              break;
+            }
+            case "waitfortransactions": {
+              waitForTransactions(parameters);
+              break;
+            }
             case "exit":
             case "quit": {
               System.out.println("Exit !!!");
               return;
             }
             default: {
+              failures++;
               System.out.println("Invalid cmd: " + cmd);
               help();
             }
           }
+          if (commandFailed) {
+            failures++;
+          }
         } catch (CipherException e) {
+          failures++;
           System.out.println(cmd + " failed!");
           System.out.println(e.getMessage());
         } catch (IOException e) {
+          failures++;
           System.out.println(cmd + " failed!");
           System.out.println(e.getMessage());
         } catch (CancelException e) {
+          failures++;
           System.out.println(cmd + " failed!");
           System.out.println(e.getMessage());
         } catch (EndOfFileException e) {
           System.out.println("\nBye.");
           return;
         } catch (Exception e) {
+          failures++;
           System.out.println(cmd + " failed!");
           System.out.println(e.getMessage());
           if (e.getCause() != null) {
@@ -5023,13 +5558,69 @@ public class Client {
     }
   }
 
+  /**
+   * Prints why the current command did not succeed, which makes it count as failed for the exit
+   * status of --execute mode.
+   */
+  private void printFailure(String message) {
+    commandFailed = true;
+    System.out.println(message);
+  }
+
+  /**
+   * The next command, from the console or, in --execute mode, the next line of the script that
+   * is neither blank nor a # comment, echoed after the prompt.
+   */
+  private String readCommand(LineReader lineReader, String prompt) throws IOException {
+    if (scriptReader == null) {
+      return lineReader.readLine(prompt).trim();
+    }
+    String line;
+    while ((line = scriptReader.readLine()) != null) {
+      line = line.trim();
+      if (!line.isEmpty() && !line.startsWith("#")) {
+        System.out.println(prompt + line);
+        return line;
+      }
+    }
+    throw new EndOfFileException();
+  }
+
+  /**
+   * Sets up --execute mode: the script to read and the answers to the prompts.
+   */
+  private void openScript() throws IOException {
+    char[] password = null;
+    if (passwordFile != null) {
+      // read into a char array, not a String, so the password can be cleared
+      char[] buffer = new char[1024];
+      int length = 0;
+      try (BufferedReader in = Files.newBufferedReader(Paths.get(passwordFile),
+          StandardCharsets.UTF_8)) {
+        int c;
+        while (length < buffer.length && (c = in.read()) != -1 && c != '\n' && c != '\r') {
+          buffer[length++] = (char) c;
+        }
+      }
+      if (length == 0) {
+        throw new IOException("No password in " + passwordFile);
+      }
+      password = Arrays.copyOf(buffer, length);
+      StringUtils.clear(buffer);
+    }
+    PromptResolver.enable(keystore, permissionId, yes, password);
+    scriptReader = "-".equals(script)
+        ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+        : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8);
+  }
+
   private void getChainParameters() {
     Optional<ChainParameters> result = walletApiWrapper.getChainParameters();
     if (result.isPresent()) {
       ChainParameters chainParameters = result.get();
       System.out.println(Utils.formatMessageString(chainParameters));
     } else {
-      System.out.println("GetChainParameters failed !!");
+      printFailure("GetChainParameters failed !!");
     }
   }
 
@@ -5076,7 +5667,7 @@ public class Client {
     }
     BlockExtention blockExtention = walletApiWrapper.getBlock(idOrNum, detail);
       if (blockExtention == null) {
-        System.out.println("No header for idOrNum : " + idOrNum);
+        printFailure("No header for idOrNum : " + idOrNum);
         return;
       }
       System.out.println(Utils.printBlockExtention(blockExtention));
@@ -5089,6 +5680,18 @@ public class Client {
         .build()
         .parse(args);
 
+    if (cli.script == null) {
+      cli.run();
+      return;
+    }
+    try {
+      cli.openScript();
+    } catch (IOException e) {
+      System.out.println("Cannot run " + cli.script + ": " + e.getMessage());
+      System.exit(2);
+    }
     cli.run();
+    PromptResolver.disable();
+    System.exit(cli.failures == 0 ? 0 : 1);
   }
 }
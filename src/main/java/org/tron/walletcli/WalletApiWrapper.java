@@ -12,6 +12,7 @@ import org.tron.api.GrpcAPI.*;
 import org.tron.common.utils.AbiUtil;
 import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.ByteUtil;
+import org.tron.common.utils.JsonFormat;
 import org.tron.common.utils.Utils;
 import org.tron.core.exception.CancelException;
 import org.tron.core.exception.CipherException;
@@ -42,12 +43,25 @@ import org.tron.protos.contract.AssetIssueContractOuterClass.AssetIssueContract;
 import org.tron.protos.contract.ShieldContract.IncrementalMerkleVoucherInfo;
 import org.tron.protos.contract.ShieldContract.OutputPoint;
 import org.tron.protos.contract.ShieldContract.OutputPointInfo;
+import org.tron.walletserver.BulkAccountQuery;
+import org.tron.walletserver.NodeEndpoint;
+import org.tron.walletserver.PayoutEngine;
+import org.tron.walletserver.TransferExporter;
 import org.tron.walletserver.WalletApi;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Slf4j
 public class WalletApiWrapper {
@@ -142,6 +156,21 @@ public class WalletApiWrapper {
 
 
 
+  public String unlock(long idleMillis) throws IOException, CipherException {
+    if (wallet == null || !wallet.isLoginState()) {
+      System.out.println("Warning: Unlock failed,  Please login first !!");
+      return null;
+    }
+    return wallet.unlock(idleMillis);
+  }
+
+  public int lock() {
+    if (wallet == null) {
+      return 0;
+    }
+    return wallet.lock();
+  }
+
   //password is current, will be enc by password2.
   public byte[] backupWallet() throws IOException, CipherException {
     if (wallet == null || !wallet.isLoginState()) {
@@ -422,6 +451,75 @@ public class WalletApiWrapper {
     }
   }
 
+  public List<NodeEndpoint> getNodeRanking() {
+    return WalletApi.getNodeRanking();
+  }
+
+  public String getStats() {
+    return WalletApi.getStats();
+  }
+
+  public void resetStats() {
+    WalletApi.resetStats();
+  }
+
+  public int bulkQueryAccounts(Path addressFile, Path outputFile, BulkAccountQuery.Format format,
+      int concurrency, Set<BulkAccountQuery.Query> queries)
+      throws IOException, InterruptedException {
+    try (Stream<String> addresses = Files.lines(addressFile);
+        Writer out = Files.newBufferedWriter(outputFile)) {
+      return WalletApi.bulkQueryAccounts(addresses::iterator, out, format, concurrency, queries);
+    }
+  }
+
+  /**
+   * Writes blocks {@code start} to {@code end} (exclusive, at most up to the head block) to
+   * {@code outputFile}, as NDJSON or as length delimited {@code BlockExtention} messages, and
+   * returns the number of blocks written.
+   */
+  public long exportBlocks(long start, long end, Path outputFile, boolean protobuf,
+      int concurrency) throws IOException, InterruptedException {
+    long head = WalletApi.getBlock2(-1).getBlockHeader().getRawData().getNumber();
+    long last = Math.min(end, head + 1);
+    if (protobuf) {
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(outputFile))) {
+        return WalletApi.exportBlocks(start, last, concurrency, block -> block.writeDelimitedTo(out));
+      }
+    }
+    try (Writer out = Files.newBufferedWriter(outputFile)) {
+      return WalletApi.exportBlocks(start, last, concurrency, block -> {
+        out.write(JsonFormat.printToString(block, true));
+        out.write('\n');
+      });
+    }
+  }
+
+  public long decodeEvents(long start, long end, Path outputFile, int concurrency)
+      throws IOException, InterruptedException {
+    long head = WalletApi.getBlock2(-1).getBlockHeader().getRawData().getNumber();
+    long last = Math.min(end, head + 1);
+    try (Writer out = Files.newBufferedWriter(outputFile)) {
+      return WalletApi.decodeEvents(start, last, concurrency, event -> {
+        out.write(event.toJson());
+        out.write('\n');
+      });
+    }
+  }
+
+  public long exportTransfers(long start, long end, Path outputFile,
+      TransferExporter.Format format, int concurrency) throws IOException, InterruptedException {
+    long head = WalletApi.getBlock2(-1).getBlockHeader().getRawData().getNumber();
+    long last = Math.min(end, head + 1);
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(outputFile), 1 << 16)) {
+      return WalletApi.exportTransfers(start, last, out, format, concurrency);
+    }
+  }
+
+  public long indexBlocks(long start, long end, int concurrency)
+      throws IOException, InterruptedException {
+    return WalletApi.indexBlocks(start, end, concurrency);
+  }
+
   public GrpcAPI.NumberMessage getTotalTransaction() {
     return WalletApi.getTotalTransaction();
   }
@@ -801,6 +899,27 @@ public class WalletApiWrapper {
   }
 
 
+  public long batchSign(Path inputFile, Path outputFile, int parallelism)
+      throws IOException, CipherException, InterruptedException {
+    if (wallet == null || !wallet.isLoginState()) {
+      System.out.println("Warning: BatchSign failed,  Please login first !!");
+      return -1;
+    }
+    try (BufferedReader in = Files.newBufferedReader(inputFile, StandardCharsets.US_ASCII);
+        Writer out = Files.newBufferedWriter(outputFile, StandardCharsets.US_ASCII)) {
+      return wallet.batchSign(in, out, parallelism);
+    }
+  }
+
+  public PayoutEngine.Summary payout(Path csv, Path journal, int window,
+      double requestsPerSecond) throws IOException, CipherException, InterruptedException {
+    if (wallet == null || !wallet.isLoginState()) {
+      System.out.println("Warning: Payout failed,  Please login first !!");
+      return null;
+    }
+    return wallet.payout(csv, journal, window, requestsPerSecond);
+  }
+
   public Transaction addTransactionSign(Transaction transaction)
       throws IOException, CipherException, CancelException {
     if (wallet == null || !wallet.isLoginState()) {
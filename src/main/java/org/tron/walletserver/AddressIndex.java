@@ -0,0 +1,429 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.ByteString;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.tron.api.GrpcAPI.BlockExtention;
+import org.tron.common.utils.TransactionUtils;
+import org.tron.protos.Protocol.Transaction;
+
+/**
+ * Local index from addresses to the transactions they send and receive, built from downloaded
+ * blocks, for nodes without the extension API behind {@code getTransactionsFromThis}. The sender
+ * is {@link TransactionUtils#getOwner} of a contract, the receiver
+ * {@link TransactionUtils#getRecipient}.
+ *
+ * <p>A posting is {@code blockNum << 16 | transactionIndex}. The postings of an address are
+ * kept sorted, as varint encoded differences to the previous posting, which takes one to three
+ * bytes for most of them, with a checkpoint every 128 postings so that a page is decoded from the
+ * nearest checkpoint instead of from the start. Postings older than the last one of a list, from
+ * blocks indexed out of order, wait in a sorted set and are merged into the list in one pass. The
+ * index is kept in memory and written to one file by {@link #save}.
+ * Only solidified blocks may be added, a block already covered by the index is skipped.
+ */
+public class AddressIndex {
+
+  private static final int MAGIC = 0x54414931;
+  private static final int INDEX_BITS = 16;
+
+  public enum Direction {
+    FROM, TO
+  }
+
+  private final Path file;
+  private final Map<ByteString, PostingList> from = new HashMap<>();
+  private final Map<ByteString, PostingList> to = new HashMap<>();
+  /**
+   * Indexed block ranges, start to end (exclusive), merged when adjacent.
+   */
+  private final TreeMap<Long, Long> ranges = new TreeMap<>();
+  private long postings;
+  private boolean dirty;
+
+  /**
+   * Index stored in {@code file}, loaded when the file exists.
+   */
+  public AddressIndex(Path file) throws IOException {
+    this.file = file;
+    if (Files.exists(file)) {
+      load();
+    }
+  }
+
+  public static long blockNum(long posting) {
+    return posting >>> INDEX_BITS;
+  }
+
+  public static int transactionIndex(long posting) {
+    return (int) (posting & ((1 << INDEX_BITS) - 1));
+  }
+
+  public synchronized boolean contains(long blockNum) {
+    Map.Entry<Long, Long> range = ranges.floorEntry(blockNum);
+    return range != null && blockNum < range.getValue();
+  }
+
+  /**
+   * Adds the senders and receivers of the transactions of {@code block}, unless it is indexed
+   * already.
+   */
+  public synchronized boolean add(BlockExtention block) {
+    long num = block.getBlockHeader().getRawData().getNumber();
+    if (contains(num)) {
+      return false;
+    }
+    for (int i = 0; i < block.getTransactionsCount(); i++) {
+      long posting = num << INDEX_BITS | i;
+      for (Transaction.Contract contract
+          : block.getTransactions(i).getTransaction().getRawData().getContractList()) {
+        add(from, TransactionUtils.getOwner(contract), posting);
+        add(to, TransactionUtils.getRecipient(contract), posting);
+      }
+    }
+    addRange(num);
+    dirty = true;
+    return true;
+  }
+
+  private void add(Map<ByteString, PostingList> lists, byte[] address, long posting) {
+    if (address == null || address.length == 0) {
+      return;
+    }
+    PostingList list = lists.computeIfAbsent(ByteString.copyFrom(address),
+        key -> new PostingList());
+    if (list.add(posting)) {
+      postings++;
+    }
+  }
+
+  private void addRange(long num) {
+    long start = num;
+    long end = num + 1;
+    Map.Entry<Long, Long> before = ranges.floorEntry(num);
+    if (before != null && before.getValue() == num) {
+      start = before.getKey();
+    }
+    Long after = ranges.get(end);
+    if (after != null) {
+      ranges.remove(end);
+      end = after;
+    }
+    ranges.put(start, end);
+  }
+
+  /**
+   * Postings of {@code address} in {@code direction}, newest first, skipping {@code offset} and
+   * returning at most {@code limit}.
+   */
+  public synchronized long[] query(byte[] address, Direction direction, int offset, int limit) {
+    PostingList list = (direction == Direction.FROM ? from : to).get(ByteString.copyFrom(address));
+    if (list == null || offset < 0 || limit <= 0 || offset >= list.total()) {
+      return new long[0];
+    }
+    list.merge();
+    int end = list.count - offset;
+    long[] postings = list.decode(Math.max(0, end - limit), end);
+    long[] page = new long[postings.length];
+    for (int i = 0; i < page.length; i++) {
+      page[i] = postings[postings.length - 1 - i];
+    }
+    return page;
+  }
+
+  public synchronized int count(byte[] address, Direction direction) {
+    PostingList list = (direction == Direction.FROM ? from : to).get(ByteString.copyFrom(address));
+    return list == null ? 0 : list.total();
+  }
+
+  public synchronized long getPostings() {
+    return postings;
+  }
+
+  /**
+   * Indexed block ranges like {@code [0, 1000) [5000, 6000)}.
+   */
+  public synchronized String getRanges() {
+    StringBuilder text = new StringBuilder();
+    for (Map.Entry<Long, Long> range : ranges.entrySet()) {
+      if (text.length() > 0) {
+        text.append(' ');
+      }
+      text.append('[').append(range.getKey()).append(", ").append(range.getValue()).append(')');
+    }
+    return text.toString();
+  }
+
+  /**
+   * Writes the index to its file, through a temporary file so a crash keeps the old one.
+   */
+  public synchronized void save() throws IOException {
+    if (!dirty) {
+      return;
+    }
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(temp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(ranges.size());
+      for (Map.Entry<Long, Long> range : ranges.entrySet()) {
+        out.writeLong(range.getKey());
+        out.writeLong(range.getValue());
+      }
+      write(out, from);
+      write(out, to);
+    }
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    dirty = false;
+  }
+
+  private static void write(DataOutputStream out, Map<ByteString, PostingList> lists)
+      throws IOException {
+    out.writeInt(lists.size());
+    for (Map.Entry<ByteString, PostingList> entry : lists.entrySet()) {
+      PostingList list = entry.getValue();
+      list.merge();
+      out.writeShort(entry.getKey().size());
+      entry.getKey().writeTo(out);
+      out.writeInt(list.count);
+      out.writeLong(list.last);
+      out.writeInt(list.size);
+      out.write(list.data, 0, list.size);
+    }
+  }
+
+  private void load() throws IOException {
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException(file + " is not an address index");
+      }
+      int rangeCount = in.readInt();
+      for (int i = 0; i < rangeCount; i++) {
+        ranges.put(in.readLong(), in.readLong());
+      }
+      read(in, from);
+      read(in, to);
+    }
+  }
+
+  private void read(DataInputStream in, Map<ByteString, PostingList> lists) throws IOException {
+    int addresses = in.readInt();
+    for (int i = 0; i < addresses; i++) {
+      byte[] address = new byte[in.readUnsignedShort()];
+      in.readFully(address);
+      PostingList list = new PostingList();
+      list.count = in.readInt();
+      list.last = in.readLong();
+      list.size = in.readInt();
+      list.data = new byte[list.size];
+      in.readFully(list.data);
+      list.checkpoint();
+      lists.put(ByteString.copyFrom(address), list);
+      postings += list.count;
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "addresses=" + (from.size() + to.size()) + " postings=" + postings + " blocks="
+        + getRanges();
+  }
+
+  /**
+   * Sorted postings as varint encoded differences, the first to 0, and the postings waiting to be
+   * merged into them.
+   */
+  private static class PostingList {
+
+    private static final int CHECKPOINT_INTERVAL = 128;
+    private static final int MIN_MERGE = 1024;
+
+    private byte[] data = new byte[8];
+    private int size;
+    /**
+     * Postings encoded in {@code data}.
+     */
+    private int count;
+    private long last = -1;
+    /**
+     * Posting {@code i * CHECKPOINT_INTERVAL} and the offset in {@code data} just after it.
+     */
+    private long[] checkpointValues = new long[1];
+    private int[] checkpointOffsets = new int[1];
+    private int checkpoints;
+    private TreeSet<Long> pending;
+
+    int total() {
+      return count + (pending == null ? 0 : pending.size());
+    }
+
+    /**
+     * Adds {@code posting}, false when it is already there. Postings arrive in order while the
+     * blocks are indexed in order and are appended; an older one is kept aside until the next
+     * read, or until enough of them are waiting that one merge pays for all of them.
+     */
+    boolean add(long posting) {
+      if (posting > last) {
+        append(posting);
+        return true;
+      }
+      if (posting == last || contains(posting)) {
+        return false;
+      }
+      if (pending == null) {
+        pending = new TreeSet<>();
+      }
+      if (!pending.add(posting)) {
+        return false;
+      }
+      if (pending.size() >= Math.max(MIN_MERGE, count / 4)) {
+        merge();
+      }
+      return true;
+    }
+
+    /**
+     * Merges the waiting postings into the encoded ones.
+     */
+    void merge() {
+      if (pending == null) {
+        return;
+      }
+      long[] encoded = decode(0, count);
+      TreeSet<Long> older = pending;
+      pending = null;
+      data = new byte[Math.max(8, size + older.size() * 4)];
+      size = 0;
+      count = 0;
+      last = -1;
+      checkpoints = 0;
+      int at = 0;
+      for (long posting : older) {
+        while (at < encoded.length && encoded[at] < posting) {
+          append(encoded[at++]);
+        }
+        append(posting);
+      }
+      while (at < encoded.length) {
+        append(encoded[at++]);
+      }
+    }
+
+    private void append(long posting) {
+      long delta = posting - Math.max(last, 0);
+      if (size + 10 > data.length) {
+        data = Arrays.copyOf(data, Math.max(data.length * 2, size + 10));
+      }
+      while ((delta & ~0x7FL) != 0) {
+        data[size++] = (byte) ((delta & 0x7F) | 0x80);
+        delta >>>= 7;
+      }
+      data[size++] = (byte) delta;
+      last = posting;
+      if (count % CHECKPOINT_INTERVAL == 0) {
+        addCheckpoint(posting, size);
+      }
+      count++;
+    }
+
+    private void addCheckpoint(long posting, int offset) {
+      if (checkpoints == checkpointValues.length) {
+        checkpointValues = Arrays.copyOf(checkpointValues, checkpoints * 2);
+        checkpointOffsets = Arrays.copyOf(checkpointOffsets, checkpoints * 2);
+      }
+      checkpointValues[checkpoints] = posting;
+      checkpointOffsets[checkpoints] = offset;
+      checkpoints++;
+    }
+
+    /**
+     * Rebuilds the checkpoints of postings loaded from a file.
+     */
+    void checkpoint() {
+      checkpoints = 0;
+      long value = 0;
+      int at = 0;
+      for (int i = 0; i < count; i++) {
+        long delta = 0;
+        int shift = 0;
+        byte b;
+        do {
+          b = data[at++];
+          delta |= (long) (b & 0x7F) << shift;
+          shift += 7;
+        } while (b < 0);
+        value += delta;
+        if (i % CHECKPOINT_INTERVAL == 0) {
+          addCheckpoint(value, at);
+        }
+      }
+    }
+
+    /**
+     * Whether {@code posting} is encoded, decoding from the checkpoint before it.
+     */
+    private boolean contains(long posting) {
+      int checkpoint = Arrays.binarySearch(checkpointValues, 0, checkpoints, posting);
+      if (checkpoint >= 0) {
+        return true;
+      }
+      checkpoint = -checkpoint - 2;
+      if (checkpoint < 0) {
+        return false;
+      }
+      int end = Math.min(count, (checkpoint + 1) * CHECKPOINT_INTERVAL);
+      for (long value : decode(checkpoint * CHECKPOINT_INTERVAL, end)) {
+        if (value >= posting) {
+          return value == posting;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Encoded postings {@code from} (inclusive) to {@code to} (exclusive), decoded from the
+     * checkpoint at or before {@code from}.
+     */
+    long[] decode(int from, int to) {
+      long[] values = new long[Math.max(0, to - from)];
+      if (values.length == 0) {
+        return values;
+      }
+      int checkpoint = from / CHECKPOINT_INTERVAL;
+      long value = checkpointValues[checkpoint];
+      int at = checkpointOffsets[checkpoint];
+      for (int i = checkpoint * CHECKPOINT_INTERVAL; ; i++) {
+        if (i >= from) {
+          values[i - from] = value;
+        }
+        if (i + 1 == to) {
+          return values;
+        }
+        long delta = 0;
+        int shift = 0;
+        byte b;
+        do {
+          b = data[at++];
+          delta |= (long) (b & 0x7F) << shift;
+          shift += 7;
+        } while (b < 0);
+        value += delta;
+      }
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import org.tron.common.crypto.SignInterface;
+import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.TransactionUtils;
+import org.tron.protos.Protocol.Transaction;
+
+/**
+ * Signs a file of unsigned transactions, one hex encoded {@link Transaction} per line as
+ * printed by the transaction commands, with one key. Lines are read in chunks, each chunk is
+ * decoded and signed across the pool, and the signed transactions are written in input order,
+ * one hex string per line. The transactions are signed as they are: raw data, timestamp and
+ * permission id are left to whoever built them.
+ */
+public class BatchSigner {
+
+  public static final int CHUNK_SIZE = 4096;
+
+  private final SignInterface signer;
+  private final ForkJoinPool pool;
+
+  /**
+   * {@code signer} is shared by the pool threads; ECKey and SM2 create their signing state per
+   * signature.
+   */
+  public BatchSigner(SignInterface signer, ForkJoinPool pool) {
+    this.signer = signer;
+    this.pool = pool;
+  }
+
+  /**
+   * Signs every non-blank line of {@code in} and writes the results to {@code out}, returning
+   * how many were signed. Stops at the first line that is not a transaction.
+   */
+  public long run(BufferedReader in, Writer out) throws IOException, InterruptedException {
+    List<String> lines = new ArrayList<>(CHUNK_SIZE);
+    long lineNum = 0;
+    long signed = 0;
+    String line;
+    while ((line = in.readLine()) != null) {
+      lineNum++;
+      line = line.trim();
+      if (line.isEmpty()) {
+        continue;
+      }
+      lines.add(line);
+      if (lines.size() == CHUNK_SIZE) {
+        signed += sign(lines, lineNum, out);
+        lines.clear();
+      }
+    }
+    if (!lines.isEmpty()) {
+      signed += sign(lines, lineNum, out);
+    }
+    out.flush();
+    return signed;
+  }
+
+  private int sign(List<String> lines, long lastLineNum, Writer out)
+      throws IOException, InterruptedException {
+    String[] results = new String[lines.size()];
+    try {
+      pool.submit(() -> IntStream.range(0, lines.size()).parallel()
+          .forEach(i -> results[i] = sign(lines.get(i)))).get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause() == null ? e : e.getCause();
+      throw new IOException("Signing failed before line " + (lastLineNum + 1) + ": "
+          + cause.getMessage(), cause);
+    }
+    for (String result : results) {
+      out.write(result);
+      out.write('\n');
+    }
+    return results.length;
+  }
+
+  private String sign(String hex) {
+    Transaction transaction;
+    try {
+      transaction = Transaction.parseFrom(ByteArray.fromHexString(hex));
+    } catch (InvalidProtocolBufferException | RuntimeException e) {
+      throw new IllegalArgumentException("invalid transaction " + abbreviate(hex), e);
+    }
+    if (transaction.getRawData().getContractCount() == 0) {
+      throw new IllegalArgumentException("transaction without contract " + abbreviate(hex));
+    }
+    return ByteArray.toHexString(TransactionUtils.sign(transaction, signer).toByteArray());
+  }
+
+  private static String abbreviate(String hex) {
+    return hex.length() <= 32 ? hex : hex.substring(0, 32) + "...";
+  }
+}
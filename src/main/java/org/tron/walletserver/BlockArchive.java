@@ -0,0 +1,354 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.api.GrpcAPI.BlockExtention;
+import org.tron.api.GrpcAPI.TransactionExtention;
+import org.tron.common.utils.ByteArray;
+import org.tron.protos.Protocol.Block;
+
+/**
+ * Local append-only store of solidified blocks, so historical blocks are fetched from the nodes
+ * once. Blocks are appended length-delimited to segment files {@code blocks-NNNNNN.seg} of at
+ * most {@code segmentBytes}; {@code blocks.idx} lists the block number and position of every
+ * record. Segments are read through read-only memory maps and parsed with aliasing, so the bytes
+ * fields of a returned block point into the mapped file instead of being copied.
+ *
+ * <p>A block id starts with the big-endian block number, so a lookup by id is a lookup by
+ * number followed by a comparison of the stored id.
+ */
+@Slf4j
+public class BlockArchive implements Closeable {
+
+  private static final String INDEX_FILE = "blocks.idx";
+  private static final int INDEX_ENTRY_BYTES = 16;
+  private static final int OFFSET_BITS = 40;
+  private static final int PAGE_BITS = 16;
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+  public static final long MIN_SEGMENT_BYTES = 1L << 20;
+  public static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+  private final Path dir;
+  private final long segmentBytes;
+  private final List<Segment> segments = new ArrayList<>();
+  /**
+   * Position + 1 of the record of each block number, 0 when absent, in pages of 65536 numbers.
+   */
+  private final Map<Long, long[]> pages = new HashMap<>();
+  private final FileChannel index;
+  private long blockCount;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Opens the archive in {@code dir}, creating it when needed. A record or index entry cut short
+   * by a crash is dropped.
+   */
+  public BlockArchive(Path dir, long segmentBytes) throws IOException {
+    if (segmentBytes < MIN_SEGMENT_BYTES || segmentBytes > MAX_SEGMENT_BYTES) {
+      throw new IllegalArgumentException("segmentBytes must be between " + MIN_SEGMENT_BYTES
+          + " and " + MAX_SEGMENT_BYTES);
+    }
+    this.dir = dir;
+    this.segmentBytes = segmentBytes;
+    Files.createDirectories(dir);
+    for (int i = 0; Files.exists(segmentPath(i)); i++) {
+      segments.add(new Segment(segmentPath(i)));
+    }
+    index = FileChannel.open(dir.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    load();
+  }
+
+  private Path segmentPath(int number) {
+    return dir.resolve(String.format("blocks-%06d.seg", number));
+  }
+
+  /**
+   * Reads the index, keeps the entries whose record is complete and cuts the index and the last
+   * segment after the last complete entry.
+   */
+  private void load() throws IOException {
+    long entries = index.size() / INDEX_ENTRY_BYTES;
+    ByteBuffer buffer = index.map(FileChannel.MapMode.READ_ONLY, 0,
+        entries * INDEX_ENTRY_BYTES);
+    long[] ends = new long[segments.size()];
+    long valid = 0;
+    for (long i = 0; i < entries; i++) {
+      long num = buffer.getLong();
+      long position = buffer.getLong();
+      int segment = (int) (position >>> OFFSET_BITS);
+      long offset = position & ((1L << OFFSET_BITS) - 1);
+      long end = segment < segments.size() ? segments.get(segment).recordEnd(offset) : -1;
+      if (end < 0) {
+        logger.warn("Block archive {} ends with an incomplete block {}, dropped", dir, num);
+        break;
+      }
+      ends[segment] = Math.max(ends[segment], end);
+      setPosition(num, position);
+      valid = i + 1;
+    }
+    index.truncate(valid * INDEX_ENTRY_BYTES);
+    if (!segments.isEmpty()) {
+      Segment last = segments.get(segments.size() - 1);
+      if (last.size > ends[segments.size() - 1]) {
+        last.channel.truncate(ends[segments.size() - 1]);
+        last.size = ends[segments.size() - 1];
+      }
+    }
+  }
+
+  private synchronized long position(long num) {
+    long[] page = pages.get(num >>> PAGE_BITS);
+    return page == null ? 0 : page[(int) (num & (PAGE_SIZE - 1))];
+  }
+
+  private void setPosition(long num, long position) {
+    long[] page = pages.computeIfAbsent(num >>> PAGE_BITS, key -> new long[PAGE_SIZE]);
+    int slot = (int) (num & (PAGE_SIZE - 1));
+    if (page[slot] == 0) {
+      blockCount++;
+    }
+    page[slot] = position + 1;
+  }
+
+  public boolean contains(long num) {
+    return num >= 0 && position(num) != 0;
+  }
+
+  /**
+   * Block {@code num}, or null when it is not in the archive or cannot be read.
+   */
+  public BlockExtention get(long num) {
+    BlockExtention block = num < 0 ? null : read(num);
+    if (block == null) {
+      misses.incrementAndGet();
+    } else {
+      hits.incrementAndGet();
+    }
+    return block;
+  }
+
+  /**
+   * Block with id {@code blockId}, or null when the archive has no block of that number or a
+   * different one.
+   */
+  public BlockExtention get(ByteString blockId) {
+    if (blockId.size() < 8) {
+      return null;
+    }
+    BlockExtention block = get(ByteArray.toLong(blockId.substring(0, 8).toByteArray()));
+    return block != null && block.getBlockid().equals(blockId) ? block : null;
+  }
+
+  /**
+   * Blocks {@code start} (inclusive) to {@code end} (exclusive), or null unless all of them are
+   * in the archive.
+   */
+  public List<BlockExtention> range(long start, long end) {
+    if (start < 0 || end <= start) {
+      return null;
+    }
+    for (long num = start; num < end; num++) {
+      if (position(num) == 0) {
+        misses.incrementAndGet();
+        return null;
+      }
+    }
+    List<BlockExtention> blocks = new ArrayList<>((int) Math.min(end - start, 1024));
+    for (long num = start; num < end; num++) {
+      BlockExtention block = read(num);
+      if (block == null) {
+        misses.incrementAndGet();
+        return null;
+      }
+      blocks.add(block);
+    }
+    hits.incrementAndGet();
+    return blocks;
+  }
+
+  private BlockExtention read(long num) {
+    long position = position(num) - 1;
+    if (position < 0) {
+      return null;
+    }
+    Segment segment;
+    synchronized (this) {
+      segment = segments.get((int) (position >>> OFFSET_BITS));
+    }
+    try {
+      return segment.read(position & ((1L << OFFSET_BITS) - 1));
+    } catch (IOException e) {
+      logger.warn("Block {} in archive {} cannot be read: {}", num, dir, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Appends {@code block} unless the archive has it already. Only blocks that can no longer
+   * change, i.e. solidified ones, belong here.
+   */
+  public synchronized void put(BlockExtention block) throws IOException {
+    long num = block.getBlockHeader().getRawData().getNumber();
+    if (block.getBlockid().isEmpty() || position(num) != 0) {
+      return;
+    }
+    int size = block.getSerializedSize();
+    byte[] record = new byte[CodedOutputStream.computeUInt32SizeNoTag(size) + size];
+    CodedOutputStream output = CodedOutputStream.newInstance(record);
+    output.writeUInt32NoTag(size);
+    block.writeTo(output);
+    output.checkNoSpaceLeft();
+
+    Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    if (segment == null || segment.size > 0 && segment.size + record.length > segmentBytes) {
+      segment = new Segment(segmentPath(segments.size()));
+      segments.add(segment);
+    }
+    long position = ((long) (segments.size() - 1) << OFFSET_BITS) | segment.size;
+    segment.append(record);
+
+    ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+    entry.putLong(num).putLong(position).flip();
+    long at = index.size();
+    while (entry.hasRemaining()) {
+      at += index.write(entry, at);
+    }
+    setPosition(num, position);
+  }
+
+  public void putAll(List<BlockExtention> blocks) throws IOException {
+    for (BlockExtention block : blocks) {
+      put(block);
+    }
+  }
+
+  /**
+   * The block as {@code getBlockByNum} returns it, without the ids added by the extension.
+   */
+  public static Block toBlock(BlockExtention block) {
+    Block.Builder builder = Block.newBuilder().setBlockHeader(block.getBlockHeader());
+    for (TransactionExtention transaction : block.getTransactionsList()) {
+      builder.addTransactions(transaction.getTransaction());
+    }
+    return builder.build();
+  }
+
+  public synchronized long getBlockCount() {
+    return blockCount;
+  }
+
+  public synchronized long getBytes() {
+    long bytes = 0;
+    for (Segment segment : segments) {
+      bytes += segment.size;
+    }
+    return bytes;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    index.close();
+    for (Segment segment : segments) {
+      segment.channel.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "blocks=" + getBlockCount() + " bytes=" + getBytes() + " hits=" + getHits()
+        + " misses=" + getMisses();
+  }
+
+  private static class Segment {
+
+    private final FileChannel channel;
+    private volatile long size;
+    private MappedByteBuffer mapped;
+
+    Segment(Path path) throws IOException {
+      channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      size = channel.size();
+    }
+
+    synchronized void append(byte[] record) throws IOException {
+      ByteBuffer buffer = ByteBuffer.wrap(record);
+      long at = size;
+      while (buffer.hasRemaining()) {
+        at += channel.write(buffer, at);
+      }
+      size = at;
+    }
+
+    /**
+     * Map of the segment covering at least {@code end} bytes. The segment only grows, so an old
+     * map stays valid for the blocks parsed from it.
+     */
+    private synchronized ByteBuffer map(long end) throws IOException {
+      if (end > size) {
+        throw new IOException("Record beyond the end of the segment");
+      }
+      if (mapped == null || mapped.capacity() < end) {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+      return mapped.duplicate();
+    }
+
+    /**
+     * End of the record at {@code offset}, or -1 when it does not fit in the file.
+     */
+    long recordEnd(long offset) throws IOException {
+      if (offset >= size) {
+        return -1;
+      }
+      ByteBuffer buffer = map(Math.min(size, offset + 5));
+      buffer.position((int) offset);
+      int length;
+      try {
+        length = CodedInputStream.newInstance(buffer).readRawVarint32();
+      } catch (IOException e) {
+        return -1;
+      }
+      long end = offset + CodedOutputStream.computeUInt32SizeNoTag(length) + length;
+      return length >= 0 && end <= size ? end : -1;
+    }
+
+    BlockExtention read(long offset) throws IOException {
+      ByteBuffer buffer = map(Math.min(size, offset + 5));
+      buffer.position((int) offset);
+      CodedInputStream input = CodedInputStream.newInstance(buffer);
+      int length = input.readRawVarint32();
+      int start = (int) offset + input.getTotalBytesRead();
+      buffer = map(start + (long) length);
+      buffer.position(start).limit(start + length);
+      input = CodedInputStream.newInstance(buffer);
+      input.enableAliasing(true);
+      return BlockExtention.parseFrom(input);
+    }
+  }
+}
@@ -0,0 +1,272 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.api.GrpcAPI.BlockExtention;
+import org.tron.api.GrpcAPI.TransactionInfoList;
+import org.tron.common.utils.ByteArray;
+
+/**
+ * Follows the head of the full nodes and hands every new block, and optionally its transaction
+ * infos, once and in order to the registered listeners. After a pause the missed blocks are
+ * fetched in batches with {@link BlockRangeDownloader}. Each block must link to the previous one
+ * by parent hash; when it does not, the blocks of the abandoned fork are reported newest first
+ * through {@link BlockListener#onRollback} and the new branch is followed from the fork point.
+ */
+@Slf4j
+public class BlockFollower {
+
+  /**
+   * Blocks remembered for fork detection. Blocks are final once solidified, 19 blocks behind the
+   * head, so a deeper reorganization is not expected.
+   */
+  private static final int MAX_REORG_DEPTH = 64;
+  /**
+   * Blocks fetched but not dispatched yet, bounds memory during a long catch up.
+   */
+  private static final int MAX_PENDING_BLOCKS = 1000;
+
+  public interface BlockListener {
+
+    /**
+     * A new block. {@code infos} is null unless the follower fetches transaction infos, or when
+     * they could not be fetched.
+     */
+    void onBlock(BlockExtention block, TransactionInfoList infos);
+
+    /**
+     * Block {@code blockNum} with id {@code blockId}, handed to {@link #onBlock} before, is no
+     * longer part of the chain.
+     */
+    default void onRollback(long blockNum, ByteString blockId) {
+    }
+  }
+
+  private final GrpcClient client;
+  private final long pollIntervalMs;
+  private final boolean transactionInfo;
+  private final Executor dispatcher;
+  private final ExecutorService ownDispatcher;
+  private final List<BlockListener> listeners = new CopyOnWriteArrayList<>();
+  private final Deque<Link> recent = new ArrayDeque<>();
+  private final Semaphore pendingBlocks = new Semaphore(MAX_PENDING_BLOCKS);
+  private final BlockRangeDownloader downloader;
+  private ScheduledExecutorService poller;
+  private volatile long nextBlockNum = -1;
+  private volatile long headBlockNum = -1;
+
+  public BlockFollower(GrpcClient client, long pollIntervalMs, boolean transactionInfo) {
+    this(client, pollIntervalMs, transactionInfo, null);
+  }
+
+  /**
+   * Follower whose listeners are called on {@code dispatcher}, by default one thread of its
+   * own. A dispatcher with more than one thread does not keep blocks in order.
+   */
+  public BlockFollower(GrpcClient client, long pollIntervalMs, boolean transactionInfo,
+      Executor dispatcher) {
+    this.client = client;
+    this.pollIntervalMs = pollIntervalMs;
+    this.transactionInfo = transactionInfo;
+    if (dispatcher == null) {
+      ownDispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "block-follower-dispatch");
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.dispatcher = ownDispatcher;
+    } else {
+      ownDispatcher = null;
+      this.dispatcher = dispatcher;
+    }
+    this.downloader = new BlockRangeDownloader(client, BlockRangeDownloader.MAX_WINDOW_SIZE, 4,
+        5);
+  }
+
+  public void addListener(BlockListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(BlockListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Next block to be handed to the listeners.
+   */
+  public long getNextBlockNum() {
+    return nextBlockNum;
+  }
+
+  /**
+   * Head block number seen at the last poll, -1 before the first.
+   */
+  public long getHeadBlockNum() {
+    return headBlockNum;
+  }
+
+  /**
+   * Starts following from block {@code fromBlockNum}, or from the current head when it is
+   * negative.
+   */
+  public synchronized void start(long fromBlockNum) {
+    if (poller != null) {
+      throw new IllegalStateException("Already started");
+    }
+    nextBlockNum = fromBlockNum;
+    poller = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "block-follower");
+      thread.setDaemon(true);
+      return thread;
+    });
+    poller.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  public synchronized void stop() {
+    if (poller != null) {
+      poller.shutdownNow();
+      poller = null;
+    }
+    if (ownDispatcher != null) {
+      ownDispatcher.shutdown();
+    }
+  }
+
+  private void poll() {
+    try {
+      BlockExtention head = GrpcClient.await(client.getHeadBlockAsync());
+      headBlockNum = head.getBlockHeader().getRawData().getNumber();
+      if (nextBlockNum < 0) {
+        nextBlockNum = headBlockNum;
+      }
+      while (nextBlockNum <= headBlockNum) {
+        try {
+          downloader.run(nextBlockNum, headBlockNum + 1, this::accept);
+        } catch (ForkException e) {
+          rollback();
+        }
+      }
+    } catch (InterruptedIOException e) {
+      Thread.currentThread().interrupt();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      logger.warn("Following blocks from {} failed: {}", nextBlockNum, e.getMessage());
+    }
+  }
+
+  private void accept(BlockExtention block) throws IOException {
+    long num = block.getBlockHeader().getRawData().getNumber();
+    ByteString parentHash = block.getBlockHeader().getRawData().getParentHash();
+    if (!recent.isEmpty() && !recent.peekLast().id.equals(parentHash)) {
+      throw new ForkException();
+    }
+    try {
+      pendingBlocks.acquire();
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException();
+    }
+    recent.addLast(new Link(num, block.getBlockid()));
+    if (recent.size() > MAX_REORG_DEPTH) {
+      recent.pollFirst();
+    }
+    nextBlockNum = num + 1;
+    CompletableFuture<TransactionInfoList> infos = transactionInfo
+        ? client.getTransactionInfoByBlockNumAsync(num, true)
+        : CompletableFuture.completedFuture(null);
+    dispatcher.execute(() -> {
+      try {
+        TransactionInfoList list;
+        try {
+          list = infos.join();
+        } catch (RuntimeException e) {
+          logger.warn("Transaction infos of block {} failed: {}", num, e.getMessage());
+          list = null;
+        }
+        for (BlockListener listener : listeners) {
+          try {
+            listener.onBlock(block, list);
+          } catch (RuntimeException e) {
+            logger.warn("Block listener failed on block {}", num, e);
+          }
+        }
+      } finally {
+        pendingBlocks.release();
+      }
+    });
+  }
+
+  /**
+   * Drops the remembered blocks the node no longer has, newest first, until one still matches.
+   */
+  private void rollback() throws IOException {
+    int dropped = 0;
+    while (!recent.isEmpty()) {
+      Link link = recent.peekLast();
+      List<BlockExtention> current = GrpcClient.await(
+          client.getBlockByLimitNext2Async(link.num, link.num + 1)).getBlockList();
+      if (current.isEmpty()) {
+        throw new IOException("Block " + link.num + " not returned during rollback");
+      }
+      if (current.get(0).getBlockid().equals(link.id)) {
+        if (dropped == 0) {
+          // the nodes disagree about the next block, try again at the next poll
+          throw new IOException("Block " + (link.num + 1) + " does not link to block " + link.num);
+        }
+        break;
+      }
+      recent.pollLast();
+      dropped++;
+      nextBlockNum = link.num;
+      logger.info("Block {} {} was dropped by a chain reorganization", link.num,
+          ByteArray.toHexString(link.id.toByteArray()));
+      dispatcher.execute(() -> {
+        for (BlockListener listener : listeners) {
+          try {
+            listener.onRollback(link.num, link.id);
+          } catch (RuntimeException e) {
+            logger.warn("Block listener failed on rollback of block {}", link.num, e);
+          }
+        }
+      });
+    }
+    if (recent.isEmpty()) {
+      logger.warn("Chain reorganization deeper than {} blocks, following from block {}",
+          MAX_REORG_DEPTH, nextBlockNum);
+    }
+  }
+
+  private static class Link {
+
+    private final long num;
+    private final ByteString id;
+
+    Link(long num, ByteString id) {
+      this.num = num;
+      this.id = id;
+    }
+  }
+
+  /**
+   * A fetched block does not link to the last handed out one.
+   */
+  private static class ForkException extends IOException {
+
+    ForkException() {
+      super("Parent hash mismatch");
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package org.tron.walletserver;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.api.GrpcAPI.BlockExtention;
+
+/**
+ * Downloads a block range with {@code getBlockByLimitNext2}. The range is split into windows of
+ * at most {@link #MAX_WINDOW_SIZE} blocks, the most a node returns for one call; up to
+ * {@code concurrency} windows are in flight, spread over the full node pool, and a window that
+ * fails or comes back incomplete is fetched again after a backoff. Blocks reach the sink in
+ * strict block number order, a window as soon as every window before it is written.
+ */
+@Slf4j
+public class BlockRangeDownloader {
+
+  /**
+   * Blocks per {@code getBlockByLimitNext} call java-tron answers at most.
+   */
+  public static final int MAX_WINDOW_SIZE = 100;
+
+  private static final long INITIAL_BACKOFF_MS = 500L;
+  private static final long MAX_BACKOFF_MS = 10000L;
+
+  private static final ScheduledExecutorService SCHEDULER =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "block-download-retry");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  public interface BlockSink {
+
+    void accept(BlockExtention block) throws IOException;
+  }
+
+  private final GrpcClient client;
+  private final int windowSize;
+  private final int concurrency;
+  private final int maxAttempts;
+
+  public BlockRangeDownloader(GrpcClient client, int windowSize, int concurrency,
+      int maxAttempts) {
+    if (windowSize < 1 || windowSize > MAX_WINDOW_SIZE) {
+      throw new IllegalArgumentException("windowSize must be between 1 and " + MAX_WINDOW_SIZE);
+    }
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be at least 1");
+    }
+    if (maxAttempts < 1) {
+      throw new IllegalArgumentException("maxAttempts must be at least 1");
+    }
+    this.client = client;
+    this.windowSize = windowSize;
+    this.concurrency = concurrency;
+    this.maxAttempts = maxAttempts;
+  }
+
+  /**
+   * Hands blocks {@code start} (inclusive) to {@code end} (exclusive) to {@code sink} in order
+   * and returns their count. A window that still fails after {@code maxAttempts} attempts, or an
+   * exception of the sink, stops the download; windows in flight are then cancelled.
+   */
+  public long run(long start, long end, BlockSink sink) throws IOException,
+      InterruptedException {
+    Semaphore permits = new Semaphore(concurrency);
+    // written in order, so a slow window may hold back finished ones behind it; bound those too
+    Deque<CompletableFuture<List<BlockExtention>>> pending = new ArrayDeque<>();
+    int maxPending = concurrency * 2;
+    long written = 0;
+    try {
+      for (long from = start; from < end; from += windowSize) {
+        while (pending.size() >= maxPending || (!pending.isEmpty() && pending.peek().isDone())) {
+          written += write(pending.poll(), sink);
+        }
+        permits.acquire();
+        CompletableFuture<List<BlockExtention>> window =
+            fetch(from, Math.min(end, from + windowSize), new ArrayList<>(), 1);
+        window.whenComplete((blocks, e) -> permits.release());
+        pending.add(window);
+      }
+      while (!pending.isEmpty()) {
+        written += write(pending.poll(), sink);
+      }
+    } finally {
+      for (CompletableFuture<List<BlockExtention>> window : pending) {
+        window.cancel(true);
+      }
+    }
+    return written;
+  }
+
+  private static long write(CompletableFuture<List<BlockExtention>> window, BlockSink sink)
+      throws IOException {
+    List<BlockExtention> blocks;
+    try {
+      blocks = window.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw e;
+    }
+    for (BlockExtention block : blocks) {
+      sink.accept(block);
+    }
+    return blocks.size();
+  }
+
+  /**
+   * Fetches blocks {@code from} to {@code end} into {@code blocks}. A node may answer with the
+   * first part of the range only, for example when the response reaches its message size limit;
+   * the rest is then fetched with another call.
+   */
+  private CompletableFuture<List<BlockExtention>> fetch(long from, long end,
+      List<BlockExtention> blocks, int attempt) {
+    return client.getBlockByLimitNext2Async(from, end).handle((list, e) -> {
+      long next = from;
+      if (e == null) {
+        for (BlockExtention block : list.getBlockList()) {
+          if (block.getBlockHeader().getRawData().getNumber() != next) {
+            break;
+          }
+          blocks.add(block);
+          next++;
+        }
+      }
+      if (next == end) {
+        return CompletableFuture.completedFuture(blocks);
+      }
+      if (next > from) {
+        return fetch(next, end, blocks, 1);
+      }
+      if (attempt >= maxAttempts) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null
+            ? e.getCause() : e;
+        String reason = cause == null ? "no blocks returned" : cause.getMessage();
+        CompletableFuture<List<BlockExtention>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IOException(
+            "Blocks " + from + " to " + (end - 1) + " failed after " + attempt + " attempts: "
+                + reason, cause));
+        return failed;
+      }
+      long backoff = Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << (attempt - 1));
+      logger.debug("Blocks {} to {} failed, attempt {}, retrying in {} ms", from, end - 1,
+          attempt, backoff);
+      CompletableFuture<List<BlockExtention>> retry = new CompletableFuture<>();
+      SCHEDULER.schedule(() -> fetch(from, end, blocks, attempt + 1).whenComplete((r, f) -> {
+        if (f != null) {
+          retry.completeExceptionally(f);
+        } else {
+          retry.complete(r);
+        }
+      }), backoff, TimeUnit.MILLISECONDS);
+      return retry;
+    }).thenCompose(future -> future);
+  }
+}
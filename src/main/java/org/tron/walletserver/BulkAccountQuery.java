@@ -0,0 +1,196 @@
+package org.tron.walletserver;
+
+import com.alibaba.fastjson.JSON;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import org.tron.api.GrpcAPI.AccountResourceMessage;
+import org.tron.api.GrpcAPI.CanWithdrawUnfreezeAmountResponseMessage;
+import org.tron.api.GrpcAPI.NumberMessage;
+import org.tron.common.utils.JsonFormat;
+import org.tron.protos.Protocol.Account;
+
+/**
+ * Queries many accounts at once. Up to {@code concurrency} addresses are in flight, and results
+ * are written as soon as every address before them is written, so the output keeps the input
+ * order without holding the whole result set in memory.
+ */
+public class BulkAccountQuery {
+
+  public enum Query {
+    ACCOUNT,
+    RESOURCE,
+    REWARD,
+    WITHDRAWABLE
+  }
+
+  public enum Format {
+    NDJSON,
+    CSV
+  }
+
+  private static final String CSV_HEADER = "address,balance,free_net_used,free_net_limit,"
+      + "net_used,net_limit,energy_used,energy_limit,reward,withdrawable,error";
+
+  private final GrpcClient client;
+  private final int concurrency;
+  private final Set<Query> queries;
+  private final Format format;
+
+  public BulkAccountQuery(GrpcClient client, int concurrency, Set<Query> queries,
+      Format format) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be at least 1");
+    }
+    this.client = client;
+    this.concurrency = concurrency;
+    this.queries = queries.isEmpty() ? EnumSet.allOf(Query.class) : EnumSet.copyOf(queries);
+    this.format = format;
+  }
+
+  /**
+   * Writes one line per address of {@code addresses}, in the same order, and returns the number
+   * of addresses whose queries all succeeded. Blank lines are skipped.
+   */
+  public int run(Iterable<String> addresses, Writer out) throws IOException, InterruptedException {
+    Semaphore permits = new Semaphore(concurrency);
+    // written in order, so a slow address may hold back finished ones behind it; bound those too
+    Deque<CompletableFuture<Row>> pending = new ArrayDeque<>();
+    int window = concurrency * 4;
+    int succeeded = 0;
+    if (format == Format.CSV) {
+      out.write(CSV_HEADER);
+      out.write('\n');
+    }
+    for (String line : addresses) {
+      String address = line.trim();
+      if (address.isEmpty()) {
+        continue;
+      }
+      while (pending.size() >= window || (!pending.isEmpty() && pending.peek().isDone())) {
+        succeeded += write(pending.poll().join(), out);
+      }
+      permits.acquire();
+      CompletableFuture<Row> row = query(address);
+      row.whenComplete((r, e) -> permits.release());
+      pending.add(row);
+    }
+    while (!pending.isEmpty()) {
+      succeeded += write(pending.poll().join(), out);
+    }
+    out.flush();
+    return succeeded;
+  }
+
+  private CompletableFuture<Row> query(String address) {
+    Row row = new Row(address);
+    byte[] addressBytes;
+    try {
+      addressBytes = WalletApi.decodeFromBase58Check(address);
+    } catch (RuntimeException e) {
+      addressBytes = null;
+    }
+    if (addressBytes == null) {
+      row.error = "invalid address";
+      return CompletableFuture.completedFuture(row);
+    }
+    CompletableFuture<?>[] calls = new CompletableFuture<?>[queries.size()];
+    int i = 0;
+    for (Query query : queries) {
+      switch (query) {
+        case ACCOUNT:
+          calls[i++] = client.queryAccountAsync(addressBytes)
+              .thenAccept(account -> row.account = account);
+          break;
+        case RESOURCE:
+          calls[i++] = client.getAccountResourceAsync(addressBytes)
+              .thenAccept(resource -> row.resource = resource);
+          break;
+        case REWARD:
+          calls[i++] = client.getRewardAsync(addressBytes)
+              .thenAccept(reward -> row.reward = reward);
+          break;
+        default:
+          calls[i++] = client
+              .getCanWithdrawUnfreezeAmountAsync(addressBytes, System.currentTimeMillis())
+              .thenAccept(withdrawable -> row.withdrawable = withdrawable);
+          break;
+      }
+    }
+    return CompletableFuture.allOf(calls).handle((v, e) -> {
+      if (e != null) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null
+            ? e.getCause() : e;
+        row.error = cause.getMessage() == null ? cause.toString() : cause.getMessage();
+      }
+      return row;
+    });
+  }
+
+  private int write(Row row, Writer out) throws IOException {
+    out.write(format == Format.CSV ? row.toCsv() : row.toJson());
+    out.write('\n');
+    return row.error == null ? 1 : 0;
+  }
+
+  private static class Row {
+
+    private final String address;
+    private volatile Account account;
+    private volatile AccountResourceMessage resource;
+    private volatile NumberMessage reward;
+    private volatile CanWithdrawUnfreezeAmountResponseMessage withdrawable;
+    private volatile String error;
+
+    Row(String address) {
+      this.address = address;
+    }
+
+    String toJson() {
+      StringBuilder json = new StringBuilder("{\"address\":").append(JSON.toJSONString(address));
+      if (account != null) {
+        json.append(",\"account\":").append(JsonFormat.printToString(account, true));
+      }
+      if (resource != null) {
+        json.append(",\"resource\":").append(JsonFormat.printToString(resource, true));
+      }
+      if (reward != null) {
+        json.append(",\"reward\":").append(reward.getNum());
+      }
+      if (withdrawable != null) {
+        json.append(",\"withdrawable\":").append(withdrawable.getAmount());
+      }
+      if (error != null) {
+        json.append(",\"error\":").append(JSON.toJSONString(error));
+      }
+      return json.append('}').toString();
+    }
+
+    String toCsv() {
+      StringBuilder csv = new StringBuilder(address).append(',');
+      csv.append(account == null ? "" : String.valueOf(account.getBalance())).append(',');
+      if (resource == null) {
+        csv.append(",,,,,,");
+      } else {
+        csv.append(resource.getFreeNetUsed()).append(',')
+            .append(resource.getFreeNetLimit()).append(',')
+            .append(resource.getNetUsed()).append(',')
+            .append(resource.getNetLimit()).append(',')
+            .append(resource.getEnergyUsed()).append(',')
+            .append(resource.getEnergyLimit()).append(',');
+      }
+      csv.append(reward == null ? "" : String.valueOf(reward.getNum())).append(',');
+      csv.append(withdrawable == null ? "" : String.valueOf(withdrawable.getAmount())).append(',');
+      if (error != null) {
+        csv.append('"').append(error.replace("\"", "\"\"").replace('\n', ' ')).append('"');
+      }
+      return csv.toString();
+    }
+  }
+}
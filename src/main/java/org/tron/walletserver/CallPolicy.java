@@ -0,0 +1,137 @@
+package org.tron.walletserver;
+
+import com.typesafe.config.Config;
+import io.grpc.Status;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Deadline and retry settings of one gRPC method, from {@code rpc.policy} in config.conf.
+ */
+public class CallPolicy {
+
+  private static final List<String> KEYS = Arrays.asList("deadlineMs", "maxAttempts",
+      "initialBackoffMs", "maxBackoffMs", "backoffMultiplier", "retryableCodes");
+
+  /**
+   * Deadline of the whole call including retries, 0 for none.
+   */
+  @Getter
+  @Setter
+  private long deadlineMs = 30000L;
+
+  /**
+   * Attempts including the first one, 1 disables retries.
+   */
+  @Getter
+  @Setter
+  private int maxAttempts = 3;
+
+  @Getter
+  @Setter
+  private long initialBackoffMs = 100L;
+
+  @Getter
+  @Setter
+  private long maxBackoffMs = 5000L;
+
+  @Getter
+  @Setter
+  private double backoffMultiplier = 2.0;
+
+  @Getter
+  @Setter
+  private Set<Status.Code> retryableCodes = EnumSet.of(Status.Code.UNAVAILABLE);
+
+  /**
+   * Keys set by {@link #withOverrides}, which {@link #withDefaults} leaves alone.
+   */
+  private final Set<String> overridden = new HashSet<>();
+
+  public CallPolicy copy() {
+    CallPolicy copy = new CallPolicy();
+    copy.deadlineMs = deadlineMs;
+    copy.maxAttempts = maxAttempts;
+    copy.initialBackoffMs = initialBackoffMs;
+    copy.maxBackoffMs = maxBackoffMs;
+    copy.backoffMultiplier = backoffMultiplier;
+    copy.retryableCodes = EnumSet.copyOf(retryableCodes);
+    copy.overridden.addAll(overridden);
+    return copy;
+  }
+
+  public boolean isRetryable(Status status) {
+    return retryableCodes.contains(status.getCode());
+  }
+
+  /**
+   * Pause before attempt {@code attempt + 1}, counting the first attempt as 1: a random value
+   * between zero and the exponential backoff, so clients that failed together do not come back
+   * together.
+   */
+  public long backoffMs(int attempt) {
+    double backoff = initialBackoffMs * Math.pow(backoffMultiplier, attempt - 1);
+    long bound = (long) Math.min(maxBackoffMs, backoff);
+    return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+  }
+
+  /**
+   * Copy of this policy with the keys present in {@code config} overridden.
+   */
+  public CallPolicy withOverrides(Config config) {
+    CallPolicy policy = copy();
+    for (String key : KEYS) {
+      if (config.hasPath(key)) {
+        policy.set(key, config);
+        policy.overridden.add(key);
+      }
+    }
+    return policy;
+  }
+
+  /**
+   * Copy of this policy with the keys present in {@code config} taken over, except the ones
+   * this policy overrode itself. Applies {@code rpc.policy.default} to a method policy.
+   */
+  public CallPolicy withDefaults(Config config) {
+    CallPolicy policy = copy();
+    for (String key : KEYS) {
+      if (config.hasPath(key) && !overridden.contains(key)) {
+        policy.set(key, config);
+      }
+    }
+    return policy;
+  }
+
+  private void set(String key, Config config) {
+    switch (key) {
+      case "deadlineMs":
+        setDeadlineMs(config.getLong(key));
+        break;
+      case "maxAttempts":
+        setMaxAttempts(Math.max(1, config.getInt(key)));
+        break;
+      case "initialBackoffMs":
+        setInitialBackoffMs(config.getLong(key));
+        break;
+      case "maxBackoffMs":
+        setMaxBackoffMs(config.getLong(key));
+        break;
+      case "backoffMultiplier":
+        setBackoffMultiplier(config.getDouble(key));
+        break;
+      default:
+        Set<Status.Code> codes = EnumSet.noneOf(Status.Code.class);
+        for (String code : config.getStringList(key)) {
+          codes.add(Status.Code.valueOf(code.trim().toUpperCase()));
+        }
+        setRetryableCodes(codes);
+    }
+  }
+}
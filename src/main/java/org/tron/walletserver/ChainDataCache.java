@@ -0,0 +1,145 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.Message;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Least recently used cache of chain data that can no longer change, such as solidified blocks
+ * and transaction infos. The bound is the estimated memory of the entries, taken from the
+ * serialized size of the messages, so a few large blocks cannot push the client out of memory
+ * while many small transaction infos still fit.
+ *
+ * <p>Data that another client may still change, such as the ABI and settings of a contract, is
+ * put with a time to live instead.
+ */
+public class ChainDataCache {
+
+  /**
+   * Rough per entry cost of the map node, the key and the message object headers.
+   */
+  private static final int ENTRY_OVERHEAD = 96;
+
+  private final long maxBytes;
+  private final LinkedHashMap<String, Message> entries = new LinkedHashMap<>(256, 0.75f, true);
+  private final Map<String, Long> expiresAt = new HashMap<>();
+  private long bytes;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public ChainDataCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  @SuppressWarnings("unchecked")
+  public synchronized <T extends Message> T get(String key) {
+    Message message = live(key);
+    if (message == null) {
+      misses.incrementAndGet();
+    } else {
+      hits.incrementAndGet();
+    }
+    return (T) message;
+  }
+
+  /**
+   * Like {@link #get} but without counting a hit or a miss.
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized <T extends Message> T peek(String key) {
+    return (T) live(key);
+  }
+
+  private Message live(String key) {
+    Long expiry = expiresAt.get(key);
+    if (expiry != null && System.currentTimeMillis() >= expiry) {
+      remove(key);
+      return null;
+    }
+    return entries.get(key);
+  }
+
+  public synchronized void put(String key, Message message) {
+    put(key, message, 0);
+  }
+
+  /**
+   * Keeps {@code message} for at most {@code ttlMs}, or until evicted when {@code ttlMs} is 0.
+   */
+  public synchronized void put(String key, Message message, long ttlMs) {
+    long size = sizeOf(key, message);
+    if (size > maxBytes) {
+      return;
+    }
+    if (ttlMs > 0) {
+      expiresAt.put(key, System.currentTimeMillis() + ttlMs);
+    } else {
+      expiresAt.remove(key);
+    }
+    Message previous = entries.put(key, message);
+    if (previous != null) {
+      bytes -= sizeOf(key, previous);
+    }
+    bytes += size;
+    Iterator<Map.Entry<String, Message>> iterator = entries.entrySet().iterator();
+    while (bytes > maxBytes && iterator.hasNext()) {
+      Map.Entry<String, Message> eldest = iterator.next();
+      bytes -= sizeOf(eldest.getKey(), eldest.getValue());
+      expiresAt.remove(eldest.getKey());
+      iterator.remove();
+      evictions.incrementAndGet();
+    }
+  }
+
+  public synchronized void remove(String key) {
+    expiresAt.remove(key);
+    Message previous = entries.remove(key);
+    if (previous != null) {
+      bytes -= sizeOf(key, previous);
+    }
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    expiresAt.clear();
+    bytes = 0;
+  }
+
+  private static long sizeOf(String key, Message message) {
+    return ENTRY_OVERHEAD + 2L * key.length() + message.getSerializedSize();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  @Override
+  public String toString() {
+    return "entries=" + size() + " bytes=" + getBytes() + "/" + maxBytes + " hits=" + getHits()
+        + " misses=" + getMisses() + " evictions=" + getEvictions();
+  }
+}
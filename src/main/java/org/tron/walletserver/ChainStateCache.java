@@ -0,0 +1,154 @@
+package org.tron.walletserver;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Time based cache of chain state that changes rarely, such as chain parameters, witnesses and
+ * prices. An entry older than {@code refreshAfterMs} is still served while a new value is loaded
+ * in the background, so callers only wait when an entry is missing, expired past
+ * {@code ttlMs} or invalidated.
+ *
+ * <p>Witness and parameter derived entries change only at a maintenance period, so they are
+ * invalidated once the time reported by {@code getNextMaintenanceTime} has passed.
+ */
+@Slf4j
+public class ChainStateCache {
+
+  /**
+   * Maintenance takes effect in the first block after the maintenance time; wait for one block
+   * interval before treating old values as outdated.
+   */
+  private static final long MAINTENANCE_GRACE_MS = 3000L;
+
+  private final long refreshAfterMs;
+  private final long ttlMs;
+  private final Supplier<CompletableFuture<Long>> nextMaintenanceTime;
+  private final Map<String, Entry<?>> entries = new ConcurrentHashMap<>();
+  private volatile long maintenanceTime = 0;
+  private final AtomicBoolean maintenanceLoading = new AtomicBoolean();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong refreshes = new AtomicLong();
+
+  public ChainStateCache(long refreshAfterMs, long ttlMs,
+      Supplier<CompletableFuture<Long>> nextMaintenanceTime) {
+    this.refreshAfterMs = Math.min(refreshAfterMs, ttlMs);
+    this.ttlMs = ttlMs;
+    this.nextMaintenanceTime = nextMaintenanceTime;
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> CompletableFuture<T> get(String key, boolean maintenanceBound,
+      Supplier<CompletableFuture<T>> loader) {
+    if (maintenanceBound) {
+      checkMaintenance();
+    }
+    Entry<T> entry = (Entry<T>) entries.computeIfAbsent(key,
+        k -> new Entry<>(maintenanceBound, loader));
+    return entry.get();
+  }
+
+  /**
+   * Records the next maintenance time when a caller asked for it anyway.
+   */
+  public void onNextMaintenanceTime(long time) {
+    if (time > maintenanceTime) {
+      maintenanceTime = time;
+    }
+  }
+
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  private void checkMaintenance() {
+    long time = maintenanceTime;
+    if (time > 0 && System.currentTimeMillis() >= time + MAINTENANCE_GRACE_MS) {
+      logger.debug("Maintenance time {} passed, invalidating chain parameters", time);
+      entries.values().removeIf(entry -> entry.maintenanceBound);
+      maintenanceTime = 0;
+      time = 0;
+    }
+    if (time == 0 && maintenanceLoading.compareAndSet(false, true)) {
+      nextMaintenanceTime.get().whenComplete((next, e) -> {
+        if (next != null) {
+          onNextMaintenanceTime(next);
+        }
+        maintenanceLoading.set(false);
+      });
+    }
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getRefreshes() {
+    return refreshes.get();
+  }
+
+  @Override
+  public String toString() {
+    return "entries=" + entries.size() + " hits=" + getHits() + " misses=" + getMisses()
+        + " refreshes=" + getRefreshes();
+  }
+
+  private class Entry<T> {
+
+    private final boolean maintenanceBound;
+    private final Supplier<CompletableFuture<T>> loader;
+    private T value;
+    private long loadedAt;
+    private CompletableFuture<T> loading;
+
+    Entry(boolean maintenanceBound, Supplier<CompletableFuture<T>> loader) {
+      this.maintenanceBound = maintenanceBound;
+      this.loader = loader;
+    }
+
+    CompletableFuture<T> get() {
+      CompletableFuture<T> wait;
+      synchronized (this) {
+        long age = System.currentTimeMillis() - loadedAt;
+        if (value != null && age < ttlMs) {
+          hits.incrementAndGet();
+          if (age >= refreshAfterMs && loading == null) {
+            refreshes.incrementAndGet();
+            load();
+          }
+          return CompletableFuture.completedFuture(value);
+        }
+        misses.incrementAndGet();
+        wait = loading == null ? load() : loading;
+      }
+      return wait;
+    }
+
+    private CompletableFuture<T> load() {
+      CompletableFuture<T> future = loader.get();
+      loading = future;
+      future.whenComplete((result, e) -> {
+        synchronized (this) {
+          if (result != null) {
+            value = result;
+            loadedAt = System.currentTimeMillis();
+          } else {
+            logger.debug("Refresh of chain state failed: {}", e == null ? null : e.getMessage());
+          }
+          loading = null;
+        }
+      });
+      return future;
+    }
+  }
+}
@@ -0,0 +1,398 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.api.GrpcAPI.BlockExtention;
+import org.tron.api.GrpcAPI.TransactionExtention;
+import org.tron.api.GrpcAPI.TransactionInfoList;
+import org.tron.common.crypto.Sha256Sm3Hash;
+import org.tron.common.utils.ByteArray;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.TransactionInfo;
+
+/**
+ * Waits for broadcast transactions by following new blocks instead of asking for each
+ * transaction. Every block handed over by the {@link BlockFollower} is matched against the ids
+ * of the pending transactions, and the transaction infos of a block are fetched once, only when
+ * it holds one of them.
+ *
+ * <p>A transaction is included when a block holds it and solidified once that block is at or
+ * below {@link GrpcClient#getSolidifiedBlockNum()}. A block past its expiration arriving without
+ * it only fails inclusion provisionally: the block may be replaced, and the transaction may have
+ * been missed while it was tracked late. It is dropped once a solidified block is past its
+ * expiration and a full node does not know it either. A chain reorganization makes an included
+ * transaction pending again; only solidification and dropping are final.
+ */
+@Slf4j
+public class ConfirmationTracker implements BlockFollower.BlockListener {
+
+  public static class ExpiredException extends IOException {
+
+    ExpiredException(String message) {
+      super(message);
+    }
+  }
+
+  public static class Confirmation {
+
+    @Getter
+    private final ByteString txid;
+    @Getter
+    private final long expiration;
+    /**
+     * Completed with the info of the transaction when a block holds it, failed with an
+     * {@link ExpiredException} when a block past its expiration arrives without it. Only
+     * provisional: a rollback of the block or a late find replaces it with a new future, so
+     * read it again rather than keep it.
+     */
+    @Getter
+    private volatile CompletableFuture<TransactionInfo> included = new CompletableFuture<>();
+    /**
+     * Completed with the info of the transaction once its block is solidified, failed with an
+     * {@link ExpiredException} once it is dropped for good.
+     */
+    @Getter
+    private final CompletableFuture<TransactionInfo> solidified = new CompletableFuture<>();
+    private TransactionInfo info;
+
+    private Confirmation(ByteString txid, long expiration) {
+      this.txid = txid;
+      this.expiration = expiration;
+    }
+
+    /**
+     * Makes inclusion open again after {@link #included} was settled either way.
+     */
+    private void reopen() {
+      if (included.isDone()) {
+        included = new CompletableFuture<>();
+      }
+    }
+  }
+
+  private final GrpcClient client;
+  private final BlockFollower follower;
+  private final Map<ByteString, Confirmation> pending = new HashMap<>();
+  private final PriorityQueue<Confirmation> byExpiration =
+      new PriorityQueue<>(Comparator.comparingLong(Confirmation::getExpiration));
+  private final TreeMap<Long, List<Confirmation>> included = new TreeMap<>();
+  private final Map<ByteString, Confirmation> expired = new HashMap<>();
+  private final PriorityQueue<Confirmation> unsettled =
+      new PriorityQueue<>(Comparator.comparingLong(Confirmation::getExpiration));
+  private final TreeMap<Long, Long> blockTimes = new TreeMap<>();
+  private final AtomicLong infoFetches = new AtomicLong();
+  private final AtomicLong confirmed = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+
+  /**
+   * Tracker of the blocks of {@code follower}, which must already be started or be started from
+   * a block before the tracked transactions are broadcast.
+   */
+  public ConfirmationTracker(GrpcClient client, BlockFollower follower) {
+    this.client = client;
+    this.follower = follower;
+    follower.addListener(this);
+  }
+
+  /**
+   * Starts waiting for a signed transaction; call it before the broadcast so that the block
+   * holding it cannot pass unnoticed.
+   */
+  public Confirmation track(Transaction transaction) {
+    return track(Sha256Sm3Hash.hash(transaction.getRawData().toByteArray()),
+        transaction.getRawData().getExpiration());
+  }
+
+  /**
+   * Starts waiting for transaction {@code txid}, which expires at {@code expiration} in
+   * milliseconds. A transaction tracked again while pending shares its
+   * {@link Confirmation}.
+   */
+  public synchronized Confirmation track(byte[] txid, long expiration) {
+    ByteString id = ByteString.copyFrom(txid);
+    Confirmation confirmation = pending.get(id);
+    if (confirmation == null) {
+      confirmation = expired.get(id);
+    }
+    if (confirmation == null) {
+      confirmation = new Confirmation(id, expiration);
+      pending.put(id, confirmation);
+      byExpiration.add(confirmation);
+    }
+    return confirmation;
+  }
+
+  /**
+   * Starts waiting for a transaction known only by its id, such as one broadcast by another
+   * program. Its expiration comes from the pending pool of a full node; one that already left
+   * the pool is looked up in the blocks instead. Fails with an {@link IOException} when the node
+   * knows neither.
+   */
+  public CompletableFuture<Confirmation> track(byte[] txid) {
+    String hex = ByteArray.toHexString(txid);
+    return client.getTransactionFromPendingAsync(hex).thenCompose(transaction -> {
+      boolean inPool = transaction.hasRawData();
+      Confirmation confirmation = track(txid,
+          inPool ? transaction.getRawData().getExpiration() : Long.MAX_VALUE);
+      return client.getFullNodeTransactionInfoByIdAsync(hex).thenApply(info -> {
+        if (!info.getId().isEmpty()) {
+          resolve(confirmation, info);
+        } else if (!inPool) {
+          forget(confirmation);
+          throw new CompletionException(
+              new IOException("Transaction " + hex + " is neither pending nor in a block"));
+        }
+        return confirmation;
+      });
+    });
+  }
+
+  @Override
+  public void onBlock(BlockExtention block, TransactionInfoList infos) {
+    long num = block.getBlockHeader().getRawData().getNumber();
+    List<Confirmation> found = new ArrayList<>();
+    synchronized (this) {
+      if (!pending.isEmpty()) {
+        for (TransactionExtention transaction : block.getTransactionsList()) {
+          ByteString id = transaction.getTxid().isEmpty()
+              ? ByteString.copyFrom(Sha256Sm3Hash.hash(
+                  transaction.getTransaction().getRawData().toByteArray()))
+              : transaction.getTxid();
+          Confirmation confirmation = pending.remove(id);
+          if (confirmation == null) {
+            confirmation = expired.remove(id);
+            if (confirmation != null) {
+              unsettled.remove(confirmation);
+            }
+          }
+          if (confirmation != null) {
+            found.add(confirmation);
+          }
+        }
+      }
+    }
+    if (!found.isEmpty() && infos == null) {
+      infoFetches.incrementAndGet();
+      try {
+        infos = GrpcClient.await(client.getTransactionInfoByBlockNumAsync(num, true));
+      } catch (RuntimeException e) {
+        logger.warn("Transaction infos of block {} not fetched: {}", num, e.getMessage());
+      }
+    }
+    Map<ByteString, TransactionInfo> byId = new HashMap<>();
+    if (infos != null && !found.isEmpty()) {
+      for (TransactionInfo info : infos.getTransactionInfoList()) {
+        byId.put(info.getId(), info);
+      }
+    }
+
+    long timestamp = block.getBlockHeader().getRawData().getTimestamp();
+    List<Confirmation> settling;
+    synchronized (this) {
+      for (Confirmation confirmation : found) {
+        TransactionInfo info = byId.get(confirmation.txid);
+        byExpiration.remove(confirmation);
+        include(confirmation, info != null ? info : TransactionInfo.newBuilder()
+            .setId(confirmation.txid)
+            .setBlockNumber(num)
+            .setBlockTimeStamp(timestamp)
+            .build());
+      }
+      blockTimes.put(num, timestamp);
+      expire(timestamp);
+      long solidifiedBlockNum = client.getSolidifiedBlockNum();
+      solidify(solidifiedBlockNum);
+      settling = unsettled(solidifiedBlockNum);
+    }
+    for (Confirmation confirmation : settling) {
+      settle(confirmation);
+    }
+  }
+
+  @Override
+  public synchronized void onRollback(long blockNum, ByteString blockId) {
+    List<Confirmation> reverted = included.remove(blockNum);
+    if (reverted == null) {
+      return;
+    }
+    for (Confirmation confirmation : reverted) {
+      logger.info("Transaction {} is pending again, block {} was dropped",
+          ByteArray.toHexString(confirmation.txid.toByteArray()), blockNum);
+      confirmation.info = null;
+      confirmation.reopen();
+      pending.put(confirmation.txid, confirmation);
+      byExpiration.add(confirmation);
+    }
+  }
+
+  /**
+   * Stops following blocks; transactions still waiting are cancelled.
+   */
+  public synchronized void close() {
+    follower.removeListener(this);
+    for (Confirmation confirmation : pending.values()) {
+      confirmation.included.cancel(false);
+      confirmation.solidified.cancel(false);
+    }
+    for (List<Confirmation> confirmations : included.values()) {
+      for (Confirmation confirmation : confirmations) {
+        confirmation.solidified.cancel(false);
+      }
+    }
+    for (Confirmation confirmation : expired.values()) {
+      confirmation.solidified.cancel(false);
+    }
+    pending.clear();
+    byExpiration.clear();
+    included.clear();
+    expired.clear();
+    unsettled.clear();
+    blockTimes.clear();
+  }
+
+  /**
+   * Transactions neither included nor dropped, counting the ones whose inclusion failed
+   * provisionally.
+   */
+  public synchronized int getPending() {
+    return pending.size() + expired.size();
+  }
+
+  public long getInfoFetches() {
+    return infoFetches.get();
+  }
+
+  public long getConfirmed() {
+    return confirmed.get();
+  }
+
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  private void include(Confirmation confirmation, TransactionInfo info) {
+    confirmation.info = info;
+    included.computeIfAbsent(info.getBlockNumber(), n -> new ArrayList<>()).add(confirmation);
+    confirmation.reopen();
+    confirmation.included.complete(info);
+  }
+
+  /**
+   * Includes a transaction found by a lookup rather than in a followed block, unless a block
+   * got to it first.
+   */
+  private synchronized void resolve(Confirmation confirmation, TransactionInfo info) {
+    if (pending.remove(confirmation.txid, confirmation)) {
+      byExpiration.remove(confirmation);
+    } else if (expired.remove(confirmation.txid, confirmation)) {
+      unsettled.remove(confirmation);
+    } else {
+      return;
+    }
+    include(confirmation, info);
+    solidify(client.getSolidifiedBlockNum());
+  }
+
+  private synchronized void forget(Confirmation confirmation) {
+    if (pending.remove(confirmation.txid, confirmation)) {
+      byExpiration.remove(confirmation);
+    }
+  }
+
+  /**
+   * A block made at {@code timestamp} has passed without the transactions expiring by then, so
+   * their inclusion fails until a rollback or a late find says otherwise.
+   */
+  private void expire(long timestamp) {
+    while (!byExpiration.isEmpty() && byExpiration.peek().expiration <= timestamp) {
+      Confirmation confirmation = byExpiration.poll();
+      pending.remove(confirmation.txid);
+      expired.put(confirmation.txid, confirmation);
+      unsettled.add(confirmation);
+      confirmation.included.completeExceptionally(expiredException(confirmation));
+    }
+  }
+
+  /**
+   * Takes out the expired transactions to be looked up one last time: the ones expiring by the
+   * time of the solidified block, which no block may hold anymore.
+   */
+  private List<Confirmation> unsettled(long solidifiedBlockNum) {
+    List<Confirmation> settling = new ArrayList<>();
+    Map.Entry<Long, Long> solidifiedBlock = blockTimes.floorEntry(solidifiedBlockNum);
+    if (solidifiedBlock == null) {
+      return settling;
+    }
+    blockTimes.headMap(solidifiedBlock.getKey()).clear();
+    while (!unsettled.isEmpty() && unsettled.peek().expiration <= solidifiedBlock.getValue()) {
+      settling.add(unsettled.poll());
+    }
+    return settling;
+  }
+
+  /**
+   * Drops an expired transaction unless a full node holds it in a block the follower did not
+   * match, as when it was tracked after its block passed; a failed lookup is tried again with
+   * the next block.
+   */
+  private void settle(Confirmation confirmation) {
+    String hex = ByteArray.toHexString(confirmation.txid.toByteArray());
+    client.getFullNodeTransactionInfoByIdAsync(hex).whenComplete((info, e) -> {
+      if (e != null) {
+        logger.warn("Transaction {} not looked up: {}", hex, e.getMessage());
+        synchronized (this) {
+          if (expired.get(confirmation.txid) == confirmation) {
+            unsettled.add(confirmation);
+          }
+        }
+      } else if (!info.getId().isEmpty()) {
+        resolve(confirmation, info);
+      } else {
+        synchronized (this) {
+          if (!expired.remove(confirmation.txid, confirmation)) {
+            return;
+          }
+        }
+        dropped.incrementAndGet();
+        confirmation.solidified.completeExceptionally(expiredException(confirmation));
+      }
+    });
+  }
+
+  private static ExpiredException expiredException(Confirmation confirmation) {
+    return new ExpiredException("Transaction "
+        + ByteArray.toHexString(confirmation.txid.toByteArray()) + " expired at "
+        + confirmation.expiration + " without being included");
+  }
+
+  private void solidify(long solidifiedBlockNum) {
+    while (!included.isEmpty() && included.firstKey() <= solidifiedBlockNum) {
+      for (Confirmation confirmation : included.pollFirstEntry().getValue()) {
+        confirmed.incrementAndGet();
+        confirmation.solidified.complete(confirmation.info);
+      }
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    int waiting = 0;
+    for (List<Confirmation> confirmations : included.values()) {
+      waiting += confirmations.size();
+    }
+    return "pending=" + pending.size() + " expired=" + expired.size() + " included=" + waiting + " solidified=" + getConfirmed()
+        + " dropped=" + getDropped() + " infoFetches=" + getInfoFetches();
+  }
+}
@@ -0,0 +1,482 @@
+package org.tron.walletserver;
+
+import com.alibaba.fastjson.JSON;
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.api.GrpcAPI.TransactionInfoList;
+import org.tron.common.crypto.Hash;
+import org.tron.common.utils.ByteArray;
+import org.tron.protos.Protocol.TransactionInfo;
+import org.tron.protos.contract.SmartContractOuterClass.SmartContract;
+import org.tron.protos.contract.SmartContractOuterClass.SmartContract.ABI;
+
+/**
+ * Decodes the event logs of a block range. The transaction infos of up to {@code concurrency}
+ * blocks are fetched at once; the logs of each block are decoded on a fork-join pool against
+ * the ABI of the emitting contract, the event picked by its first topic. ABIs are fetched once
+ * per contract. The TRC20 {@code Transfer} and {@code Approval} events are known without an ABI,
+ * since many token contracts have theirs cleared. Events reach the sink in block order.
+ *
+ * <p>Values are typed: addresses as base58 strings, integers as {@link BigInteger}, {@code bool}
+ * as {@link Boolean}, {@code string} as a string, bytes as hex and arrays as lists. An indexed
+ * string, bytes or array parameter is only present as the hash of its value, given as hex.
+ */
+@Slf4j
+public class EventDecoder {
+
+  private static final List<EventAbi> STANDARD_EVENTS = Arrays.asList(
+      new EventAbi("Transfer", Arrays.asList(new Param("from", "address", true),
+          new Param("to", "address", true), new Param("value", "uint256", false))),
+      new EventAbi("Approval", Arrays.asList(new Param("owner", "address", true),
+          new Param("spender", "address", true), new Param("value", "uint256", false))));
+
+  public interface EventSink {
+
+    void accept(Event event) throws IOException;
+  }
+
+  private final GrpcClient client;
+  private final int concurrency;
+  private final ForkJoinPool pool;
+  private final Map<ByteString, CompletableFuture<Map<ByteString, EventAbi>>> abis =
+      new ConcurrentHashMap<>();
+
+  public EventDecoder(GrpcClient client, int concurrency) {
+    this(client, concurrency, ForkJoinPool.commonPool());
+  }
+
+  public EventDecoder(GrpcClient client, int concurrency, ForkJoinPool pool) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be at least 1");
+    }
+    this.client = client;
+    this.concurrency = concurrency;
+    this.pool = pool;
+  }
+
+  /**
+   * Hands the events of blocks {@code start} to {@code end} (exclusive) to {@code sink}, in
+   * block, transaction and log order, and returns their number. Logs that match no known event
+   * are handed over undecoded, with a null name.
+   */
+  public long run(long start, long end, EventSink sink) throws IOException,
+      InterruptedException {
+    Semaphore permits = new Semaphore(concurrency);
+    // handed over in order, so a slow block may hold back decoded ones behind it; bound those
+    Deque<CompletableFuture<List<Event>>> pending = new ArrayDeque<>();
+    int maxPending = concurrency * 4;
+    long events = 0;
+    try {
+      for (long num = start; num < end; num++) {
+        while (pending.size() >= maxPending || (!pending.isEmpty() && pending.peek().isDone())) {
+          events += emit(pending.poll(), sink);
+        }
+        permits.acquire();
+        CompletableFuture<TransactionInfoList> infos =
+            client.getTransactionInfoByBlockNumAsync(num, true);
+        infos.whenComplete((list, e) -> permits.release());
+        pending.add(infos.thenCompose(this::decode));
+      }
+      while (!pending.isEmpty()) {
+        events += emit(pending.poll(), sink);
+      }
+    } finally {
+      for (CompletableFuture<List<Event>> block : pending) {
+        block.cancel(true);
+      }
+    }
+    return events;
+  }
+
+  private static long emit(CompletableFuture<List<Event>> block, EventSink sink)
+      throws IOException {
+    List<Event> events;
+    try {
+      events = block.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause() == null ? e : e.getCause();
+      throw new IOException("Transaction infos failed: " + cause.getMessage(), cause);
+    }
+    for (Event event : events) {
+      sink.accept(event);
+    }
+    return events.size();
+  }
+
+  /**
+   * Waits for the ABIs of the contracts in {@code infos}, then decodes on the pool.
+   */
+  private CompletableFuture<List<Event>> decode(TransactionInfoList infos) {
+    Set<ByteString> contracts = new LinkedHashSet<>();
+    for (TransactionInfo info : infos.getTransactionInfoList()) {
+      for (TransactionInfo.Log log : info.getLogList()) {
+        contracts.add(log.getAddress());
+      }
+    }
+    if (contracts.isEmpty()) {
+      return CompletableFuture.completedFuture(Collections.emptyList());
+    }
+    Map<ByteString, CompletableFuture<Map<ByteString, EventAbi>>> blockAbis = new HashMap<>();
+    for (ByteString contract : contracts) {
+      blockAbis.put(contract, abi(contract));
+    }
+    return CompletableFuture.allOf(blockAbis.values().toArray(new CompletableFuture<?>[0]))
+        .thenApplyAsync(v -> {
+          List<Event> events = new ArrayList<>();
+          for (TransactionInfo info : infos.getTransactionInfoList()) {
+            for (int i = 0; i < info.getLogCount(); i++) {
+              TransactionInfo.Log log = info.getLog(i);
+              events.add(decode(info, i, blockAbis.get(log.getAddress()).join()));
+            }
+          }
+          return events;
+        }, pool);
+  }
+
+  /**
+   * Events of the ABI of {@code contract} by topic, empty when it cannot be fetched.
+   */
+  private CompletableFuture<Map<ByteString, EventAbi>> abi(ByteString contract) {
+    return abis.computeIfAbsent(contract, key -> {
+      byte[] address = new byte[21];
+      address[0] = WalletApi.getAddressPreFixByte();
+      key.copyTo(address, 0, 1, Math.min(20, key.size()));
+      return client.getContractAsync(address).handle((smartContract, e) -> {
+        if (e != null) {
+          logger.debug("ABI of {} not available: {}", WalletApi.encode58Check(address),
+              e.getMessage());
+          return Collections.<ByteString, EventAbi>emptyMap();
+        }
+        return events(smartContract);
+      });
+    });
+  }
+
+  private static Map<ByteString, EventAbi> events(SmartContract contract) {
+    Map<ByteString, EventAbi> events = new HashMap<>();
+    for (ABI.Entry entry : contract.getAbi().getEntrysList()) {
+      if (entry.getType() != ABI.Entry.EntryType.Event || entry.getAnonymous()) {
+        continue;
+      }
+      List<Param> params = new ArrayList<>();
+      for (ABI.Entry.Param input : entry.getInputsList()) {
+        params.add(new Param(input.getName(), input.getType(), input.getIndexed()));
+      }
+      EventAbi event = new EventAbi(entry.getName(), params);
+      events.put(event.topic, event);
+    }
+    return events;
+  }
+
+  private static Event decode(TransactionInfo info, int index, Map<ByteString, EventAbi> abi) {
+    TransactionInfo.Log log = info.getLog(index);
+    Event event = new Event(info, index);
+    if (log.getTopicsCount() == 0) {
+      return event;
+    }
+    List<EventAbi> candidates = new ArrayList<>();
+    EventAbi known = abi.get(log.getTopics(0));
+    if (known != null) {
+      candidates.add(known);
+    }
+    for (EventAbi standard : STANDARD_EVENTS) {
+      if (standard.topic.equals(log.getTopics(0))) {
+        candidates.add(standard);
+      }
+    }
+    for (EventAbi candidate : candidates) {
+      Map<String, Object> values = candidate.decode(log);
+      if (values != null) {
+        event.name = candidate.name;
+        event.signature = candidate.signature;
+        event.values = values;
+        break;
+      }
+    }
+    return event;
+  }
+
+  public static class Event {
+
+    @Getter
+    private final long blockNum;
+    @Getter
+    private final long timestamp;
+    @Getter
+    private final ByteString transactionId;
+    @Getter
+    private final int logIndex;
+    @Getter
+    private final TransactionInfo.Log log;
+    @Getter
+    private String name;
+    @Getter
+    private String signature;
+    /**
+     * Decoded parameters by name, in declaration order; null when the log was not decoded.
+     */
+    @Getter
+    private Map<String, Object> values;
+
+    Event(TransactionInfo info, int logIndex) {
+      this.blockNum = info.getBlockNumber();
+      this.timestamp = info.getBlockTimeStamp();
+      this.transactionId = info.getId();
+      this.logIndex = logIndex;
+      this.log = info.getLog(logIndex);
+    }
+
+    public String getContract() {
+      byte[] address = new byte[21];
+      address[0] = WalletApi.getAddressPreFixByte();
+      log.getAddress().copyTo(address, 0, 1, Math.min(20, log.getAddress().size()));
+      return WalletApi.encode58Check(address);
+    }
+
+    /**
+     * One line of JSON; integers are written as strings, as uint256 does not fit a double.
+     */
+    public String toJson() {
+      StringBuilder json = new StringBuilder("{\"block\":").append(blockNum)
+          .append(",\"timestamp\":").append(timestamp)
+          .append(",\"txid\":\"").append(ByteArray.toHexString(transactionId.toByteArray()))
+          .append("\",\"logIndex\":").append(logIndex)
+          .append(",\"contract\":\"").append(getContract()).append('"');
+      if (name == null) {
+        List<String> topics = new ArrayList<>();
+        for (ByteString topic : log.getTopicsList()) {
+          topics.add(ByteArray.toHexString(topic.toByteArray()));
+        }
+        json.append(",\"event\":null,\"topics\":").append(JSON.toJSONString(topics))
+            .append(",\"data\":\"").append(ByteArray.toHexString(log.getData().toByteArray()))
+            .append('"');
+      } else {
+        json.append(",\"event\":").append(JSON.toJSONString(name))
+            .append(",\"signature\":").append(JSON.toJSONString(signature))
+            .append(",\"values\":{");
+        boolean first = true;
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+          if (!first) {
+            json.append(',');
+          }
+          first = false;
+          json.append(JSON.toJSONString(value.getKey())).append(':')
+              .append(JSON.toJSONString(jsonValue(value.getValue())));
+        }
+        json.append('}');
+      }
+      return json.append('}').toString();
+    }
+
+    private static Object jsonValue(Object value) {
+      if (value instanceof BigInteger) {
+        return value.toString();
+      }
+      if (value instanceof List) {
+        List<Object> list = new ArrayList<>();
+        for (Object item : (List<?>) value) {
+          list.add(jsonValue(item));
+        }
+        return list;
+      }
+      return value;
+    }
+  }
+
+  private static class Param {
+
+    private final String name;
+    private final String type;
+    private final boolean indexed;
+
+    Param(String name, String type, boolean indexed) {
+      this.name = name;
+      this.type = type.trim();
+      this.indexed = indexed;
+    }
+  }
+
+  private static class EventAbi {
+
+    private final String name;
+    private final String signature;
+    private final ByteString topic;
+    private final List<Param> params;
+    private final int indexed;
+
+    EventAbi(String name, List<Param> params) {
+      this.name = name;
+      this.params = params;
+      StringBuilder signature = new StringBuilder(name).append('(');
+      int indexed = 0;
+      for (int i = 0; i < params.size(); i++) {
+        if (i > 0) {
+          signature.append(',');
+        }
+        signature.append(params.get(i).type);
+        if (params.get(i).indexed) {
+          indexed++;
+        }
+      }
+      this.signature = signature.append(')').toString();
+      this.topic = ByteString.copyFrom(
+          Hash.sha3(this.signature.getBytes(StandardCharsets.US_ASCII)));
+      this.indexed = indexed;
+    }
+
+    /**
+     * Parameters of {@code log}, or null when it does not fit this event, for example an
+     * ERC-721 {@code Transfer} with its token id in a fourth topic.
+     */
+    Map<String, Object> decode(TransactionInfo.Log log) {
+      if (log.getTopicsCount() != indexed + 1) {
+        return null;
+      }
+      byte[] data = log.getData().toByteArray();
+      Map<String, Object> values = new LinkedHashMap<>();
+      int topic = 1;
+      int head = 0;
+      try {
+        for (int i = 0; i < params.size(); i++) {
+          Param param = params.get(i);
+          String name = param.name.isEmpty() ? "arg" + i : param.name;
+          if (param.indexed) {
+            byte[] word = log.getTopics(topic++).toByteArray();
+            // indexed strings, bytes and arrays are only present as the hash of the value
+            values.put(name, Abi.isStatic(param.type) && !param.type.endsWith("]")
+                ? Abi.decode(param.type, word, 0, 0) : ByteArray.toHexString(word));
+          } else {
+            values.put(name, Abi.decode(param.type, data, head, 0));
+            head += Abi.headSize(param.type);
+          }
+        }
+      } catch (RuntimeException e) {
+        return null;
+      }
+      return values;
+    }
+  }
+
+  /**
+   * Decoding of ABI encoded values. Tuples are not supported.
+   */
+  private static class Abi {
+
+    static boolean isStatic(String type) {
+      if (type.endsWith("[]") || type.equals("string") || type.equals("bytes")
+          || type.startsWith("(")) {
+        return false;
+      }
+      if (type.endsWith("]")) {
+        return isStatic(type.substring(0, type.lastIndexOf('[')));
+      }
+      return true;
+    }
+
+    /**
+     * Bytes the value takes in the head: 32, or all elements of a static fixed size array.
+     */
+    static int headSize(String type) {
+      if (type.endsWith("]") && !type.endsWith("[]") && isStatic(type)) {
+        int open = type.lastIndexOf('[');
+        int length = Integer.parseInt(type.substring(open + 1, type.length() - 1));
+        return length * headSize(type.substring(0, open));
+      }
+      return 32;
+    }
+
+    /**
+     * Value of {@code type} whose head is at {@code at}; offsets of dynamic values count from
+     * {@code base}.
+     */
+    static Object decode(String type, byte[] data, int at, int base) {
+      if (type.startsWith("(")) {
+        throw new IllegalArgumentException("tuples are not supported");
+      }
+      if (type.endsWith("]")) {
+        int open = type.lastIndexOf('[');
+        String element = type.substring(0, open);
+        int length;
+        int start;
+        if (type.endsWith("[]")) {
+          start = base + word(data, at).intValueExact();
+          length = word(data, start).intValueExact();
+          start += 32;
+        } else if (isStatic(type)) {
+          length = Integer.parseInt(type.substring(open + 1, type.length() - 1));
+          start = at;
+        } else {
+          length = Integer.parseInt(type.substring(open + 1, type.length() - 1));
+          start = base + word(data, at).intValueExact();
+        }
+        List<Object> values = new ArrayList<>(length);
+        int head = start;
+        for (int i = 0; i < length; i++) {
+          values.add(decode(element, data, head, start));
+          head += isStatic(element) ? headSize(element) : 32;
+        }
+        return values;
+      }
+      if (type.equals("string") || type.equals("bytes")) {
+        int start = base + word(data, at).intValueExact();
+        int length = word(data, start).intValueExact();
+        if (start + 32 + length > data.length) {
+          throw new IllegalArgumentException("value beyond the data");
+        }
+        byte[] value = Arrays.copyOfRange(data, start + 32, start + 32 + length);
+        return type.equals("string") ? new String(value, StandardCharsets.UTF_8)
+            : ByteArray.toHexString(value);
+      }
+      if (at + 32 > data.length) {
+        throw new IllegalArgumentException("value beyond the data");
+      }
+      if (type.equals("address")) {
+        byte[] address = new byte[21];
+        address[0] = WalletApi.getAddressPreFixByte();
+        System.arraycopy(data, at + 12, address, 1, 20);
+        return WalletApi.encode58Check(address);
+      }
+      if (type.equals("bool")) {
+        return data[at + 31] != 0;
+      }
+      if (type.startsWith("uint") || type.equals("trcToken")) {
+        return word(data, at);
+      }
+      if (type.startsWith("int")) {
+        return new BigInteger(Arrays.copyOfRange(data, at, at + 32));
+      }
+      if (type.startsWith("bytes")) {
+        int length = Integer.parseInt(type.substring(5));
+        return ByteArray.toHexString(Arrays.copyOfRange(data, at, at + length));
+      }
+      throw new IllegalArgumentException("unknown type " + type);
+    }
+
+    private static BigInteger word(byte[] data, int at) {
+      if (at < 0 || at + 32 > data.length) {
+        throw new IllegalArgumentException("value beyond the data");
+      }
+      return new BigInteger(1, Arrays.copyOfRange(data, at, at + 32));
+    }
+  }
+}
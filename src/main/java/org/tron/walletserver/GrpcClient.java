@@ -1,12 +1,29 @@
 package org.tron.walletserver;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
 import io.grpc.ManagedChannel;
-import io.grpc.ManagedChannelBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.tron.api.GrpcAPI;
@@ -33,6 +50,7 @@ import org.tron.protos.Protocol.MarketOrderList;
 import org.tron.protos.Protocol.MarketOrderPair;
 import org.tron.protos.Protocol.MarketOrderPairList;
 import org.tron.protos.Protocol.MarketPriceList;
+import org.tron.protos.Protocol.NodeInfo;
 import org.tron.protos.Protocol.Proposal;
 import org.tron.protos.contract.AccountContract.AccountCreateContract;
 import org.tron.protos.contract.AccountContract.AccountPermissionUpdateContract;
@@ -62,6 +80,7 @@ import org.tron.protos.contract.SmartContractOuterClass.ClearABIContract;
 import org.tron.protos.contract.SmartContractOuterClass.CreateSmartContract;
 import org.tron.protos.contract.SmartContractOuterClass.SmartContract;
 import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.Transaction.Contract.ContractType;
 import org.tron.protos.Protocol.TransactionInfo;
 import org.tron.protos.contract.SmartContractOuterClass.SmartContractDataWrapper;
 import org.tron.protos.contract.SmartContractOuterClass.TriggerSmartContract;
@@ -80,11 +99,23 @@ import org.tron.protos.contract.MarketContract.MarketSellAssetContract;
 @Slf4j
 public class GrpcClient {
 
-  private ManagedChannel channelFull = null;
-  private ManagedChannel channelSolidity = null;
-  private WalletGrpc.WalletBlockingStub blockingStubFull = null;
-  private WalletSolidityGrpc.WalletSolidityBlockingStub blockingStubSolidity = null;
-  private WalletExtensionGrpc.WalletExtensionBlockingStub blockingStubExtension = null;
+  private NodePool fullNodes = null;
+  private NodePool solidityNodes = null;
+  private Hedging hedging = null;
+  private RpcOptions options;
+  private ChainDataCache cache = null;
+  private BlockArchive archive = null;
+  private AddressIndex addressIndex = null;
+  private ChainStateCache stateCache = null;
+  private SingleFlight singleFlight = null;
+  private RpcMetrics metrics = null;
+  private MetricsExporter metricsExporter = null;
+  private BlockFollower blockFollower = null;
+  private ConfirmationTracker confirmationTracker = null;
+  private LocalTransactionBuilder localBuilder = null;
+  private volatile long solidifiedBlockNum = -1;
+  private volatile long solidifiedCheckedAt = 0;
+  private final AtomicBoolean solidifiedRefreshing = new AtomicBoolean();
 
 //  public GrpcClient(String host, int port) {
 //    channel = ManagedChannelBuilder.forAddress(host, port)
@@ -94,195 +125,764 @@ public class GrpcClient {
 //  }
 
   public GrpcClient(String fullnode, String soliditynode) {
-    if (!StringUtils.isEmpty(fullnode)) {
-      channelFull = ManagedChannelBuilder.forTarget(fullnode)
-          .usePlaintext()
-          .build();
-      blockingStubFull = WalletGrpc.newBlockingStub(channelFull);
+    this(StringUtils.isEmpty(fullnode) ? null : Collections.singletonList(fullnode),
+        StringUtils.isEmpty(soliditynode) ? null : Collections.singletonList(soliditynode),
+        new RpcOptions());
+  }
+
+  /**
+   * Opens a channel to every listed node. Reads are spread over the healthy nodes of each
+   * list, see {@link NodePool}.
+   */
+  public GrpcClient(List<String> fullnodes, List<String> soliditynodes, RpcOptions options) {
+    this(fullnodes, soliditynodes, options, null);
+  }
+
+  /**
+   * Client whose node channels are made by {@code channelFactory}, null for the Netty transport.
+   */
+  public GrpcClient(List<String> fullnodes, List<String> soliditynodes, RpcOptions options,
+      Function<String, ManagedChannel> channelFactory) {
+    this.options = options;
+    if (options.isMetricsEnabled()) {
+      metrics = new RpcMetrics();
+    }
+    if (fullnodes != null && !fullnodes.isEmpty()) {
+      fullNodes = new NodePool(fullnodes, false, options, metrics, channelFactory);
+      if (fullnodes.size() > 1 || options.isDiscoveryEnabled()
+          || options.getLoadBalance() == RpcOptions.LoadBalance.LATENCY) {
+        fullNodes.startHealthCheck();
+      }
+    }
+    if (soliditynodes != null && !soliditynodes.isEmpty()) {
+      solidityNodes = new NodePool(soliditynodes, true, options, metrics, channelFactory);
+      if (soliditynodes.size() > 1) {
+        solidityNodes.startHealthCheck();
+      }
+    }
+    if (options.isHedgingEnabled()) {
+      hedging = new Hedging(options);
+    }
+    if (options.getCacheMaxBytes() > 0) {
+      cache = new ChainDataCache(options.getCacheMaxBytes());
+    }
+    if (!StringUtils.isEmpty(options.getArchiveDir())) {
+      try {
+        archive = new BlockArchive(Paths.get(options.getArchiveDir()),
+            options.getArchiveSegmentBytes());
+      } catch (IOException e) {
+        logger.warn("Cannot open the block archive {}: {}", options.getArchiveDir(),
+            e.getMessage());
+      }
+    }
+    if (!StringUtils.isEmpty(options.getAddressIndexFile())) {
+      try {
+        addressIndex = new AddressIndex(Paths.get(options.getAddressIndexFile()));
+      } catch (IOException e) {
+        logger.warn("Cannot open the address index {}: {}", options.getAddressIndexFile(),
+            e.getMessage());
+      }
+    }
+    if (options.isSingleFlightEnabled()) {
+      singleFlight = new SingleFlight();
+    }
+    if (options.getStateCacheTtlMs() > 0) {
+      stateCache = new ChainStateCache(options.getStateCacheRefreshAfterMs(),
+          options.getStateCacheTtlMs(),
+          () -> getNextMaintenanceTimeAsync().thenApply(NumberMessage::getNum));
+    }
+    if (options.isLocalBuildEnabled()) {
+      localBuilder = new LocalTransactionBuilder(options.getLocalBuildRefreshMs(),
+          this::getHeadBlockAsync);
+    }
+    if (metrics != null) {
+      startMetricsExporter();
+    }
+  }
+
+  private void startMetricsExporter() {
+    if (StringUtils.isEmpty(options.getMetricsFile()) && options.getMetricsHttpPort() <= 0) {
+      return;
     }
-    if (!StringUtils.isEmpty(soliditynode)) {
-      channelSolidity = ManagedChannelBuilder.forTarget(soliditynode)
-          .usePlaintext()
-          .build();
-      blockingStubSolidity = WalletSolidityGrpc.newBlockingStub(channelSolidity);
-      blockingStubExtension = WalletExtensionGrpc.newBlockingStub(channelSolidity);
+    metricsExporter = new MetricsExporter(this::getPrometheusText);
+    if (!StringUtils.isEmpty(options.getMetricsFile())) {
+      metricsExporter.startFile(options.getMetricsFile(), options.getMetricsFileIntervalMs());
+    }
+    if (options.getMetricsHttpPort() > 0) {
+      try {
+        metricsExporter.startHttp(options.getMetricsHttpPort());
+      } catch (IOException e) {
+        logger.warn("Cannot serve metrics on port {}: {}", options.getMetricsHttpPort(),
+            e.getMessage());
+      }
     }
   }
 
   public void shutdown() throws InterruptedException {
-    if (channelFull != null) {
-      channelFull.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+    synchronized (this) {
+      if (confirmationTracker != null) {
+        confirmationTracker.close();
+      }
+      if (blockFollower != null) {
+        blockFollower.stop();
+      }
+    }
+    if (localBuilder != null) {
+      localBuilder.stop();
+    }
+    if (metricsExporter != null) {
+      metricsExporter.shutdown();
+    }
+    if (hedging != null) {
+      hedging.shutdown();
+    }
+    if (fullNodes != null) {
+      fullNodes.shutdown();
     }
-    if (channelSolidity != null) {
-      channelSolidity.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+    if (solidityNodes != null) {
+      solidityNodes.shutdown();
+    }
+    if (addressIndex != null) {
+      try {
+        addressIndex.save();
+      } catch (IOException e) {
+        logger.warn("Saving the address index failed: {}", e.getMessage());
+      }
+    }
+    if (archive != null) {
+      try {
+        archive.close();
+      } catch (IOException e) {
+        logger.warn("Closing the block archive failed: {}", e.getMessage());
+      }
+    }
+  }
+
+  public NodePool getFullNodes() {
+    return fullNodes;
+  }
+
+  public NodePool getSolidityNodes() {
+    return solidityNodes;
+  }
+
+  /**
+   * Stub of a configured full node. Reads that may also go to discovered nodes use
+   * {@link #read} instead.
+   */
+  private WalletGrpc.WalletBlockingStub blockingStubFull() {
+    return fullNodes.pickConfigured().getBlockingStubFull();
+  }
+
+  private WalletGrpc.WalletFutureStub futureStubFull() {
+    return fullNodes.pickConfigured().getFutureStubFull();
+  }
+
+  private WalletSolidityGrpc.WalletSolidityBlockingStub blockingStubSolidity() {
+    return solidityNodes.pick().getBlockingStubSolidity();
+  }
+
+  private WalletSolidityGrpc.WalletSolidityFutureStub futureStubSolidity() {
+    return solidityNodes.pick().getFutureStubSolidity();
+  }
+
+  private WalletExtensionGrpc.WalletExtensionBlockingStub blockingStubExtension() {
+    return solidityNodes.pick().getBlockingStubExtension();
+  }
+
+  public Hedging getHedging() {
+    return hedging;
+  }
+
+  public ChainDataCache getCache() {
+    return cache;
+  }
+
+  public RpcMetrics getMetrics() {
+    return metrics;
+  }
+
+  public BlockArchive getArchive() {
+    return archive;
+  }
+
+  public AddressIndex getAddressIndex() {
+    return addressIndex;
+  }
+
+  /**
+   * Follower of the head block shared by everything using this client, started from the
+   * current head on first use.
+   */
+  public synchronized BlockFollower getBlockFollower() {
+    if (blockFollower == null) {
+      blockFollower = new BlockFollower(this, options.getFollowerPollIntervalMs(),
+          options.isFollowerTransactionInfo());
+      blockFollower.start(-1);
+    }
+    return blockFollower;
+  }
+
+  /**
+   * Tracker of broadcast transactions on the shared {@link #getBlockFollower()}, created on
+   * first use.
+   */
+  public synchronized ConfirmationTracker getConfirmationTracker() {
+    if (confirmationTracker == null) {
+      confirmationTracker = new ConfirmationTracker(this, getBlockFollower());
+    }
+    return confirmationTracker;
+  }
+
+  /**
+   * Per method table of the calls followed by the counters of the caches, the request
+   * coalescing and hedging.
+   */
+  public String getStatsText() {
+    StringBuilder text = new StringBuilder();
+    if (metrics != null) {
+      text.append(metrics.format());
+    }
+    if (cache != null) {
+      text.append("chain data cache: ").append(cache).append('\n');
+    }
+    if (archive != null) {
+      text.append("block archive: ").append(archive).append('\n');
+    }
+    if (addressIndex != null) {
+      text.append("address index: ").append(addressIndex).append('\n');
+    }
+    if (stateCache != null) {
+      text.append("chain state cache: ").append(stateCache).append('\n');
+    }
+    if (singleFlight != null) {
+      text.append("single flight: ").append(singleFlight).append('\n');
+    }
+    if (confirmationTracker != null) {
+      text.append("confirmations: ").append(confirmationTracker).append('\n');
+    }
+    if (localBuilder != null) {
+      text.append("local build: ").append(localBuilder).append('\n');
+    }
+    if (hedging != null) {
+      text.append("hedging: sent=").append(hedging.getHedgesSent())
+          .append(" won=").append(hedging.getHedgesWon()).append('\n');
+    }
+    return text.toString();
+  }
+
+  public String getPrometheusText() {
+    StringBuilder text = new StringBuilder();
+    if (metrics != null) {
+      metrics.toPrometheus(text);
+    }
+    if (cache != null || stateCache != null) {
+      text.append("# TYPE wallet_cache_hits_total counter\n");
+      if (cache != null) {
+        text.append("wallet_cache_hits_total{cache=\"chain_data\"} ").append(cache.getHits())
+            .append('\n');
+      }
+      if (stateCache != null) {
+        text.append("wallet_cache_hits_total{cache=\"chain_state\"} ")
+            .append(stateCache.getHits()).append('\n');
+      }
+      text.append("# TYPE wallet_cache_misses_total counter\n");
+      if (cache != null) {
+        text.append("wallet_cache_misses_total{cache=\"chain_data\"} ").append(cache.getMisses())
+            .append('\n');
+      }
+      if (stateCache != null) {
+        text.append("wallet_cache_misses_total{cache=\"chain_state\"} ")
+            .append(stateCache.getMisses()).append('\n');
+      }
+    }
+    if (cache != null) {
+      text.append("# TYPE wallet_cache_bytes gauge\n")
+          .append("wallet_cache_bytes{cache=\"chain_data\"} ").append(cache.getBytes())
+          .append('\n');
+    }
+    if (singleFlight != null) {
+      text.append("# TYPE wallet_rpc_coalesced_total counter\n")
+          .append("wallet_rpc_coalesced_total ").append(singleFlight.getCoalesced()).append('\n');
+    }
+    if (hedging != null) {
+      text.append("# TYPE wallet_rpc_hedges_total counter\n")
+          .append("wallet_rpc_hedges_total ").append(hedging.getHedgesSent()).append('\n');
+      text.append("# TYPE wallet_rpc_hedges_won_total counter\n")
+          .append("wallet_rpc_hedges_won_total ").append(hedging.getHedgesWon()).append('\n');
+    }
+    return text.toString();
+  }
+
+  public SingleFlight getSingleFlight() {
+    return singleFlight;
+  }
+
+  public ChainStateCache getStateCache() {
+    return stateCache;
+  }
+
+  /**
+   * Serves slowly changing chain state from {@link ChainStateCache} when it is enabled.
+   * {@code maintenanceBound} entries are dropped after each maintenance period.
+   */
+  private <T> CompletableFuture<T> chainState(String key, boolean maintenanceBound,
+      Supplier<CompletableFuture<T>> load) {
+    if (stateCache == null) {
+      return load.get();
+    }
+    return stateCache.get(key, maintenanceBound, load);
+  }
+
+  /**
+   * Highest block number known to be solidified, -1 while unknown. The value is refreshed in
+   * the background at most every {@code cacheSolidifiedRefreshMs}, from the solidity node when
+   * one is configured and from {@code getNodeInfo} of a full node otherwise.
+   */
+  public long getSolidifiedBlockNum() {
+    long now = System.currentTimeMillis();
+    if (now - solidifiedCheckedAt >= options.getCacheSolidifiedRefreshMs()
+        && solidifiedRefreshing.compareAndSet(false, true)) {
+      solidifiedCheckedAt = now;
+      fetchSolidifiedBlockNum().whenComplete((num, e) -> solidifiedRefreshing.set(false));
+    }
+    return solidifiedBlockNum;
+  }
+
+  /**
+   * Asks the nodes for the solidified block number now, instead of the background refresh of
+   * {@link #getSolidifiedBlockNum()}.
+   */
+  public CompletableFuture<Long> fetchSolidifiedBlockNum() {
+    EmptyMessage empty = EmptyMessage.newBuilder().build();
+    CompletableFuture<Long> refresh;
+    if (solidityNodes != null) {
+      refresh = toCompletableFuture(futureStubSolidity().getNowBlock(empty))
+          .thenApply(block -> block.getBlockHeader().getRawData().getNumber());
+    } else {
+      refresh = toCompletableFuture(futureStubFull().getNodeInfo(empty))
+          .thenApply(info -> parseSolidityBlockNum(info.getSolidityBlock()));
+    }
+    return refresh.thenApply(num -> {
+      if (num > solidifiedBlockNum) {
+        solidifiedBlockNum = num;
+      }
+      return num;
+    });
+  }
+
+  /**
+   * Block number of {@link NodeInfo#getSolidityBlock()}, formatted as {@code Num:123,ID:abc}.
+   */
+  static long parseSolidityBlockNum(String solidityBlock) {
+    for (String part : solidityBlock.split(",")) {
+      part = part.trim();
+      if (part.startsWith("Num:")) {
+        try {
+          return Long.parseLong(part.substring(4).trim());
+        } catch (NumberFormatException e) {
+          return -1;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private boolean isSolidified(long blockNum) {
+    return blockNum >= 0 && blockNum <= getSolidifiedBlockNum();
+  }
+
+  /**
+   * Serves {@code key} from the cache, or loads it and keeps the answer when it is not empty and
+   * {@code cacheable} accepts it.
+   */
+  private <T extends Message> CompletableFuture<T> cached(String key,
+      Supplier<CompletableFuture<T>> load, Predicate<T> cacheable) {
+    return cached(key, load, cacheable, 0);
+  }
+
+  /**
+   * Like {@link #cached(String, Supplier, Predicate)} for data that may still change, kept for
+   * at most {@code ttlMs}.
+   */
+  private <T extends Message> CompletableFuture<T> cached(String key,
+      Supplier<CompletableFuture<T>> load, Predicate<T> cacheable, long ttlMs) {
+    if (cache == null) {
+      return load.get();
+    }
+    T hit = cache.get(key);
+    if (hit != null) {
+      return CompletableFuture.completedFuture(hit);
+    }
+    return load.get().thenApply(value -> {
+      if (value != null && value.getSerializedSize() > 0 && cacheable.test(value)) {
+        cache.put(key, value, ttlMs);
+      }
+      return value;
+    });
+  }
+
+  /**
+   * Read-only call on one node of {@code pool}, hedged to a second node when hedging is enabled.
+   * Only for calls that are safe to send twice.
+   */
+  private <T> CompletableFuture<T> read(NodePool pool, String method, Message request,
+      Function<NodeEndpoint, ListenableFuture<T>> call) {
+    return shared(method, request, () -> {
+      if (hedging == null) {
+        return toCompletableFuture(call.apply(pool.pick()));
+      }
+      return hedging.call(pool, method, call);
+    });
+  }
+
+  /**
+   * Lets concurrent identical calls share one, see {@link SingleFlight}.
+   */
+  private <T> CompletableFuture<T> shared(String method, Message request,
+      Supplier<CompletableFuture<T>> call) {
+    if (singleFlight == null) {
+      return call.get();
+    }
+    return singleFlight.call(method, request, call);
+  }
+
+  /**
+   * Adapts a gRPC future stub result to a {@link CompletableFuture}. Cancelling the returned
+   * future cancels the underlying call.
+   */
+  static <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> listenableFuture) {
+    CompletableFuture<T> future = new CompletableFuture<T>() {
+      @Override
+      public boolean cancel(boolean mayInterruptIfRunning) {
+        listenableFuture.cancel(mayInterruptIfRunning);
+        return super.cancel(mayInterruptIfRunning);
+      }
+    };
+    Futures.addCallback(listenableFuture, new FutureCallback<T>() {
+      @Override
+      public void onSuccess(T result) {
+        future.complete(result);
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        future.completeExceptionally(t);
+      }
+    }, MoreExecutors.directExecutor());
+    return future;
+  }
+
+  /**
+   * Waits for an asynchronous call and rethrows its failure unwrapped, so the blocking methods
+   * keep throwing {@link io.grpc.StatusRuntimeException} as the blocking stubs do.
+   */
+  static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
     }
   }
 
   public Account queryAccount(byte[] address) {
+    return await(queryAccountAsync(address));
+  }
+
+  public CompletableFuture<Account> queryAccountAsync(byte[] address) {
     ByteString addressBS = ByteString.copyFrom(address);
     Account request = Account.newBuilder().setAddress(addressBS).build();
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.getAccount(request);
+    if (solidityNodes != null) {
+      return read(solidityNodes, "getAccount", request,
+          node -> node.getFutureStubSolidity().getAccount(request));
     } else {
-      return blockingStubFull.getAccount(request);
+      return read(fullNodes, "getAccount", request,
+          node -> node.getFutureStubFull().getAccount(request));
     }
   }
 
   public Account queryAccountById(String accountId) {
+    return await(queryAccountByIdAsync(accountId));
+  }
+
+  public CompletableFuture<Account> queryAccountByIdAsync(String accountId) {
     ByteString bsAccountId = ByteString.copyFromUtf8(accountId);
     Account request = Account.newBuilder().setAccountId(bsAccountId).build();
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.getAccountById(request);
+    if (solidityNodes != null) {
+      return toCompletableFuture(futureStubSolidity().getAccountById(request));
     } else {
-      return blockingStubFull.getAccountById(request);
+      return toCompletableFuture(futureStubFull().getAccountById(request));
     }
   }
 
   public TransactionSignWeight getTransactionSignWeight(Transaction transaction) {
-    return blockingStubFull.getTransactionSignWeight(transaction);
+    return await(getTransactionSignWeightAsync(transaction));
+  }
+
+  public CompletableFuture<TransactionSignWeight> getTransactionSignWeightAsync(
+      Transaction transaction) {
+    return toCompletableFuture(futureStubFull().getTransactionSignWeight(transaction));
   }
 
   public TransactionApprovedList getTransactionApprovedList(Transaction transaction) {
-    return blockingStubFull.getTransactionApprovedList(transaction);
+    return blockingStubFull().getTransactionApprovedList(transaction);
   }
 
   public Transaction createTransaction(AccountUpdateContract contract) {
-    return blockingStubFull.updateAccount(contract);
+    return blockingStubFull().updateAccount(contract);
   }
 
   public TransactionExtention createTransaction2(AccountUpdateContract contract) {
-    return blockingStubFull.updateAccount2(contract);
+    return await(createTransaction2Async(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransaction2Async(
+      AccountUpdateContract contract) {
+    return toCompletableFuture(futureStubFull().updateAccount2(contract));
   }
 
   public Transaction createTransaction(SetAccountIdContract contract) {
-    return blockingStubFull.setAccountId(contract);
+    return blockingStubFull().setAccountId(contract);
   }
 
   public Transaction createTransaction(UpdateAssetContract contract) {
-    return blockingStubFull.updateAsset(contract);
+    return blockingStubFull().updateAsset(contract);
   }
 
   public TransactionExtention createTransaction2(UpdateAssetContract contract) {
-    return blockingStubFull.updateAsset2(contract);
+    return await(createTransaction2Async(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransaction2Async(
+      UpdateAssetContract contract) {
+    return toCompletableFuture(futureStubFull().updateAsset2(contract));
   }
 
   public Transaction createTransaction(TransferContract contract) {
-    return blockingStubFull.createTransaction(contract);
+    return blockingStubFull().createTransaction(contract);
   }
 
   public TransactionExtention createTransaction2(TransferContract contract) {
-    return blockingStubFull.createTransaction2(contract);
+    return await(createTransaction2Async(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransaction2Async(
+      TransferContract contract) {
+    if (localBuilder != null) {
+      return localBuilder.build(ContractType.TransferContract, contract);
+    }
+    return toCompletableFuture(futureStubFull().createTransaction2(contract));
   }
 
   public Transaction createTransaction(FreezeBalanceContract contract) {
-    return blockingStubFull.freezeBalance(contract);
+    return blockingStubFull().freezeBalance(contract);
   }
 
   public TransactionExtention createTransaction(BuyStorageContract contract) {
-    return blockingStubFull.buyStorage(contract);
+    return await(createTransactionAsync(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransactionAsync(
+      BuyStorageContract contract) {
+    return toCompletableFuture(futureStubFull().buyStorage(contract));
   }
 
   public TransactionExtention createTransaction(BuyStorageBytesContract contract) {
-    return blockingStubFull.buyStorageBytes(contract);
+    return await(createTransactionAsync(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransactionAsync(
+      BuyStorageBytesContract contract) {
+    return toCompletableFuture(futureStubFull().buyStorageBytes(contract));
   }
 
   public TransactionExtention createTransaction(SellStorageContract contract) {
-    return blockingStubFull.sellStorage(contract);
+    return await(createTransactionAsync(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransactionAsync(
+      SellStorageContract contract) {
+    return toCompletableFuture(futureStubFull().sellStorage(contract));
   }
 
   public TransactionExtention createTransaction2(FreezeBalanceContract contract) {
-    return blockingStubFull.freezeBalance2(contract);
+    return await(createTransaction2Async(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransaction2Async(
+      FreezeBalanceContract contract) {
+    return toCompletableFuture(futureStubFull().freezeBalance2(contract));
   }
 
   public TransactionExtention createTransaction2(BalanceContract.FreezeBalanceV2Contract contract) {
-    return blockingStubFull.freezeBalanceV2(contract);
+    return await(createTransaction2Async(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransaction2Async(
+      BalanceContract.FreezeBalanceV2Contract contract) {
+    if (localBuilder != null) {
+      return localBuilder.build(ContractType.FreezeBalanceV2Contract, contract);
+    }
+    return toCompletableFuture(futureStubFull().freezeBalanceV2(contract));
   }
 
   public Transaction createTransaction(WithdrawBalanceContract contract) {
-    return blockingStubFull.withdrawBalance(contract);
+    return blockingStubFull().withdrawBalance(contract);
   }
 
   public TransactionExtention createTransaction2(WithdrawBalanceContract contract) {
-    return blockingStubFull.withdrawBalance2(contract);
+    return await(createTransaction2Async(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransaction2Async(
+      WithdrawBalanceContract contract) {
+    return toCompletableFuture(futureStubFull().withdrawBalance2(contract));
   }
 
   public Transaction createTransaction(UnfreezeBalanceContract contract) {
-    return blockingStubFull.unfreezeBalance(contract);
+    return blockingStubFull().unfreezeBalance(contract);
   }
 
   public TransactionExtention createTransaction2(UnfreezeBalanceContract contract) {
-    return blockingStubFull.unfreezeBalance2(contract);
+    return await(createTransaction2Async(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransaction2Async(
+      UnfreezeBalanceContract contract) {
+    return toCompletableFuture(futureStubFull().unfreezeBalance2(contract));
+  }
+
+  public TransactionExtention createTransactionV2(
+      BalanceContract.UnfreezeBalanceV2Contract contract) {
+    return await(createTransactionV2Async(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransactionV2Async(
+      BalanceContract.UnfreezeBalanceV2Contract contract) {
+    if (localBuilder != null) {
+      return localBuilder.build(ContractType.UnfreezeBalanceV2Contract, contract);
+    }
+    return toCompletableFuture(futureStubFull().unfreezeBalanceV2(contract));
+  }
+
+  public TransactionExtention createTransactionV2(
+      BalanceContract.WithdrawExpireUnfreezeContract contract) {
+    return await(createTransactionV2Async(contract));
   }
 
-  public TransactionExtention createTransactionV2(BalanceContract.UnfreezeBalanceV2Contract contract) {
-    return blockingStubFull.unfreezeBalanceV2(contract);
+  public CompletableFuture<TransactionExtention> createTransactionV2Async(
+      BalanceContract.WithdrawExpireUnfreezeContract contract) {
+    return toCompletableFuture(futureStubFull().withdrawExpireUnfreeze(contract));
   }
 
-  public TransactionExtention createTransactionV2(BalanceContract.WithdrawExpireUnfreezeContract contract) {
-    return blockingStubFull.withdrawExpireUnfreeze(contract);
+  public TransactionExtention createTransactionV2(
+      BalanceContract.DelegateResourceContract contract) {
+    return await(createTransactionV2Async(contract));
   }
 
-  public TransactionExtention createTransactionV2(BalanceContract.DelegateResourceContract contract) {
-    return blockingStubFull.delegateResource(contract);
+  public CompletableFuture<TransactionExtention> createTransactionV2Async(
+      BalanceContract.DelegateResourceContract contract) {
+    if (localBuilder != null) {
+      return localBuilder.build(ContractType.DelegateResourceContract, contract);
+    }
+    return toCompletableFuture(futureStubFull().delegateResource(contract));
   }
 
-  public TransactionExtention createTransactionV2(BalanceContract.UnDelegateResourceContract contract) {
-    return blockingStubFull.unDelegateResource(contract);
+  public TransactionExtention createTransactionV2(
+      BalanceContract.UnDelegateResourceContract contract) {
+    return await(createTransactionV2Async(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransactionV2Async(
+      BalanceContract.UnDelegateResourceContract contract) {
+    if (localBuilder != null) {
+      return localBuilder.build(ContractType.UnDelegateResourceContract, contract);
+    }
+    return toCompletableFuture(futureStubFull().unDelegateResource(contract));
   }
 
   public TransactionExtention createTransactionV2(CancelAllUnfreezeV2Contract contract) {
-    return blockingStubFull.cancelAllUnfreezeV2(contract);
+    return await(createTransactionV2Async(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransactionV2Async(
+      CancelAllUnfreezeV2Contract contract) {
+    return toCompletableFuture(futureStubFull().cancelAllUnfreezeV2(contract));
   }
 
   public Transaction createTransaction(UnfreezeAssetContract contract) {
-    return blockingStubFull.unfreezeAsset(contract);
+    return blockingStubFull().unfreezeAsset(contract);
   }
 
   public TransactionExtention createTransaction2(UnfreezeAssetContract contract) {
-    return blockingStubFull.unfreezeAsset2(contract);
+    return await(createTransaction2Async(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransaction2Async(
+      UnfreezeAssetContract contract) {
+    return toCompletableFuture(futureStubFull().unfreezeAsset2(contract));
   }
 
   public Transaction createTransferAssetTransaction(TransferAssetContract contract) {
-    return blockingStubFull.transferAsset(contract);
+    return blockingStubFull().transferAsset(contract);
   }
 
-  public TransactionExtention createTransferAssetTransaction2(
+  public TransactionExtention createTransferAssetTransaction2(TransferAssetContract contract) {
+    return await(createTransferAssetTransaction2Async(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createTransferAssetTransaction2Async(
       TransferAssetContract contract) {
-    return blockingStubFull.transferAsset2(contract);
+    if (localBuilder != null) {
+      return localBuilder.build(ContractType.TransferAssetContract, contract);
+    }
+    return toCompletableFuture(futureStubFull().transferAsset2(contract));
   }
 
   public Transaction createParticipateAssetIssueTransaction(
       ParticipateAssetIssueContract contract) {
-    return blockingStubFull.participateAssetIssue(contract);
+    return blockingStubFull().participateAssetIssue(contract);
   }
 
   public TransactionExtention createParticipateAssetIssueTransaction2(
       ParticipateAssetIssueContract contract) {
-    return blockingStubFull.participateAssetIssue2(contract);
+    return await(createParticipateAssetIssueTransaction2Async(contract));
+  }
+
+  public CompletableFuture<TransactionExtention> createParticipateAssetIssueTransaction2Async(
+      ParticipateAssetIssueContract contract) {
+    return toCompletableFuture(futureStubFull().participateAssetIssue2(contract));
   }
 
   public Transaction createAssetIssue(AssetIssueContract contract) {
-    return blockingStubFull.createAssetIssue(contract);
+    return blockingStubFull().createAssetIssue(contract);
   }
 
   public TransactionExtention createAssetIssue2(AssetIssueContract contract) {
-    return blockingStubFull.createAssetIssue2(contract);
+    return blockingStubFull().createAssetIssue2(contract);
   }
 
   public Transaction voteWitnessAccount(VoteWitnessContract contract) {
-    return blockingStubFull.voteWitnessAccount(contract);
+    return blockingStubFull().voteWitnessAccount(contract);
   }
 
   public TransactionExtention voteWitnessAccount2(VoteWitnessContract contract) {
-    return blockingStubFull.voteWitnessAccount2(contract);
+    return blockingStubFull().voteWitnessAccount2(contract);
   }
 
   public TransactionExtention proposalCreate(ProposalCreateContract contract) {
-    return blockingStubFull.proposalCreate(contract);
+    return blockingStubFull().proposalCreate(contract);
   }
 
   public Optional<ProposalList> listProposals() {
-    ProposalList proposalList = blockingStubFull.listProposals(EmptyMessage.newBuilder().build());
+    ProposalList proposalList = blockingStubFull().listProposals(EmptyMessage.newBuilder().build());
     return Optional.ofNullable(proposalList);
   }
 
@@ -290,7 +890,7 @@ public class GrpcClient {
     BytesMessage request = BytesMessage.newBuilder().setValue(ByteString.copyFrom(
         ByteArray.fromLong(Long.parseLong(id))))
         .build();
-    Proposal proposal = blockingStubFull.getProposalById(request);
+    Proposal proposal = blockingStubFull().getProposalById(request);
     return Optional.ofNullable(proposal);
   }
 
@@ -307,10 +907,10 @@ public class GrpcClient {
         .setToAddress(toAddressBS)
         .build();
     DelegatedResourceList delegatedResource;
-    if (blockingStubSolidity != null) {
-      delegatedResource = blockingStubSolidity.getDelegatedResource(request);
+    if (solidityNodes != null) {
+      delegatedResource = blockingStubSolidity().getDelegatedResource(request);
     } else {
-      delegatedResource = blockingStubFull.getDelegatedResource(request);
+      delegatedResource = blockingStubFull().getDelegatedResource(request);
     }
     return Optional.ofNullable(delegatedResource);
   }
@@ -323,10 +923,10 @@ public class GrpcClient {
             .setValue(ownerAddressBS)
             .build();
     DelegatedResourceAccountIndex delegatedResourceAccountIndex;
-    if (blockingStubSolidity != null) {
-      delegatedResourceAccountIndex = blockingStubSolidity.getDelegatedResourceAccountIndex(request);
+    if (solidityNodes != null) {
+      delegatedResourceAccountIndex = blockingStubSolidity().getDelegatedResourceAccountIndex(request);
     } else {
-      delegatedResourceAccountIndex = blockingStubFull.getDelegatedResourceAccountIndex(request);
+      delegatedResourceAccountIndex = blockingStubFull().getDelegatedResourceAccountIndex(request);
     }
     return Optional.ofNullable(delegatedResourceAccountIndex);
   }
@@ -343,10 +943,10 @@ public class GrpcClient {
             .setToAddress(toAddressBS)
             .build();
     DelegatedResourceList delegatedResource;
-    if (blockingStubSolidity != null) {
-      delegatedResource = blockingStubSolidity.getDelegatedResourceV2(request);
+    if (solidityNodes != null) {
+      delegatedResource = blockingStubSolidity().getDelegatedResourceV2(request);
     } else {
-      delegatedResource = blockingStubFull.getDelegatedResourceV2(request);
+      delegatedResource = blockingStubFull().getDelegatedResourceV2(request);
     }
     return Optional.ofNullable(delegatedResource);
   }
@@ -359,10 +959,10 @@ public class GrpcClient {
             .setValue(ownerAddressBS)
             .build();
     DelegatedResourceAccountIndex delegatedResourceAccountIndex;
-    if (blockingStubSolidity != null) {
-      delegatedResourceAccountIndex = blockingStubSolidity.getDelegatedResourceAccountIndexV2(request);
+    if (solidityNodes != null) {
+      delegatedResourceAccountIndex = blockingStubSolidity().getDelegatedResourceAccountIndexV2(request);
     } else {
-      delegatedResourceAccountIndex = blockingStubFull.getDelegatedResourceAccountIndexV2(request);
+      delegatedResourceAccountIndex = blockingStubFull().getDelegatedResourceAccountIndexV2(request);
     }
     return Optional.ofNullable(delegatedResourceAccountIndex);
   }
@@ -375,28 +975,31 @@ public class GrpcClient {
             .setType(type)
             .build();
     CanDelegatedMaxSizeResponseMessage canDelegatedMaxSizeResponseMessage;
-    if (blockingStubSolidity != null) {
-      canDelegatedMaxSizeResponseMessage = blockingStubSolidity.getCanDelegatedMaxSize(request);
+    if (solidityNodes != null) {
+      canDelegatedMaxSizeResponseMessage = blockingStubSolidity().getCanDelegatedMaxSize(request);
     } else {
-      canDelegatedMaxSizeResponseMessage = blockingStubFull.getCanDelegatedMaxSize(request);
+      canDelegatedMaxSizeResponseMessage = blockingStubFull().getCanDelegatedMaxSize(request);
     }
     return Optional.ofNullable(canDelegatedMaxSizeResponseMessage);
   }
 
   public Optional<CanWithdrawUnfreezeAmountResponseMessage> getCanWithdrawUnfreezeAmount(
           byte[] ownerAddress, long timestamp) {
+    return Optional.ofNullable(await(getCanWithdrawUnfreezeAmountAsync(ownerAddress, timestamp)));
+  }
+
+  public CompletableFuture<CanWithdrawUnfreezeAmountResponseMessage>
+      getCanWithdrawUnfreezeAmountAsync(byte[] ownerAddress, long timestamp) {
     ByteString ownerAddressBS = ByteString.copyFrom(ownerAddress);
     CanWithdrawUnfreezeAmountRequestMessage request = CanWithdrawUnfreezeAmountRequestMessage.newBuilder()
             .setOwnerAddress(ownerAddressBS)
             .setTimestamp(timestamp)
             .build();
-    CanWithdrawUnfreezeAmountResponseMessage canDelegatedMaxSizeResponseMessage;
-    if (blockingStubSolidity != null) {
-      canDelegatedMaxSizeResponseMessage = blockingStubSolidity.getCanWithdrawUnfreezeAmount(request);
+    if (solidityNodes != null) {
+      return toCompletableFuture(futureStubSolidity().getCanWithdrawUnfreezeAmount(request));
     } else {
-      canDelegatedMaxSizeResponseMessage = blockingStubFull.getCanWithdrawUnfreezeAmount(request);
+      return toCompletableFuture(futureStubFull().getCanWithdrawUnfreezeAmount(request));
     }
-    return Optional.ofNullable(canDelegatedMaxSizeResponseMessage);
   }
 
   public Optional<GetAvailableUnfreezeCountResponseMessage> getAvailableUnfreezeCount(
@@ -406,23 +1009,27 @@ public class GrpcClient {
             .setOwnerAddress(ownerAddressBS)
             .build();
     GetAvailableUnfreezeCountResponseMessage getAvailableUnfreezeCountResponseMessage;
-    if (blockingStubSolidity != null) {
-      getAvailableUnfreezeCountResponseMessage = blockingStubSolidity.getAvailableUnfreezeCount(request);
+    if (solidityNodes != null) {
+      getAvailableUnfreezeCountResponseMessage = blockingStubSolidity().getAvailableUnfreezeCount(request);
     } else {
-      getAvailableUnfreezeCountResponseMessage = blockingStubFull.getAvailableUnfreezeCount(request);
+      getAvailableUnfreezeCountResponseMessage = blockingStubFull().getAvailableUnfreezeCount(request);
     }
     return Optional.ofNullable(getAvailableUnfreezeCountResponseMessage);
   }
 
   public Optional<ExchangeList> listExchanges() {
-    ExchangeList exchangeList;
-    if (blockingStubSolidity != null) {
-      exchangeList = blockingStubSolidity.listExchanges(EmptyMessage.newBuilder().build());
-    } else {
-      exchangeList = blockingStubFull.listExchanges(EmptyMessage.newBuilder().build());
-    }
+    return Optional.ofNullable(await(listExchangesAsync()));
+  }
 
-    return Optional.ofNullable(exchangeList);
+  public CompletableFuture<ExchangeList> listExchangesAsync() {
+    EmptyMessage message = EmptyMessage.newBuilder().build();
+    return chainState("listExchanges", false, () -> {
+      if (solidityNodes != null) {
+        return toCompletableFuture(futureStubSolidity().listExchanges(message));
+      } else {
+        return toCompletableFuture(futureStubFull().listExchanges(message));
+      }
+    });
   }
 
   public Optional<Exchange> getExchange(String id) {
@@ -431,82 +1038,95 @@ public class GrpcClient {
         .build();
 
     Exchange exchange;
-    if (blockingStubSolidity != null) {
-      exchange = blockingStubSolidity.getExchangeById(request);
+    if (solidityNodes != null) {
+      exchange = blockingStubSolidity().getExchangeById(request);
     } else {
-      exchange = blockingStubFull.getExchangeById(request);
+      exchange = blockingStubFull().getExchangeById(request);
     }
 
     return Optional.ofNullable(exchange);
   }
 
   public Optional<ChainParameters> getChainParameters() {
-    ChainParameters chainParameters = blockingStubFull
-        .getChainParameters(EmptyMessage.newBuilder().build());
-    return Optional.ofNullable(chainParameters);
+    return Optional.ofNullable(await(getChainParametersAsync()));
+  }
+
+  public CompletableFuture<ChainParameters> getChainParametersAsync() {
+    return chainState("getChainParameters", true, () -> toCompletableFuture(
+        futureStubFull().getChainParameters(EmptyMessage.newBuilder().build())));
   }
 
   public TransactionExtention proposalApprove(ProposalApproveContract contract) {
-    return blockingStubFull.proposalApprove(contract);
+    return blockingStubFull().proposalApprove(contract);
   }
 
   public TransactionExtention proposalDelete(ProposalDeleteContract contract) {
-    return blockingStubFull.proposalDelete(contract);
+    return blockingStubFull().proposalDelete(contract);
   }
 
   public TransactionExtention exchangeCreate(ExchangeCreateContract contract) {
-    return blockingStubFull.exchangeCreate(contract);
+    return blockingStubFull().exchangeCreate(contract);
   }
 
   public TransactionExtention exchangeInject(ExchangeInjectContract contract) {
-    return blockingStubFull.exchangeInject(contract);
+    return blockingStubFull().exchangeInject(contract);
   }
 
   public TransactionExtention exchangeWithdraw(ExchangeWithdrawContract contract) {
-    return blockingStubFull.exchangeWithdraw(contract);
+    return blockingStubFull().exchangeWithdraw(contract);
   }
 
   public TransactionExtention exchangeTransaction(ExchangeTransactionContract contract) {
-    return blockingStubFull.exchangeTransaction(contract);
+    return blockingStubFull().exchangeTransaction(contract);
   }
 
   public Transaction createAccount(AccountCreateContract contract) {
-    return blockingStubFull.createAccount(contract);
+    return blockingStubFull().createAccount(contract);
   }
 
   public TransactionExtention createAccount2(AccountCreateContract contract) {
-    return blockingStubFull.createAccount2(contract);
+    return blockingStubFull().createAccount2(contract);
   }
 
   public Transaction createWitness(WitnessCreateContract contract) {
-    return blockingStubFull.createWitness(contract);
+    return blockingStubFull().createWitness(contract);
   }
 
   public TransactionExtention createWitness2(WitnessCreateContract contract) {
-    return blockingStubFull.createWitness2(contract);
+    return blockingStubFull().createWitness2(contract);
   }
 
   public Transaction updateWitness(WitnessUpdateContract contract) {
-    return blockingStubFull.updateWitness(contract);
+    return blockingStubFull().updateWitness(contract);
   }
 
   public TransactionExtention updateWitness2(WitnessUpdateContract contract) {
-    return blockingStubFull.updateWitness2(contract);
+    return blockingStubFull().updateWitness2(contract);
   }
 
+  /**
+   * Sends a signed transaction to the first healthy full node. Transport failures are retried by
+   * the channel, see {@link RetryInterceptor}; a node answering {@code SERVER_BUSY} is asked
+   * again with the backoff and attempt budget of the {@code BroadcastTransaction} policy.
+   */
   public boolean broadcastTransaction(Transaction signaturedTransaction) {
-    int i = 10;
-    GrpcAPI.Return response = blockingStubFull.broadcastTransaction(signaturedTransaction);
-    while (response.getResult() == false && response.getCode() == response_code.SERVER_BUSY
-        && i > 0) {
-      i--;
-      response = blockingStubFull.broadcastTransaction(signaturedTransaction);
-      System.out.println("repeat times = " + (11 - i));
+    CallPolicy policy = options.policyFor("BroadcastTransaction");
+    WalletGrpc.WalletBlockingStub stub = fullNodes.primary().getBlockingStubFull();
+    GrpcAPI.Return response = stub.broadcastTransaction(signaturedTransaction);
+    for (int attempt = 1; response.getResult() == false
+        && response.getCode() == response_code.SERVER_BUSY
+        && attempt < policy.getMaxAttempts(); attempt++) {
       try {
-        Thread.sleep(1000);
+        Thread.sleep(policy.backoffMs(attempt));
       } catch (InterruptedException e) {
-        e.printStackTrace();
+        Thread.currentThread().interrupt();
+        break;
       }
+      response = stub.broadcastTransaction(signaturedTransaction);
+      System.out.println("repeat times = " + attempt);
+    }
+    if (response.getResult()) {
+      invalidateContract(signaturedTransaction);
     }
     if (response.getResult() == false) {
       System.out.println("Code = " + response.getCode());
@@ -515,47 +1135,169 @@ public class GrpcClient {
     return response.getResult();
   }
 
+  /**
+   * Sends a signed transaction to the first healthy full node without waiting for the answer.
+   * Unlike {@link #broadcastTransaction} nothing is printed and {@code SERVER_BUSY} is handed
+   * back to the caller, which decides whether to send again.
+   */
+  public CompletableFuture<GrpcAPI.Return> broadcastTransactionAsync(Transaction transaction) {
+    return toCompletableFuture(fullNodes.primary().getFutureStubFull()
+        .broadcastTransaction(transaction))
+        .thenApply(response -> {
+          if (response.getResult()) {
+            invalidateContract(transaction);
+          }
+          return response;
+        });
+  }
+
+  /**
+   * Contracts are cached although their owner can still change the ABI and settings, so drop
+   * the entry when such a change goes out from this client.
+   */
+  private void invalidateContract(Transaction transaction) {
+    if (cache == null) {
+      return;
+    }
+    for (Transaction.Contract contract : transaction.getRawData().getContractList()) {
+      ByteString address;
+      try {
+        switch (contract.getType()) {
+          case ClearABIContract:
+            address = contract.getParameter().unpack(ClearABIContract.class)
+                .getContractAddress();
+            break;
+          case UpdateSettingContract:
+            address = contract.getParameter().unpack(UpdateSettingContract.class)
+                .getContractAddress();
+            break;
+          case UpdateEnergyLimitContract:
+            address = contract.getParameter().unpack(UpdateEnergyLimitContract.class)
+                .getContractAddress();
+            break;
+          default:
+            continue;
+        }
+      } catch (InvalidProtocolBufferException e) {
+        continue;
+      }
+      cache.remove("contract:" + ByteArray.toHexString(address.toByteArray()));
+    }
+  }
+
   public Block getBlock(long blockNum) {
+    return await(getBlockAsync(blockNum));
+  }
+
+  public CompletableFuture<Block> getBlockAsync(long blockNum) {
     if (blockNum < 0) {
-      if (blockingStubSolidity != null) {
-        return blockingStubSolidity.getNowBlock(EmptyMessage.newBuilder().build());
+      EmptyMessage empty = EmptyMessage.newBuilder().build();
+      if (solidityNodes != null) {
+        return read(solidityNodes, "getNowBlock", empty,
+            node -> node.getFutureStubSolidity().getNowBlock(empty));
       } else {
-        return blockingStubFull.getNowBlock(EmptyMessage.newBuilder().build());
+        return read(fullNodes, "getNowBlock", empty,
+            node -> node.getFutureStubFull().getNowBlock(empty));
       }
     }
     NumberMessage.Builder builder = NumberMessage.newBuilder();
     builder.setNum(blockNum);
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.getBlockByNum(builder.build());
+    NumberMessage request = builder.build();
+    return cached("block:" + blockNum, () -> {
+      if (archive != null && isSolidified(blockNum)) {
+        return archivedBlock(blockNum).thenApply(BlockArchive::toBlock);
+      }
+      if (solidityNodes != null) {
+        return read(solidityNodes, "getBlockByNum", request,
+            node -> node.getFutureStubSolidity().getBlockByNum(request));
+      } else {
+        return read(fullNodes, "getBlockByNum", request,
+            node -> node.getFutureStubFull().getBlockByNum(request));
+      }
+    }, block -> isSolidified(blockNum));
+  }
+
+  /**
+   * Solidified block {@code blockNum} from the archive, fetched and archived when missing.
+   */
+  private CompletableFuture<BlockExtention> archivedBlock(long blockNum) {
+    BlockExtention archived = archive.get(blockNum);
+    if (archived != null) {
+      return CompletableFuture.completedFuture(archived);
+    }
+    NumberMessage request = NumberMessage.newBuilder().setNum(blockNum).build();
+    CompletableFuture<BlockExtention> load;
+    if (solidityNodes != null) {
+      load = read(solidityNodes, "getBlockByNum2", request,
+          node -> node.getFutureStubSolidity().getBlockByNum2(request));
     } else {
-      return blockingStubFull.getBlockByNum(builder.build());
+      load = read(fullNodes, "getBlockByNum2", request,
+          node -> node.getFutureStubFull().getBlockByNum2(request));
+    }
+    return load.thenApply(block -> {
+      if (block.getBlockHeader().getRawData().getNumber() == blockNum) {
+        archive(Collections.singletonList(block));
+      }
+      return block;
+    });
+  }
+
+  /**
+   * Adds the solidified ones of {@code blocks} to the archive.
+   */
+  private void archive(List<BlockExtention> blocks) {
+    try {
+      for (BlockExtention block : blocks) {
+        if (isSolidified(block.getBlockHeader().getRawData().getNumber())) {
+          archive.put(block);
+        }
+      }
+    } catch (IOException e) {
+      logger.warn("Writing to the block archive failed: {}", e.getMessage());
     }
   }
 
   public long getTransactionCountByBlockNum(long blockNum) {
     NumberMessage.Builder builder = NumberMessage.newBuilder();
     builder.setNum(blockNum);
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.getTransactionCountByBlockNum(builder.build()).getNum();
+    if (solidityNodes != null) {
+      return blockingStubSolidity().getTransactionCountByBlockNum(builder.build()).getNum();
     } else {
-      return blockingStubFull.getTransactionCountByBlockNum(builder.build()).getNum();
+      return blockingStubFull().getTransactionCountByBlockNum(builder.build()).getNum();
     }
   }
 
   public BlockExtention getBlock2(long blockNum) {
+    return await(getBlock2Async(blockNum));
+  }
+
+  /**
+   * Latest block of the full nodes, also when a solidity node is configured.
+   */
+  public CompletableFuture<BlockExtention> getHeadBlockAsync() {
+    EmptyMessage empty = EmptyMessage.newBuilder().build();
+    return read(fullNodes, "getNowBlock2", empty,
+        node -> node.getFutureStubFull().getNowBlock2(empty));
+  }
+
+  public CompletableFuture<BlockExtention> getBlock2Async(long blockNum) {
+    if (archive != null && isSolidified(blockNum)) {
+      return archivedBlock(blockNum);
+    }
     if (blockNum < 0) {
-      if (blockingStubSolidity != null) {
-        return blockingStubSolidity.getNowBlock2(EmptyMessage.newBuilder().build());
+      if (solidityNodes != null) {
+        return toCompletableFuture(
+            futureStubSolidity().getNowBlock2(EmptyMessage.newBuilder().build()));
       } else {
-        return blockingStubFull.getNowBlock2(EmptyMessage.newBuilder().build());
+        return toCompletableFuture(futureStubFull().getNowBlock2(EmptyMessage.newBuilder().build()));
       }
     }
     NumberMessage.Builder builder = NumberMessage.newBuilder();
     builder.setNum(blockNum);
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.getBlockByNum2(builder.build());
+    if (solidityNodes != null) {
+      return toCompletableFuture(futureStubSolidity().getBlockByNum2(builder.build()));
     } else {
-      return blockingStubFull.getBlockByNum2(builder.build());
+      return toCompletableFuture(futureStubFull().getBlockByNum2(builder.build()));
     }
   }
 
@@ -567,38 +1309,47 @@ public class GrpcClient {
 //  }
 
   public Optional<WitnessList> listWitnesses() {
-    if (blockingStubSolidity != null) {
-      WitnessList witnessList = blockingStubSolidity
-          .listWitnesses(EmptyMessage.newBuilder().build());
-      return Optional.ofNullable(witnessList);
-    } else {
-      WitnessList witnessList = blockingStubFull.listWitnesses(EmptyMessage.newBuilder().build());
-      return Optional.ofNullable(witnessList);
-    }
+    return Optional.ofNullable(await(listWitnessesAsync()));
+  }
+
+  public CompletableFuture<WitnessList> listWitnessesAsync() {
+    return chainState("listWitnesses", true, () -> {
+      if (solidityNodes != null) {
+        return toCompletableFuture(
+            futureStubSolidity().listWitnesses(EmptyMessage.newBuilder().build()));
+      } else {
+        return toCompletableFuture(
+            futureStubFull().listWitnesses(EmptyMessage.newBuilder().build()));
+      }
+    });
   }
 
   public Optional<AssetIssueList> getAssetIssueList() {
-    if (blockingStubSolidity != null) {
-      AssetIssueList assetIssueList = blockingStubSolidity
-          .getAssetIssueList(EmptyMessage.newBuilder().build());
-      return Optional.ofNullable(assetIssueList);
-    } else {
-      AssetIssueList assetIssueList = blockingStubFull
-          .getAssetIssueList(EmptyMessage.newBuilder().build());
-      return Optional.ofNullable(assetIssueList);
-    }
+    return Optional.ofNullable(await(getAssetIssueListAsync()));
+  }
+
+  public CompletableFuture<AssetIssueList> getAssetIssueListAsync() {
+    return chainState("getAssetIssueList", false, () -> {
+      if (solidityNodes != null) {
+        return toCompletableFuture(
+            futureStubSolidity().getAssetIssueList(EmptyMessage.newBuilder().build()));
+      } else {
+        return toCompletableFuture(
+            futureStubFull().getAssetIssueList(EmptyMessage.newBuilder().build()));
+      }
+    });
   }
 
   public Optional<AssetIssueList> getAssetIssueList(long offset, long limit) {
     PaginatedMessage.Builder pageMessageBuilder = PaginatedMessage.newBuilder();
     pageMessageBuilder.setOffset(offset);
     pageMessageBuilder.setLimit(limit);
-    if (blockingStubSolidity != null) {
-      AssetIssueList assetIssueList = blockingStubSolidity.
+    if (solidityNodes != null) {
+      AssetIssueList assetIssueList = blockingStubSolidity().
           getPaginatedAssetIssueList(pageMessageBuilder.build());
       return Optional.ofNullable(assetIssueList);
     } else {
-      AssetIssueList assetIssueList = blockingStubFull
+      AssetIssueList assetIssueList = blockingStubFull()
           .getPaginatedAssetIssueList(pageMessageBuilder.build());
       return Optional.ofNullable(assetIssueList);
     }
@@ -608,7 +1359,7 @@ public class GrpcClient {
     PaginatedMessage.Builder pageMessageBuilder = PaginatedMessage.newBuilder();
     pageMessageBuilder.setOffset(offset);
     pageMessageBuilder.setLimit(limit);
-    ProposalList proposalList = blockingStubFull
+    ProposalList proposalList = blockingStubFull()
         .getPaginatedProposalList(pageMessageBuilder.build());
     return Optional.ofNullable(proposalList);
 
@@ -618,54 +1369,62 @@ public class GrpcClient {
     PaginatedMessage.Builder pageMessageBuilder = PaginatedMessage.newBuilder();
     pageMessageBuilder.setOffset(offset);
     pageMessageBuilder.setLimit(limit);
-    ExchangeList exchangeList = blockingStubFull
+    ExchangeList exchangeList = blockingStubFull()
         .getPaginatedExchangeList(pageMessageBuilder.build());
     return Optional.ofNullable(exchangeList);
 
   }
 
   public Optional<NodeList> listNodes() {
-    NodeList nodeList = blockingStubFull.listNodes(EmptyMessage.newBuilder().build());
+    NodeList nodeList = blockingStubFull().listNodes(EmptyMessage.newBuilder().build());
     return Optional.ofNullable(nodeList);
   }
 
   public Optional<AssetIssueList> getAssetIssueByAccount(byte[] address) {
     ByteString addressBS = ByteString.copyFrom(address);
     Account request = Account.newBuilder().setAddress(addressBS).build();
-    AssetIssueList assetIssueList = blockingStubFull.getAssetIssueByAccount(request);
+    AssetIssueList assetIssueList = blockingStubFull().getAssetIssueByAccount(request);
     return Optional.ofNullable(assetIssueList);
   }
 
   public AccountNetMessage getAccountNet(byte[] address) {
+    return await(getAccountNetAsync(address));
+  }
+
+  public CompletableFuture<AccountNetMessage> getAccountNetAsync(byte[] address) {
     ByteString addressBS = ByteString.copyFrom(address);
     Account request = Account.newBuilder().setAddress(addressBS).build();
-    return blockingStubFull.getAccountNet(request);
+    return toCompletableFuture(futureStubFull().getAccountNet(request));
   }
 
   public AccountResourceMessage getAccountResource(byte[] address) {
+    return await(getAccountResourceAsync(address));
+  }
+
+  public CompletableFuture<AccountResourceMessage> getAccountResourceAsync(byte[] address) {
     ByteString addressBS = ByteString.copyFrom(address);
     Account request = Account.newBuilder().setAddress(addressBS).build();
-    return blockingStubFull.getAccountResource(request);
+    return toCompletableFuture(futureStubFull().getAccountResource(request));
   }
 
   public AssetIssueContract getAssetIssueByName(String assetName) {
     ByteString assetNameBs = ByteString.copyFrom(assetName.getBytes());
     BytesMessage request = BytesMessage.newBuilder().setValue(assetNameBs).build();
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.getAssetIssueByName(request);
+    if (solidityNodes != null) {
+      return blockingStubSolidity().getAssetIssueByName(request);
     } else {
-      return blockingStubFull.getAssetIssueByName(request);
+      return blockingStubFull().getAssetIssueByName(request);
     }
   }
 
   public Optional<AssetIssueList> getAssetIssueListByName(String assetName) {
     ByteString assetNameBs = ByteString.copyFrom(assetName.getBytes());
     BytesMessage request = BytesMessage.newBuilder().setValue(assetNameBs).build();
-    if (blockingStubSolidity != null) {
-      AssetIssueList assetIssueList = blockingStubSolidity.getAssetIssueListByName(request);
+    if (solidityNodes != null) {
+      AssetIssueList assetIssueList = blockingStubSolidity().getAssetIssueListByName(request);
       return Optional.ofNullable(assetIssueList);
     } else {
-      AssetIssueList assetIssueList = blockingStubFull.getAssetIssueListByName(request);
+      AssetIssueList assetIssueList = blockingStubFull().getAssetIssueListByName(request);
       return Optional.ofNullable(assetIssueList);
     }
   }
@@ -673,19 +1432,30 @@ public class GrpcClient {
   public AssetIssueContract getAssetIssueById(String assetId) {
     ByteString assetIdBs = ByteString.copyFrom(assetId.getBytes());
     BytesMessage request = BytesMessage.newBuilder().setValue(assetIdBs).build();
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.getAssetIssueById(request);
+    if (solidityNodes != null) {
+      return blockingStubSolidity().getAssetIssueById(request);
     } else {
-      return blockingStubFull.getAssetIssueById(request);
+      return blockingStubFull().getAssetIssueById(request);
     }
   }
 
   public NumberMessage getTotalTransaction() {
-    return blockingStubFull.totalTransaction(EmptyMessage.newBuilder().build());
+    return blockingStubFull().totalTransaction(EmptyMessage.newBuilder().build());
   }
 
   public NumberMessage getNextMaintenanceTime() {
-    return blockingStubFull.getNextMaintenanceTime(EmptyMessage.newBuilder().build());
+    return await(getNextMaintenanceTimeAsync());
+  }
+
+  public CompletableFuture<NumberMessage> getNextMaintenanceTimeAsync() {
+    return toCompletableFuture(
+        futureStubFull().getNextMaintenanceTime(EmptyMessage.newBuilder().build()))
+        .thenApply(time -> {
+          if (stateCache != null) {
+            stateCache.onNextMaintenanceTime(time.getNum());
+          }
+          return time;
+        });
   }
 
 //  public Optional<AssetIssueList> getAssetIssueListByTimestamp(long time) {
@@ -714,30 +1484,83 @@ public class GrpcClient {
 //    TimeMessage.Builder timeMessage = TimeMessage.newBuilder();
 //    timeMessage.setBeginInMilliseconds(start);
 //    timeMessage.setEndInMilliseconds(end);
-//    return blockingStubExtension.getTransactionsByTimestampCount(timeMessage.build());
+//    return blockingStubExtension().getTransactionsByTimestampCount(timeMessage.build());
 //  }
 
+  /**
+   * Page of the transactions of {@code address} found in the {@link AddressIndex}, newest first.
+   * The blocks holding them are fetched concurrently, from the archive when it has them. A block
+   * that is not the indexed one or lacks the indexed transaction, as an empty block from a node
+   * that does not have it yet, is asked once more from a full node before the page fails.
+   */
+  private List<TransactionExtention> indexedTransactions(byte[] address,
+      AddressIndex.Direction direction, int offset, int limit) {
+    long[] postings = addressIndex.query(address, direction, offset, limit);
+    Map<Long, CompletableFuture<BlockExtention>> blocks = new HashMap<>();
+    for (long posting : postings) {
+      blocks.computeIfAbsent(AddressIndex.blockNum(posting), this::getBlock2Async);
+    }
+    List<TransactionExtention> transactions = new ArrayList<>(postings.length);
+    for (long posting : postings) {
+      long num = AddressIndex.blockNum(posting);
+      int index = AddressIndex.transactionIndex(posting);
+      BlockExtention block = await(blocks.get(num));
+      if (!holds(block, num, index)) {
+        block = await(toCompletableFuture(futureStubFull().getBlockByNum2(
+            NumberMessage.newBuilder().setNum(num).build())));
+        blocks.put(num, CompletableFuture.completedFuture(block));
+        if (!holds(block, num, index)) {
+          throw new IllegalStateException("Address index holds transaction " + index
+              + " of block " + num + ", but the node returned block "
+              + block.getBlockHeader().getRawData().getNumber() + " with "
+              + block.getTransactionsCount() + " transactions; delete "
+              + options.getAddressIndexFile() + " to rebuild the index");
+        }
+      }
+      transactions.add(block.getTransactions(index));
+    }
+    return transactions;
+  }
+
+  private static boolean holds(BlockExtention block, long num, int index) {
+    return block.getBlockHeader().getRawData().getNumber() == num
+        && index < block.getTransactionsCount();
+  }
+
   public Optional<TransactionList> getTransactionsFromThis(byte[] address, int offset, int limit) {
+    if (addressIndex != null) {
+      TransactionList.Builder transactions = TransactionList.newBuilder();
+      for (TransactionExtention transaction
+          : indexedTransactions(address, AddressIndex.Direction.FROM, offset, limit)) {
+        transactions.addTransaction(transaction.getTransaction());
+      }
+      return Optional.of(transactions.build());
+    }
     ByteString addressBS = ByteString.copyFrom(address);
     Account account = Account.newBuilder().setAddress(addressBS).build();
     AccountPaginated.Builder accountPaginated = AccountPaginated.newBuilder();
     accountPaginated.setAccount(account);
     accountPaginated.setOffset(offset);
     accountPaginated.setLimit(limit);
-    TransactionList transactionList = blockingStubExtension
+    TransactionList transactionList = blockingStubExtension()
         .getTransactionsFromThis(accountPaginated.build());
     return Optional.ofNullable(transactionList);
   }
 
   public Optional<TransactionListExtention> getTransactionsFromThis2(byte[] address, int offset,
       int limit) {
+    if (addressIndex != null) {
+      return Optional.of(TransactionListExtention.newBuilder()
+          .addAllTransaction(indexedTransactions(address, AddressIndex.Direction.FROM, offset, limit))
+          .build());
+    }
     ByteString addressBS = ByteString.copyFrom(address);
     Account account = Account.newBuilder().setAddress(addressBS).build();
     AccountPaginated.Builder accountPaginated = AccountPaginated.newBuilder();
     accountPaginated.setAccount(account);
     accountPaginated.setOffset(offset);
     accountPaginated.setLimit(limit);
-    TransactionListExtention transactionList = blockingStubExtension
+    TransactionListExtention transactionList = blockingStubExtension()
         .getTransactionsFromThis2(accountPaginated.build());
     return Optional.ofNullable(transactionList);
   }
@@ -745,345 +1568,495 @@ public class GrpcClient {
 //  public NumberMessage getTransactionsFromThisCount(byte[] address) {
 //    ByteString addressBS = ByteString.copyFrom(address);
 //    Account account = Account.newBuilder().setAddress(addressBS).build();
-//    return blockingStubExtension.getTransactionsFromThisCount(account);
+//    return blockingStubExtension().getTransactionsFromThisCount(account);
 //  }
 
   public Optional<TransactionList> getTransactionsToThis(byte[] address, int offset, int limit) {
+    if (addressIndex != null) {
+      TransactionList.Builder transactions = TransactionList.newBuilder();
+      for (TransactionExtention transaction
+          : indexedTransactions(address, AddressIndex.Direction.TO, offset, limit)) {
+        transactions.addTransaction(transaction.getTransaction());
+      }
+      return Optional.of(transactions.build());
+    }
     ByteString addressBS = ByteString.copyFrom(address);
     Account account = Account.newBuilder().setAddress(addressBS).build();
     AccountPaginated.Builder accountPaginated = AccountPaginated.newBuilder();
     accountPaginated.setAccount(account);
     accountPaginated.setOffset(offset);
     accountPaginated.setLimit(limit);
-    TransactionList transactionList = blockingStubExtension
+    TransactionList transactionList = blockingStubExtension()
         .getTransactionsToThis(accountPaginated.build());
     return Optional.ofNullable(transactionList);
   }
 
   public Optional<TransactionListExtention> getTransactionsToThis2(byte[] address, int offset,
       int limit) {
+    if (addressIndex != null) {
+      return Optional.of(TransactionListExtention.newBuilder()
+          .addAllTransaction(indexedTransactions(address, AddressIndex.Direction.TO, offset, limit))
+          .build());
+    }
     ByteString addressBS = ByteString.copyFrom(address);
     Account account = Account.newBuilder().setAddress(addressBS).build();
     AccountPaginated.Builder accountPaginated = AccountPaginated.newBuilder();
     accountPaginated.setAccount(account);
     accountPaginated.setOffset(offset);
     accountPaginated.setLimit(limit);
-    TransactionListExtention transactionList = blockingStubExtension
+    TransactionListExtention transactionList = blockingStubExtension()
         .getTransactionsToThis2(accountPaginated.build());
     return Optional.ofNullable(transactionList);
   }
 //  public NumberMessage getTransactionsToThisCount(byte[] address) {
 //    ByteString addressBS = ByteString.copyFrom(address);
 //    Account account = Account.newBuilder().setAddress(addressBS).build();
-//    return blockingStubExtension.getTransactionsToThisCount(account);
+//    return blockingStubExtension().getTransactionsToThisCount(account);
 //  }
 
   public Optional<Transaction> getTransactionById(String txID) {
+    return Optional.ofNullable(await(getTransactionByIdAsync(txID)));
+  }
+
+  public CompletableFuture<Transaction> getTransactionByIdAsync(String txID) {
     ByteString bsTxid = ByteString.copyFrom(ByteArray.fromHexString(txID));
     BytesMessage request = BytesMessage.newBuilder().setValue(bsTxid).build();
-    Transaction transaction;
-    if (blockingStubSolidity != null) {
-      transaction = blockingStubSolidity.getTransactionById(request);
-    } else {
-      transaction = blockingStubFull.getTransactionById(request);
-    }
-    return Optional.ofNullable(transaction);
+    String key = txID.toLowerCase();
+    return cached("tx:" + key, () -> shared("getTransactionById", request, () -> {
+      if (solidityNodes != null) {
+        return toCompletableFuture(futureStubSolidity().getTransactionById(request));
+      } else {
+        return toCompletableFuture(futureStubFull().getTransactionById(request));
+      }
+    }), transaction -> {
+      // a full node also returns unconfirmed transactions, which may still be dropped
+      if (solidityNodes != null) {
+        return true;
+      }
+      TransactionInfo info = cache.peek("txInfo:" + key);
+      return info != null && isSolidified(info.getBlockNumber());
+    });
   }
 
   public Optional<TransactionInfo> getTransactionInfoById(String txID) {
+    return Optional.ofNullable(await(getTransactionInfoByIdAsync(txID)));
+  }
+
+  public CompletableFuture<TransactionInfo> getTransactionInfoByIdAsync(String txID) {
     ByteString bsTxid = ByteString.copyFrom(ByteArray.fromHexString(txID));
     BytesMessage request = BytesMessage.newBuilder().setValue(bsTxid).build();
-    TransactionInfo transactionInfo;
-    if (blockingStubSolidity != null) {
-      transactionInfo = blockingStubSolidity.getTransactionInfoById(request);
-    } else {
-      transactionInfo = blockingStubFull.getTransactionInfoById(request);
-    }
-    return Optional.ofNullable(transactionInfo);
+    return cached("txInfo:" + txID.toLowerCase(), () -> {
+      if (solidityNodes != null) {
+        return read(solidityNodes, "getTransactionInfoById", request,
+            node -> node.getFutureStubSolidity().getTransactionInfoById(request));
+      } else {
+        return read(fullNodes, "getTransactionInfoById", request,
+            node -> node.getFutureStubFull().getTransactionInfoById(request));
+      }
+    }, info -> isSolidified(info.getBlockNumber()));
+  }
+
+  /**
+   * Info of {@code txID} from a full node, which also knows the blocks not yet solidified; empty
+   * while no block holds the transaction. Not cached, as the answer may still change.
+   */
+  public CompletableFuture<TransactionInfo> getFullNodeTransactionInfoByIdAsync(String txID) {
+    ByteString bsTxid = ByteString.copyFrom(ByteArray.fromHexString(txID));
+    BytesMessage request = BytesMessage.newBuilder().setValue(bsTxid).build();
+    return read(fullNodes, "getTransactionInfoById", request,
+        node -> node.getFutureStubFull().getTransactionInfoById(request));
+  }
+
+  /**
+   * Transaction {@code txID} from the pending pool of a full node, the default instance once it
+   * left the pool or when it never entered it.
+   */
+  public CompletableFuture<Transaction> getTransactionFromPendingAsync(String txID) {
+    ByteString bsTxid = ByteString.copyFrom(ByteArray.fromHexString(txID));
+    BytesMessage request = BytesMessage.newBuilder().setValue(bsTxid).build();
+    return read(fullNodes, "getTransactionFromPending", request,
+        node -> node.getFutureStubFull().getTransactionFromPending(request));
   }
 
   public Optional<Block> getBlockById(String blockID) {
+    return Optional.ofNullable(await(getBlockByIdAsync(blockID)));
+  }
+
+  public CompletableFuture<Block> getBlockByIdAsync(String blockID) {
     ByteString bsTxid = ByteString.copyFrom(ByteArray.fromHexString(blockID));
     BytesMessage request = BytesMessage.newBuilder().setValue(bsTxid).build();
-    Block block = blockingStubFull.getBlockById(request);
-    return Optional.ofNullable(block);
+    return cached("blockId:" + blockID.toLowerCase(), () -> {
+      if (archive != null && bsTxid.size() == 32) {
+        long blockNum = ByteArray.toLong(bsTxid.substring(0, 8).toByteArray());
+        if (isSolidified(blockNum)) {
+          return archivedBlock(blockNum).<Block>thenCompose(block -> {
+            if (block.getBlockid().equals(bsTxid)) {
+              return CompletableFuture.completedFuture(BlockArchive.toBlock(block));
+            }
+            return shared("getBlockById", request,
+                () -> toCompletableFuture(futureStubFull().getBlockById(request)));
+          });
+        }
+      }
+      return shared("getBlockById", request,
+          () -> toCompletableFuture(futureStubFull().getBlockById(request)));
+    },
+        block -> isSolidified(block.getBlockHeader().getRawData().getNumber()));
   }
 
   public Optional<BlockList> getBlockByLimitNext(long start, long end) {
+    if (archive != null) {
+      BlockList.Builder blocks = BlockList.newBuilder();
+      for (BlockExtention block : await(getBlockByLimitNext2Async(start, end)).getBlockList()) {
+        blocks.addBlock(BlockArchive.toBlock(block));
+      }
+      return Optional.of(blocks.build());
+    }
     BlockLimit.Builder builder = BlockLimit.newBuilder();
     builder.setStartNum(start);
     builder.setEndNum(end);
-    BlockList blockList = blockingStubFull.getBlockByLimitNext(builder.build());
+    BlockList blockList = blockingStubFull().getBlockByLimitNext(builder.build());
     return Optional.ofNullable(blockList);
   }
 
   public Optional<BlockListExtention> getBlockByLimitNext2(long start, long end) {
+    return Optional.ofNullable(await(getBlockByLimitNext2Async(start, end)));
+  }
+
+  public CompletableFuture<BlockListExtention> getBlockByLimitNext2Async(long start, long end) {
     BlockLimit.Builder builder = BlockLimit.newBuilder();
     builder.setStartNum(start);
     builder.setEndNum(end);
-    BlockListExtention blockList = blockingStubFull.getBlockByLimitNext2(builder.build());
-    return Optional.ofNullable(blockList);
+    BlockLimit request = builder.build();
+    if (archive == null) {
+      return read(fullNodes, "getBlockByLimitNext2", request,
+          node -> node.getFutureStubFull().getBlockByLimitNext2(request));
+    }
+    if (isSolidified(end - 1)) {
+      List<BlockExtention> archived = archive.range(start, end);
+      if (archived != null) {
+        return CompletableFuture.completedFuture(
+            BlockListExtention.newBuilder().addAllBlock(archived).build());
+      }
+    }
+    return read(fullNodes, "getBlockByLimitNext2", request,
+        node -> node.getFutureStubFull().getBlockByLimitNext2(request)).thenApply(list -> {
+          archive(list.getBlockList());
+          return list;
+        });
   }
 
   public Optional<BlockList> getBlockByLatestNum(long num) {
     NumberMessage numberMessage = NumberMessage.newBuilder().setNum(num).build();
-    BlockList blockList = blockingStubFull.getBlockByLatestNum(numberMessage);
+    BlockList blockList = blockingStubFull().getBlockByLatestNum(numberMessage);
     return Optional.ofNullable(blockList);
   }
 
   public Optional<BlockListExtention> getBlockByLatestNum2(long num) {
     NumberMessage numberMessage = NumberMessage.newBuilder().setNum(num).build();
-    BlockListExtention blockList = blockingStubFull.getBlockByLatestNum2(numberMessage);
+    BlockListExtention blockList = blockingStubFull().getBlockByLatestNum2(numberMessage);
     return Optional.ofNullable(blockList);
   }
 
   public TransactionExtention updateSetting(UpdateSettingContract request) {
-    return blockingStubFull.updateSetting(request);
+    return blockingStubFull().updateSetting(request);
   }
 
   public TransactionExtention updateEnergyLimit(
       UpdateEnergyLimitContract request) {
-    return blockingStubFull.updateEnergyLimit(request);
+    return blockingStubFull().updateEnergyLimit(request);
   }
 
   public TransactionExtention clearContractABI(
       ClearABIContract request) {
-    return blockingStubFull.clearContractABI(request);
+    return blockingStubFull().clearContractABI(request);
   }
 
   public TransactionExtention deployContract(CreateSmartContract request) {
-    return blockingStubFull.deployContract(request);
+    return blockingStubFull().deployContract(request);
   }
 
+  /**
+   * With local building enabled the transaction is built without running the call, so a call of
+   * a constant function is not recognized and must use {@link #triggerConstantContract}.
+   */
   public TransactionExtention triggerContract(TriggerSmartContract request) {
-    return blockingStubFull.triggerContract(request);
+    if (localBuilder != null) {
+      return await(localBuilder.build(ContractType.TriggerSmartContract, request));
+    }
+    return blockingStubFull().triggerContract(request);
   }
 
   public TransactionExtention triggerConstantContract(TriggerSmartContract request) {
-    return blockingStubFull.triggerConstantContract(request);
+    return await(triggerConstantContractAsync(request));
+  }
+
+  public CompletableFuture<TransactionExtention> triggerConstantContractAsync(
+      TriggerSmartContract request) {
+    return read(fullNodes, "triggerConstantContract", request,
+        node -> node.getFutureStubFull().triggerConstantContract(request));
   }
 
   public EstimateEnergyMessage estimateEnergy(TriggerSmartContract request) {
-    return blockingStubFull.estimateEnergy(request);
+    return blockingStubFull().estimateEnergy(request);
   }
 
   public SmartContract getContract(byte[] address) {
+    return await(getContractAsync(address));
+  }
+
+  public CompletableFuture<SmartContract> getContractAsync(byte[] address) {
     ByteString byteString = ByteString.copyFrom(address);
     BytesMessage bytesMessage = BytesMessage.newBuilder().setValue(byteString).build();
-    return blockingStubFull.getContract(bytesMessage);
+    return cached("contract:" + ByteArray.toHexString(address),
+        () -> shared("getContract", bytesMessage,
+            () -> toCompletableFuture(futureStubFull().getContract(bytesMessage))),
+        contract -> options.getCacheContractTtlMs() > 0, options.getCacheContractTtlMs());
   }
 
   public SmartContractDataWrapper getContractInfo(byte[] address) {
     ByteString byteString = ByteString.copyFrom(address);
     BytesMessage bytesMessage = BytesMessage.newBuilder().setValue(byteString).build();
-    return blockingStubFull.getContractInfo(bytesMessage);
+    return blockingStubFull().getContractInfo(bytesMessage);
   }
 
   public TransactionExtention accountPermissionUpdate(
       AccountPermissionUpdateContract request) {
-    return blockingStubFull.accountPermissionUpdate(request);
+    return blockingStubFull().accountPermissionUpdate(request);
   }
 
   public TransactionExtention createShieldedTransaction(PrivateParameters privateParameters) {
-    return blockingStubFull.createShieldedTransaction(privateParameters);
+    return blockingStubFull().createShieldedTransaction(privateParameters);
   }
 
   public IncrementalMerkleVoucherInfo GetMerkleTreeVoucherInfo(OutputPointInfo info) {
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.getMerkleTreeVoucherInfo(info);
+    if (solidityNodes != null) {
+      return blockingStubSolidity().getMerkleTreeVoucherInfo(info);
     } else {
-      return blockingStubFull.getMerkleTreeVoucherInfo(info);
+      return blockingStubFull().getMerkleTreeVoucherInfo(info);
     }
   }
 
   public DecryptNotes scanNoteByIvk(IvkDecryptParameters ivkDecryptParameters) {
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.scanNoteByIvk(ivkDecryptParameters);
+    if (solidityNodes != null) {
+      return blockingStubSolidity().scanNoteByIvk(ivkDecryptParameters);
     } else {
-      return blockingStubFull.scanNoteByIvk(ivkDecryptParameters);
+      return blockingStubFull().scanNoteByIvk(ivkDecryptParameters);
     }
   }
 
   public DecryptNotes scanNoteByOvk(OvkDecryptParameters ovkDecryptParameters) {
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.scanNoteByOvk(ovkDecryptParameters);
+    if (solidityNodes != null) {
+      return blockingStubSolidity().scanNoteByOvk(ovkDecryptParameters);
     } else {
-      return blockingStubFull.scanNoteByOvk(ovkDecryptParameters);
+      return blockingStubFull().scanNoteByOvk(ovkDecryptParameters);
     }
   }
 
   public BytesMessage getSpendingKey() {
-    return blockingStubFull.getSpendingKey(EmptyMessage.newBuilder().build());
+    return blockingStubFull().getSpendingKey(EmptyMessage.newBuilder().build());
   }
 
   public ExpandedSpendingKeyMessage getExpandedSpendingKey(BytesMessage spendingKey) {
-    return blockingStubFull.getExpandedSpendingKey(spendingKey);
+    return blockingStubFull().getExpandedSpendingKey(spendingKey);
   }
 
   public BytesMessage getAkFromAsk(BytesMessage ask) {
-    return blockingStubFull.getAkFromAsk(ask);
+    return blockingStubFull().getAkFromAsk(ask);
   }
 
   public BytesMessage getNkFromNsk(BytesMessage nsk) {
-    return blockingStubFull.getNkFromNsk(nsk);
+    return blockingStubFull().getNkFromNsk(nsk);
   }
 
   public IncomingViewingKeyMessage getIncomingViewingKey(ViewingKeyMessage viewingKeyMessage) {
-    return blockingStubFull.getIncomingViewingKey(viewingKeyMessage);
+    return blockingStubFull().getIncomingViewingKey(viewingKeyMessage);
   }
 
   public DiversifierMessage getDiversifier() {
-    return blockingStubFull.getDiversifier(EmptyMessage.newBuilder().build());
+    return blockingStubFull().getDiversifier(EmptyMessage.newBuilder().build());
   }
 
   public BytesMessage getRcm() {
-    return blockingStubFull.getRcm(EmptyMessage.newBuilder().build());
+    return blockingStubFull().getRcm(EmptyMessage.newBuilder().build());
   }
 
   public SpendResult isNoteSpend(NoteParameters noteParameters) {
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.isSpend(noteParameters);
+    if (solidityNodes != null) {
+      return blockingStubSolidity().isSpend(noteParameters);
     } else {
-      return blockingStubFull.isSpend(noteParameters);
+      return blockingStubFull().isSpend(noteParameters);
     }
   }
 
   public TransactionExtention createShieldedTransactionWithoutSpendAuthSig(
       PrivateParametersWithoutAsk privateParameters) {
-    return blockingStubFull.createShieldedTransactionWithoutSpendAuthSig(privateParameters);
+    return blockingStubFull().createShieldedTransactionWithoutSpendAuthSig(privateParameters);
   }
 
   public BytesMessage getShieldedTransactionHash(Transaction transaction) {
-    return blockingStubFull.getShieldTransactionHash(transaction);
+    return blockingStubFull().getShieldTransactionHash(transaction);
   }
 
   public BytesMessage createSpendAuthSig(SpendAuthSigParameters parameters) {
-    return blockingStubFull.createSpendAuthSig(parameters);
+    return blockingStubFull().createSpendAuthSig(parameters);
   }
 
   public BytesMessage createShieldedNullifier(NfParameters parameters) {
-    return blockingStubFull.createShieldNullifier(parameters);
+    return blockingStubFull().createShieldNullifier(parameters);
   }
 
   public PaymentAddressMessage getZenPaymentAddress(IncomingViewingKeyDiversifierMessage msg) {
-    return blockingStubFull.getZenPaymentAddress(msg);
+    return blockingStubFull().getZenPaymentAddress(msg);
   }
 
   public DecryptNotesMarked scanAndMarkNoteByIvk(IvkDecryptAndMarkParameters parameters) {
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.scanAndMarkNoteByIvk(parameters);
+    if (solidityNodes != null) {
+      return blockingStubSolidity().scanAndMarkNoteByIvk(parameters);
     } else {
-      return blockingStubFull.scanAndMarkNoteByIvk(parameters);
+      return blockingStubFull().scanAndMarkNoteByIvk(parameters);
     }
   }
 
   public TransactionExtention updateBrokerage(UpdateBrokerageContract request) {
-    return blockingStubFull.updateBrokerage(request);
+    return blockingStubFull().updateBrokerage(request);
   }
 
   public NumberMessage getReward(byte[] address) {
+    return await(getRewardAsync(address));
+  }
+
+  public CompletableFuture<NumberMessage> getRewardAsync(byte[] address) {
     BytesMessage bytesMessage = BytesMessage.newBuilder().setValue(ByteString.copyFrom(address))
         .build();
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.getRewardInfo(bytesMessage);
+    if (solidityNodes != null) {
+      return toCompletableFuture(futureStubSolidity().getRewardInfo(bytesMessage));
     } else {
-      return blockingStubFull.getRewardInfo(bytesMessage);
+      return toCompletableFuture(futureStubFull().getRewardInfo(bytesMessage));
     }
   }
 
   public NumberMessage getBrokerage(byte[] address) {
     BytesMessage bytesMessage = BytesMessage.newBuilder().setValue(ByteString.copyFrom(address))
         .build();
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.getBrokerageInfo(bytesMessage);
+    if (solidityNodes != null) {
+      return blockingStubSolidity().getBrokerageInfo(bytesMessage);
     } else {
-      return blockingStubFull.getBrokerageInfo(bytesMessage);
+      return blockingStubFull().getBrokerageInfo(bytesMessage);
     }
   }
 
   public PricesResponseMessage getBandwidthPrices() {
+    return await(getBandwidthPricesAsync());
+  }
+
+  public CompletableFuture<PricesResponseMessage> getBandwidthPricesAsync() {
     EmptyMessage message = EmptyMessage.newBuilder().build();
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.getBandwidthPrices(message);
-    } else {
-      return blockingStubFull.getBandwidthPrices(message);
-    }
+    return chainState("getBandwidthPrices", true, () -> {
+      if (solidityNodes != null) {
+        return toCompletableFuture(futureStubSolidity().getBandwidthPrices(message));
+      } else {
+        return toCompletableFuture(futureStubFull().getBandwidthPrices(message));
+      }
+    });
   }
 
   public PricesResponseMessage getEnergyPrices() {
+    return await(getEnergyPricesAsync());
+  }
+
+  public CompletableFuture<PricesResponseMessage> getEnergyPricesAsync() {
     EmptyMessage message = EmptyMessage.newBuilder().build();
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.getEnergyPrices(message);
-    } else {
-      return blockingStubFull.getEnergyPrices(message);
-    }
+    return chainState("getEnergyPrices", true, () -> {
+      if (solidityNodes != null) {
+        return toCompletableFuture(futureStubSolidity().getEnergyPrices(message));
+      } else {
+        return toCompletableFuture(futureStubFull().getEnergyPrices(message));
+      }
+    });
   }
 
   public PricesResponseMessage getMemoFee() {
+    return await(getMemoFeeAsync());
+  }
+
+  public CompletableFuture<PricesResponseMessage> getMemoFeeAsync() {
     EmptyMessage message = EmptyMessage.newBuilder().build();
-    return blockingStubFull.getMemoFee(message);
+    return chainState("getMemoFee", true,
+        () -> toCompletableFuture(futureStubFull().getMemoFee(message)));
   }
 
   public Optional<TransactionInfoList> getTransactionInfoByBlockNum(long blockNum) {
-    TransactionInfoList transactionInfoList;
+    return Optional.ofNullable(await(getTransactionInfoByBlockNumAsync(blockNum)));
+  }
+
+  public CompletableFuture<TransactionInfoList> getTransactionInfoByBlockNumAsync(long blockNum) {
+    return getTransactionInfoByBlockNumAsync(blockNum, false);
+  }
+
+  /**
+   * Transaction infos of block {@code blockNum}, from a full node when {@code fullNode} even if
+   * a solidity node is configured, for blocks that are not solidified yet.
+   */
+  public CompletableFuture<TransactionInfoList> getTransactionInfoByBlockNumAsync(long blockNum,
+      boolean fullNode) {
     NumberMessage.Builder builder = NumberMessage.newBuilder();
     builder.setNum(blockNum);
 
-    if (blockingStubSolidity != null) {
-      transactionInfoList = blockingStubSolidity.getTransactionInfoByBlockNum(builder.build());
+    if (solidityNodes != null && !fullNode) {
+      return toCompletableFuture(
+          futureStubSolidity().getTransactionInfoByBlockNum(builder.build()));
     } else {
-      transactionInfoList = blockingStubFull.getTransactionInfoByBlockNum(builder.build());
+      return toCompletableFuture(futureStubFull().getTransactionInfoByBlockNum(builder.build()));
     }
-
-    return Optional.ofNullable(transactionInfoList);
   }
 
 
   public DecryptNotesTRC20 scanShieldedTRC20NoteByIvk(IvkDecryptTRC20Parameters parameters) {
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.scanShieldedTRC20NotesByIvk(parameters);
+    if (solidityNodes != null) {
+      return blockingStubSolidity().scanShieldedTRC20NotesByIvk(parameters);
     } else {
-      return blockingStubFull.scanShieldedTRC20NotesByIvk(parameters);
+      return blockingStubFull().scanShieldedTRC20NotesByIvk(parameters);
     }
   }
 
   public DecryptNotesTRC20 scanShieldedTRC20NoteByOvk(OvkDecryptTRC20Parameters parameters) {
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.scanShieldedTRC20NotesByOvk(parameters);
+    if (solidityNodes != null) {
+      return blockingStubSolidity().scanShieldedTRC20NotesByOvk(parameters);
     } else {
-      return blockingStubFull.scanShieldedTRC20NotesByOvk(parameters);
+      return blockingStubFull().scanShieldedTRC20NotesByOvk(parameters);
     }
   }
 
   public ShieldedTRC20Parameters createShieldedContractParameters(
       PrivateShieldedTRC20Parameters parameters) {
-    return blockingStubFull.createShieldedContractParameters(parameters);
+    return blockingStubFull().createShieldedContractParameters(parameters);
   }
 
   public ShieldedTRC20Parameters createShieldedContractParametersWithoutAsk(
       PrivateShieldedTRC20ParametersWithoutAsk parameters) {
-    return blockingStubFull.createShieldedContractParametersWithoutAsk(parameters);
+    return blockingStubFull().createShieldedContractParametersWithoutAsk(parameters);
   }
 
   public NullifierResult isShieldedTRC20ContractNoteSpent(NfTRC20Parameters prameters) {
-    if (blockingStubSolidity != null) {
-      return blockingStubSolidity.isShieldedTRC20ContractNoteSpent(prameters);
+    if (solidityNodes != null) {
+      return blockingStubSolidity().isShieldedTRC20ContractNoteSpent(prameters);
     } else {
-      return blockingStubFull.isShieldedTRC20ContractNoteSpent(prameters);
+      return blockingStubFull().isShieldedTRC20ContractNoteSpent(prameters);
     }
   }
 
   public BytesMessage getTriggerInputForShieldedTRC20Contract(
       ShieldedTRC20TriggerContractParameters parameters) {
-    return blockingStubFull.getTriggerInputForShieldedTRC20Contract(parameters);
+    return blockingStubFull().getTriggerInputForShieldedTRC20Contract(parameters);
   }
 
   public TransactionExtention marketSellAsset(MarketSellAssetContract request) {
-    return blockingStubFull.marketSellAsset(request);
+    return blockingStubFull().marketSellAsset(request);
   }
 
   public TransactionExtention marketCancelOrder(MarketCancelOrderContract request) {
-    return blockingStubFull.marketCancelOrder(request);
+    return blockingStubFull().marketCancelOrder(request);
   }
 
   public Optional<MarketOrderList> getMarketOrderByAccount(byte[] address) {
@@ -1091,10 +2064,10 @@ public class GrpcClient {
     BytesMessage request = BytesMessage.newBuilder().setValue(addressBS).build();
 
     MarketOrderList marketOrderList;
-    if (blockingStubSolidity != null) {
-      marketOrderList = blockingStubSolidity.getMarketOrderByAccount(request);
+    if (solidityNodes != null) {
+      marketOrderList = blockingStubSolidity().getMarketOrderByAccount(request);
     } else {
-      marketOrderList = blockingStubFull.getMarketOrderByAccount(request);
+      marketOrderList = blockingStubFull().getMarketOrderByAccount(request);
     }
     return Optional.ofNullable(marketOrderList);
   }
@@ -1107,10 +2080,10 @@ public class GrpcClient {
             .build();
 
     MarketPriceList marketPriceList;
-    if (blockingStubSolidity != null) {
-      marketPriceList = blockingStubSolidity.getMarketPriceByPair(request);
+    if (solidityNodes != null) {
+      marketPriceList = blockingStubSolidity().getMarketPriceByPair(request);
     } else {
-      marketPriceList = blockingStubFull.getMarketPriceByPair(request);
+      marketPriceList = blockingStubFull().getMarketPriceByPair(request);
     }
     return Optional.ofNullable(marketPriceList);
   }
@@ -1124,10 +2097,10 @@ public class GrpcClient {
             .build();
 
     MarketOrderList marketOrderList;
-    if (blockingStubSolidity != null) {
-      marketOrderList = blockingStubSolidity.getMarketOrderListByPair(request);
+    if (solidityNodes != null) {
+      marketOrderList = blockingStubSolidity().getMarketOrderListByPair(request);
     } else {
-      marketOrderList = blockingStubFull.getMarketOrderListByPair(request);
+      marketOrderList = blockingStubFull().getMarketOrderListByPair(request);
     }
     return Optional.ofNullable(marketOrderList);
   }
@@ -1135,10 +2108,10 @@ public class GrpcClient {
 
   public Optional<MarketOrderPairList> getMarketPairList() {
     MarketOrderPairList orderPairList;
-    if (blockingStubSolidity != null) {
-      orderPairList = blockingStubSolidity.getMarketPairList(EmptyMessage.newBuilder().build());
+    if (solidityNodes != null) {
+      orderPairList = blockingStubSolidity().getMarketPairList(EmptyMessage.newBuilder().build());
     } else {
-      orderPairList = blockingStubFull.getMarketPairList(EmptyMessage.newBuilder().build());
+      orderPairList = blockingStubFull().getMarketPairList(EmptyMessage.newBuilder().build());
     }
     return Optional.ofNullable(orderPairList);
   }
@@ -1147,31 +2120,33 @@ public class GrpcClient {
     ByteString orderBytes = ByteString.copyFrom(order);
     BytesMessage request = BytesMessage.newBuilder().setValue(orderBytes).build();
     MarketOrder orderPair;
-    if (blockingStubSolidity != null) {
-      orderPair = blockingStubSolidity.getMarketOrderById(request);
+    if (solidityNodes != null) {
+      orderPair = blockingStubSolidity().getMarketOrderById(request);
     } else {
-      orderPair = blockingStubFull.getMarketOrderById(request);
+      orderPair = blockingStubFull().getMarketOrderById(request);
     }
     return Optional.ofNullable(orderPair);
   }
 
   public BlockExtention getBlock(String idOrNum, boolean detail) {
-    BlockExtention block;
+    return await(getBlockAsync(idOrNum, detail));
+  }
+
+  public CompletableFuture<BlockExtention> getBlockAsync(String idOrNum, boolean detail) {
+    CompletableFuture<BlockExtention> block;
 
     BlockReq.Builder builder = BlockReq.newBuilder();
     if (idOrNum != null && !idOrNum.isEmpty()) {
       builder.setIdOrNum(idOrNum);
     }
     builder.setDetail(detail);
-    if (blockingStubSolidity != null) {
-      block = blockingStubSolidity.getBlock(builder.build());
+    if (solidityNodes != null) {
+      block = toCompletableFuture(futureStubSolidity().getBlock(builder.build()));
     } else {
-      block = blockingStubFull.getBlock(builder.build());
-    }
-    if (block == BlockExtention.getDefaultInstance()) {
-      block = null; // set to null
+      block = toCompletableFuture(futureStubFull().getBlock(builder.build()));
     }
-    return block;
+    // set to null
+    return block.thenApply(b -> b == BlockExtention.getDefaultInstance() ? null : b);
   }
 
 }
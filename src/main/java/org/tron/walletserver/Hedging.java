@@ -0,0 +1,183 @@
+package org.tron.walletserver;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Hedged reads: when the first node has not answered after a delay taken from the recent
+ * latency distribution of the method, the same request goes to a second node and whichever
+ * answer arrives first wins. The loser is cancelled. In the common case the first answer comes
+ * before the delay and no extra request is sent.
+ */
+public class Hedging {
+
+  private static final int WINDOW_SIZE = 256;
+  private static final int MIN_SAMPLES = 20;
+
+  private final double percentile;
+  private final long minDelayMs;
+  private final long initialDelayMs;
+  private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService timer;
+  private final AtomicLong hedgesSent = new AtomicLong();
+  private final AtomicLong hedgesWon = new AtomicLong();
+
+  public Hedging(RpcOptions options) {
+    this.percentile = options.getHedgingPercentile();
+    this.minDelayMs = options.getHedgingMinDelayMs();
+    this.initialDelayMs = options.getHedgingInitialDelayMs();
+    this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "hedging-timer");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public long getHedgesSent() {
+    return hedgesSent.get();
+  }
+
+  public long getHedgesWon() {
+    return hedgesWon.get();
+  }
+
+  /**
+   * Delay before the hedge is sent: the configured percentile of the recent latencies of this
+   * method, never below {@code minDelayMs}. Until enough samples exist the initial delay is used.
+   */
+  public long delayMs(String method) {
+    LatencyWindow window = windows.get(method);
+    long delay = window == null ? -1 : window.percentile(percentile);
+    return Math.max(minDelayMs, delay < 0 ? initialDelayMs : delay);
+  }
+
+  public <T> CompletableFuture<T> call(NodePool pool, String method,
+      Function<NodeEndpoint, ListenableFuture<T>> call) {
+    HedgedCall<T> hedgedCall = new HedgedCall<>(pool, method, call);
+    hedgedCall.start();
+    return hedgedCall.result;
+  }
+
+  public void shutdown() {
+    timer.shutdownNow();
+  }
+
+  private void record(String method, long nanos) {
+    windows.computeIfAbsent(method, k -> new LatencyWindow())
+        .add(TimeUnit.NANOSECONDS.toMillis(nanos));
+  }
+
+  private class HedgedCall<T> {
+
+    private final NodePool pool;
+    private final String method;
+    private final Function<NodeEndpoint, ListenableFuture<T>> call;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final List<CompletableFuture<T>> attempts = new ArrayList<>(2);
+    private NodeEndpoint first;
+    private ScheduledFuture<?> hedgeTimer;
+    private boolean hedgeSent;
+
+    HedgedCall(NodePool pool, String method, Function<NodeEndpoint, ListenableFuture<T>> call) {
+      this.pool = pool;
+      this.method = method;
+      this.call = call;
+      result.whenComplete((value, error) -> cancelAll());
+    }
+
+    synchronized void start() {
+      first = pool.pick();
+      attempt(first, false);
+      if (pool.getEndpoints().size() > 1 && !result.isDone()) {
+        hedgeTimer = timer.schedule(this::hedge, delayMs(method), TimeUnit.MILLISECONDS);
+      }
+    }
+
+    private synchronized void hedge() {
+      if (result.isDone() || hedgeSent) {
+        return;
+      }
+      hedgeSent = true;
+      NodeEndpoint second = pool.pickOther(first);
+      if (second == null) {
+        return;
+      }
+      hedgesSent.incrementAndGet();
+      attempt(second, true);
+    }
+
+    private void attempt(NodeEndpoint endpoint, boolean hedge) {
+      long start = System.nanoTime();
+      CompletableFuture<T> attempt = GrpcClient.toCompletableFuture(call.apply(endpoint));
+      attempts.add(attempt);
+      attempt.whenComplete((value, error) -> {
+        if (error == null) {
+          record(method, System.nanoTime() - start);
+          if (result.complete(value) && hedge) {
+            hedgesWon.incrementAndGet();
+          }
+        } else {
+          onFailure(error, hedge);
+        }
+      });
+    }
+
+    private synchronized void onFailure(Throwable error, boolean hedge) {
+      if (!hedge && !hedgeSent && hedgeTimer != null && hedgeTimer.cancel(false)) {
+        // the first node failed before the hedge delay: ask the other node right away
+        hedge();
+      }
+      for (CompletableFuture<T> attempt : attempts) {
+        if (!attempt.isDone()) {
+          return;
+        }
+      }
+      result.completeExceptionally(error);
+    }
+
+    private synchronized void cancelAll() {
+      if (hedgeTimer != null) {
+        hedgeTimer.cancel(false);
+      }
+      for (CompletableFuture<T> attempt : attempts) {
+        if (!attempt.isDone()) {
+          attempt.cancel(true);
+        }
+      }
+    }
+  }
+
+  private static class LatencyWindow {
+
+    private final long[] samples = new long[WINDOW_SIZE];
+    private int count;
+    private int next;
+
+    synchronized void add(long millis) {
+      samples[next] = millis;
+      next = (next + 1) % samples.length;
+      count = Math.min(count + 1, samples.length);
+    }
+
+    synchronized long percentile(double percentile) {
+      if (count < MIN_SAMPLES) {
+        return -1;
+      }
+      long[] sorted = Arrays.copyOf(samples, count);
+      Arrays.sort(sorted);
+      int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+      return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+  }
+}
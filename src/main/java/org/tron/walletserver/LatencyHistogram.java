@@ -0,0 +1,94 @@
+package org.tron.walletserver;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free latency histogram in microseconds with log-linear buckets, in the style of
+ * HdrHistogram: every power of two is split into 32 buckets, so a percentile is off by at most
+ * about 3%. Recording is one array increment; the buckets take about 8 KB.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  /**
+   * Latencies from about 19 hours up land in the last bucket.
+   */
+  private static final long MAX_MICROS = (1L << 36) - 1;
+  private static final int BUCKETS = index(MAX_MICROS) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sumMicros = new LongAdder();
+  private final AtomicLong maxMicros = new AtomicLong();
+
+  public void record(long nanos) {
+    long micros = Math.max(0, Math.min(MAX_MICROS, nanos / 1000));
+    counts.incrementAndGet(index(micros));
+    count.increment();
+    sumMicros.add(micros);
+    if (micros > maxMicros.get()) {
+      maxMicros.accumulateAndGet(micros, Math::max);
+    }
+  }
+
+  private static int index(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+    int sub = (int) (micros >>> shift) & (SUB_BUCKETS - 1);
+    return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * Largest value that falls into bucket {@code index}.
+   */
+  private static long upperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+    int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+    return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getSumMicros() {
+    return sumMicros.sum();
+  }
+
+  public long getMaxMicros() {
+    return maxMicros.get();
+  }
+
+  /**
+   * Latency in microseconds below which {@code percentile} percent of the recorded values fall,
+   * 0 when nothing was recorded.
+   */
+  public long percentileMicros(double percentile) {
+    long total = 0;
+    long[] snapshot = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(upperBound(i), getMaxMicros());
+      }
+    }
+    return getMaxMicros();
+  }
+}
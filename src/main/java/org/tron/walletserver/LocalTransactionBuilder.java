@@ -0,0 +1,167 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.api.GrpcAPI.BlockExtention;
+import org.tron.api.GrpcAPI.Return;
+import org.tron.api.GrpcAPI.Return.response_code;
+import org.tron.api.GrpcAPI.TransactionExtention;
+import org.tron.common.crypto.Sha256Sm3Hash;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.Transaction.Contract.ContractType;
+
+/**
+ * Builds the raw data of unsigned transactions without asking a node, the way a node does it in
+ * {@code createTransaction2}: the reference block is the head block, the expiration a minute
+ * after its timestamp. The head block is kept and reloaded every {@code refreshMs} in the
+ * background, so building a transaction takes no round trip.
+ *
+ * <p>Unlike a node, the builder does not validate the contract; an invalid transaction is only
+ * rejected when it is broadcast.
+ */
+@Slf4j
+public class LocalTransactionBuilder {
+
+  private static final ScheduledExecutorService SCHEDULER =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "reference-block-refresh");
+        thread.setDaemon(true);
+        return thread;
+      });
+  /**
+   * Same as the default {@code trx.expiration.timeInMilliseconds} of java-tron.
+   */
+  private static final long EXPIRATION_MS = 60_000L;
+  /**
+   * A reference block this old is loaded again before it is used, in case the background
+   * refresh has been failing. A transaction referring to a block older than 65535 blocks is
+   * rejected, and expiration counts from the block timestamp.
+   */
+  private static final long MAX_AGE_MS = 15_000L;
+
+  private final long refreshMs;
+  private final Supplier<CompletableFuture<BlockExtention>> headBlock;
+  private final AtomicReference<CompletableFuture<Reference>> loading = new AtomicReference<>();
+  private final AtomicLong built = new AtomicLong();
+  private final AtomicLong refreshes = new AtomicLong();
+  private volatile Reference reference;
+  private ScheduledFuture<?> refresher;
+
+  public LocalTransactionBuilder(long refreshMs,
+      Supplier<CompletableFuture<BlockExtention>> headBlock) {
+    this.refreshMs = refreshMs;
+    this.headBlock = headBlock;
+  }
+
+  /**
+   * An unsigned transaction with the single contract {@code contract} of type {@code type}, in
+   * the form of the node answer.
+   */
+  public CompletableFuture<TransactionExtention> build(ContractType type, Message contract) {
+    start();
+    Reference current = reference;
+    CompletableFuture<Reference> ready =
+        current != null && System.currentTimeMillis() - current.loadedAt < MAX_AGE_MS
+            ? CompletableFuture.completedFuture(current) : refresh();
+    return ready.thenApply(ref -> {
+      Transaction.raw raw = Transaction.raw.newBuilder()
+          .addContract(Transaction.Contract.newBuilder()
+              .setType(type)
+              .setParameter(Any.pack(contract)))
+          .setRefBlockBytes(ref.blockBytes)
+          .setRefBlockHash(ref.blockHash)
+          .setExpiration(ref.timestamp + EXPIRATION_MS)
+          .setTimestamp(System.currentTimeMillis())
+          .build();
+      built.incrementAndGet();
+      return TransactionExtention.newBuilder()
+          .setTransaction(Transaction.newBuilder().setRawData(raw))
+          .setTxid(ByteString.copyFrom(Sha256Sm3Hash.hash(raw.toByteArray())))
+          .setResult(Return.newBuilder().setResult(true).setCode(response_code.SUCCESS))
+          .build();
+    });
+  }
+
+  public synchronized void stop() {
+    if (refresher != null) {
+      refresher.cancel(false);
+      refresher = null;
+    }
+  }
+
+  public long getBuilt() {
+    return built.get();
+  }
+
+  public long getRefreshes() {
+    return refreshes.get();
+  }
+
+  private synchronized void start() {
+    if (refresher == null) {
+      refresher = SCHEDULER.scheduleWithFixedDelay(() -> refresh().exceptionally(e -> {
+        logger.warn("Reloading the reference block failed: {}", e.getMessage());
+        return null;
+      }), refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Loads the head block, joining a load that is already running.
+   */
+  private CompletableFuture<Reference> refresh() {
+    CompletableFuture<Reference> future = new CompletableFuture<>();
+    while (!loading.compareAndSet(null, future)) {
+      CompletableFuture<Reference> running = loading.get();
+      if (running != null) {
+        return running;
+      }
+    }
+    refreshes.incrementAndGet();
+    headBlock.get().thenApply(Reference::new).whenComplete((ref, e) -> {
+      if (ref != null) {
+        reference = ref;
+      }
+      loading.set(null);
+      if (e != null) {
+        future.completeExceptionally(e);
+      } else {
+        future.complete(ref);
+      }
+    });
+    return future;
+  }
+
+  @Override
+  public String toString() {
+    Reference current = reference;
+    return "built=" + getBuilt() + " refreshes=" + getRefreshes()
+        + " block=" + (current == null ? "-" : current.number);
+  }
+
+  private static class Reference {
+
+    private final long number;
+    private final long timestamp;
+    private final ByteString blockBytes;
+    private final ByteString blockHash;
+    private final long loadedAt = System.currentTimeMillis();
+
+    private Reference(BlockExtention block) {
+      number = block.getBlockHeader().getRawData().getNumber();
+      timestamp = block.getBlockHeader().getRawData().getTimestamp();
+      blockBytes = block.getBlockid().substring(6, 8);
+      blockHash = block.getBlockid().substring(8, 16);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package org.tron.walletserver;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes the Prometheus text of the client metrics, either rewritten periodically to a local
+ * file (for the node exporter textfile collector) or served on {@code /metrics} of a loopback
+ * HTTP port.
+ */
+@Slf4j
+public class MetricsExporter {
+
+  private final Supplier<String> text;
+  private ScheduledExecutorService writer;
+  private HttpServer server;
+
+  public MetricsExporter(Supplier<String> text) {
+    this.text = text;
+  }
+
+  public synchronized void startFile(String file, long intervalMs) {
+    Path path = Paths.get(file);
+    writer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "metrics-writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    writer.scheduleWithFixedDelay(() -> write(path), intervalMs, intervalMs,
+        TimeUnit.MILLISECONDS);
+  }
+
+  private void write(Path path) {
+    try {
+      // write aside and move, so a scraper never reads a half written file
+      Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+      Files.write(tmp, text.get().getBytes(StandardCharsets.UTF_8));
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.warn("Writing metrics to {} failed: {}", path, e.getMessage());
+    }
+  }
+
+  public synchronized void startHttp(int port) throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    server.createContext("/metrics", exchange -> {
+      byte[] body = text.get().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r, "metrics-http");
+      thread.setDaemon(true);
+      return thread;
+    }));
+    server.start();
+    logger.info("Serving metrics on http://{}:{}/metrics",
+        InetAddress.getLoopbackAddress().getHostAddress(), port);
+  }
+
+  public synchronized void shutdown() {
+    if (writer != null) {
+      writer.shutdownNow();
+      writer = null;
+    }
+    if (server != null) {
+      server.stop(0);
+      server = null;
+    }
+  }
+}
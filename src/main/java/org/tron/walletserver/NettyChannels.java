@@ -0,0 +1,65 @@
+package org.tron.walletserver;
+
+import io.grpc.ManagedChannel;
+import io.grpc.netty.NettyChannelBuilder;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Builds the Netty channels to the nodes with the {@code rpc.transport} settings. All channels,
+ * full and solidity, share one event loop group, native epoll when it is available.
+ */
+@Slf4j
+public class NettyChannels {
+
+  private static EventLoopGroup eventLoopGroup;
+  private static Class<? extends Channel> channelType;
+
+  private NettyChannels() {
+  }
+
+  public static ManagedChannel newChannel(String target, RpcOptions options) {
+    NettyChannelBuilder builder = NettyChannelBuilder.forTarget(target)
+        .usePlaintext()
+        .maxInboundMessageSize(options.getMaxInboundMessageSize());
+    if (options.getFlowControlWindow() > 0) {
+      builder.flowControlWindow(options.getFlowControlWindow());
+    }
+    if (options.getKeepAliveTimeMs() > 0) {
+      builder.keepAliveTime(options.getKeepAliveTimeMs(), TimeUnit.MILLISECONDS)
+          .keepAliveTimeout(options.getKeepAliveTimeoutMs(), TimeUnit.MILLISECONDS)
+          .keepAliveWithoutCalls(options.isKeepAliveWithoutCalls());
+    }
+    synchronized (NettyChannels.class) {
+      if (eventLoopGroup == null) {
+        createEventLoopGroup(options);
+      }
+      builder.eventLoopGroup(eventLoopGroup).channelType(channelType);
+    }
+    return builder.build();
+  }
+
+  private static void createEventLoopGroup(RpcOptions options) {
+    int threads = options.getEventLoopThreads();
+    DefaultThreadFactory threadFactory = new DefaultThreadFactory("grpc-client-io", true);
+    if (options.isEpoll() && Epoll.isAvailable()) {
+      eventLoopGroup = new EpollEventLoopGroup(threads, threadFactory);
+      channelType = EpollSocketChannel.class;
+    } else {
+      if (options.isEpoll()) {
+        logger.debug("Native epoll is not available, using NIO: {}",
+            Epoll.unavailabilityCause() == null ? "" : Epoll.unavailabilityCause().getMessage());
+      }
+      eventLoopGroup = new NioEventLoopGroup(threads, threadFactory);
+      channelType = NioSocketChannel.class;
+    }
+  }
+}
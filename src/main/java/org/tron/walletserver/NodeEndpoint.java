@@ -0,0 +1,192 @@
+package org.tron.walletserver;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientInterceptors;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.api.WalletExtensionGrpc;
+import org.tron.api.WalletGrpc;
+import org.tron.api.WalletSolidityGrpc;
+
+/**
+ * One configured node: its channel, the stubs bound to it and the bookkeeping the
+ * {@link NodePool} needs to choose between nodes.
+ */
+@Slf4j
+public class NodeEndpoint {
+
+  @Getter
+  private final String target;
+  private final ManagedChannel managedChannel;
+  @Getter
+  private final Channel channel;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private volatile boolean healthy = true;
+  @Getter
+  private final boolean discovered;
+  private final double ewmaAlpha;
+  private double ewmaLatencyMs = Double.NaN;
+  private volatile long headBlockNum = -1;
+
+  @Getter
+  private final WalletGrpc.WalletBlockingStub blockingStubFull;
+  @Getter
+  private final WalletGrpc.WalletFutureStub futureStubFull;
+  @Getter
+  private final WalletSolidityGrpc.WalletSolidityBlockingStub blockingStubSolidity;
+  @Getter
+  private final WalletSolidityGrpc.WalletSolidityFutureStub futureStubSolidity;
+  @Getter
+  private final WalletExtensionGrpc.WalletExtensionBlockingStub blockingStubExtension;
+
+  public NodeEndpoint(String target, ManagedChannel managedChannel) {
+    this(target, managedChannel, false, new RpcOptions(), null);
+  }
+
+  /**
+   * @param metrics records every call of this node, or null to record nothing
+   */
+  public NodeEndpoint(String target, ManagedChannel managedChannel, boolean discovered,
+      RpcOptions options, RpcMetrics metrics) {
+    this.target = target;
+    this.managedChannel = managedChannel;
+    this.discovered = discovered;
+    this.ewmaAlpha = options.getEwmaAlpha();
+    // the last interceptor runs first, so a call passes metrics, compression, retry and then
+    // in-flight: metrics time the whole call with its retries, only the in-flight count sees
+    // each attempt; latency for ranking comes from the health probe in NodePool
+    Channel intercepted = ClientInterceptors.intercept(managedChannel, new InFlightInterceptor(),
+        new RetryInterceptor(options));
+    if (!"identity".equals(options.getCompression())) {
+      intercepted = ClientInterceptors.intercept(intercepted,
+          new CompressionInterceptor(options.getCompression()));
+    }
+    this.channel = metrics == null
+        ? intercepted : ClientInterceptors.intercept(intercepted, metrics.interceptor());
+    this.blockingStubFull = WalletGrpc.newBlockingStub(channel);
+    this.futureStubFull = WalletGrpc.newFutureStub(channel);
+    this.blockingStubSolidity = WalletSolidityGrpc.newBlockingStub(channel);
+    this.futureStubSolidity = WalletSolidityGrpc.newFutureStub(channel);
+    this.blockingStubExtension = WalletExtensionGrpc.newBlockingStub(channel);
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public boolean isHealthy() {
+    return healthy;
+  }
+
+  void setHealthy(boolean healthy) {
+    if (this.healthy != healthy) {
+      logger.info("Node {} is now {}", target, healthy ? "healthy" : "unhealthy");
+    }
+    this.healthy = healthy;
+  }
+
+  /**
+   * Exponentially weighted moving average of the round trip time of the {@code getNowBlock}
+   * health probe, or {@code NaN} before the first one answered. Other calls are left out: their
+   * time depends on the size of the answer, such as a batch of blocks, more than on the node.
+   */
+  public synchronized double getEwmaLatencyMs() {
+    return ewmaLatencyMs;
+  }
+
+  synchronized void recordLatency(long nanos) {
+    double millis = nanos / 1_000_000.0;
+    if (Double.isNaN(ewmaLatencyMs)) {
+      ewmaLatencyMs = millis;
+    } else {
+      ewmaLatencyMs += ewmaAlpha * (millis - ewmaLatencyMs);
+    }
+  }
+
+  /**
+   * Head block number reported by the last successful probe, -1 until then.
+   */
+  public long getHeadBlockNum() {
+    return headBlockNum;
+  }
+
+  void setHeadBlockNum(long headBlockNum) {
+    this.headBlockNum = headBlockNum;
+  }
+
+  void shutdown() throws InterruptedException {
+    managedChannel.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @Override
+  public String toString() {
+    return target + (healthy ? "" : " (unhealthy)") + " inFlight=" + inFlight.get()
+        + " head=" + headBlockNum + " latencyMs=" + String.format("%.1f", getEwmaLatencyMs());
+  }
+
+  /**
+   * Compresses the requests with {@code compressor}. The node chooses whether to compress its
+   * responses.
+   */
+  private static class CompressionInterceptor implements ClientInterceptor {
+
+    private final String compressor;
+
+    CompressionInterceptor(String compressor) {
+      this.compressor = compressor;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+        MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+      return next.newCall(method, callOptions.withCompression(compressor));
+    }
+  }
+
+  /**
+   * Counts calls in flight on this node and marks the node unhealthy as soon as a call reports
+   * it unreachable, so traffic moves away before the next probe.
+   */
+  private class InFlightInterceptor implements ClientInterceptor {
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+        MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+      return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(
+          next.newCall(method, callOptions)) {
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+          inFlight.incrementAndGet();
+          try {
+            super.start(
+                new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(
+                    responseListener) {
+                  @Override
+                  public void onClose(Status status, Metadata trailers) {
+                    inFlight.decrementAndGet();
+                    if (status.getCode() == Status.Code.UNAVAILABLE) {
+                      setHealthy(false);
+                    }
+                    super.onClose(status, trailers);
+                  }
+                }, headers);
+          } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            throw e;
+          }
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,287 @@
+package org.tron.walletserver;
+
+import io.grpc.ManagedChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.api.GrpcAPI.EmptyMessage;
+import org.tron.api.GrpcAPI.Node;
+import org.tron.api.GrpcAPI.NodeList;
+import org.tron.common.utils.ByteArray;
+import org.tron.protos.Protocol.Block;
+
+/**
+ * Channels to every node of one kind (full or solidity) listed in config.conf. Reads are
+ * spread over the healthy nodes; a background task probes each node with {@code getNowBlock},
+ * takes it out of rotation while it does not answer and records its head block and round trip
+ * time for the latency policy. Full node pools can also grow with peers found by
+ * {@code listNodes}; those are only trusted with reads, see {@link #pickConfigured()}.
+ */
+@Slf4j
+public class NodePool {
+
+  private final boolean solidity;
+  private final RpcOptions options;
+  private final RpcMetrics metrics;
+  private final Function<String, ManagedChannel> channelFactory;
+  private final List<NodeEndpoint> endpoints = new CopyOnWriteArrayList<>();
+  private final AtomicInteger next = new AtomicInteger();
+  private ScheduledExecutorService healthChecker;
+
+  public NodePool(List<String> targets, boolean solidity, RpcOptions options) {
+    this(targets, solidity, options, null);
+  }
+
+  public NodePool(List<String> targets, boolean solidity, RpcOptions options,
+      RpcMetrics metrics) {
+    this(targets, solidity, options, metrics, null);
+  }
+
+  /**
+   * Pool whose channels are made by {@code channelFactory} instead of {@link NettyChannels}, for
+   * example in-process channels to a fake node in tests.
+   */
+  public NodePool(List<String> targets, boolean solidity, RpcOptions options,
+      RpcMetrics metrics, Function<String, ManagedChannel> channelFactory) {
+    if (targets == null || targets.isEmpty()) {
+      throw new IllegalArgumentException("At least one node is required");
+    }
+    this.solidity = solidity;
+    this.options = options;
+    this.metrics = metrics;
+    this.channelFactory = channelFactory != null ? channelFactory
+        : target -> NettyChannels.newChannel(target, options);
+    for (String target : targets) {
+      endpoints.add(new NodeEndpoint(target, newChannel(target), false, options, metrics));
+    }
+  }
+
+  private ManagedChannel newChannel(String target) {
+    return channelFactory.apply(target);
+  }
+
+  public List<NodeEndpoint> getEndpoints() {
+    return Collections.unmodifiableList(endpoints);
+  }
+
+  /**
+   * Node for the next read, chosen among the healthy nodes by the configured policy. When no
+   * node is healthy every node is a candidate again, so the caller gets the real error instead
+   * of an empty pool.
+   */
+  public NodeEndpoint pick() {
+    if (endpoints.size() == 1) {
+      return endpoints.get(0);
+    }
+    return select(healthyEndpoints(false));
+  }
+
+  /**
+   * Like {@link #pick()} but among the nodes listed in config.conf only. Used for every call
+   * that is not a plain read, such as building a transaction: a discovered peer is not trusted
+   * to return the raw data that is then signed.
+   */
+  public NodeEndpoint pickConfigured() {
+    return select(healthyEndpoints(true));
+  }
+
+  private NodeEndpoint select(List<NodeEndpoint> candidates) {
+    if (candidates.size() == 1) {
+      return candidates.get(0);
+    }
+    switch (options.getLoadBalance()) {
+      case LATENCY:
+        return ranking(candidates).get(0);
+      case LEAST_REQUESTS: {
+        NodeEndpoint best = null;
+        int start = Math.floorMod(next.getAndIncrement(), candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+          NodeEndpoint endpoint = candidates.get((start + i) % candidates.size());
+          if (best == null || endpoint.getInFlight() < best.getInFlight()) {
+            best = endpoint;
+          }
+        }
+        return best;
+      }
+      default:
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+  }
+
+  /**
+   * Best ranked healthy node other than {@code exclude}, or null when there is none. Used to
+   * send a hedged read to a second node.
+   */
+  public NodeEndpoint pickOther(NodeEndpoint exclude) {
+    List<NodeEndpoint> candidates = new ArrayList<>();
+    for (NodeEndpoint endpoint : endpoints) {
+      if (endpoint != exclude && endpoint.isHealthy()) {
+        candidates.add(endpoint);
+      }
+    }
+    return candidates.isEmpty() ? null : ranking(candidates).get(0);
+  }
+
+  /**
+   * First healthy configured node in configured order. Used for broadcasts so that a
+   * transaction goes to the node the user listed first as long as it is up.
+   */
+  public NodeEndpoint primary() {
+    return healthyEndpoints(true).get(0);
+  }
+
+  /**
+   * All nodes, best first: healthy before unhealthy, in sync (head within
+   * {@code maxBlockLag} of the best head) before lagging, then by average round trip time.
+   * Nodes without a latency sample yet sort after measured ones.
+   */
+  public List<NodeEndpoint> ranking() {
+    List<NodeEndpoint> ranked = new ArrayList<>(endpoints);
+    ranked.sort(Comparator.comparing((NodeEndpoint e) -> !e.isHealthy())
+        .thenComparing(rankingOrder(bestHead(ranked))));
+    return ranked;
+  }
+
+  private List<NodeEndpoint> ranking(List<NodeEndpoint> candidates) {
+    List<NodeEndpoint> ranked = new ArrayList<>(candidates);
+    ranked.sort(rankingOrder(bestHead(ranked)));
+    return ranked;
+  }
+
+  private Comparator<NodeEndpoint> rankingOrder(long bestHead) {
+    return Comparator.comparing((NodeEndpoint e) -> !isInSync(e, bestHead))
+        .thenComparingDouble(e -> Double.isNaN(e.getEwmaLatencyMs())
+            ? Double.MAX_VALUE : e.getEwmaLatencyMs());
+  }
+
+  private boolean isInSync(NodeEndpoint endpoint, long bestHead) {
+    return bestHead < 0 || endpoint.getHeadBlockNum() >= bestHead - options.getMaxBlockLag();
+  }
+
+  private static long bestHead(List<NodeEndpoint> list) {
+    long best = -1;
+    for (NodeEndpoint endpoint : list) {
+      best = Math.max(best, endpoint.getHeadBlockNum());
+    }
+    return best;
+  }
+
+  private List<NodeEndpoint> healthyEndpoints(boolean configuredOnly) {
+    List<NodeEndpoint> candidates = new ArrayList<>(endpoints.size());
+    List<NodeEndpoint> healthy = new ArrayList<>(endpoints.size());
+    for (NodeEndpoint endpoint : endpoints) {
+      if (configuredOnly && endpoint.isDiscovered()) {
+        continue;
+      }
+      candidates.add(endpoint);
+      if (endpoint.isHealthy()) {
+        healthy.add(endpoint);
+      }
+    }
+    return healthy.isEmpty() ? candidates : healthy;
+  }
+
+  public synchronized void startHealthCheck() {
+    if (healthChecker != null || options.getHealthCheckIntervalMs() <= 0) {
+      return;
+    }
+    healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, (solidity ? "solidity" : "fullnode") + "-health-check");
+      thread.setDaemon(true);
+      return thread;
+    });
+    healthChecker.scheduleWithFixedDelay(this::checkAll, 0,
+        options.getHealthCheckIntervalMs(), TimeUnit.MILLISECONDS);
+  }
+
+  private void checkAll() {
+    if (!solidity && options.isDiscoveryEnabled()) {
+      discover();
+    }
+    for (NodeEndpoint endpoint : endpoints) {
+      endpoint.setHealthy(check(endpoint));
+    }
+  }
+
+  private boolean check(NodeEndpoint endpoint) {
+    EmptyMessage request = EmptyMessage.newBuilder().build();
+    long timeout = options.getHealthCheckTimeoutMs();
+    try {
+      long startNanos = System.nanoTime();
+      Block block;
+      if (solidity) {
+        block = endpoint.getBlockingStubSolidity()
+            .withDeadlineAfter(timeout, TimeUnit.MILLISECONDS).getNowBlock(request);
+      } else {
+        block = endpoint.getBlockingStubFull()
+            .withDeadlineAfter(timeout, TimeUnit.MILLISECONDS).getNowBlock(request);
+      }
+      endpoint.recordLatency(System.nanoTime() - startNanos);
+      endpoint.setHeadBlockNum(block.getBlockHeader().getRawData().getNumber());
+      return true;
+    } catch (Exception e) {
+      logger.debug("Health check of {} failed: {}", endpoint.getTarget(), e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Adds the peers of a healthy node as candidates, up to {@code discoveryMaxNodes} discovered
+   * nodes. New nodes start without samples and are ranked once the next probe measured them.
+   */
+  private void discover() {
+    int discovered = 0;
+    Set<String> known = new HashSet<>();
+    for (NodeEndpoint endpoint : endpoints) {
+      known.add(endpoint.getTarget());
+      if (endpoint.isDiscovered()) {
+        discovered++;
+      }
+    }
+    if (discovered >= options.getDiscoveryMaxNodes()) {
+      return;
+    }
+    NodeList nodeList;
+    try {
+      nodeList = primary().getBlockingStubFull()
+          .withDeadlineAfter(options.getHealthCheckTimeoutMs(), TimeUnit.MILLISECONDS)
+          .listNodes(EmptyMessage.newBuilder().build());
+    } catch (Exception e) {
+      logger.debug("Node discovery failed: {}", e.getMessage());
+      return;
+    }
+    for (Node node : nodeList.getNodesList()) {
+      if (discovered >= options.getDiscoveryMaxNodes()) {
+        break;
+      }
+      String host = ByteArray.toStr(node.getAddress().getHost().toByteArray());
+      String target = host + ":" + options.getDiscoveryGrpcPort();
+      if (host.isEmpty() || !known.add(target)) {
+        continue;
+      }
+      endpoints.add(new NodeEndpoint(target, newChannel(target), true, options, metrics));
+      discovered++;
+      logger.info("Discovered node {}", target);
+    }
+  }
+
+  public synchronized void shutdown() throws InterruptedException {
+    if (healthChecker != null) {
+      healthChecker.shutdownNow();
+      healthChecker = null;
+    }
+    for (NodeEndpoint endpoint : endpoints) {
+      endpoint.shutdown();
+    }
+  }
+}
@@ -0,0 +1,661 @@
+package org.tron.walletserver;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.protobuf.ByteString;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.api.GrpcAPI.Return;
+import org.tron.api.GrpcAPI.Return.response_code;
+import org.tron.api.GrpcAPI.TransactionExtention;
+import org.tron.common.crypto.Sha256Sm3Hash;
+import org.tron.common.crypto.SignInterface;
+import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.TransactionUtils;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.contract.BalanceContract.TransferContract;
+
+/**
+ * Pays the rows of a CSV file, {@code address,amount} with the amount in sun, from one account.
+ * Each payout goes through creating the transfer on the node, signing it locally, recording the
+ * signed transaction in the journal and broadcasting it. Up to {@code window} payouts are in
+ * these stages at once, and the payouts started per second are limited so the node is asked at
+ * most {@code requestsPerSecond} times.
+ *
+ * <p>The journal is an append-only text file with one record per line, the CSV line number
+ * identifying the payout:
+ * <pre>
+ * SIGNED line address amount txid transaction-hex
+ * BROADCAST line txid
+ * FAILED line address amount reason
+ * </pre>
+ * Records are forced to disk in groups, and a transaction is broadcast only once its SIGNED
+ * record is on disk. A run over the same CSV and journal skips broadcast payouts, sends the
+ * journaled transaction again for payouts that stopped after SIGNED, and pays FAILED and new
+ * rows afresh. A payout is never paid through two different transactions unless the first one
+ * is known to have expired without being included: the node keeps the expiration it set, about
+ * a minute. A journaled transaction the node rejects is looked up on a full node, which also
+ * knows the blocks not yet solidified, and only counts as not included once the solidified head
+ * is past its expiration, as no later block may take it; until then the payout waits or is left
+ * pending.
+ *
+ * <p>With a {@link ConfirmationTracker}, the run then waits for the new transactions it
+ * broadcast to be solidified. One the tracker reports dropped, which it only does once a
+ * solidified block is past the expiration and a full node does not know the transaction, is
+ * journaled FAILED so the next run pays it afresh.
+ */
+@Slf4j
+public class PayoutEngine {
+
+  public static final int MAX_BUSY_ATTEMPTS = 5;
+  private static final long BUSY_BACKOFF_MS = 500L;
+  private static final long BLOCK_INTERVAL_MS = 3000L;
+  private static final long MAX_INCLUSION_WAIT_MS = 180_000L;
+  private static final long MAX_CONFIRMATION_WAIT_MS = 300_000L;
+
+  private static final ScheduledExecutorService SCHEDULER =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "payout-busy-retry");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private final GrpcClient client;
+  private final SignInterface signer;
+  private final byte[] owner;
+  private final int permissionId;
+  private final int window;
+  private final double requestsPerSecond;
+  private final ConfirmationTracker tracker;
+
+  private ForkJoinPool signPool;
+  private Journal journal;
+  private Summary summary;
+  private Queue<Map.Entry<Row, ConfirmationTracker.Confirmation>> confirmations;
+
+  public PayoutEngine(GrpcClient client, SignInterface signer, byte[] owner, int permissionId,
+      int window, double requestsPerSecond) {
+    this(client, signer, owner, permissionId, window, requestsPerSecond, null);
+  }
+
+  /**
+   * Engine waiting for its transactions through {@code tracker}, or not at all when it is null.
+   */
+  public PayoutEngine(GrpcClient client, SignInterface signer, byte[] owner, int permissionId,
+      int window, double requestsPerSecond, ConfirmationTracker tracker) {
+    if (window < 1) {
+      throw new IllegalArgumentException("window must be at least 1");
+    }
+    if (requestsPerSecond <= 0) {
+      throw new IllegalArgumentException("requestsPerSecond must be positive");
+    }
+    this.client = client;
+    this.signer = signer;
+    this.owner = owner;
+    this.permissionId = permissionId;
+    this.window = window;
+    this.requestsPerSecond = requestsPerSecond;
+    this.tracker = tracker;
+  }
+
+  /**
+   * Pays the rows of {@code csv} not yet paid according to {@code journalFile}, which is created
+   * when missing, and waits until every started payout is done and, with a tracker, its
+   * transaction solidified or dropped.
+   */
+  public synchronized Summary run(Path csv, Path journalFile)
+      throws IOException, InterruptedException {
+    Map<Long, Entry> entries = Journal.replay(journalFile);
+    summary = new Summary();
+    confirmations = new ConcurrentLinkedQueue<>();
+    signPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    journal = new Journal(journalFile, window + 1);
+    Semaphore permits = new Semaphore(window);
+    RateLimiter limiter = RateLimiter.create(requestsPerSecond);
+    try {
+      try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+        String line;
+        long lineNum = 0;
+        while ((line = in.readLine()) != null) {
+          lineNum++;
+          Row row = Row.parse(lineNum, line);
+          if (row == null) {
+            continue;
+          }
+          Entry entry = entries.get(lineNum);
+          if (entry != null && !entry.matches(row)) {
+            throw new IOException("Line " + lineNum + " of " + csv + " is not the payout "
+                + "journaled for it, " + entry.address + " " + entry.amount);
+          }
+          if (entry != null && entry.state == State.BROADCAST) {
+            summary.skipped.incrementAndGet();
+            continue;
+          }
+          if (row.to == null) {
+            logger.warn("Line {}: invalid address {}", lineNum, row.address);
+            summary.failed.incrementAndGet();
+            continue;
+          }
+          boolean resume = entry != null && entry.state == State.SIGNED;
+          permits.acquire();
+          limiter.acquire(resume ? 1 : 2);
+          CompletableFuture<Void> payout = resume ? resume(row, entry.transaction) : pay(row);
+          payout.whenComplete((v, e) -> permits.release());
+        }
+      } finally {
+        // let the started payouts finish, so that their records reach the journal
+        permits.acquireUninterruptibly(window);
+      }
+      confirm();
+    } finally {
+      journal.close();
+      signPool.shutdown();
+    }
+    return summary;
+  }
+
+  /**
+   * Creates, signs, journals and broadcasts a new transaction for {@code row}.
+   */
+  private CompletableFuture<Void> pay(Row row) {
+    TransferContract contract = TransferContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(owner))
+        .setToAddress(ByteString.copyFrom(row.to))
+        .setAmount(row.amount)
+        .build();
+    CompletableFuture<Transaction> signed = client.createTransaction2Async(contract)
+        .thenApplyAsync(this::sign, signPool)
+        .thenCompose(transaction -> journal.append(Journal.signed(row, transaction))
+            .thenApply(v -> transaction));
+    return signed.handle((transaction, e) -> {
+      if (e != null) {
+        // nothing went out, so the payout can be made again
+        return failed(row, cause(e).getMessage());
+      }
+      return broadcast(row, transaction, false, 1);
+    }).thenCompose(next -> next);
+  }
+
+  private CompletableFuture<Void> resume(Row row, Transaction transaction) {
+    summary.resumed.incrementAndGet();
+    return broadcast(row, transaction, true, 1);
+  }
+
+  private Transaction sign(TransactionExtention extention) {
+    Return result = extention.getResult();
+    if (!result.getResult()) {
+      throw new IllegalStateException("createTransaction2 failed, " + result.getCode() + " "
+          + result.getMessage().toStringUtf8());
+    }
+    Transaction transaction = extention.getTransaction();
+    if (permissionId != 0) {
+      Transaction.raw.Builder raw = transaction.getRawData().toBuilder();
+      raw.setContract(0, raw.getContract(0).toBuilder().setPermissionId(permissionId));
+      transaction = transaction.toBuilder().setRawData(raw).build();
+    }
+    return TransactionUtils.sign(transaction, signer);
+  }
+
+  private CompletableFuture<Void> broadcast(Row row, Transaction transaction, boolean resumed,
+      int attempt) {
+    return client.broadcastTransactionAsync(transaction).handle((response, e) -> {
+      if (e != null) {
+        // it may have reached the node; the next run sends the journaled transaction again
+        logger.warn("Line {}: broadcast failed, {}", row.lineNum, cause(e).getMessage());
+        summary.pending.incrementAndGet();
+        return CompletableFuture.<Void>completedFuture(null);
+      }
+      response_code code = response.getCode();
+      if (response.getResult() || code == response_code.DUP_TRANSACTION_ERROR) {
+        return paid(row, transaction, !resumed);
+      }
+      if (code == response_code.SERVER_BUSY) {
+        if (attempt >= MAX_BUSY_ATTEMPTS) {
+          summary.pending.incrementAndGet();
+          return CompletableFuture.<Void>completedFuture(null);
+        }
+        CompletableFuture<Void> retry = new CompletableFuture<>();
+        SCHEDULER.schedule(() -> broadcast(row, transaction, resumed, attempt + 1)
+                .whenComplete((v, retryError) -> retry.complete(null)),
+            BUSY_BACKOFF_MS * attempt, TimeUnit.MILLISECONDS);
+        return retry;
+      }
+      String reason = code + " " + response.getMessage().toStringUtf8();
+      if (!resumed) {
+        return failed(row, reason);
+      }
+      // a journaled transaction may have been included before the crash, look before paying
+      return settle(row, transaction, code, reason, false);
+    }).thenCompose(next -> next);
+  }
+
+  /**
+   * Settles a journaled transaction the node rejected with {@code code}. It is paid when a full
+   * node has it in a block. It is failed, and paid afresh when the node reported it expired,
+   * only when the solidified head was past its expiration before the lookup: a block not yet
+   * solidified may hold it otherwise, as the solidified head lags about as long as a transaction
+   * lives. Until then it is looked at once more after the solidified head should have passed
+   * the expiration, and then left pending.
+   */
+  private CompletableFuture<Void> settle(Row row, Transaction transaction, response_code code,
+      String reason, boolean waited) {
+    long expiration = transaction.getRawData().getExpiration();
+    return client.fetchSolidifiedBlockNum()
+        .thenCompose(client::getBlock2Async)
+        .thenCompose(solidified -> client.getFullNodeTransactionInfoByIdAsync(txid(transaction))
+            .thenApply(info -> {
+              if (!info.getId().isEmpty()) {
+                return paid(row, transaction, false);
+              }
+              long solidifiedAt = solidified.getBlockHeader().getRawData().getTimestamp();
+              if (solidifiedAt < expiration) {
+                long wait = expiration - solidifiedAt + BLOCK_INTERVAL_MS;
+                if (waited || wait > MAX_INCLUSION_WAIT_MS) {
+                  logger.warn("Line {}: {}, but the transaction may still be included",
+                      row.lineNum, reason);
+                  summary.pending.incrementAndGet();
+                  return CompletableFuture.<Void>completedFuture(null);
+                }
+                CompletableFuture<Void> later = new CompletableFuture<>();
+                SCHEDULER.schedule(() -> settle(row, transaction, code, reason, true)
+                    .whenComplete((v, e) -> later.complete(null)), wait, TimeUnit.MILLISECONDS);
+                return later;
+              }
+              if (code == response_code.TRANSACTION_EXPIRATION_ERROR) {
+                return failed(row, reason).thenCompose(v -> pay(row));
+              }
+              return failed(row, reason);
+            }))
+        .handle((next, e) -> {
+          if (e != null) {
+            logger.warn("Line {}: lookup of the journaled transaction failed, {}", row.lineNum,
+                cause(e).getMessage());
+            summary.pending.incrementAndGet();
+            return CompletableFuture.<Void>completedFuture(null);
+          }
+          return next;
+        })
+        .thenCompose(next -> next);
+  }
+
+  /**
+   * Records the broadcast of {@code row}; a new transaction is also tracked when there is a
+   * tracker, which finds it by a lookup should its block have passed already.
+   */
+  private CompletableFuture<Void> paid(Row row, Transaction transaction, boolean track) {
+    return journal.append("BROADCAST " + row.lineNum + " " + txid(transaction))
+        .whenComplete((v, e) -> {
+          if (e == null) {
+            summary.paid.incrementAndGet();
+            if (track && tracker != null) {
+              confirmations.add(
+                  new AbstractMap.SimpleImmutableEntry<>(row, tracker.track(transaction)));
+            }
+          } else {
+            // broadcast, but the next run will only know it by sending it again
+            logger.warn("Line {}: {}", row.lineNum, cause(e).getMessage());
+            summary.pending.incrementAndGet();
+          }
+        })
+        .exceptionally(e -> null);
+  }
+
+  private CompletableFuture<Void> failed(Row row, String reason) {
+    logger.warn("Line {}: {}", row.lineNum, reason);
+    summary.failed.incrementAndGet();
+    return journal.append("FAILED " + row.lineNum + " " + row.address + " " + row.amount + " "
+        + reason.replace('\n', ' ')).exceptionally(e -> null);
+  }
+
+  /**
+   * Waits for the tracked transactions one at a time, journaling the dropped ones FAILED, until
+   * every one is settled or {@link #MAX_CONFIRMATION_WAIT_MS} passed.
+   */
+  private void confirm() throws InterruptedException {
+    long deadline = System.currentTimeMillis() + MAX_CONFIRMATION_WAIT_MS;
+    for (Map.Entry<Row, ConfirmationTracker.Confirmation> tracked : confirmations) {
+      Row row = tracked.getKey();
+      try {
+        tracked.getValue().getSolidified()
+            .get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        summary.confirmed.incrementAndGet();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof ConfirmationTracker.ExpiredException) {
+          summary.dropped.incrementAndGet();
+          failed(row, e.getCause().getMessage()).join();
+        } else {
+          summary.unconfirmed.incrementAndGet();
+        }
+      } catch (TimeoutException | CancellationException e) {
+        summary.unconfirmed.incrementAndGet();
+      }
+    }
+  }
+
+  private static String txid(Transaction transaction) {
+    return ByteArray.toHexString(Sha256Sm3Hash.hash(transaction.getRawData().toByteArray()));
+  }
+
+  private static Throwable cause(Throwable e) {
+    return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+  }
+
+  public static class Summary {
+
+    private final AtomicLong paid = new AtomicLong();
+    private final AtomicLong resumed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong confirmed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong unconfirmed = new AtomicLong();
+
+    /**
+     * Payouts broadcast by this run, including resumed ones.
+     */
+    public long getPaid() {
+      return paid.get();
+    }
+
+    /**
+     * Journaled transactions sent again by this run.
+     */
+    public long getResumed() {
+      return resumed.get();
+    }
+
+    /**
+     * Payouts broadcast by an earlier run.
+     */
+    public long getSkipped() {
+      return skipped.get();
+    }
+
+    /**
+     * Payouts that did not go out; a later run tries them again.
+     */
+    public long getFailed() {
+      return failed.get();
+    }
+
+    /**
+     * Payouts whose transaction may or may not have reached the node; a later run sends it
+     * again.
+     */
+    public long getPending() {
+      return pending.get();
+    }
+
+    /**
+     * New transactions of this run seen solidified.
+     */
+    public long getConfirmed() {
+      return confirmed.get();
+    }
+
+    /**
+     * New transactions of this run that expired without being included; their payouts are
+     * counted as failed too.
+     */
+    public long getDropped() {
+      return dropped.get();
+    }
+
+    /**
+     * New transactions of this run neither solidified nor dropped when the run stopped waiting.
+     */
+    public long getUnconfirmed() {
+      return unconfirmed.get();
+    }
+
+    @Override
+    public String toString() {
+      return "paid=" + getPaid() + " resumed=" + getResumed() + " skipped=" + getSkipped()
+          + " failed=" + getFailed() + " pending=" + getPending() + " confirmed="
+          + getConfirmed() + " dropped=" + getDropped() + " unconfirmed=" + getUnconfirmed();
+    }
+  }
+
+  private static class Row {
+
+    private final long lineNum;
+    private final String address;
+    private final byte[] to;
+    private final long amount;
+
+    private Row(long lineNum, String address, byte[] to, long amount) {
+      this.lineNum = lineNum;
+      this.address = address;
+      this.to = to;
+      this.amount = amount;
+    }
+
+    /**
+     * The payout of a CSV line, null for blank lines, {@code #} comments and a header on the
+     * first line.
+     */
+    static Row parse(long lineNum, String line) throws IOException {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        return null;
+      }
+      String[] fields = line.split(",");
+      if (fields.length != 2) {
+        throw new IOException("Line " + lineNum + ": expected address,amount but got " + line);
+      }
+      String address = fields[0].trim();
+      long amount;
+      try {
+        amount = Long.parseLong(fields[1].trim());
+      } catch (NumberFormatException e) {
+        if (lineNum == 1) {
+          return null;
+        }
+        throw new IOException("Line " + lineNum + ": invalid amount " + fields[1].trim());
+      }
+      if (amount <= 0) {
+        throw new IOException("Line " + lineNum + ": amount must be positive");
+      }
+      return new Row(lineNum, address, WalletApi.decodeFromBase58Check(address), amount);
+    }
+  }
+
+  private enum State {
+    SIGNED, BROADCAST, FAILED
+  }
+
+  private static class Entry {
+
+    private State state;
+    private String address;
+    private long amount;
+    private Transaction transaction;
+
+    boolean matches(Row row) {
+      return address == null || address.equals(row.address) && amount == row.amount;
+    }
+  }
+
+  /**
+   * The journal file. Records are queued by {@link #append} and written by one thread, which
+   * takes everything queued, writes it, forces it to disk and then completes the futures, so
+   * one {@code force} covers many records.
+   */
+  private static class Journal implements Closeable {
+
+    private static final Record CLOSE = new Record(null);
+
+    private final FileChannel channel;
+    private final BlockingQueue<Record> queue;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    Journal(Path file, int capacity) throws IOException {
+      channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.APPEND);
+      queue = new ArrayBlockingQueue<>(capacity + 1);
+      writer = new Thread(this::write, "payout-journal");
+      writer.setDaemon(true);
+      writer.start();
+    }
+
+    static String signed(Row row, Transaction transaction) {
+      return "SIGNED " + row.lineNum + " " + row.address + " " + row.amount + " "
+          + txid(transaction) + " " + ByteArray.toHexString(transaction.toByteArray());
+    }
+
+    /**
+     * Entries by line number as of the last record of each line, after cutting off a record
+     * torn by a crash.
+     */
+    static Map<Long, Entry> replay(Path file) throws IOException {
+      Map<Long, Entry> entries = new HashMap<>();
+      if (!Files.exists(file)) {
+        return entries;
+      }
+      byte[] bytes = Files.readAllBytes(file);
+      int end = bytes.length;
+      while (end > 0 && bytes[end - 1] != '\n') {
+        end--;
+      }
+      if (end < bytes.length) {
+        logger.warn("Cutting a torn record of {} bytes off {}", bytes.length - end, file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+          channel.truncate(end);
+        }
+      }
+      int lineNum = 0;
+      for (String line : new String(bytes, 0, end, StandardCharsets.UTF_8).split("\n")) {
+        lineNum++;
+        if (line.isEmpty()) {
+          continue;
+        }
+        String[] fields = line.split(" ", 6);
+        try {
+          long payout = Long.parseLong(fields[1]);
+          Entry entry = entries.computeIfAbsent(payout, k -> new Entry());
+          switch (fields[0]) {
+            case "SIGNED":
+              entry.state = State.SIGNED;
+              entry.address = fields[2];
+              entry.amount = Long.parseLong(fields[3]);
+              entry.transaction = Transaction.parseFrom(ByteArray.fromHexString(fields[5]));
+              break;
+            case "BROADCAST":
+              entry.state = State.BROADCAST;
+              break;
+            case "FAILED":
+              entry.state = State.FAILED;
+              entry.address = fields[2];
+              entry.amount = Long.parseLong(fields[3]);
+              break;
+            default:
+              throw new IOException("unknown record " + fields[0]);
+          }
+        } catch (RuntimeException e) {
+          throw new IOException("Invalid record on line " + lineNum + " of " + file, e);
+        }
+      }
+      return entries;
+    }
+
+    CompletableFuture<Void> append(String record) {
+      Record pending = new Record(record);
+      if (closed || !queue.offer(pending)) {
+        pending.done.completeExceptionally(new IOException(
+            closed ? "The journal is closed" : "The journal queue is full"));
+      }
+      return pending.done;
+    }
+
+    private void write() {
+      List<Record> batch = new ArrayList<>();
+      boolean running = true;
+      while (running) {
+        try {
+          batch.add(queue.take());
+        } catch (InterruptedException e) {
+          break;
+        }
+        queue.drainTo(batch);
+        StringBuilder text = new StringBuilder();
+        for (Record record : batch) {
+          if (record == CLOSE) {
+            running = false;
+          } else {
+            text.append(record.text).append('\n');
+          }
+        }
+        IOException failure = null;
+        try {
+          ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+          while (buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+          channel.force(false);
+        } catch (IOException e) {
+          failure = e;
+        }
+        for (Record record : batch) {
+          if (failure == null) {
+            record.done.complete(null);
+          } else {
+            record.done.completeExceptionally(failure);
+          }
+        }
+        batch.clear();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      closed = true;
+      try {
+        queue.put(CLOSE);
+        writer.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        channel.close();
+      }
+    }
+  }
+
+  private static class Record {
+
+    private final String text;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    Record(String text) {
+      this.text = text;
+    }
+  }
+}
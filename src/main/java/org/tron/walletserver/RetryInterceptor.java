@@ -0,0 +1,205 @@
+package org.tron.walletserver;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies the {@link CallPolicy} of each method: sets its deadline unless the caller chose one
+ * and replays unary calls that failed with a retryable status after an exponential backoff with
+ * jitter, as long as attempts and deadline allow. The deadline covers all attempts.
+ */
+@Slf4j
+public class RetryInterceptor implements ClientInterceptor {
+
+  private static final ScheduledExecutorService SCHEDULER =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rpc-retry");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private final RpcOptions options;
+
+  public RetryInterceptor(RpcOptions options) {
+    this.options = options;
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    CallPolicy policy = options.policyFor(method.getBareMethodName());
+    if (policy.getDeadlineMs() > 0 && callOptions.getDeadline() == null) {
+      callOptions = callOptions.withDeadlineAfter(policy.getDeadlineMs(), TimeUnit.MILLISECONDS);
+    }
+    if (method.getType() != MethodDescriptor.MethodType.UNARY || policy.getMaxAttempts() <= 1) {
+      return next.newCall(method, callOptions);
+    }
+    return new RetryingCall<>(method, callOptions, next, policy);
+  }
+
+  /**
+   * Keeps the request of a unary call so it can be sent again. Response headers, message and
+   * status of an attempt are held back until it is known that the attempt will not be retried.
+   */
+  private static class RetryingCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+    private final MethodDescriptor<ReqT, RespT> method;
+    private final CallOptions callOptions;
+    private final Channel next;
+    private final CallPolicy policy;
+    private Listener<RespT> listener;
+    private Metadata headers;
+    private ReqT message;
+    private int attempt;
+    private ClientCall<ReqT, RespT> current;
+    private ScheduledFuture<?> pendingRetry;
+    private boolean cancelled;
+    private Status cancelStatus;
+    private boolean closed;
+
+    RetryingCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next,
+        CallPolicy policy) {
+      this.method = method;
+      this.callOptions = callOptions;
+      this.next = next;
+      this.policy = policy;
+    }
+
+    @Override
+    public void start(Listener<RespT> responseListener, Metadata headers) {
+      this.listener = responseListener;
+      this.headers = headers;
+    }
+
+    @Override
+    public void request(int numMessages) {
+      // every attempt requests its single response itself
+    }
+
+    @Override
+    public void sendMessage(ReqT message) {
+      this.message = message;
+    }
+
+    @Override
+    public void halfClose() {
+      startAttempt();
+    }
+
+    @Override
+    public void cancel(String message, Throwable cause) {
+      ClientCall<ReqT, RespT> call;
+      synchronized (this) {
+        if (cancelled || closed) {
+          return;
+        }
+        cancelled = true;
+        cancelStatus = Status.CANCELLED.withDescription(message).withCause(cause);
+        call = current;
+        if (pendingRetry != null && pendingRetry.cancel(false)) {
+          call = null;
+        }
+      }
+      if (call != null) {
+        call.cancel(message, cause);
+      } else {
+        close(cancelStatus, null, null, new Metadata());
+      }
+    }
+
+    private void startAttempt() {
+      ClientCall<ReqT, RespT> call;
+      synchronized (this) {
+        if (cancelled) {
+          // a retry that started running as the call was cancelled: the previous attempt is
+          // closed already, so cancelling it in cancel() reached nobody
+          call = null;
+        } else {
+          attempt++;
+          call = next.newCall(method, callOptions);
+          current = call;
+        }
+      }
+      if (call == null) {
+        close(cancelStatus, null, null, new Metadata());
+        return;
+      }
+      Metadata attemptHeaders = new Metadata();
+      attemptHeaders.merge(headers);
+      call.start(new AttemptListener(), attemptHeaders);
+      call.request(2);
+      if (message != null) {
+        call.sendMessage(message);
+      }
+      call.halfClose();
+    }
+
+    private boolean scheduleRetry(Status status) {
+      synchronized (this) {
+        if (cancelled || attempt >= policy.getMaxAttempts() || !policy.isRetryable(status)) {
+          return false;
+        }
+        long backoff = policy.backoffMs(attempt);
+        Deadline deadline = callOptions.getDeadline();
+        if (deadline != null && deadline.timeRemaining(TimeUnit.MILLISECONDS) <= backoff) {
+          return false;
+        }
+        logger.debug("Retrying {} after {} ms, attempt {} failed: {}",
+            method.getFullMethodName(), backoff, attempt, status);
+        pendingRetry = SCHEDULER.schedule(this::startAttempt, backoff, TimeUnit.MILLISECONDS);
+        return true;
+      }
+    }
+
+    private void close(Status status, Metadata responseHeaders, RespT response,
+        Metadata trailers) {
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        closed = true;
+      }
+      if (responseHeaders != null) {
+        listener.onHeaders(responseHeaders);
+      }
+      if (response != null) {
+        listener.onMessage(response);
+      }
+      listener.onClose(status, trailers);
+    }
+
+    private class AttemptListener extends Listener<RespT> {
+
+      private Metadata responseHeaders;
+      private RespT response;
+
+      @Override
+      public void onHeaders(Metadata headers) {
+        responseHeaders = headers;
+      }
+
+      @Override
+      public void onMessage(RespT message) {
+        response = message;
+      }
+
+      @Override
+      public void onClose(Status status, Metadata trailers) {
+        if (status.isOk() || !scheduleRetry(status)) {
+          close(status, responseHeaders, response, trailers);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per method call counts, status codes, message bytes and latency of the gRPC calls, recorded
+ * by {@link #interceptor()} on every node channel. A call is timed from start to close, so the
+ * latency of a retried call includes its retries.
+ */
+public class RpcMetrics {
+
+  private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+  public ClientInterceptor interceptor() {
+    return new MetricsInterceptor();
+  }
+
+  public MethodMetrics method(String name) {
+    return methods.computeIfAbsent(name, MethodMetrics::new);
+  }
+
+  /**
+   * Methods called so far, the one with the largest total time first.
+   */
+  public List<MethodMetrics> snapshot() {
+    List<MethodMetrics> list = new ArrayList<>(methods.values());
+    list.sort(Comparator.comparingLong(
+        (MethodMetrics m) -> m.getLatency().getSumMicros()).reversed());
+    return list;
+  }
+
+  public void reset() {
+    methods.clear();
+  }
+
+  /**
+   * Human readable table for the {@code Stats} command.
+   */
+  public String format() {
+    StringBuilder text = new StringBuilder(String.format(
+        "%-40s %8s %7s %9s %9s %9s %9s %10s %10s %10s%n", "method", "calls", "errors",
+        "p50 ms", "p90 ms", "p99 ms", "max ms", "total s", "sent B", "recv B"));
+    for (MethodMetrics m : snapshot()) {
+      LatencyHistogram latency = m.getLatency();
+      text.append(String.format("%-40s %8d %7d %9.1f %9.1f %9.1f %9.1f %10.2f %10d %10d%n",
+          m.getName(), m.getCalls(), m.getErrors(),
+          latency.percentileMicros(50) / 1000.0, latency.percentileMicros(90) / 1000.0,
+          latency.percentileMicros(99) / 1000.0, latency.getMaxMicros() / 1000.0,
+          latency.getSumMicros() / 1_000_000.0, m.getBytesSent(), m.getBytesReceived()));
+    }
+    return text.toString();
+  }
+
+  /**
+   * Appends the metrics in the Prometheus text exposition format.
+   */
+  public void toPrometheus(StringBuilder text) {
+    List<MethodMetrics> list = snapshot();
+    text.append("# TYPE wallet_rpc_calls_total counter\n");
+    for (MethodMetrics m : list) {
+      for (Status.Code code : Status.Code.values()) {
+        long calls = m.getCalls(code);
+        if (calls > 0) {
+          text.append("wallet_rpc_calls_total{method=\"").append(m.getName())
+              .append("\",code=\"").append(code).append("\"} ").append(calls).append('\n');
+        }
+      }
+    }
+    text.append("# TYPE wallet_rpc_sent_bytes_total counter\n");
+    for (MethodMetrics m : list) {
+      text.append("wallet_rpc_sent_bytes_total{method=\"").append(m.getName()).append("\"} ")
+          .append(m.getBytesSent()).append('\n');
+    }
+    text.append("# TYPE wallet_rpc_received_bytes_total counter\n");
+    for (MethodMetrics m : list) {
+      text.append("wallet_rpc_received_bytes_total{method=\"").append(m.getName())
+          .append("\"} ").append(m.getBytesReceived()).append('\n');
+    }
+    text.append("# TYPE wallet_rpc_latency_seconds summary\n");
+    for (MethodMetrics m : list) {
+      LatencyHistogram latency = m.getLatency();
+      for (double quantile : new double[] {0.5, 0.9, 0.99}) {
+        text.append("wallet_rpc_latency_seconds{method=\"").append(m.getName())
+            .append("\",quantile=\"").append(quantile).append("\"} ")
+            .append(latency.percentileMicros(quantile * 100) / 1_000_000.0).append('\n');
+      }
+      text.append("wallet_rpc_latency_seconds_sum{method=\"").append(m.getName()).append("\"} ")
+          .append(latency.getSumMicros() / 1_000_000.0).append('\n');
+      text.append("wallet_rpc_latency_seconds_count{method=\"").append(m.getName())
+          .append("\"} ").append(latency.getCount()).append('\n');
+    }
+  }
+
+  public static class MethodMetrics {
+
+    private final String name;
+    private final LongAdder[] codes = new LongAdder[Status.Code.values().length];
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    MethodMetrics(String name) {
+      this.name = name;
+      for (int i = 0; i < codes.length; i++) {
+        codes[i] = new LongAdder();
+      }
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getCalls() {
+      return latency.getCount();
+    }
+
+    public long getCalls(Status.Code code) {
+      return codes[code.ordinal()].sum();
+    }
+
+    public long getErrors() {
+      return getCalls() - getCalls(Status.Code.OK);
+    }
+
+    public long getBytesSent() {
+      return bytesSent.sum();
+    }
+
+    public long getBytesReceived() {
+      return bytesReceived.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+      return latency;
+    }
+
+    void record(Status.Code code, long nanos) {
+      codes[code.ordinal()].increment();
+      latency.record(nanos);
+    }
+  }
+
+  private static long sizeOf(Object message) {
+    return message instanceof MessageLite ? ((MessageLite) message).getSerializedSize() : 0;
+  }
+
+  private class MetricsInterceptor implements ClientInterceptor {
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+        MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+      MethodMetrics metrics = method(method.getBareMethodName());
+      return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(
+          next.newCall(method, callOptions)) {
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+          long startNanos = System.nanoTime();
+          super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(
+              responseListener) {
+            @Override
+            public void onMessage(RespT message) {
+              metrics.bytesReceived.add(sizeOf(message));
+              super.onMessage(message);
+            }
+
+            @Override
+            public void onClose(Status status, Metadata trailers) {
+              metrics.record(status.getCode(), System.nanoTime() - startNanos);
+              super.onClose(status, trailers);
+            }
+          }, headers);
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+          metrics.bytesSent.add(sizeOf(message));
+          super.sendMessage(message);
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,437 @@
+package org.tron.walletserver;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Client side tuning of the gRPC connections, read from the {@code rpc} block of config.conf.
+ * Every field has a default so an old config file without the block keeps working.
+ */
+public class RpcOptions {
+
+  public enum LoadBalance {
+    ROUND_ROBIN,
+    LEAST_REQUESTS,
+    LATENCY
+  }
+
+  @Getter
+  @Setter
+  private LoadBalance loadBalance = LoadBalance.ROUND_ROBIN;
+
+  @Getter
+  @Setter
+  private long healthCheckIntervalMs = 5000L;
+
+  @Getter
+  @Setter
+  private long healthCheckTimeoutMs = 3000L;
+
+  @Getter
+  @Setter
+  private double ewmaAlpha = 0.3;
+
+  /**
+   * A node whose head is more than this many blocks behind the best known head is not chosen
+   * by the latency policy.
+   */
+  @Getter
+  @Setter
+  private long maxBlockLag = 20L;
+
+  @Getter
+  @Setter
+  private boolean discoveryEnabled = false;
+
+  /**
+   * {@code listNodes} reports peer-to-peer addresses, so discovered hosts are dialed on this
+   * gRPC port.
+   */
+  @Getter
+  @Setter
+  private int discoveryGrpcPort = 50051;
+
+  @Getter
+  @Setter
+  private int discoveryMaxNodes = 10;
+
+  /**
+   * Send read-only calls to a second node when the first one is slower than usual.
+   */
+  @Getter
+  @Setter
+  private boolean hedgingEnabled = false;
+
+  /**
+   * Percentile of the recent latencies of a method after which the hedge is sent.
+   */
+  @Getter
+  @Setter
+  private double hedgingPercentile = 95.0;
+
+  @Getter
+  @Setter
+  private long hedgingMinDelayMs = 20L;
+
+  /**
+   * Hedge delay used until a method has enough latency samples.
+   */
+  @Getter
+  @Setter
+  private long hedgingInitialDelayMs = 500L;
+
+  /**
+   * Largest response accepted. A {@code getBlockByLimitNext} of 100 full blocks is far above the
+   * gRPC default of 4 MB.
+   */
+  @Getter
+  @Setter
+  private int maxInboundMessageSize = 64 * 1024 * 1024;
+
+  /**
+   * HTTP/2 flow control window per stream; a large window keeps bulk block downloads from
+   * stalling on window updates. 0 keeps the gRPC default with automatic tuning.
+   */
+  @Getter
+  @Setter
+  private int flowControlWindow = 8 * 1024 * 1024;
+
+  /**
+   * Interval of keepalive pings, 0 disables them. java-tron accepts one ping every 5 minutes
+   * by default and closes the connection of clients pinging more often.
+   */
+  @Getter
+  @Setter
+  private long keepAliveTimeMs = 300000L;
+
+  @Getter
+  @Setter
+  private long keepAliveTimeoutMs = 20000L;
+
+  /**
+   * Ping idle connections too, so a load balancer in between does not drop them. The node must
+   * allow it ({@code permitKeepAliveWithoutCalls}).
+   */
+  @Getter
+  @Setter
+  private boolean keepAliveWithoutCalls = false;
+
+  /**
+   * Compressor for requests, {@code gzip} or {@code identity} for none.
+   */
+  @Getter
+  @Setter
+  private String compression = "identity";
+
+  /**
+   * Use the native epoll transport when it is available.
+   */
+  @Getter
+  @Setter
+  private boolean epoll = true;
+
+  /**
+   * Threads of the event loop shared by all channels, 0 for twice the number of cores.
+   */
+  @Getter
+  @Setter
+  private int eventLoopThreads = 0;
+
+  /**
+   * Record per method counts, bytes and latency of the calls, see {@link RpcMetrics}.
+   */
+  @Getter
+  @Setter
+  private boolean metricsEnabled = true;
+
+  /**
+   * File the Prometheus text of the metrics is written to every {@code metricsFileIntervalMs},
+   * empty for none.
+   */
+  @Getter
+  @Setter
+  private String metricsFile = "";
+
+  @Getter
+  @Setter
+  private long metricsFileIntervalMs = 15000L;
+
+  /**
+   * Loopback port serving the metrics on {@code /metrics}, 0 for none.
+   */
+  @Getter
+  @Setter
+  private int metricsHttpPort = 0;
+
+  /**
+   * Concurrent identical reads share one call.
+   */
+  @Getter
+  @Setter
+  private boolean singleFlightEnabled = true;
+
+  /**
+   * Memory bound of the cache of solidified blocks, transactions and contracts, 0 disables it.
+   */
+  @Getter
+  @Setter
+  private long cacheMaxBytes = 64L * 1024 * 1024;
+
+  /**
+   * How often the solidified block number, which decides what may be cached, is refreshed.
+   */
+  @Getter
+  @Setter
+  private long cacheSolidifiedRefreshMs = 3000L;
+
+  /**
+   * How long a contract is cached. Its ABI and settings may be changed by its owner at any
+   * time, so it is not final like a solidified block; 0 does not cache contracts.
+   */
+  @Getter
+  @Setter
+  private long cacheContractTtlMs = 60000L;
+
+  /**
+   * Chain parameters, witnesses, prices, assets and exchanges are reloaded in the background
+   * once they are older than this.
+   */
+  @Getter
+  @Setter
+  private long stateCacheRefreshAfterMs = 45000L;
+
+  /**
+   * Age after which cached chain state is no longer served, 0 disables the cache.
+   */
+  @Getter
+  @Setter
+  private long stateCacheTtlMs = 60000L;
+
+  /**
+   * How often the shared {@link BlockFollower} asks for the head block.
+   */
+  @Getter
+  @Setter
+  private long followerPollIntervalMs = 1000L;
+
+  /**
+   * Whether the shared {@link BlockFollower} also fetches the transaction infos of each block.
+   */
+  @Getter
+  @Setter
+  private boolean followerTransactionInfo = false;
+
+  /**
+   * Directory of the local {@link BlockArchive} of solidified blocks, empty disables it.
+   */
+  @Getter
+  @Setter
+  private String archiveDir = "";
+
+  /**
+   * Size at which the archive starts a new segment file.
+   */
+  @Getter
+  @Setter
+  private long archiveSegmentBytes = 256L * 1024 * 1024;
+
+  /**
+   * File of the local {@link AddressIndex}, empty disables it.
+   */
+  @Getter
+  @Setter
+  private String addressIndexFile = "";
+
+  /**
+   * Whether transfers, trigger and resource V2 transactions are built by a
+   * {@link LocalTransactionBuilder} instead of the full node.
+   */
+  @Getter
+  @Setter
+  private boolean localBuildEnabled = false;
+
+  /**
+   * How often the reference block of the {@link LocalTransactionBuilder} is reloaded.
+   */
+  @Getter
+  @Setter
+  private long localBuildRefreshMs = 3000L;
+
+  /**
+   * Policy of the methods without an entry in {@code methodPolicies}.
+   */
+  @Getter
+  @Setter
+  private CallPolicy defaultPolicy = new CallPolicy();
+
+  /**
+   * Policies by gRPC method name, e.g. {@code BroadcastTransaction}.
+   */
+  @Getter
+  private final Map<String, CallPolicy> methodPolicies = new HashMap<>();
+
+  public RpcOptions() {
+    // SERVER_BUSY is answered quickly, so a busy node is worth more patience than a failed one
+    methodPolicies.put("BroadcastTransaction", defaultPolicy.withOverrides(
+        ConfigFactory.parseString("maxAttempts = 10, initialBackoffMs = 200")));
+    // a range of up to 100 blocks can be tens of megabytes; the shielded scans decrypt every
+    // note of their range on the node and may run for minutes
+    CallPolicy blockRange = defaultPolicy.withOverrides(
+        ConfigFactory.parseString("deadlineMs = 300000"));
+    for (String method : new String[] {"GetBlockByLimitNext", "GetBlockByLimitNext2",
+        "GetBlockByLatestNum", "GetBlockByLatestNum2"}) {
+      methodPolicies.put(method, blockRange);
+    }
+    CallPolicy scan = defaultPolicy.withOverrides(ConfigFactory.parseString("deadlineMs = 0"));
+    for (String method : new String[] {"ScanNoteByIvk", "ScanAndMarkNoteByIvk", "ScanNoteByOvk",
+        "ScanShieldedTRC20NotesByIvk", "ScanShieldedTRC20NotesByOvk"}) {
+      methodPolicies.put(method, scan);
+    }
+  }
+
+  public CallPolicy policyFor(String methodName) {
+    CallPolicy policy = methodName == null ? null : methodPolicies.get(methodName);
+    return policy == null ? defaultPolicy : policy;
+  }
+
+  public static RpcOptions fromConfig(Config config) {
+    RpcOptions options = new RpcOptions();
+    if (config == null) {
+      return options;
+    }
+    if (config.hasPath("rpc.loadBalance")) {
+      String loadBalance = config.getString("rpc.loadBalance").trim().toUpperCase()
+          .replace('-', '_');
+      options.setLoadBalance(LoadBalance.valueOf(loadBalance));
+    }
+    if (config.hasPath("rpc.healthCheck.intervalMs")) {
+      options.setHealthCheckIntervalMs(config.getLong("rpc.healthCheck.intervalMs"));
+    }
+    if (config.hasPath("rpc.healthCheck.timeoutMs")) {
+      options.setHealthCheckTimeoutMs(config.getLong("rpc.healthCheck.timeoutMs"));
+    }
+    if (config.hasPath("rpc.selection.ewmaAlpha")) {
+      options.setEwmaAlpha(config.getDouble("rpc.selection.ewmaAlpha"));
+    }
+    if (config.hasPath("rpc.selection.maxBlockLag")) {
+      options.setMaxBlockLag(config.getLong("rpc.selection.maxBlockLag"));
+    }
+    if (config.hasPath("rpc.discovery.enable")) {
+      options.setDiscoveryEnabled(config.getBoolean("rpc.discovery.enable"));
+    }
+    if (config.hasPath("rpc.discovery.grpcPort")) {
+      options.setDiscoveryGrpcPort(config.getInt("rpc.discovery.grpcPort"));
+    }
+    if (config.hasPath("rpc.discovery.maxNodes")) {
+      options.setDiscoveryMaxNodes(config.getInt("rpc.discovery.maxNodes"));
+    }
+    if (config.hasPath("rpc.hedging.enable")) {
+      options.setHedgingEnabled(config.getBoolean("rpc.hedging.enable"));
+    }
+    if (config.hasPath("rpc.hedging.percentile")) {
+      options.setHedgingPercentile(config.getDouble("rpc.hedging.percentile"));
+    }
+    if (config.hasPath("rpc.hedging.minDelayMs")) {
+      options.setHedgingMinDelayMs(config.getLong("rpc.hedging.minDelayMs"));
+    }
+    if (config.hasPath("rpc.hedging.initialDelayMs")) {
+      options.setHedgingInitialDelayMs(config.getLong("rpc.hedging.initialDelayMs"));
+    }
+    if (config.hasPath("rpc.transport.maxInboundMessageSize")) {
+      options.setMaxInboundMessageSize(
+          (int) (long) config.getBytes("rpc.transport.maxInboundMessageSize"));
+    }
+    if (config.hasPath("rpc.transport.flowControlWindow")) {
+      options.setFlowControlWindow((int) (long) config.getBytes("rpc.transport.flowControlWindow"));
+    }
+    if (config.hasPath("rpc.transport.keepAliveTimeMs")) {
+      options.setKeepAliveTimeMs(config.getLong("rpc.transport.keepAliveTimeMs"));
+    }
+    if (config.hasPath("rpc.transport.keepAliveTimeoutMs")) {
+      options.setKeepAliveTimeoutMs(config.getLong("rpc.transport.keepAliveTimeoutMs"));
+    }
+    if (config.hasPath("rpc.transport.keepAliveWithoutCalls")) {
+      options.setKeepAliveWithoutCalls(config.getBoolean("rpc.transport.keepAliveWithoutCalls"));
+    }
+    if (config.hasPath("rpc.transport.compression")) {
+      String compression = config.getString("rpc.transport.compression").trim().toLowerCase();
+      options.setCompression("none".equals(compression) ? "identity" : compression);
+    }
+    if (config.hasPath("rpc.transport.epoll")) {
+      options.setEpoll(config.getBoolean("rpc.transport.epoll"));
+    }
+    if (config.hasPath("rpc.transport.eventLoopThreads")) {
+      options.setEventLoopThreads(config.getInt("rpc.transport.eventLoopThreads"));
+    }
+    if (config.hasPath("rpc.metrics.enable")) {
+      options.setMetricsEnabled(config.getBoolean("rpc.metrics.enable"));
+    }
+    if (config.hasPath("rpc.metrics.file")) {
+      options.setMetricsFile(config.getString("rpc.metrics.file"));
+    }
+    if (config.hasPath("rpc.metrics.fileIntervalMs")) {
+      options.setMetricsFileIntervalMs(config.getLong("rpc.metrics.fileIntervalMs"));
+    }
+    if (config.hasPath("rpc.metrics.httpPort")) {
+      options.setMetricsHttpPort(config.getInt("rpc.metrics.httpPort"));
+    }
+    if (config.hasPath("rpc.singleFlight.enable")) {
+      options.setSingleFlightEnabled(config.getBoolean("rpc.singleFlight.enable"));
+    }
+    if (config.hasPath("rpc.cache.maxBytes")) {
+      options.setCacheMaxBytes(config.getBytes("rpc.cache.maxBytes"));
+    }
+    if (config.hasPath("rpc.cache.solidifiedRefreshMs")) {
+      options.setCacheSolidifiedRefreshMs(config.getLong("rpc.cache.solidifiedRefreshMs"));
+    }
+    if (config.hasPath("rpc.cache.contractTtlMs")) {
+      options.setCacheContractTtlMs(config.getLong("rpc.cache.contractTtlMs"));
+    }
+    if (config.hasPath("rpc.stateCache.refreshAfterMs")) {
+      options.setStateCacheRefreshAfterMs(config.getLong("rpc.stateCache.refreshAfterMs"));
+    }
+    if (config.hasPath("rpc.stateCache.ttlMs")) {
+      options.setStateCacheTtlMs(config.getLong("rpc.stateCache.ttlMs"));
+    }
+    if (config.hasPath("rpc.follower.pollIntervalMs")) {
+      options.setFollowerPollIntervalMs(config.getLong("rpc.follower.pollIntervalMs"));
+    }
+    if (config.hasPath("rpc.follower.transactionInfo")) {
+      options.setFollowerTransactionInfo(config.getBoolean("rpc.follower.transactionInfo"));
+    }
+    if (config.hasPath("rpc.archive.dir")) {
+      options.setArchiveDir(config.getString("rpc.archive.dir"));
+    }
+    if (config.hasPath("rpc.archive.segmentBytes")) {
+      options.setArchiveSegmentBytes(config.getBytes("rpc.archive.segmentBytes"));
+    }
+    if (config.hasPath("rpc.addressIndex.file")) {
+      options.setAddressIndexFile(config.getString("rpc.addressIndex.file"));
+    }
+    if (config.hasPath("rpc.localBuild.enable")) {
+      options.setLocalBuildEnabled(config.getBoolean("rpc.localBuild.enable"));
+    }
+    if (config.hasPath("rpc.localBuild.refreshMs")) {
+      options.setLocalBuildRefreshMs(config.getLong("rpc.localBuild.refreshMs"));
+    }
+    if (config.hasPath("rpc.policy.default")) {
+      CallPolicy defaultPolicy =
+          options.getDefaultPolicy().withOverrides(config.getConfig("rpc.policy.default"));
+      options.setDefaultPolicy(defaultPolicy);
+      options.getMethodPolicies().replaceAll((method, policy) ->
+          policy.withDefaults(config.getConfig("rpc.policy.default")));
+    }
+    if (config.hasPath("rpc.policy.methods")) {
+      Config methods = config.getConfig("rpc.policy.methods");
+      for (String method : methods.root().keySet()) {
+        CallPolicy base = options.policyFor(method);
+        options.getMethodPolicies().put(method, base.withOverrides(methods.getConfig(method)));
+      }
+    }
+    return options;
+  }
+}
@@ -0,0 +1,132 @@
+package org.tron.walletserver;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.common.crypto.SignInterface;
+import org.tron.common.crypto.SignUtils;
+import org.tron.common.utils.TransactionUtils;
+import org.tron.core.exception.CipherException;
+import org.tron.keystore.StringUtils;
+import org.tron.keystore.Wallet;
+import org.tron.keystore.WalletFile;
+import org.tron.protos.Protocol.Transaction;
+
+/**
+ * Decrypted keys of unlocked keystores, so that signing does not run the keystore KDF (scrypt
+ * with {@code N = 1 << 18} for standard keystores) for every transaction.
+ *
+ * <p>A key is kept only as its private key bytes, which {@link #lock} overwrites. The signer for
+ * a transaction is built from them and dropped after the signature, since the key inside an
+ * {@code ECKey} or {@code SM2} cannot be cleared. All keys are locked once no signature has been
+ * made for the idle timeout.
+ */
+@Slf4j
+public class SignerSession {
+
+  private static final ScheduledExecutorService SCHEDULER =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "signer-session-timeout");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private final boolean isEckey;
+  private final Map<String, byte[]> keys = new HashMap<>();
+  private long idleMillis;
+  private long lastUse;
+  private ScheduledFuture<?> timeout;
+
+  public SignerSession(boolean isEckey) {
+    this.isEckey = isEckey;
+  }
+
+  /**
+   * Decrypts {@code walletFile} with {@code password} and keeps its key until locked, or until
+   * {@code idleMillis} pass without a signature. The timeout applies to all unlocked keys.
+   */
+  public void unlock(WalletFile walletFile, byte[] password, long idleMillis)
+      throws CipherException {
+    if (idleMillis <= 0) {
+      throw new IllegalArgumentException("idle timeout must be positive");
+    }
+    byte[] privateKey = Wallet.decrypt2PrivateBytes(password, walletFile);
+    synchronized (this) {
+      byte[] previous = keys.put(walletFile.getAddress(), privateKey);
+      if (previous != null) {
+        StringUtils.clear(previous);
+      }
+      this.idleMillis = idleMillis;
+      lastUse = System.currentTimeMillis();
+      schedule(idleMillis);
+    }
+  }
+
+  public synchronized boolean isUnlocked(String address) {
+    return keys.containsKey(address);
+  }
+
+  public synchronized int getUnlockedCount() {
+    return keys.size();
+  }
+
+  /**
+   * Signs {@code transaction} with the unlocked key of {@code address}, or returns null when it
+   * is not unlocked.
+   */
+  public Transaction sign(Transaction transaction, String address) {
+    SignInterface signer = signer(address);
+    return signer == null ? null : TransactionUtils.sign(transaction, signer);
+  }
+
+  /**
+   * A signer for the unlocked key of {@code address}, or null when it is not unlocked. The caller
+   * drops it once done, a batch of signatures counting as one use for the idle timeout.
+   */
+  public synchronized SignInterface signer(String address) {
+    byte[] privateKey = keys.get(address);
+    if (privateKey == null) {
+      return null;
+    }
+    lastUse = System.currentTimeMillis();
+    return SignUtils.fromPrivate(privateKey, isEckey);
+  }
+
+  /**
+   * Overwrites and forgets all unlocked keys.
+   */
+  public synchronized void lock() {
+    for (byte[] privateKey : keys.values()) {
+      StringUtils.clear(privateKey);
+    }
+    keys.clear();
+    if (timeout != null) {
+      timeout.cancel(false);
+      timeout = null;
+    }
+  }
+
+  private void schedule(long delay) {
+    if (timeout != null) {
+      timeout.cancel(false);
+    }
+    timeout = SCHEDULER.schedule(this::expire, delay, TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized void expire() {
+    if (keys.isEmpty()) {
+      return;
+    }
+    long idle = System.currentTimeMillis() - lastUse;
+    if (idle < idleMillis) {
+      schedule(idleMillis - idle);
+      return;
+    }
+    logger.info("Locking {} keys after {} ms without a signature", keys.size(), idle);
+    lock();
+  }
+}
@@ -0,0 +1,91 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent identical reads share one call. Requests are identical when they go to the
+ * same method with the same serialized request; a caller arriving while such a call is in
+ * flight gets its result instead of sending another one.
+ */
+public class SingleFlight {
+
+  private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong calls = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+
+  @SuppressWarnings("unchecked")
+  public <T> CompletableFuture<T> call(String method, Message request,
+      Supplier<CompletableFuture<T>> call) {
+    Key key = new Key(method, request.toByteString());
+    CompletableFuture<Object> shared = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(key, shared);
+    if (existing != null) {
+      coalesced.incrementAndGet();
+      return (CompletableFuture<T>) existing.thenApply(value -> value);
+    }
+    calls.incrementAndGet();
+    try {
+      call.get().whenComplete((value, e) -> {
+        inFlight.remove(key, shared);
+        if (e != null) {
+          shared.completeExceptionally(e);
+        } else {
+          shared.complete(value);
+        }
+      });
+    } catch (RuntimeException e) {
+      inFlight.remove(key, shared);
+      shared.completeExceptionally(e);
+    }
+    // a caller cancelling its future must not cancel the call for the others
+    return (CompletableFuture<T>) shared.thenApply(value -> value);
+  }
+
+  public long getCalls() {
+    return calls.get();
+  }
+
+  public long getCoalesced() {
+    return coalesced.get();
+  }
+
+  @Override
+  public String toString() {
+    return "calls=" + getCalls() + " coalesced=" + getCoalesced();
+  }
+
+  private static class Key {
+
+    private final String method;
+    private final ByteString request;
+
+    Key(String method, ByteString request) {
+      this.method = method;
+      this.request = request;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return method.equals(key.method) && request.equals(key.request);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(method, request);
+    }
+  }
+}
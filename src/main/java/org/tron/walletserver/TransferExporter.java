@@ -0,0 +1,441 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.tron.api.GrpcAPI.BlockExtention;
+import org.tron.api.GrpcAPI.TransactionExtention;
+import org.tron.api.GrpcAPI.TransactionInfoList;
+import org.tron.common.utils.ByteArray;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.TransactionInfo;
+import org.tron.protos.contract.AssetIssueContractOuterClass.TransferAssetContract;
+import org.tron.protos.contract.BalanceContract.TransferContract;
+
+/**
+ * Writes every TRX, TRC10 and TRC20 transfer of a block range as one flat row: block number,
+ * block time in ms, transaction id, type, token (asset id or TRC20 contract), sender, receiver
+ * and amount in the smallest unit. TRC20 transfers are the {@code Transfer} events in the
+ * transaction infos, which are only fetched for blocks with contract calls. Transfers made by
+ * contracts internally are not included.
+ *
+ * <p>Blocks stream through {@link BlockRangeDownloader} and rows are written block by block, in
+ * order, so memory does not grow with the range. The output is CSV, or a columnar file:
+ * <pre>
+ * file      = "TRXCOL01" group* varint(0)
+ * group     = varint(rows) varint(reset) dict(addresses) dict(tokens) column{8}
+ * dict      = varint(count) (varint(length) bytes)*
+ * column    = varint(length) bytes
+ * </pre>
+ * Up to 65536 rows make a group. The columns are block and time as zigzag varint differences to
+ * the previous row, transaction id as 32 raw bytes, type as one byte (0 TRX, 1 TRC10, 2 TRC20),
+ * token, sender and receiver as varint ids and amount as varint length plus unsigned big-endian
+ * bytes. Token id 0 means no token; other ids, and address ids from 0, number the entries in
+ * order of first use, listed in the group that first uses them. When {@code reset} is 1 both
+ * dictionaries start empty again, which bounds their memory.
+ */
+public class TransferExporter {
+
+  public enum Format {
+    CSV,
+    COLUMNAR
+  }
+
+  private static final String CSV_HEADER = "block,timestamp,txid,type,token,from,to,amount";
+  private static final ByteString TRANSFER_TOPIC = ByteString.copyFrom(ByteArray.fromHexString(
+      "ddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef"));
+  private static final byte[] MAGIC = "TRXCOL01".getBytes(StandardCharsets.US_ASCII);
+  private static final int GROUP_ROWS = 65536;
+  private static final int MAX_DICTIONARY = 1 << 20;
+  private static final int TYPE_TRX = 0;
+  private static final int TYPE_TRC10 = 1;
+  private static final int TYPE_TRC20 = 2;
+  private static final String[] TYPE_NAMES = {"TRX", "TRC10", "TRC20"};
+
+  private final GrpcClient client;
+  private final int concurrency;
+  private final Format format;
+
+  public TransferExporter(GrpcClient client, int concurrency, Format format) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be at least 1");
+    }
+    this.client = client;
+    this.concurrency = concurrency;
+    this.format = format;
+  }
+
+  /**
+   * Writes the transfers of blocks {@code start} to {@code end} (exclusive) to {@code out} and
+   * returns the number of rows.
+   */
+  public long run(long start, long end, OutputStream out) throws IOException,
+      InterruptedException {
+    RowWriter rows = format == Format.CSV ? new CsvWriter(out) : new ColumnarWriter(out);
+    // transaction infos are fetched while later blocks arrive; bound the blocks waiting for them
+    Deque<PendingBlock> pending = new ArrayDeque<>();
+    int window = concurrency * 16;
+    new BlockRangeDownloader(client, BlockRangeDownloader.MAX_WINDOW_SIZE, concurrency, 5)
+        .run(start, end, block -> {
+          pending.add(new PendingBlock(block, hasContractCalls(block)
+              ? client.getTransactionInfoByBlockNumAsync(
+                  block.getBlockHeader().getRawData().getNumber(), true)
+              : CompletableFuture.completedFuture(null)));
+          while (!pending.isEmpty()
+              && (pending.size() > window || pending.peek().infos.isDone())) {
+            write(pending.poll(), rows);
+          }
+        });
+    while (!pending.isEmpty()) {
+      write(pending.poll(), rows);
+    }
+    rows.finish();
+    return rows.count();
+  }
+
+  private static boolean hasContractCalls(BlockExtention block) {
+    for (TransactionExtention transaction : block.getTransactionsList()) {
+      for (Transaction.Contract contract
+          : transaction.getTransaction().getRawData().getContractList()) {
+        if (contract.getType() == Transaction.Contract.ContractType.TriggerSmartContract) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static void write(PendingBlock pending, RowWriter rows) throws IOException {
+    BlockExtention block = pending.block;
+    long num = block.getBlockHeader().getRawData().getNumber();
+    long timestamp = block.getBlockHeader().getRawData().getTimestamp();
+    Map<ByteString, TransactionInfo> infos = new HashMap<>();
+    try {
+      TransactionInfoList list = pending.infos.join();
+      if (list != null) {
+        for (TransactionInfo info : list.getTransactionInfoList()) {
+          infos.put(info.getId(), info);
+        }
+      }
+    } catch (CompletionException e) {
+      throw new IOException("Transaction infos of block " + num + " failed: "
+          + e.getCause().getMessage(), e.getCause());
+    }
+    for (TransactionExtention transaction : block.getTransactionsList()) {
+      byte[] txid = transaction.getTxid().toByteArray();
+      for (Transaction.Contract contract
+          : transaction.getTransaction().getRawData().getContractList()) {
+        switch (contract.getType()) {
+          case TransferContract: {
+            TransferContract transfer = unpack(contract, TransferContract.class);
+            rows.write(num, timestamp, txid, TYPE_TRX, null,
+                transfer.getOwnerAddress().toByteArray(), transfer.getToAddress().toByteArray(),
+                transfer.getAmount(), null, null);
+            break;
+          }
+          case TransferAssetContract: {
+            TransferAssetContract transfer = unpack(contract, TransferAssetContract.class);
+            rows.write(num, timestamp, txid, TYPE_TRC10, transfer.getAssetName().toStringUtf8(),
+                transfer.getOwnerAddress().toByteArray(), transfer.getToAddress().toByteArray(),
+                transfer.getAmount(), null, null);
+            break;
+          }
+          default:
+            break;
+        }
+      }
+      TransactionInfo info = infos.get(transaction.getTxid());
+      if (info == null) {
+        continue;
+      }
+      for (TransactionInfo.Log log : info.getLogList()) {
+        if (log.getTopicsCount() != 3 || !log.getTopics(0).equals(TRANSFER_TOPIC)) {
+          continue;
+        }
+        rows.write(num, timestamp, txid, TYPE_TRC20, null, address(log.getTopics(1)),
+            address(log.getTopics(2)), 0, stripZeros(log.getData().toByteArray()),
+            address(log.getAddress()));
+      }
+    }
+  }
+
+  private static <T extends Message> T unpack(Transaction.Contract contract,
+      Class<T> type) throws IOException {
+    try {
+      return contract.getParameter().unpack(type);
+    } catch (InvalidProtocolBufferException e) {
+      throw new IOException("Bad " + contract.getType() + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * TRON address of the last 20 bytes of {@code value}, a 32 byte topic or a 20 byte log address.
+   */
+  private static byte[] address(ByteString value) {
+    byte[] address = new byte[21];
+    address[0] = WalletApi.getAddressPreFixByte();
+    int length = Math.min(20, value.size());
+    value.copyTo(address, value.size() - length, 21 - length, length);
+    return address;
+  }
+
+  private static byte[] stripZeros(byte[] value) {
+    int from = 0;
+    while (from < value.length && value[from] == 0) {
+      from++;
+    }
+    byte[] stripped = new byte[value.length - from];
+    System.arraycopy(value, from, stripped, 0, stripped.length);
+    return stripped;
+  }
+
+  private static class PendingBlock {
+
+    private final BlockExtention block;
+    private final CompletableFuture<TransactionInfoList> infos;
+
+    PendingBlock(BlockExtention block, CompletableFuture<TransactionInfoList> infos) {
+      this.block = block;
+      this.infos = infos;
+    }
+  }
+
+  private abstract static class RowWriter {
+
+    private long count;
+
+    /**
+     * Adds a row. The amount is {@code amount}, or the unsigned big-endian {@code wideAmount}
+     * when that is not null. The token is {@code token}, or the address {@code tokenAddress}.
+     */
+    void write(long block, long timestamp, byte[] txid, int type, String token, byte[] from,
+        byte[] to, long amount, byte[] wideAmount, byte[] tokenAddress) throws IOException {
+      row(block, timestamp, txid, type, token, from, to, amount, wideAmount, tokenAddress);
+      count++;
+    }
+
+    abstract void row(long block, long timestamp, byte[] txid, int type, String token,
+        byte[] from, byte[] to, long amount, byte[] wideAmount, byte[] tokenAddress)
+        throws IOException;
+
+    abstract void finish() throws IOException;
+
+    long count() {
+      return count;
+    }
+  }
+
+  /**
+   * CSV built in one reused buffer. Base58 addresses are the costly part, so the recent ones are
+   * kept.
+   */
+  private static class CsvWriter extends RowWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int CACHED_ADDRESSES = 65536;
+
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(256);
+    private final Map<ByteString, String> base58 =
+        new LinkedHashMap<ByteString, String>(1024, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<ByteString, String> eldest) {
+            return size() > CACHED_ADDRESSES;
+          }
+        };
+
+    CsvWriter(OutputStream out) throws IOException {
+      this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+      this.out.write(CSV_HEADER);
+      this.out.write('\n');
+    }
+
+    @Override
+    void row(long block, long timestamp, byte[] txid, int type, String token, byte[] from,
+        byte[] to, long amount, byte[] wideAmount, byte[] tokenAddress) throws IOException {
+      line.setLength(0);
+      line.append(block).append(',').append(timestamp).append(',');
+      for (byte b : txid) {
+        line.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+      }
+      line.append(',').append(TYPE_NAMES[type]).append(',');
+      if (tokenAddress != null) {
+        line.append(base58(tokenAddress));
+      } else if (token != null) {
+        appendEscaped(token);
+      }
+      line.append(',').append(base58(from)).append(',').append(base58(to)).append(',');
+      if (wideAmount != null) {
+        line.append(new BigInteger(1, wideAmount));
+      } else {
+        line.append(amount);
+      }
+      line.append('\n');
+      out.append(line);
+    }
+
+    private String base58(byte[] address) {
+      return base58.computeIfAbsent(ByteString.copyFrom(address),
+          key -> WalletApi.encode58Check(address));
+    }
+
+    private void appendEscaped(String value) {
+      if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+        line.append(value);
+        return;
+      }
+      line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    @Override
+    void finish() throws IOException {
+      out.flush();
+    }
+  }
+
+  private static class ColumnarWriter extends RowWriter {
+
+    private static final int COLUMNS = 8;
+
+    private final OutputStream out;
+    private final ByteArrayOutputStream[] buffers = new ByteArrayOutputStream[COLUMNS];
+    private final CodedOutputStream[] columns = new CodedOutputStream[COLUMNS];
+    private final Map<ByteString, Integer> addresses = new HashMap<>();
+    private final Map<String, Integer> tokens = new HashMap<>();
+    private final Map<ByteString, String> contracts = new HashMap<>();
+    private final ByteArrayOutputStream newEntries = new ByteArrayOutputStream();
+    private final CodedOutputStream newAddresses;
+    private final ByteArrayOutputStream newTokenEntries = new ByteArrayOutputStream();
+    private final CodedOutputStream newTokens;
+    private int newAddressCount;
+    private int newTokenCount;
+    private int rows;
+    private boolean reset;
+    private long lastBlock;
+    private long lastTimestamp;
+
+    ColumnarWriter(OutputStream out) throws IOException {
+      this.out = out;
+      for (int i = 0; i < COLUMNS; i++) {
+        buffers[i] = new ByteArrayOutputStream(1 << 16);
+        columns[i] = CodedOutputStream.newInstance(buffers[i]);
+      }
+      newAddresses = CodedOutputStream.newInstance(newEntries);
+      newTokens = CodedOutputStream.newInstance(newTokenEntries);
+      out.write(MAGIC);
+    }
+
+    @Override
+    void row(long block, long timestamp, byte[] txid, int type, String token, byte[] from,
+        byte[] to, long amount, byte[] wideAmount, byte[] tokenAddress) throws IOException {
+      if (rows == 0 && (addresses.size() > MAX_DICTIONARY || tokens.size() > MAX_DICTIONARY)) {
+        addresses.clear();
+        tokens.clear();
+        contracts.clear();
+        reset = true;
+      }
+      columns[0].writeSInt64NoTag(block - lastBlock);
+      columns[1].writeSInt64NoTag(timestamp - lastTimestamp);
+      columns[2].writeRawBytes(txid);
+      columns[3].writeRawByte((byte) type);
+      if (tokenAddress != null) {
+        token = contracts.computeIfAbsent(ByteString.copyFrom(tokenAddress),
+            key -> WalletApi.encode58Check(tokenAddress));
+      }
+      columns[4].writeUInt32NoTag(token == null ? 0 : tokenId(token));
+      columns[5].writeUInt32NoTag(addressId(from));
+      columns[6].writeUInt32NoTag(addressId(to));
+      if (wideAmount != null) {
+        columns[7].writeUInt32NoTag(wideAmount.length);
+        columns[7].writeRawBytes(wideAmount);
+      } else {
+        byte[] bytes = stripZeros(ByteArray.fromLong(amount));
+        columns[7].writeUInt32NoTag(bytes.length);
+        columns[7].writeRawBytes(bytes);
+      }
+      lastBlock = block;
+      lastTimestamp = timestamp;
+      if (++rows == GROUP_ROWS) {
+        flushGroup();
+      }
+    }
+
+    private int addressId(byte[] address) throws IOException {
+      ByteString key = ByteString.copyFrom(address);
+      Integer id = addresses.get(key);
+      if (id == null) {
+        id = addresses.size();
+        addresses.put(key, id);
+        newAddresses.writeUInt32NoTag(address.length);
+        newAddresses.writeRawBytes(address);
+        newAddressCount++;
+      }
+      return id;
+    }
+
+    private int tokenId(String token) throws IOException {
+      Integer id = tokens.get(token);
+      if (id == null) {
+        id = tokens.size() + 1;
+        tokens.put(token, id);
+        byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+        newTokens.writeUInt32NoTag(bytes.length);
+        newTokens.writeRawBytes(bytes);
+        newTokenCount++;
+      }
+      return id;
+    }
+
+    private void flushGroup() throws IOException {
+      CodedOutputStream header = CodedOutputStream.newInstance(out, 64);
+      header.writeUInt32NoTag(rows);
+      header.writeUInt32NoTag(reset ? 1 : 0);
+      newAddresses.flush();
+      header.writeUInt32NoTag(newAddressCount);
+      header.flush();
+      newEntries.writeTo(out);
+      newTokens.flush();
+      header.writeUInt32NoTag(newTokenCount);
+      header.flush();
+      newTokenEntries.writeTo(out);
+      for (int i = 0; i < COLUMNS; i++) {
+        columns[i].flush();
+        header.writeUInt32NoTag(buffers[i].size());
+        header.flush();
+        buffers[i].writeTo(out);
+        buffers[i].reset();
+      }
+      newEntries.reset();
+      newTokenEntries.reset();
+      newAddressCount = 0;
+      newTokenCount = 0;
+      rows = 0;
+      reset = false;
+    }
+
+    @Override
+    void finish() throws IOException {
+      if (rows > 0) {
+        flushGroup();
+      }
+      out.write(0);
+      out.flush();
+    }
+  }
+}
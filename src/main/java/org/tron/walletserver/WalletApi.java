@@ -9,11 +9,14 @@ import com.google.protobuf.Any;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.typesafe.config.Config;
-import com.typesafe.config.ConfigObject;
 import io.grpc.Status;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -22,6 +25,9 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import lombok.extern.slf4j.Slf4j;
@@ -80,9 +86,11 @@ import org.tron.api.GrpcAPI.WitnessList;
 import org.tron.common.crypto.ECKey;
 import org.tron.common.crypto.Hash;
 import org.tron.common.crypto.Sha256Sm3Hash;
+import org.tron.common.crypto.SignInterface;
 import org.tron.common.crypto.sm2.SM2;
 import org.tron.common.utils.Base58;
 import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.PromptResolver;
 import org.tron.common.utils.TransactionUtils;
 import org.tron.common.utils.Utils;
 import org.tron.common.zksnark.JLibrustzcash;
@@ -162,6 +170,7 @@ public class WalletApi {
   private static final String FilePath = "Wallet";
   private List<WalletFile> walletFile = new ArrayList<>();
   private boolean loginState = false;
+  private final SignerSession signerSession = new SignerSession(isEckey);
   private byte[] address;
   private static byte addressPreFixByte = CommonConstant.ADD_PRE_FIX_BYTE_TESTNET;
   private static int rpcVersion = 0;
@@ -172,13 +181,13 @@ public class WalletApi {
   public static GrpcClient init() {
     Config config = Configuration.getByPath("config.conf");
 
-    String fullNode = "";
-    String solidityNode = "";
+    List<String> fullNodes = new ArrayList<>();
+    List<String> solidityNodes = new ArrayList<>();
     if (config.hasPath("soliditynode.ip.list")) {
-      solidityNode = config.getStringList("soliditynode.ip.list").get(0);
+      solidityNodes = config.getStringList("soliditynode.ip.list");
     }
     if (config.hasPath("fullnode.ip.list")) {
-      fullNode = config.getStringList("fullnode.ip.list").get(0);
+      fullNodes = config.getStringList("fullnode.ip.list");
     }
     if (config.hasPath("net.type") && "mainnet".equalsIgnoreCase(config.getString("net.type"))) {
       WalletApi.setAddressPreFixByte(CommonConstant.ADD_PRE_FIX_BYTE_MAINNET);
@@ -193,39 +202,90 @@ public class WalletApi {
       isEckey = config.getString("crypto.engine").equalsIgnoreCase("eckey");
       System.out.println("WalletApi getConfig isEckey: " + isEckey);
     }
-    return new GrpcClient(fullNode, solidityNode);
+    return new GrpcClient(fullNodes, solidityNodes, RpcOptions.fromConfig(config));
   }
 
+  /**
+   * Target of the fastest in-sync full node, as ranked from measured round trip times and
+   * head block numbers by the node pool.
+   */
   public static String selectFullNode() {
-    Map<String, String> witnessMap = new HashMap<>();
-    Config config = Configuration.getByPath("config.conf");
-    List list = config.getObjectList("witnesses.witnessList");
-    for (int i = 0; i < list.size(); i++) {
-      ConfigObject obj = (ConfigObject) list.get(i);
-      String ip = obj.get("ip").unwrapped().toString();
-      String url = obj.get("url").unwrapped().toString();
-      witnessMap.put(url, ip);
+    return rpcCli.getFullNodes().ranking().get(0).getTarget();
+  }
+
+  public static List<NodeEndpoint> getNodeRanking() {
+    return rpcCli.getFullNodes().ranking();
+  }
+
+  public static String getStats() {
+    return rpcCli.getStatsText();
+  }
+
+  public static void resetStats() {
+    if (rpcCli.getMetrics() != null) {
+      rpcCli.getMetrics().reset();
     }
+  }
 
-    Optional<WitnessList> result = rpcCli.listWitnesses();
-    long minMissedNum = 100000000L;
-    String minMissedWitness = "";
-    if (result.isPresent()) {
-      List<Witness> witnessList = result.get().getWitnessesList();
-      for (Witness witness : witnessList) {
-        String url = witness.getUrl();
-        long missedBlocks = witness.getTotalMissed();
-        if (missedBlocks < minMissedNum) {
-          minMissedNum = missedBlocks;
-          minMissedWitness = url;
+  /**
+   * Queries every address of {@code addresses} with at most {@code concurrency} addresses in
+   * flight and writes one line per address to {@code out}, in input order.
+   */
+  public static int bulkQueryAccounts(Iterable<String> addresses, Writer out,
+      BulkAccountQuery.Format format, int concurrency, Set<BulkAccountQuery.Query> queries)
+      throws IOException, InterruptedException {
+    return new BulkAccountQuery(rpcCli, concurrency, queries, format).run(addresses, out);
+  }
+
+  /**
+   * Hands blocks {@code start} to {@code end} (exclusive) to {@code sink} in order, see
+   * {@link BlockRangeDownloader}.
+   */
+  public static long exportBlocks(long start, long end, int concurrency,
+      BlockRangeDownloader.BlockSink sink) throws IOException, InterruptedException {
+    return new BlockRangeDownloader(rpcCli, BlockRangeDownloader.MAX_WINDOW_SIZE, concurrency, 5)
+        .run(start, end, sink);
+  }
+
+  /**
+   * Writes the transfers of blocks {@code start} to {@code end} (exclusive) to {@code out}, see
+   * {@link TransferExporter}. Returns the number of rows.
+   */
+  public static long exportTransfers(long start, long end, OutputStream out,
+      TransferExporter.Format format, int concurrency) throws IOException, InterruptedException {
+    return new TransferExporter(rpcCli, concurrency, format).run(start, end, out);
+  }
+
+  /**
+   * Hands the decoded event logs of blocks {@code start} to {@code end} (exclusive) to
+   * {@code sink} in order, see {@link EventDecoder}. Returns the number of events.
+   */
+  public static long decodeEvents(long start, long end, int concurrency,
+      EventDecoder.EventSink sink) throws IOException, InterruptedException {
+    return new EventDecoder(rpcCli, concurrency).run(start, end, sink);
+  }
+
+  /**
+   * Adds blocks {@code start} to {@code end} (exclusive), up to the solidified block, to the
+   * address index and saves it. Returns the number of blocks that were not indexed before.
+   */
+  public static long indexBlocks(long start, long end, int concurrency)
+      throws IOException, InterruptedException {
+    AddressIndex index = rpcCli.getAddressIndex();
+    if (index == null) {
+      throw new IOException("no address index, set rpc.addressIndex.file in config.conf");
+    }
+    long last = Math.min(end, GrpcClient.await(rpcCli.fetchSolidifiedBlockNum()) + 1);
+    long[] added = new long[1];
+    if (last > start) {
+      exportBlocks(start, last, concurrency, block -> {
+        if (index.add(block)) {
+          added[0]++;
         }
-      }
-    }
-    if (witnessMap.containsKey(minMissedWitness)) {
-      return witnessMap.get(minMissedWitness);
-    } else {
-      return "";
+      });
     }
+    index.save();
+    return added[0];
   }
 
   public static byte getAddressPreFixByte() {
@@ -273,6 +333,7 @@ public class WalletApi {
   }
 
   public void logout() {
+    signerSession.lock();
     loginState = false;
     walletFile.clear();
     this.walletFile = null;
@@ -350,6 +411,10 @@ public class WalletApi {
       return null;
     }
 
+    if (PromptResolver.isEnabled()) {
+      return PromptResolver.selectKeystore(wallets);
+    }
+
     File wallet;
     if (wallets.length > 1) {
       for (int i = 0; i < wallets.length; i++) {
@@ -444,6 +509,9 @@ public class WalletApi {
   }
 
   private boolean confirm() {
+    if (PromptResolver.isEnabled()) {
+      return PromptResolver.confirm();
+    }
     Scanner in = new Scanner(System.in);
     while (true) {
       String input = in.nextLine().trim();
@@ -456,6 +524,108 @@ public class WalletApi {
     }
   }
 
+  /**
+   * Signs with the key of {@code walletFile}, unlocked by {@link #unlock} or else decrypted with
+   * a password asked for now.
+   */
+  private Transaction sign(Transaction transaction, WalletFile walletFile)
+      throws CipherException {
+    Transaction signed = signerSession.sign(transaction, walletFile.getAddress());
+    if (signed != null) {
+      return signed;
+    }
+    System.out.println("Please input your password.");
+    char[] password = Utils.inputPassword(false);
+    byte[] passwd = org.tron.keystore.StringUtils.char2Byte(password);
+    org.tron.keystore.StringUtils.clear(password);
+    try {
+      if (isEckey) {
+        return TransactionUtils.sign(transaction, this.getEcKey(walletFile, passwd));
+      } else {
+        return TransactionUtils.sign(transaction, this.getSM2(walletFile, passwd));
+      }
+    } finally {
+      org.tron.keystore.StringUtils.clear(passwd);
+    }
+  }
+
+  /**
+   * Decrypts a chosen keystore once, so transactions it signs need no password until
+   * {@link #lock} or until {@code idleMillis} pass without a signature.
+   */
+  public String unlock(long idleMillis) throws CipherException, IOException {
+    System.out.println("Please choose your key to unlock.");
+    WalletFile walletFile = selcetWalletFileE();
+    System.out.println("Please input your password.");
+    char[] password = Utils.inputPassword(false);
+    byte[] passwd = org.tron.keystore.StringUtils.char2Byte(password);
+    org.tron.keystore.StringUtils.clear(password);
+    try {
+      signerSession.unlock(walletFile, passwd, idleMillis);
+    } finally {
+      org.tron.keystore.StringUtils.clear(passwd);
+    }
+    return walletFile.getAddress();
+  }
+
+  /**
+   * Signs the hex transactions of {@code in}, one per line, with a chosen key across
+   * {@code parallelism} threads and writes them to {@code out} in the same order. The key is
+   * taken from an {@link #unlock} session, or decrypted once with a password asked for now.
+   */
+  public long batchSign(BufferedReader in, Writer out, int parallelism)
+      throws CipherException, IOException, InterruptedException {
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      return new BatchSigner(chooseSigner(), pool).run(in, out);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Pays the {@code address,amount} rows of {@code csv} from the login account, see
+   * {@link PayoutEngine}, signing with a chosen key decrypted once or taken from an
+   * {@link #unlock} session, and waits for the new transactions to be solidified.
+   */
+  public PayoutEngine.Summary payout(Path csv, Path journal, int window,
+      double requestsPerSecond) throws CipherException, IOException, InterruptedException {
+    int permissionId = PromptResolver.isEnabled() ? PromptResolver.getPermissionId() : 0;
+    return new PayoutEngine(rpcCli, chooseSigner(), getAddress(), permissionId, window,
+        requestsPerSecond, rpcCli.getConfirmationTracker()).run(csv, journal);
+  }
+
+  /**
+   * A signer for a chosen keystore, from the {@link #unlock} session or decrypted with a password
+   * asked for now, for signing many transactions with one key.
+   */
+  private SignInterface chooseSigner() throws CipherException, IOException {
+    System.out.println("Please choose your key for sign.");
+    WalletFile walletFile = selcetWalletFileE();
+    SignInterface signer = signerSession.signer(walletFile.getAddress());
+    if (signer != null) {
+      return signer;
+    }
+    System.out.println("Please input your password.");
+    char[] password = Utils.inputPassword(false);
+    byte[] passwd = org.tron.keystore.StringUtils.char2Byte(password);
+    org.tron.keystore.StringUtils.clear(password);
+    try {
+      return isEckey ? this.getEcKey(walletFile, passwd) : this.getSM2(walletFile, passwd);
+    } finally {
+      org.tron.keystore.StringUtils.clear(passwd);
+    }
+  }
+
+  /**
+   * Forgets the keys unlocked by {@link #unlock}, returning how many there were.
+   */
+  public int lock() {
+    int count = signerSession.getUnlockedCount();
+    signerSession.lock();
+    return count;
+  }
+
   private Transaction signTransaction(Transaction transaction)
       throws CipherException, IOException, CancelException {
     if (transaction.getRawData().getTimestamp() == 0) {
@@ -469,16 +639,7 @@ public class WalletApi {
     while (true) {
       System.out.println("Please choose your key for sign.");
       WalletFile walletFile = selcetWalletFileE();
-      System.out.println("Please input your password.");
-      char[] password = Utils.inputPassword(false);
-      byte[] passwd = org.tron.keystore.StringUtils.char2Byte(password);
-      org.tron.keystore.StringUtils.clear(password);
-      if (isEckey) {
-        transaction = TransactionUtils.sign(transaction, this.getEcKey(walletFile, passwd));
-      } else {
-        transaction = TransactionUtils.sign(transaction, this.getSM2(walletFile, passwd));
-      }
-      org.tron.keystore.StringUtils.clear(passwd);
+      transaction = sign(transaction, walletFile);
 
       TransactionSignWeight weight = getTransactionSignWeight(transaction);
       if (weight.getResult().getCode() == response_code.ENOUGH_PERMISSION) {
@@ -508,17 +669,7 @@ public class WalletApi {
     while (true) {
       System.out.println("Please choose your key for sign.");
       WalletFile walletFile = selcetWalletFileE();
-      System.out.println("Please input your password.");
-      char[] password = Utils.inputPassword(false);
-      byte[] passwd = org.tron.keystore.StringUtils.char2Byte(password);
-      org.tron.keystore.StringUtils.clear(password);
-
-      if (isEckey) {
-        transaction = TransactionUtils.sign(transaction, this.getEcKey(walletFile, passwd));
-      } else {
-        transaction = TransactionUtils.sign(transaction, this.getSM2(walletFile, passwd));
-      }
-      org.tron.keystore.StringUtils.clear(passwd);
+      transaction = sign(transaction, walletFile);
 
       TransactionSignWeight weight = getTransactionSignWeight(transaction);
       if (weight.getResult().getCode() == response_code.ENOUGH_PERMISSION) {
@@ -1206,6 +1357,14 @@ public class WalletApi {
     return rpcCli.getTransactionInfoById(txID);
   }
 
+  /**
+   * Starts waiting for transaction {@code txID}, see {@link ConfirmationTracker#track(byte[])}.
+   */
+  public static CompletableFuture<ConfirmationTracker.Confirmation> trackTransaction(
+      String txID) {
+    return rpcCli.getConfirmationTracker().track(ByteArray.fromHexString(txID));
+  }
+
   public boolean freezeBalance(
       byte[] ownerAddress,
       long frozen_balance,
@@ -2447,18 +2606,7 @@ public class WalletApi {
 
     System.out.println("Please choose your key for sign.");
     WalletFile walletFile = selcetWalletFileE();
-    System.out.println("Please input your password.");
-    char[] password = Utils.inputPassword(false);
-    byte[] passwd = org.tron.keystore.StringUtils.char2Byte(password);
-    org.tron.keystore.StringUtils.clear(password);
-
-    if (isEckey) {
-      transaction = TransactionUtils.sign(transaction, this.getEcKey(walletFile, passwd));
-    } else {
-      transaction = TransactionUtils.sign(transaction, this.getSM2(walletFile, passwd));
-    }
-    org.tron.keystore.StringUtils.clear(passwd);
-    return transaction;
+    return sign(transaction, walletFile);
   }
 
   public static Optional<IncrementalMerkleVoucherInfo> GetMerkleTreeVoucherInfo(
@@ -0,0 +1,44 @@
+package org.tron.common.utils;
+
+import java.io.File;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PromptResolverTest {
+
+  private final File[] wallets = {
+      new File("UTC--2023-01-01T00-00-00.000--TXk8rQSAvPvBBNtqSoY6nCfsXWCSSpTVQF.json"),
+      new File("UTC--2023-01-02T00-00-00.000--TNPeeaaFB7K9cmo4uQpcU32zGK8G1NYqeL.json")};
+
+  @After
+  public void tearDown() {
+    PromptResolver.disable();
+  }
+
+  @Test
+  public void keystoreIsChosenByNamePartOrNumber() {
+    PromptResolver.enable("TNPeeaaFB7K9cmo4uQpcU32zGK8G1NYqeL", 2, true, null);
+    Assert.assertSame(wallets[1], PromptResolver.selectKeystore(wallets));
+    Assert.assertEquals(2, PromptResolver.getPermissionId());
+    Assert.assertTrue(PromptResolver.confirm());
+
+    PromptResolver.enable("1", 0, false, "secret".toCharArray());
+    Assert.assertSame(wallets[0], PromptResolver.selectKeystore(wallets));
+    Assert.assertArrayEquals("secret".toCharArray(), PromptResolver.password());
+
+    PromptResolver.enable(null, 0, false, null);
+    try {
+      PromptResolver.selectKeystore(wallets);
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      // several keystores and no choice
+    }
+    try {
+      PromptResolver.password();
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      // no password given
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tron.api.GrpcAPI.BlockExtention;
+import org.tron.api.GrpcAPI.TransactionExtention;
+import org.tron.api.GrpcAPI.TransactionListExtention;
+import org.tron.protos.Protocol.BlockHeader;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.Transaction.Contract.ContractType;
+import org.tron.protos.contract.BalanceContract.DelegateResourceContract;
+import org.tron.protos.contract.BalanceContract.TransferContract;
+import org.tron.protos.contract.ExchangeContract.ExchangeTransactionContract;
+
+public class AddressIndexTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private FakeNode node;
+  private GrpcClient client;
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    node = new FakeNode("address-index-test", new FakeChain(1000, 3, 100));
+    file = new File(folder.getRoot(), "address.idx");
+    RpcOptions options = new RpcOptions();
+    options.setAddressIndexFile(file.getPath());
+    client = node.client(options, false);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    client.shutdown();
+    node.shutdown();
+  }
+
+  @Test
+  public void historyIsServedNewestFirstFromTheIndex() throws Exception {
+    AddressIndex index = client.getAddressIndex();
+    // the later range first, so the earlier postings are merged into the lists
+    for (long start : new long[] {600, 500, 600}) {
+      for (BlockExtention block : client.getBlockByLimitNext2(start, start + 100).get()
+          .getBlockList()) {
+        index.add(block);
+      }
+    }
+    Assert.assertEquals("[500, 700)", index.getRanges());
+
+    FakeChain chain = node.getChain();
+    byte[] address = chain.address(7);
+    List<Long> expected = new ArrayList<>();
+    for (long num = 699; num >= 500; num--) {
+      for (int i = 2; i >= 0; i--) {
+        if ((num * 3 + i) % 100 == 7) {
+          expected.add(num << 16 | i);
+        }
+      }
+    }
+    Assert.assertEquals(expected.size(), index.count(address, AddressIndex.Direction.FROM));
+    long[] page = index.query(address, AddressIndex.Direction.FROM, 2, 3);
+    for (int i = 0; i < page.length; i++) {
+      Assert.assertEquals((long) expected.get(2 + i), page[i]);
+    }
+
+    TransactionListExtention transactions = client.getTransactionsFromThis2(address, 0, 2).get();
+    Assert.assertEquals(2, transactions.getTransactionCount());
+    for (int i = 0; i < 2; i++) {
+      long posting = expected.get(i);
+      Assert.assertEquals(chain.transaction(AddressIndex.blockNum(posting),
+          AddressIndex.transactionIndex(posting)), transactions.getTransaction(i).getTransaction());
+    }
+
+    index.save();
+    AddressIndex reloaded = new AddressIndex(file.toPath());
+    Assert.assertEquals(index.getPostings(), reloaded.getPostings());
+    Assert.assertArrayEquals(index.query(address, AddressIndex.Direction.TO, 0, 100),
+        reloaded.query(address, AddressIndex.Direction.TO, 0, 100));
+  }
+
+  @Test
+  public void resourceAndExchangeContractsAreIndexed() throws Exception {
+    FakeChain chain = node.getChain();
+    ByteString owner = ByteString.copyFrom(chain.address(1));
+    ByteString receiver = ByteString.copyFrom(chain.address(2));
+    BlockExtention block = BlockExtention.newBuilder()
+        .setBlockHeader(BlockHeader.newBuilder()
+            .setRawData(BlockHeader.raw.newBuilder().setNumber(2000)))
+        .addTransactions(transaction(ContractType.DelegateResourceContract,
+            DelegateResourceContract.newBuilder()
+                .setOwnerAddress(owner).setReceiverAddress(receiver).setBalance(1).build()))
+        .addTransactions(transaction(ContractType.ExchangeTransactionContract,
+            ExchangeTransactionContract.newBuilder()
+                .setOwnerAddress(owner).setExchangeId(1).setQuant(1).build()))
+        .build();
+    AddressIndex index = client.getAddressIndex();
+    Assert.assertTrue(index.add(block));
+
+    Assert.assertArrayEquals(new long[] {2000L << 16 | 1, 2000L << 16},
+        index.query(owner.toByteArray(), AddressIndex.Direction.FROM, 0, 10));
+    Assert.assertArrayEquals(new long[] {2000L << 16},
+        index.query(receiver.toByteArray(), AddressIndex.Direction.TO, 0, 10));
+
+    // block 2000 is past the head of the node, which answers with an empty block
+    try {
+      client.getTransactionsToThis2(receiver.toByteArray(), 0, 10);
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      Assert.assertTrue(e.getMessage().contains("block 2000"));
+    }
+    Assert.assertEquals(2, node.getCalls("GetBlockByNum2"));
+  }
+
+  @Test
+  public void pagesOfLongListsAreServedAfterOutOfOrderBlocks() throws Exception {
+    FakeChain chain = node.getChain();
+    ByteString owner = ByteString.copyFrom(chain.address(1));
+    TransactionExtention transfer = transaction(ContractType.TransferContract,
+        TransferContract.newBuilder()
+            .setOwnerAddress(owner)
+            .setToAddress(ByteString.copyFrom(chain.address(2)))
+            .setAmount(1)
+            .build());
+    AddressIndex index = client.getAddressIndex();
+    for (long start : new long[] {3000, 2000}) {
+      for (long num = start; num < start + 1000; num++) {
+        index.add(BlockExtention.newBuilder()
+            .setBlockHeader(BlockHeader.newBuilder()
+                .setRawData(BlockHeader.raw.newBuilder().setNumber(num)))
+            .addTransactions(transfer)
+            .build());
+      }
+    }
+    Assert.assertEquals(2000, index.count(owner.toByteArray(), AddressIndex.Direction.FROM));
+
+    long[] page = index.query(owner.toByteArray(), AddressIndex.Direction.FROM, 950, 200);
+    Assert.assertEquals(200, page.length);
+    for (int i = 0; i < page.length; i++) {
+      Assert.assertEquals(3999 - 950 - i, AddressIndex.blockNum(page[i]));
+    }
+    Assert.assertEquals(50,
+        index.query(owner.toByteArray(), AddressIndex.Direction.FROM, 1950, 200).length);
+  }
+
+  private static TransactionExtention transaction(ContractType type, Message contract) {
+    return TransactionExtention.newBuilder()
+        .setTransaction(Transaction.newBuilder()
+            .setRawData(Transaction.raw.newBuilder()
+                .addContract(Transaction.Contract.newBuilder()
+                    .setType(type)
+                    .setParameter(Any.pack(contract)))))
+        .build();
+  }
+}
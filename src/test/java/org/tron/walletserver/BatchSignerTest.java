@@ -0,0 +1,50 @@
+package org.tron.walletserver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.crypto.ECKey;
+import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.TransactionUtils;
+import org.tron.protos.Protocol.Transaction;
+
+public class BatchSignerTest {
+
+  @Test
+  public void signedTransactionsKeepInputOrder() throws Exception {
+    FakeChain chain = new FakeChain(200, 3, 100);
+    ECKey key = new ECKey();
+    StringBuilder input = new StringBuilder();
+    for (long num = 1; num <= 100; num++) {
+      for (int i = 0; i < 3; i++) {
+        input.append(ByteArray.toHexString(chain.transaction(num, i).toByteArray())).append('\n');
+      }
+      input.append('\n');
+    }
+
+    StringWriter output = new StringWriter();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      Assert.assertEquals(300, new BatchSigner(key, pool)
+          .run(new BufferedReader(new StringReader(input.toString())), output));
+    } finally {
+      pool.shutdown();
+    }
+    String[] lines = output.toString().split("\n");
+    Assert.assertEquals(300, lines.length);
+    for (int i = 0; i < lines.length; i++) {
+      Transaction expected = TransactionUtils.sign(chain.transaction(i / 3 + 1, i % 3), key);
+      Assert.assertEquals(ByteArray.toHexString(expected.toByteArray()), lines[i]);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void invalidLineFailsTheBatch() throws Exception {
+    new BatchSigner(new ECKey(), ForkJoinPool.commonPool())
+        .run(new BufferedReader(new StringReader("0a02zz\n")), new StringWriter());
+  }
+}
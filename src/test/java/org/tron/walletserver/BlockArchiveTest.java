@@ -0,0 +1,68 @@
+package org.tron.walletserver;
+
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tron.api.GrpcAPI.BlockExtention;
+import org.tron.common.utils.ByteArray;
+
+public class BlockArchiveTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private FakeNode node;
+  private GrpcClient client;
+  private RpcOptions options;
+
+  @Before
+  public void setUp() throws Exception {
+    node = new FakeNode("block-archive-test", new FakeChain(1000, 3, 100));
+    options = new RpcOptions();
+    options.setCacheMaxBytes(0);
+    options.setArchiveDir(folder.getRoot().getPath());
+    options.setArchiveSegmentBytes(BlockArchive.MIN_SEGMENT_BYTES);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (client != null) {
+      client.shutdown();
+    }
+    node.shutdown();
+  }
+
+  @Test
+  public void blocksAreServedFromTheArchiveAfterReopening() throws Exception {
+    open();
+    List<BlockExtention> fetched = client.getBlockByLimitNext2(100, 200).get().getBlockList();
+    Assert.assertEquals(100, fetched.size());
+    Assert.assertEquals(100, client.getArchive().getBlockCount());
+    client.shutdown();
+
+    open();
+    FakeChain chain = node.getChain();
+    Assert.assertEquals(fetched, client.getBlockByLimitNext2(100, 200).get().getBlockList());
+    Assert.assertEquals(chain.block(150), client.getBlock(150));
+    Assert.assertEquals(chain.block(160),
+        client.getBlockById(ByteArray.toHexString(chain.blockId(160))).get());
+    Assert.assertEquals(1, node.getCalls("GetBlockByLimitNext2"));
+    Assert.assertEquals(0, node.getCalls("GetBlockByNum2"));
+    Assert.assertEquals(0, node.getCalls("GetBlockById"));
+
+    client.getBlock(300);
+    Assert.assertEquals(1, node.getCalls("GetBlockByNum2"));
+    Assert.assertTrue(client.getArchive().contains(300));
+  }
+
+  private void open() throws InterruptedException {
+    client = node.client(options, true);
+    for (int i = 0; i < 100 && client.getSolidifiedBlockNum() < 0; i++) {
+      Thread.sleep(20);
+    }
+  }
+}
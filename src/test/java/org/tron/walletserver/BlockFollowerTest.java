@@ -0,0 +1,74 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.ByteString;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tron.api.GrpcAPI.BlockExtention;
+import org.tron.api.GrpcAPI.TransactionInfoList;
+
+public class BlockFollowerTest {
+
+  private FakeNode node;
+  private GrpcClient client;
+  private BlockFollower follower;
+  private final List<Long> blocks = new CopyOnWriteArrayList<>();
+  private final List<Long> rollbacks = new CopyOnWriteArrayList<>();
+  private final List<Integer> infoCounts = new CopyOnWriteArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    node = new FakeNode("block-follower-test", new FakeChain(500, 3, 100));
+    client = node.client(new RpcOptions(), false);
+    follower = new BlockFollower(client, 20, true);
+    follower.addListener(new BlockFollower.BlockListener() {
+      @Override
+      public void onBlock(BlockExtention block, TransactionInfoList infos) {
+        blocks.add(block.getBlockHeader().getRawData().getNumber());
+        infoCounts.add(infos == null ? -1 : infos.getTransactionInfoCount());
+      }
+
+      @Override
+      public void onRollback(long blockNum, ByteString blockId) {
+        rollbacks.add(blockNum);
+      }
+    });
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    follower.stop();
+    client.shutdown();
+    node.shutdown();
+  }
+
+  @Test
+  public void catchesUpAndFollowsReorganizations() throws Exception {
+    follower.start(250);
+    awaitBlock(500);
+    for (int i = 0; i < blocks.size(); i++) {
+      Assert.assertEquals(250L + i, (long) blocks.get(i));
+      Assert.assertEquals(3, (int) infoCounts.get(i));
+    }
+
+    node.getChain().fork(498);
+    node.getChain().advance(2);
+    awaitBlock(502);
+    Assert.assertEquals(3, rollbacks.size());
+    Assert.assertEquals(500L, (long) rollbacks.get(0));
+    Assert.assertEquals(498L, (long) rollbacks.get(2));
+    List<Long> tail = blocks.subList(blocks.size() - 5, blocks.size());
+    Assert.assertEquals(Arrays.asList(498L, 499L, 500L, 501L, 502L), tail);
+  }
+
+  private void awaitBlock(long num) throws InterruptedException {
+    for (int i = 0; i < 500 && (blocks.isEmpty() || blocks.get(blocks.size() - 1) < num); i++) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(num, (long) blocks.get(blocks.size() - 1));
+  }
+}
@@ -0,0 +1,41 @@
+package org.tron.walletserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BlockRangeDownloaderTest {
+
+  private FakeNode node;
+  private GrpcClient client;
+
+  @Before
+  public void setUp() throws Exception {
+    node = new FakeNode("block-range-downloader-test", new FakeChain(5000, 2, 100));
+    RpcOptions options = new RpcOptions();
+    options.getDefaultPolicy().setMaxAttempts(1);
+    client = node.client(options, false);
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    client.shutdown();
+    node.shutdown();
+  }
+
+  @Test
+  public void blocksArriveInOrderDespiteFailures() throws Exception {
+    node.setLatency(0, 5);
+    node.setErrorRate(0.1);
+    List<Long> numbers = new ArrayList<>();
+    long written = new BlockRangeDownloader(client, 50, 8, 10).run(1000, 3000,
+        block -> numbers.add(block.getBlockHeader().getRawData().getNumber()));
+    Assert.assertEquals(2000, written);
+    for (int i = 0; i < numbers.size(); i++) {
+      Assert.assertEquals(1000L + i, (long) numbers.get(i));
+    }
+  }
+}
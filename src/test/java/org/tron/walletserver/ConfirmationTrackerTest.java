@@ -0,0 +1,131 @@
+package org.tron.walletserver;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.TransactionInfo;
+
+public class ConfirmationTrackerTest {
+
+  private FakeNode node;
+  private GrpcClient client;
+  private BlockFollower follower;
+  private ConfirmationTracker tracker;
+
+  @Before
+  public void setUp() throws Exception {
+    node = new FakeNode("confirmation-tracker-test", new FakeChain(1000, 3, 100));
+    RpcOptions options = new RpcOptions();
+    options.setCacheSolidifiedRefreshMs(0);
+    client = node.client(options, false);
+    follower = new BlockFollower(client, 20, false);
+    tracker = new ConfirmationTracker(client, follower);
+    follower.start(-1);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    tracker.close();
+    follower.stop();
+    client.shutdown();
+    node.shutdown();
+  }
+
+  @Test
+  public void transactionsAreIncludedSolidifiedOrDropped() throws Exception {
+    FakeChain chain = node.getChain();
+    ConfirmationTracker.Confirmation first = tracker.track(chain.transaction(1002, 1));
+    ConfirmationTracker.Confirmation second = tracker.track(chain.transaction(1004, 0));
+    Transaction lost = chain.transaction(5000, 0);
+    lost = lost.toBuilder().setRawData(lost.getRawData().toBuilder()
+        .setExpiration(FakeChain.GENESIS_TIMESTAMP + 1003 * FakeChain.BLOCK_INTERVAL_MS)).build();
+    ConfirmationTracker.Confirmation expired = tracker.track(lost);
+    Assert.assertEquals(3, tracker.getPending());
+
+    chain.advance(5);
+    TransactionInfo info = first.getIncluded().get(5, TimeUnit.SECONDS);
+    Assert.assertEquals(1002, info.getBlockNumber());
+    Assert.assertEquals(1_100_000L, info.getFee());
+    Assert.assertEquals(1004, second.getIncluded().get(5, TimeUnit.SECONDS).getBlockNumber());
+    try {
+      expired.getIncluded().get(5, TimeUnit.SECONDS);
+      Assert.fail();
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof ConfirmationTracker.ExpiredException);
+    }
+    // only the two blocks holding a tracked transaction had their infos fetched
+    Assert.assertEquals(2, node.getCalls("GetTransactionInfoByBlockNum"));
+    Assert.assertFalse(second.getSolidified().isDone());
+
+    chain.advance(FakeChain.SOLIDIFY_DEPTH);
+    for (int i = 0; i < 100 && !second.getSolidified().isDone(); i++) {
+      chain.advance(1);
+      Thread.sleep(20);
+    }
+    Assert.assertEquals(1002, first.getSolidified().get(5, TimeUnit.SECONDS).getBlockNumber());
+    Assert.assertEquals(1004, second.getSolidified().get(5, TimeUnit.SECONDS).getBlockNumber());
+    // dropped only once a solidified block is past its expiration
+    try {
+      expired.getSolidified().get(5, TimeUnit.SECONDS);
+      Assert.fail();
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof ConfirmationTracker.ExpiredException);
+    }
+    Assert.assertEquals(0, tracker.getPending());
+    Assert.assertEquals(1, tracker.getDropped());
+  }
+
+  @Test
+  public void inclusionIsOpenAgainAfterARollback() throws Exception {
+    FakeChain chain = node.getChain();
+    ConfirmationTracker.Confirmation confirmation = tracker.track(chain.transaction(1002, 1));
+    chain.advance(3);
+    CompletableFuture<TransactionInfo> included = confirmation.getIncluded();
+    Assert.assertEquals(1002, included.get(5, TimeUnit.SECONDS).getBlockNumber());
+
+    // the other branch holds the transaction in its block 1002 as well
+    chain.fork(1002);
+    chain.advance(1);
+    for (int i = 0; i < 250 && confirmation.getIncluded() == included; i++) {
+      Thread.sleep(20);
+    }
+    Assert.assertNotSame(included, confirmation.getIncluded());
+    Assert.assertEquals(1002,
+        confirmation.getIncluded().get(5, TimeUnit.SECONDS).getBlockNumber());
+  }
+
+  @Test
+  public void transactionsTrackedByIdAreFoundOutsideTheFollowedBlocks() throws Exception {
+    FakeChain chain = node.getChain();
+    Transaction transaction = chain.transaction(5000, 1);
+    transaction = transaction.toBuilder().setRawData(transaction.getRawData().toBuilder()
+        .setExpiration(FakeChain.GENESIS_TIMESTAMP + 1020 * FakeChain.BLOCK_INTERVAL_MS)).build();
+    chain.broadcast(transaction);
+    ConfirmationTracker.Confirmation confirmation =
+        tracker.track(FakeChain.transactionId(transaction)).get(5, TimeUnit.SECONDS);
+    Assert.assertEquals(transaction.getRawData().getExpiration(), confirmation.getExpiration());
+
+    // the fake blocks never hold broadcast transactions, the last lookup finds it
+    for (int i = 0; i < 200 && !confirmation.getSolidified().isDone(); i++) {
+      chain.advance(1);
+      Thread.sleep(20);
+    }
+    Assert.assertEquals(1001, confirmation.getSolidified().get(5, TimeUnit.SECONDS)
+        .getBlockNumber());
+    Assert.assertEquals(0, tracker.getDropped());
+
+    try {
+      tracker.track(new byte[32]).get(5, TimeUnit.SECONDS);
+      Assert.fail();
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof IOException);
+    }
+    Assert.assertEquals(0, tracker.getPending());
+  }
+}
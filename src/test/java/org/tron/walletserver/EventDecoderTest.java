@@ -0,0 +1,151 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.ByteString;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tron.common.crypto.Hash;
+import org.tron.protos.Protocol.TransactionInfo;
+import org.tron.protos.contract.SmartContractOuterClass.SmartContract;
+import org.tron.protos.contract.SmartContractOuterClass.SmartContract.ABI;
+
+public class EventDecoderTest {
+
+  private FakeNode node;
+  private GrpcClient client;
+
+  @Before
+  public void setUp() throws Exception {
+    node = new FakeNode("event-decoder-test", new FakeChain(1000, 3, 100));
+    client = node.client(new RpcOptions(), false);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    client.shutdown();
+    node.shutdown();
+  }
+
+  @Test
+  public void logsAreDecodedInBlockOrder() throws Exception {
+    FakeChain chain = node.getChain();
+    byte[] token = address(chain.address(50));
+    byte[] memo = address(chain.address(51));
+    byte[] from = address(chain.address(1));
+    byte[] to = address(chain.address(2));
+    chain.deploy(SmartContract.newBuilder()
+        .setContractAddress(ByteString.copyFrom(memo))
+        .setAbi(ABI.newBuilder().addEntrys(ABI.Entry.newBuilder()
+            .setType(ABI.Entry.EntryType.Event)
+            .setName("Memo")
+            .addInputs(param("sender", "address", true))
+            .addInputs(param("text", "string", false))
+            .addInputs(param("amounts", "uint256[]", false))))
+        .build());
+
+    // the token has no ABI, its events are the built in TRC20 ones
+    chain.addLog(10, 0, log(token, word(1500),
+        topic("Transfer(address,address,uint256)"), word(from), word(to)));
+    chain.addLog(10, 2, log(token, word(7),
+        topic("Approval(address,address,uint256)"), word(from), word(to)));
+    chain.addLog(12, 1, log(memo,
+        concat(word(64), word(128), word(5), pad("hello"), word(2), word(3), word(4)),
+        topic("Memo(address,string,uint256[])"), word(from)));
+    // a Transfer without its value and an event nobody declared
+    chain.addLog(12, 2, log(token, new byte[0],
+        topic("Transfer(address,address,uint256)"), word(from), word(to)));
+    chain.addLog(12, 2, log(memo, word(1), topic("Unknown(uint256)")));
+
+    List<EventDecoder.Event> events = new ArrayList<>();
+    Assert.assertEquals(5, new EventDecoder(client, 4).run(5, 20, events::add));
+
+    EventDecoder.Event transfer = events.get(0);
+    Assert.assertEquals(10, transfer.getBlockNum());
+    Assert.assertEquals("Transfer", transfer.getName());
+    Assert.assertEquals(WalletApi.encode58Check(from), transfer.getValues().get("from"));
+    Assert.assertEquals(WalletApi.encode58Check(to), transfer.getValues().get("to"));
+    Assert.assertEquals(BigInteger.valueOf(1500), transfer.getValues().get("value"));
+
+    EventDecoder.Event approval = events.get(1);
+    Assert.assertEquals("Approval", approval.getName());
+    Assert.assertEquals(WalletApi.encode58Check(to), approval.getValues().get("spender"));
+    Assert.assertEquals(BigInteger.valueOf(7), approval.getValues().get("value"));
+
+    EventDecoder.Event note = events.get(2);
+    Assert.assertEquals(12, note.getBlockNum());
+    Assert.assertEquals("Memo(address,string,uint256[])", note.getSignature());
+    Assert.assertEquals(WalletApi.encode58Check(from), note.getValues().get("sender"));
+    Assert.assertEquals("hello", note.getValues().get("text"));
+    Assert.assertEquals(Arrays.asList(BigInteger.valueOf(3), BigInteger.valueOf(4)),
+        note.getValues().get("amounts"));
+
+    for (EventDecoder.Event undecoded : events.subList(3, 5)) {
+      Assert.assertNull(undecoded.getName());
+      Assert.assertNull(undecoded.getValues());
+      Assert.assertTrue(undecoded.toJson().contains("\"event\":null"));
+    }
+    Assert.assertEquals(1, events.get(4).getLogIndex());
+    // one ABI lookup per contract
+    Assert.assertEquals(2, node.getCalls("GetContract"));
+  }
+
+  /**
+   * {@code address} with the prefix the client uses, as the decoder renders it.
+   */
+  private static byte[] address(byte[] address) {
+    byte[] prefixed = address.clone();
+    prefixed[0] = WalletApi.getAddressPreFixByte();
+    return prefixed;
+  }
+
+  private static ABI.Entry.Param param(String name, String type, boolean indexed) {
+    return ABI.Entry.Param.newBuilder().setName(name).setType(type).setIndexed(indexed).build();
+  }
+
+  private static TransactionInfo.Log log(byte[] contract, byte[] data, byte[]... topics) {
+    TransactionInfo.Log.Builder log = TransactionInfo.Log.newBuilder()
+        .setAddress(ByteString.copyFrom(contract, 1, 20))
+        .setData(ByteString.copyFrom(data));
+    for (byte[] topic : topics) {
+      log.addTopics(ByteString.copyFrom(topic));
+    }
+    return log.build();
+  }
+
+  private static byte[] topic(String signature) {
+    return Hash.sha3(signature.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private static byte[] word(long value) {
+    return pad(BigInteger.valueOf(value).toByteArray(), true);
+  }
+
+  private static byte[] word(byte[] address) {
+    return pad(Arrays.copyOfRange(address, 1, 21), true);
+  }
+
+  private static byte[] pad(String text) {
+    return pad(text.getBytes(StandardCharsets.UTF_8), false);
+  }
+
+  private static byte[] pad(byte[] value, boolean left) {
+    byte[] word = new byte[32];
+    System.arraycopy(value, 0, word, left ? 32 - value.length : 0, value.length);
+    return word;
+  }
+
+  private static byte[] concat(byte[]... words) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (byte[] word : words) {
+      out.write(word, 0, word.length);
+    }
+    return out.toByteArray();
+  }
+}
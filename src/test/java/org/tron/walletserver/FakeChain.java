@@ -0,0 +1,329 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import org.tron.api.GrpcAPI.DecryptNotesTRC20;
+import org.tron.api.GrpcAPI.Note;
+import org.tron.api.GrpcAPI.TransactionInfoList;
+import org.tron.common.crypto.Sha256Sm3Hash;
+import org.tron.protos.Protocol.Account;
+import org.tron.protos.Protocol.Block;
+import org.tron.protos.Protocol.BlockHeader;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.TransactionInfo;
+import org.tron.protos.contract.BalanceContract.TransferContract;
+import org.tron.protos.contract.SmartContractOuterClass.SmartContract;
+
+/**
+ * Deterministic synthetic chain: every block, transaction, account and note is computed from its
+ * number or address, so two fake nodes serve the same chain without sharing state. Blocks link by
+ * parent hash and carry real block and transaction ids, so client code checking them works.
+ */
+public class FakeChain {
+
+  public static final long GENESIS_TIMESTAMP = 1_600_000_000_000L;
+  public static final long BLOCK_INTERVAL_MS = 3000L;
+  public static final int SOLIDIFY_DEPTH = 19;
+
+  private final int transactionsPerBlock;
+  private final int accounts;
+  private final AtomicLong headBlockNum;
+  private final Map<ByteString, long[]> located = new ConcurrentHashMap<>();
+  private final Map<ByteString, Transaction> broadcasts = new ConcurrentHashMap<>();
+  private final List<Long> forks = new CopyOnWriteArrayList<>();
+  private final Map<String, List<TransactionInfo.Log>> logs = new ConcurrentHashMap<>();
+  private final Map<ByteString, SmartContract> contracts = new ConcurrentHashMap<>();
+  private byte[] ids = new byte[32 * 1024];
+  private long knownIds;
+
+  public FakeChain(long headBlockNum, int transactionsPerBlock, int accounts) {
+    this.headBlockNum = new AtomicLong(headBlockNum);
+    this.transactionsPerBlock = transactionsPerBlock;
+    this.accounts = accounts;
+  }
+
+  public long getHeadBlockNum() {
+    return headBlockNum.get();
+  }
+
+  public long getSolidifiedBlockNum() {
+    return Math.max(0, headBlockNum.get() - SOLIDIFY_DEPTH);
+  }
+
+  /**
+   * Produces {@code blocks} new blocks.
+   */
+  public void advance(int blocks) {
+    headBlockNum.addAndGet(blocks);
+  }
+
+  public boolean exists(long num) {
+    return num >= 0 && num <= headBlockNum.get();
+  }
+
+  /**
+   * Replaces the blocks from {@code fromBlockNum} on with another branch, as a chain
+   * reorganization does: they get other ids and link to each other again.
+   */
+  public synchronized void fork(long fromBlockNum) {
+    forks.add(fromBlockNum);
+    knownIds = Math.min(knownIds, fromBlockNum);
+  }
+
+  private int branch(long num) {
+    int branch = 0;
+    for (long fork : forks) {
+      if (fork <= num) {
+        branch++;
+      }
+    }
+    return branch;
+  }
+
+  public int getTransactionsPerBlock() {
+    return transactionsPerBlock;
+  }
+
+  public Block block(long num) {
+    Block.Builder block = Block.newBuilder();
+    for (int i = 0; i < transactionsPerBlock; i++) {
+      block.addTransactions(transaction(num, i));
+    }
+    return block.setBlockHeader(BlockHeader.newBuilder().setRawData(header(num))).build();
+  }
+
+  private BlockHeader.raw header(long num) {
+    return BlockHeader.raw.newBuilder()
+        .setNumber(num)
+        .setTimestamp(GENESIS_TIMESTAMP + num * BLOCK_INTERVAL_MS)
+        .setParentHash(ByteString.copyFrom(num == 0 ? new byte[32] : blockId(num - 1)))
+        .setWitnessAddress(ByteString.copyFrom(address((int) (num % 27))))
+        .setTxTrieRoot(ByteString.copyFrom(Sha256Sm3Hash.hash(longBytes(num))))
+        .setVersion(branch(num))
+        .build();
+  }
+
+  /**
+   * Block id as java-tron computes it: the block number in the first 8 bytes of the hash of the
+   * raw header. The header holds the parent id, so ids are computed forward from the highest one
+   * known and kept.
+   */
+  public synchronized byte[] blockId(long num) {
+    if (num >= (ids.length >> 5)) {
+      ids = Arrays.copyOf(ids, (int) Math.max(ids.length * 2L, (num + 1) * 32));
+    }
+    while (knownIds <= num) {
+      byte[] id = Sha256Sm3Hash.hash(header(knownIds).toByteArray());
+      System.arraycopy(longBytes(knownIds), 0, id, 0, 8);
+      System.arraycopy(id, 0, ids, (int) knownIds * 32, 32);
+      knownIds++;
+    }
+    return Arrays.copyOfRange(ids, (int) num * 32, (int) num * 32 + 32);
+  }
+
+  /**
+   * Block number of an id made by {@link #blockId}, -1 when it is not one of this chain.
+   */
+  public long blockNum(byte[] id) {
+    if (id.length != 32) {
+      return -1;
+    }
+    long num = ByteBuffer.wrap(id, 0, 8).getLong();
+    return exists(num) && Arrays.equals(blockId(num), id) ? num : -1;
+  }
+
+  public Transaction transaction(long blockNum, int index) {
+    TransferContract transfer = TransferContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(address(accountIndex(blockNum, index))))
+        .setToAddress(ByteString.copyFrom(address(accountIndex(blockNum, index + 1))))
+        .setAmount(1_000_000L + (blockNum * 31 + index) % 1000)
+        .build();
+    Transaction.raw raw = Transaction.raw.newBuilder()
+        .addContract(Transaction.Contract.newBuilder()
+            .setType(Transaction.Contract.ContractType.TransferContract)
+            .setParameter(Any.pack(transfer)))
+        .setTimestamp(GENESIS_TIMESTAMP + blockNum * BLOCK_INTERVAL_MS - 1000)
+        .setExpiration(GENESIS_TIMESTAMP + blockNum * BLOCK_INTERVAL_MS + 60_000)
+        .setRefBlockBytes(ByteString.copyFrom(longBytes(Math.max(0, blockNum - 1)), 6, 2))
+        .setData(ByteString.copyFrom(longBytes(blockNum * transactionsPerBlock + index)))
+        .build();
+    return Transaction.newBuilder().setRawData(raw).build();
+  }
+
+  public static byte[] transactionId(Transaction transaction) {
+    return Sha256Sm3Hash.hash(transaction.getRawData().toByteArray());
+  }
+
+  /**
+   * A located transaction, null for an unknown id.
+   */
+  public Transaction transaction(byte[] txId) {
+    long[] location = locate(txId);
+    if (location == null) {
+      return null;
+    }
+    return location[1] < 0 ? broadcasts.get(ByteString.copyFrom(txId))
+        : transaction(location[0], (int) location[1]);
+  }
+
+  /**
+   * A broadcast transaction still waiting for its block, otherwise null.
+   */
+  public Transaction pending(byte[] txId) {
+    long[] location = locate(txId);
+    return location == null || exists(location[0]) ? null : transaction(txId);
+  }
+
+  /**
+   * Info of a located transaction once its block exists, otherwise null.
+   */
+  public TransactionInfo transactionInfo(byte[] txId) {
+    long[] location = locate(txId);
+    if (location == null || !exists(location[0])) {
+      return null;
+    }
+    return TransactionInfo.newBuilder()
+        .setId(ByteString.copyFrom(txId))
+        .setBlockNumber(location[0])
+        .setBlockTimeStamp(GENESIS_TIMESTAMP + location[0] * BLOCK_INTERVAL_MS)
+        .setFee(location[1] % 2 == 0 ? 0 : 1_100_000L)
+        .build();
+  }
+
+  /**
+   * Infos of the transactions of block {@code num}, with the logs added by {@link #addLog}.
+   */
+  public TransactionInfoList transactionInfos(long num) {
+    TransactionInfoList.Builder infos = TransactionInfoList.newBuilder();
+    for (int i = 0; i < transactionsPerBlock; i++) {
+      infos.addTransactionInfo(TransactionInfo.newBuilder()
+          .setId(ByteString.copyFrom(transactionId(transaction(num, i))))
+          .setBlockNumber(num)
+          .setBlockTimeStamp(GENESIS_TIMESTAMP + num * BLOCK_INTERVAL_MS)
+          .setFee(i % 2 == 0 ? 0 : 1_100_000L)
+          .addAllLog(logs.getOrDefault(num + ":" + i, Collections.emptyList())));
+    }
+    return infos.build();
+  }
+
+  /**
+   * Makes transaction {@code index} of block {@code num} emit {@code log}, after the logs added
+   * before.
+   */
+  public void addLog(long num, int index, TransactionInfo.Log log) {
+    logs.computeIfAbsent(num + ":" + index, key -> new CopyOnWriteArrayList<>()).add(log);
+  }
+
+  /**
+   * Deploys {@code contract} at its contract address; other addresses have no contract.
+   */
+  public void deploy(SmartContract contract) {
+    contracts.put(contract.getContractAddress(), contract);
+  }
+
+  public SmartContract contract(ByteString address) {
+    return contracts.getOrDefault(address, SmartContract.getDefaultInstance());
+  }
+
+  /**
+   * Block number and index of a transaction of this chain. A transaction id does not give its
+   * block away, so the transactions of every block served through {@link #blocks} are indexed,
+   * as are the ones passed to {@link #broadcast}; others are not found.
+   */
+  public long[] locate(byte[] txId) {
+    return located.get(ByteString.copyFrom(txId));
+  }
+
+  /**
+   * Accepts a transaction; it is reported as included in the next block.
+   */
+  public void broadcast(Transaction transaction) {
+    broadcasts.put(ByteString.copyFrom(transactionId(transaction)), transaction);
+    located.put(ByteString.copyFrom(transactionId(transaction)),
+        new long[] {headBlockNum.get() + 1, -1});
+  }
+
+  private void index(long num, Block block) {
+    for (int i = 0; i < block.getTransactionsCount(); i++) {
+      located.putIfAbsent(ByteString.copyFrom(transactionId(block.getTransactions(i))),
+          new long[] {num, i});
+    }
+  }
+
+  public byte[] address(int index) {
+    byte[] address = new byte[21];
+    address[0] = 0x41;
+    byte[] hash = Sha256Sm3Hash.hash(("account-" + index).getBytes());
+    System.arraycopy(hash, 0, address, 1, 20);
+    return address;
+  }
+
+  private int accountIndex(long blockNum, int index) {
+    return (int) ((blockNum * transactionsPerBlock + index) % accounts);
+  }
+
+  /**
+   * Any address has an account; the balance is derived from the address.
+   */
+  public Account account(ByteString address) {
+    byte[] hash = Sha256Sm3Hash.hash(address.toByteArray());
+    long balance = (ByteBuffer.wrap(hash).getLong() & Long.MAX_VALUE) % 1_000_000_000_000L;
+    return Account.newBuilder()
+        .setAddress(address)
+        .setBalance(balance)
+        .setCreateTime(GENESIS_TIMESTAMP)
+        .build();
+  }
+
+  /**
+   * Two shielded TRC20 notes in every block divisible by 100 of the range, one of them spent.
+   */
+  public DecryptNotesTRC20 notes(long startBlock, long endBlock) {
+    DecryptNotesTRC20.Builder notes = DecryptNotesTRC20.newBuilder();
+    long first = (Math.max(0, startBlock) + 99) / 100 * 100;
+    for (long num = first; num < endBlock && exists(num); num += 100) {
+      for (int i = 0; i < 2; i++) {
+        notes.addNoteTxs(DecryptNotesTRC20.NoteTx.newBuilder()
+            .setNote(Note.newBuilder()
+                .setValue(1000 * (num / 100 + 1))
+                .setPaymentAddress("ztron1fake" + num + "x" + i)
+                .setRcm(ByteString.copyFrom(Sha256Sm3Hash.hash(longBytes(num * 2 + i)))))
+            .setPosition(num / 100 * 2 + i)
+            .setIsSpent(i == 1)
+            .setTxid(ByteString.copyFrom(transactionId(transaction(num, 0))))
+            .setIndex(i));
+      }
+    }
+    return notes.build();
+  }
+
+  public List<Block> blocks(long start, long end) {
+    List<Block> blocks = new ArrayList<>();
+    for (long num = Math.max(0, start); num < end && exists(num); num++) {
+      blocks.add(served(num));
+    }
+    return blocks;
+  }
+
+  /**
+   * {@link #block} for a block handed to a client, whose transactions can then be looked up.
+   */
+  public Block served(long num) {
+    Block block = block(num);
+    index(num, block);
+    return block;
+  }
+
+  static byte[] longBytes(long value) {
+    return ByteBuffer.allocate(8).putLong(value).array();
+  }
+}
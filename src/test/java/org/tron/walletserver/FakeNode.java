@@ -0,0 +1,511 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.tron.api.GrpcAPI.AccountResourceMessage;
+import org.tron.api.GrpcAPI.BlockExtention;
+import org.tron.api.GrpcAPI.BlockLimit;
+import org.tron.api.GrpcAPI.BlockList;
+import org.tron.api.GrpcAPI.BlockListExtention;
+import org.tron.api.GrpcAPI.BytesMessage;
+import org.tron.api.GrpcAPI.CanWithdrawUnfreezeAmountRequestMessage;
+import org.tron.api.GrpcAPI.CanWithdrawUnfreezeAmountResponseMessage;
+import org.tron.api.GrpcAPI.DecryptNotesTRC20;
+import org.tron.api.GrpcAPI.EmptyMessage;
+import org.tron.api.GrpcAPI.IvkDecryptTRC20Parameters;
+import org.tron.api.GrpcAPI.NodeList;
+import org.tron.api.GrpcAPI.NumberMessage;
+import org.tron.api.GrpcAPI.Return;
+import org.tron.api.GrpcAPI.TransactionExtention;
+import org.tron.api.GrpcAPI.TransactionInfoList;
+import org.tron.api.GrpcAPI.WitnessList;
+import org.tron.api.WalletGrpc;
+import org.tron.api.WalletSolidityGrpc;
+import org.tron.common.utils.ByteArray;
+import org.tron.protos.Protocol.Account;
+import org.tron.protos.Protocol.Block;
+import org.tron.protos.Protocol.ChainParameters;
+import org.tron.protos.Protocol.ChainParameters.ChainParameter;
+import org.tron.protos.Protocol.NodeInfo;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.TransactionInfo;
+import org.tron.protos.Protocol.Witness;
+import org.tron.protos.contract.BalanceContract.TransferContract;
+import org.tron.protos.contract.SmartContractOuterClass.SmartContract;
+
+/**
+ * In-process full and solidity node serving a {@link FakeChain}, for testing and load testing the
+ * client stack (pools, hedging, retries, caches) without a network. Latency and an error rate
+ * can be injected and changed while calls run; every answer is delayed by {@code latencyMs} plus
+ * up to {@code jitterMs}, and a share {@code errorRate} of the calls fails with UNAVAILABLE.
+ */
+public class FakeNode {
+
+  private static final long MAINTENANCE_INTERVAL_MS = 6 * 3600 * 1000L;
+
+  private final String name;
+  private final FakeChain chain;
+  private final Server server;
+  private final ScheduledExecutorService timer;
+  private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+  private final AtomicLong created = new AtomicLong();
+  private volatile long latencyMs;
+  private volatile long jitterMs;
+  private volatile double errorRate;
+
+  public FakeNode(String name, FakeChain chain) throws IOException {
+    this.name = name;
+    this.chain = chain;
+    this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, name + "-latency");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.server = InProcessServerBuilder.forName(name)
+        .addService(new FullNodeService())
+        .addService(new SolidityNodeService())
+        .build()
+        .start();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public FakeChain getChain() {
+    return chain;
+  }
+
+  public void setLatency(long latencyMs, long jitterMs) {
+    this.latencyMs = latencyMs;
+    this.jitterMs = jitterMs;
+  }
+
+  public void setErrorRate(double errorRate) {
+    this.errorRate = errorRate;
+  }
+
+  /**
+   * Calls of {@code method} (as named in api.proto, e.g. {@code GetBlockByNum}) answered or
+   * failed so far.
+   */
+  public long getCalls(String method) {
+    AtomicLong count = calls.get(method);
+    return count == null ? 0 : count.get();
+  }
+
+  public static ManagedChannel channel(String name) {
+    return InProcessChannelBuilder.forName(name).build();
+  }
+
+  /**
+   * Client using this node as its only full node and, when {@code solidity}, as its solidity
+   * node too.
+   */
+  public GrpcClient client(RpcOptions options, boolean solidity) {
+    List<String> targets = Collections.singletonList(name);
+    return new GrpcClient(targets, solidity ? targets : null, options, FakeNode::channel);
+  }
+
+  public void shutdown() {
+    server.shutdownNow();
+    timer.shutdownNow();
+  }
+
+  private <T> void respond(String method, StreamObserver<T> observer, Supplier<T> response) {
+    calls.computeIfAbsent(method, k -> new AtomicLong()).incrementAndGet();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    boolean fail = errorRate > 0 && random.nextDouble() < errorRate;
+    long delay = latencyMs + (jitterMs > 0 ? random.nextLong(jitterMs + 1) : 0);
+    Runnable answer = () -> {
+      if (fail) {
+        observer.onError(Status.UNAVAILABLE.withDescription("injected failure")
+            .asRuntimeException());
+      } else {
+        observer.onNext(response.get());
+        observer.onCompleted();
+      }
+    };
+    if (delay > 0) {
+      timer.schedule(answer, delay, TimeUnit.MILLISECONDS);
+    } else {
+      answer.run();
+    }
+  }
+
+  private Block block(long num) {
+    return chain.exists(num) ? chain.served(num) : Block.getDefaultInstance();
+  }
+
+  private BlockExtention blockExtention(long num) {
+    if (!chain.exists(num)) {
+      return BlockExtention.getDefaultInstance();
+    }
+    Block block = chain.served(num);
+    BlockExtention.Builder extention = BlockExtention.newBuilder()
+        .setBlockHeader(block.getBlockHeader())
+        .setBlockid(ByteString.copyFrom(chain.blockId(num)));
+    for (Transaction transaction : block.getTransactionsList()) {
+      extention.addTransactions(TransactionExtention.newBuilder()
+          .setTransaction(transaction)
+          .setTxid(ByteString.copyFrom(FakeChain.transactionId(transaction)))
+          .setResult(Return.newBuilder().setResult(true)));
+    }
+    return extention.build();
+  }
+
+  private BlockList blocks(BlockLimit limit) {
+    return BlockList.newBuilder()
+        .addAllBlock(chain.blocks(limit.getStartNum(), limit.getEndNum())).build();
+  }
+
+  private BlockListExtention blockExtentions(BlockLimit limit) {
+    BlockListExtention.Builder list = BlockListExtention.newBuilder();
+    long end = Math.min(limit.getEndNum(), chain.getHeadBlockNum() + 1);
+    for (long num = Math.max(0, limit.getStartNum()); num < end; num++) {
+      list.addBlock(blockExtention(num));
+    }
+    return list.build();
+  }
+
+  /**
+   * An unsigned transfer referring to the head block and expiring a minute after it, like
+   * {@code createTransaction2} of a node.
+   */
+  private TransactionExtention transfer(TransferContract contract) {
+    long head = chain.getHeadBlockNum();
+    byte[] headId = chain.blockId(head);
+    long headTimestamp = FakeChain.GENESIS_TIMESTAMP + head * FakeChain.BLOCK_INTERVAL_MS;
+    Transaction.raw raw = Transaction.raw.newBuilder()
+        .addContract(Transaction.Contract.newBuilder()
+            .setType(Transaction.Contract.ContractType.TransferContract)
+            .setParameter(Any.pack(contract)))
+        .setRefBlockBytes(ByteString.copyFrom(headId, 6, 2))
+        .setRefBlockHash(ByteString.copyFrom(headId, 8, 8))
+        .setTimestamp(headTimestamp + created.incrementAndGet() % FakeChain.BLOCK_INTERVAL_MS)
+        .setExpiration(headTimestamp + 60_000)
+        .build();
+    Transaction transaction = Transaction.newBuilder().setRawData(raw).build();
+    return TransactionExtention.newBuilder()
+        .setTransaction(transaction)
+        .setTxid(ByteString.copyFrom(FakeChain.transactionId(transaction)))
+        .setResult(Return.newBuilder().setResult(true))
+        .build();
+  }
+
+  private Transaction transaction(BytesMessage request) {
+    Transaction transaction = chain.transaction(request.getValue().toByteArray());
+    return transaction == null ? Transaction.getDefaultInstance() : transaction;
+  }
+
+  private TransactionInfo transactionInfo(BytesMessage request, long upTo) {
+    TransactionInfo info = chain.transactionInfo(request.getValue().toByteArray());
+    return info == null || info.getBlockNumber() > upTo
+        ? TransactionInfo.getDefaultInstance() : info;
+  }
+
+  private NodeInfo nodeInfo() {
+    long head = chain.getHeadBlockNum();
+    long solidified = chain.getSolidifiedBlockNum();
+    return NodeInfo.newBuilder()
+        .setBeginSyncNum(head)
+        .setBlock("Num:" + head + ",ID:" + ByteArray.toHexString(chain.blockId(head)))
+        .setSolidityBlock("Num:" + solidified + ",ID:"
+            + ByteArray.toHexString(chain.blockId(solidified)))
+        .build();
+  }
+
+  private NumberMessage nextMaintenanceTime() {
+    long now = System.currentTimeMillis();
+    return NumberMessage.newBuilder()
+        .setNum((now / MAINTENANCE_INTERVAL_MS + 1) * MAINTENANCE_INTERVAL_MS).build();
+  }
+
+  private ChainParameters chainParameters() {
+    return ChainParameters.newBuilder()
+        .addChainParameter(parameter("getMaintenanceTimeInterval", MAINTENANCE_INTERVAL_MS))
+        .addChainParameter(parameter("getTransactionFee", 1000))
+        .addChainParameter(parameter("getEnergyFee", 420))
+        .addChainParameter(parameter("getCreateAccountFee", 100_000))
+        .build();
+  }
+
+  private static ChainParameter parameter(String key, long value) {
+    return ChainParameter.newBuilder().setKey(key).setValue(value).build();
+  }
+
+  private WitnessList witnesses() {
+    WitnessList.Builder list = WitnessList.newBuilder();
+    for (int i = 0; i < 27; i++) {
+      list.addWitnesses(Witness.newBuilder()
+          .setAddress(ByteString.copyFrom(chain.address(i)))
+          .setVoteCount(1_000_000_000L - i * 1_000_000L)
+          .setUrl("https://witness" + i + ".example")
+          .setIsJobs(true));
+    }
+    return list.build();
+  }
+
+  private AccountResourceMessage accountResource(Account account) {
+    return AccountResourceMessage.newBuilder()
+        .setFreeNetLimit(600)
+        .setFreeNetUsed(chain.account(account.getAddress()).getBalance() % 600)
+        .build();
+  }
+
+  private NumberMessage reward(BytesMessage request) {
+    return NumberMessage.newBuilder()
+        .setNum(chain.account(request.getValue()).getBalance() / 1000).build();
+  }
+
+  private CanWithdrawUnfreezeAmountResponseMessage withdrawable(
+      CanWithdrawUnfreezeAmountRequestMessage request) {
+    return CanWithdrawUnfreezeAmountResponseMessage.newBuilder()
+        .setAmount(chain.account(request.getOwnerAddress()).getBalance() / 10).build();
+  }
+
+  private DecryptNotesTRC20 notes(IvkDecryptTRC20Parameters request) {
+    return chain.notes(request.getStartBlockIndex(), request.getEndBlockIndex());
+  }
+
+  private class FullNodeService extends WalletGrpc.WalletImplBase {
+
+    @Override
+    public void getNowBlock(EmptyMessage request, StreamObserver<Block> observer) {
+      respond("GetNowBlock", observer, () -> block(chain.getHeadBlockNum()));
+    }
+
+    @Override
+    public void getNowBlock2(EmptyMessage request, StreamObserver<BlockExtention> observer) {
+      respond("GetNowBlock2", observer, () -> blockExtention(chain.getHeadBlockNum()));
+    }
+
+    @Override
+    public void getBlockByNum(NumberMessage request, StreamObserver<Block> observer) {
+      respond("GetBlockByNum", observer, () -> block(request.getNum()));
+    }
+
+    @Override
+    public void getBlockByNum2(NumberMessage request, StreamObserver<BlockExtention> observer) {
+      respond("GetBlockByNum2", observer, () -> blockExtention(request.getNum()));
+    }
+
+    @Override
+    public void getBlockById(BytesMessage request, StreamObserver<Block> observer) {
+      respond("GetBlockById", observer,
+          () -> block(chain.blockNum(request.getValue().toByteArray())));
+    }
+
+    @Override
+    public void getBlockByLimitNext(BlockLimit request, StreamObserver<BlockList> observer) {
+      respond("GetBlockByLimitNext", observer, () -> blocks(request));
+    }
+
+    @Override
+    public void getBlockByLimitNext2(BlockLimit request,
+        StreamObserver<BlockListExtention> observer) {
+      respond("GetBlockByLimitNext2", observer, () -> blockExtentions(request));
+    }
+
+    @Override
+    public void getAccount(Account request, StreamObserver<Account> observer) {
+      respond("GetAccount", observer, () -> chain.account(request.getAddress()));
+    }
+
+    @Override
+    public void getContract(BytesMessage request, StreamObserver<SmartContract> observer) {
+      respond("GetContract", observer, () -> chain.contract(request.getValue()));
+    }
+
+    @Override
+    public void getAccountResource(Account request,
+        StreamObserver<AccountResourceMessage> observer) {
+      respond("GetAccountResource", observer, () -> accountResource(request));
+    }
+
+    @Override
+    public void getTransactionById(BytesMessage request, StreamObserver<Transaction> observer) {
+      respond("GetTransactionById", observer, () -> transaction(request));
+    }
+
+    @Override
+    public void getTransactionInfoById(BytesMessage request,
+        StreamObserver<TransactionInfo> observer) {
+      respond("GetTransactionInfoById", observer,
+          () -> transactionInfo(request, chain.getHeadBlockNum()));
+    }
+
+    @Override
+    public void getTransactionFromPending(BytesMessage request,
+        StreamObserver<Transaction> observer) {
+      respond("GetTransactionFromPending", observer, () -> {
+        Transaction transaction = chain.pending(request.getValue().toByteArray());
+        return transaction == null ? Transaction.getDefaultInstance() : transaction;
+      });
+    }
+
+    @Override
+    public void getTransactionInfoByBlockNum(NumberMessage request,
+        StreamObserver<TransactionInfoList> observer) {
+      respond("GetTransactionInfoByBlockNum", observer,
+          () -> chain.exists(request.getNum()) ? chain.transactionInfos(request.getNum())
+              : TransactionInfoList.getDefaultInstance());
+    }
+
+    @Override
+    public void createTransaction2(TransferContract request,
+        StreamObserver<TransactionExtention> observer) {
+      respond("CreateTransaction2", observer, () -> transfer(request));
+    }
+
+    @Override
+    public void broadcastTransaction(Transaction request, StreamObserver<Return> observer) {
+      respond("BroadcastTransaction", observer, () -> {
+        long headTimestamp = FakeChain.GENESIS_TIMESTAMP
+            + chain.getHeadBlockNum() * FakeChain.BLOCK_INTERVAL_MS;
+        if (request.getRawData().getExpiration() <= headTimestamp) {
+          return Return.newBuilder()
+              .setResult(false)
+              .setCode(Return.response_code.TRANSACTION_EXPIRATION_ERROR)
+              .setMessage(ByteString.copyFromUtf8("transaction expired"))
+              .build();
+        }
+        chain.broadcast(request);
+        return Return.newBuilder().setResult(true).setCode(Return.response_code.SUCCESS).build();
+      });
+    }
+
+    @Override
+    public void getNodeInfo(EmptyMessage request, StreamObserver<NodeInfo> observer) {
+      respond("GetNodeInfo", observer, FakeNode.this::nodeInfo);
+    }
+
+    @Override
+    public void listNodes(EmptyMessage request, StreamObserver<NodeList> observer) {
+      respond("ListNodes", observer, NodeList::getDefaultInstance);
+    }
+
+    @Override
+    public void getNextMaintenanceTime(EmptyMessage request,
+        StreamObserver<NumberMessage> observer) {
+      respond("GetNextMaintenanceTime", observer, FakeNode.this::nextMaintenanceTime);
+    }
+
+    @Override
+    public void getChainParameters(EmptyMessage request,
+        StreamObserver<ChainParameters> observer) {
+      respond("GetChainParameters", observer, FakeNode.this::chainParameters);
+    }
+
+    @Override
+    public void listWitnesses(EmptyMessage request, StreamObserver<WitnessList> observer) {
+      respond("ListWitnesses", observer, FakeNode.this::witnesses);
+    }
+
+    @Override
+    public void getRewardInfo(BytesMessage request, StreamObserver<NumberMessage> observer) {
+      respond("GetRewardInfo", observer, () -> reward(request));
+    }
+
+    @Override
+    public void getCanWithdrawUnfreezeAmount(CanWithdrawUnfreezeAmountRequestMessage request,
+        StreamObserver<CanWithdrawUnfreezeAmountResponseMessage> observer) {
+      respond("GetCanWithdrawUnfreezeAmount", observer, () -> withdrawable(request));
+    }
+
+    @Override
+    public void scanShieldedTRC20NotesByIvk(IvkDecryptTRC20Parameters request,
+        StreamObserver<DecryptNotesTRC20> observer) {
+      respond("ScanShieldedTRC20NotesByIvk", observer, () -> notes(request));
+    }
+  }
+
+  /**
+   * The solidity node answers from the solidified part of the chain only.
+   */
+  private class SolidityNodeService extends WalletSolidityGrpc.WalletSolidityImplBase {
+
+    private long solidified(long num) {
+      return num <= chain.getSolidifiedBlockNum() ? num : -1;
+    }
+
+    @Override
+    public void getNowBlock(EmptyMessage request, StreamObserver<Block> observer) {
+      respond("GetNowBlock", observer, () -> block(chain.getSolidifiedBlockNum()));
+    }
+
+    @Override
+    public void getNowBlock2(EmptyMessage request, StreamObserver<BlockExtention> observer) {
+      respond("GetNowBlock2", observer, () -> blockExtention(chain.getSolidifiedBlockNum()));
+    }
+
+    @Override
+    public void getBlockByNum(NumberMessage request, StreamObserver<Block> observer) {
+      respond("GetBlockByNum", observer, () -> block(solidified(request.getNum())));
+    }
+
+    @Override
+    public void getBlockByNum2(NumberMessage request, StreamObserver<BlockExtention> observer) {
+      respond("GetBlockByNum2", observer, () -> blockExtention(solidified(request.getNum())));
+    }
+
+    @Override
+    public void getAccount(Account request, StreamObserver<Account> observer) {
+      respond("GetAccount", observer, () -> chain.account(request.getAddress()));
+    }
+
+    @Override
+    public void getTransactionById(BytesMessage request, StreamObserver<Transaction> observer) {
+      respond("GetTransactionById", observer, () -> {
+        TransactionInfo info = transactionInfo(request, chain.getSolidifiedBlockNum());
+        return info.getId().isEmpty() ? Transaction.getDefaultInstance() : transaction(request);
+      });
+    }
+
+    @Override
+    public void getTransactionInfoById(BytesMessage request,
+        StreamObserver<TransactionInfo> observer) {
+      respond("GetTransactionInfoById", observer,
+          () -> transactionInfo(request, chain.getSolidifiedBlockNum()));
+    }
+
+    @Override
+    public void listWitnesses(EmptyMessage request, StreamObserver<WitnessList> observer) {
+      respond("ListWitnesses", observer, FakeNode.this::witnesses);
+    }
+
+    @Override
+    public void getRewardInfo(BytesMessage request, StreamObserver<NumberMessage> observer) {
+      respond("GetRewardInfo", observer, () -> reward(request));
+    }
+
+    @Override
+    public void getCanWithdrawUnfreezeAmount(CanWithdrawUnfreezeAmountRequestMessage request,
+        StreamObserver<CanWithdrawUnfreezeAmountResponseMessage> observer) {
+      respond("GetCanWithdrawUnfreezeAmount", observer, () -> withdrawable(request));
+    }
+
+    @Override
+    public void scanShieldedTRC20NotesByIvk(IvkDecryptTRC20Parameters request,
+        StreamObserver<DecryptNotesTRC20> observer) {
+      respond("ScanShieldedTRC20NotesByIvk", observer, () -> notes(request));
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package org.tron.walletserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tron.protos.Protocol.Block;
+
+public class FakeNodeTest {
+
+  private FakeNode node;
+  private GrpcClient client;
+
+  @Before
+  public void setUp() throws Exception {
+    node = new FakeNode("fake-node-test", new FakeChain(1000, 4, 100));
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    if (client != null) {
+      client.shutdown();
+    }
+    node.shutdown();
+  }
+
+  @Test
+  public void blocksLinkByParentHash() {
+    client = node.client(new RpcOptions(), false);
+    FakeChain chain = node.getChain();
+    Block block = client.getBlock(500);
+    Assert.assertEquals(chain.block(500), block);
+    Assert.assertArrayEquals(chain.blockId(499),
+        block.getBlockHeader().getRawData().getParentHash().toByteArray());
+    Assert.assertEquals(500, chain.blockNum(chain.blockId(500)));
+  }
+
+  @Test
+  public void solidifiedBlocksAreCached() throws InterruptedException {
+    client = node.client(new RpcOptions(), true);
+    for (int i = 0; i < 100 && client.getSolidifiedBlockNum() < 0; i++) {
+      Thread.sleep(20);
+    }
+    client.getBlock(5);
+    client.getBlock(5);
+    Assert.assertEquals(1, node.getCalls("GetBlockByNum"));
+    Assert.assertTrue(client.getCache().getHits() > 0);
+  }
+
+  @Test
+  public void injectedFailuresAreRetried() {
+    RpcOptions options = new RpcOptions();
+    options.getDefaultPolicy().setMaxAttempts(8);
+    options.getDefaultPolicy().setInitialBackoffMs(1);
+    client = node.client(options, false);
+    node.setErrorRate(0.2);
+    for (long num = 0; num < 50; num++) {
+      Assert.assertEquals(num, client.getBlock(num).getBlockHeader().getRawData().getNumber());
+    }
+    Assert.assertTrue(node.getCalls("GetBlockByNum") >= 50);
+  }
+
+  @Test
+  public void concurrentReadsAreCoalesced() {
+    client = node.client(new RpcOptions(), false);
+    node.setLatency(100, 0);
+    List<CompletableFuture<Block>> futures = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      futures.add(client.getBlockAsync(700));
+    }
+    for (CompletableFuture<Block> future : futures) {
+      Assert.assertEquals(700, future.join().getBlockHeader().getRawData().getNumber());
+    }
+    Assert.assertEquals(1, node.getCalls("GetBlockByNum"));
+  }
+}
@@ -0,0 +1,60 @@
+package org.tron.walletserver;
+
+import com.google.protobuf.ByteString;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tron.api.GrpcAPI.TransactionExtention;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.contract.BalanceContract.TransferContract;
+
+public class LocalTransactionBuilderTest {
+
+  private FakeNode node;
+  private GrpcClient remote;
+  private GrpcClient local;
+
+  @Before
+  public void setUp() throws Exception {
+    node = new FakeNode("local-build-test", new FakeChain(1000, 3, 100));
+    remote = node.client(new RpcOptions(), false);
+    RpcOptions options = new RpcOptions();
+    options.setLocalBuildEnabled(true);
+    options.setLocalBuildRefreshMs(60_000);
+    local = node.client(options, false);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    remote.shutdown();
+    local.shutdown();
+    node.shutdown();
+  }
+
+  @Test
+  public void transferIsBuiltLikeTheNodeBuildsIt() {
+    TransferContract contract = TransferContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(node.getChain().address(0)))
+        .setToAddress(ByteString.copyFrom(node.getChain().address(1)))
+        .setAmount(1_000_000)
+        .build();
+    Transaction.raw expected = remote.createTransaction2(contract).getTransaction().getRawData();
+    Assert.assertEquals(1, node.getCalls("CreateTransaction2"));
+
+    for (int i = 0; i < 10; i++) {
+      TransactionExtention built = local.createTransaction2(contract);
+      Transaction.raw raw = built.getTransaction().getRawData();
+      Assert.assertTrue(built.getResult().getResult());
+      Assert.assertEquals(expected.getContractList(), raw.getContractList());
+      Assert.assertEquals(expected.getRefBlockBytes(), raw.getRefBlockBytes());
+      Assert.assertEquals(expected.getRefBlockHash(), raw.getRefBlockHash());
+      Assert.assertEquals(expected.getExpiration(), raw.getExpiration());
+      Assert.assertArrayEquals(FakeChain.transactionId(built.getTransaction()),
+          built.getTxid().toByteArray());
+    }
+    // the head block was loaded once and no transaction was asked from the node
+    Assert.assertEquals(1, node.getCalls("CreateTransaction2"));
+    Assert.assertEquals(1, node.getCalls("GetNowBlock2"));
+  }
+}
@@ -0,0 +1,153 @@
+package org.tron.walletserver;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tron.common.crypto.ECKey;
+import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.TransactionUtils;
+import org.tron.protos.Protocol.Transaction;
+
+public class PayoutEngineTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private FakeNode node;
+  private GrpcClient client;
+  private ECKey key;
+  private File csv;
+  private File journal;
+
+  @Before
+  public void setUp() throws Exception {
+    node = new FakeNode("payout-engine-test", new FakeChain(1000, 3, 100));
+    client = node.client(new RpcOptions(), false);
+    key = new ECKey();
+    csv = folder.newFile("payouts.csv");
+    journal = new File(folder.getRoot(), "payouts.journal");
+    StringBuilder rows = new StringBuilder("address,amount\n");
+    for (int i = 0; i < 40; i++) {
+      rows.append(WalletApi.encode58Check(node.getChain().address(i))).append(',')
+          .append(1_000_000 + i).append('\n');
+    }
+    Files.write(csv.toPath(), rows.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    client.shutdown();
+    node.shutdown();
+  }
+
+  private PayoutEngine engine() {
+    return new PayoutEngine(client, key, key.getAddress(), 0, 8, 1000);
+  }
+
+  @Test
+  public void everyRowIsPaidOnceAcrossRuns() throws Exception {
+    PayoutEngine.Summary first = engine().run(csv.toPath(), journal.toPath());
+    Assert.assertEquals(40, first.getPaid());
+    Assert.assertEquals(40, node.getCalls("BroadcastTransaction"));
+
+    PayoutEngine.Summary second = engine().run(csv.toPath(), journal.toPath());
+    Assert.assertEquals(0, second.getPaid());
+    Assert.assertEquals(40, second.getSkipped());
+    Assert.assertEquals(40, node.getCalls("BroadcastTransaction"));
+    Assert.assertEquals(40, node.getCalls("CreateTransaction2"));
+  }
+
+  @Test
+  public void journaledTransactionIsSentAgainAfterACrash() throws Exception {
+    // a crash between journaling the signed transaction of line 2 and broadcasting it
+    Transaction signed = TransactionUtils.sign(node.getChain().transaction(999, 0), key);
+    String address = WalletApi.encode58Check(node.getChain().address(0));
+    String txid = ByteArray.toHexString(FakeChain.transactionId(signed));
+    Files.write(journal.toPath(), ("SIGNED 2 " + address + " 1000000 " + txid + " "
+        + ByteArray.toHexString(signed.toByteArray()) + "\nBROADCAST 3 ab").getBytes(
+        StandardCharsets.UTF_8));
+
+    PayoutEngine.Summary summary = engine().run(csv.toPath(), journal.toPath());
+    Assert.assertEquals(1, summary.getResumed());
+    Assert.assertEquals(40, summary.getPaid());
+    Assert.assertEquals(39, node.getCalls("CreateTransaction2"));
+    Assert.assertEquals(signed, node.getChain().transaction(FakeChain.transactionId(signed)));
+
+    List<String> records = Files.readAllLines(journal.toPath(), StandardCharsets.UTF_8);
+    // the torn record was cut off, each line is journaled as signed and broadcast
+    Assert.assertEquals(80, records.size());
+    Assert.assertTrue(records.contains("BROADCAST 2 " + txid));
+  }
+
+  @Test
+  public void expiredTransactionInAnUnsolidifiedBlockIsNotPaidAgain() throws Exception {
+    client.shutdown();
+    client = node.client(new RpcOptions(), true);
+    // line 2 was broadcast before a crash, included in block 1001 and expired at block 1002,
+    // which the solidity node, 19 blocks behind, does not know yet
+    FakeChain chain = node.getChain();
+    Transaction unsigned = chain.transaction(999, 0);
+    unsigned = unsigned.toBuilder().setRawData(unsigned.getRawData().toBuilder()
+        .setExpiration(FakeChain.GENESIS_TIMESTAMP + 1002 * FakeChain.BLOCK_INTERVAL_MS))
+        .build();
+    Transaction signed = TransactionUtils.sign(unsigned, key);
+    chain.broadcast(signed);
+    chain.advance(2);
+    String address = WalletApi.encode58Check(chain.address(0));
+    String txid = ByteArray.toHexString(FakeChain.transactionId(signed));
+    Files.write(journal.toPath(), ("SIGNED 2 " + address + " 1000000 " + txid + " "
+        + ByteArray.toHexString(signed.toByteArray()) + "\n").getBytes(StandardCharsets.UTF_8));
+
+    PayoutEngine.Summary summary = engine().run(csv.toPath(), journal.toPath());
+    Assert.assertEquals(1, summary.getResumed());
+    Assert.assertEquals(40, summary.getPaid());
+    Assert.assertEquals(0, summary.getFailed());
+    Assert.assertEquals(39, node.getCalls("CreateTransaction2"));
+    List<String> records = Files.readAllLines(journal.toPath(), StandardCharsets.UTF_8);
+    Assert.assertTrue(records.contains("BROADCAST 2 " + txid));
+  }
+
+  @Test
+  public void broadcastTransactionsAreWaitedForUntilSolidified() throws Exception {
+    RpcOptions options = new RpcOptions();
+    options.setCacheSolidifiedRefreshMs(0);
+    GrpcClient tracked = node.client(options, false);
+    BlockFollower follower = new BlockFollower(tracked, 20, false);
+    ConfirmationTracker tracker = new ConfirmationTracker(tracked, follower);
+    follower.start(-1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<PayoutEngine.Summary> run = executor.submit(() ->
+          new PayoutEngine(tracked, key, key.getAddress(), 0, 8, 1000, tracker)
+              .run(csv.toPath(), journal.toPath()));
+      for (int i = 0; i < 1000 && !run.isDone(); i++) {
+        node.getChain().advance(1);
+        Thread.sleep(10);
+      }
+      // the fake blocks never hold broadcast transactions, so none is seen in a block: each
+      // one is found by the lookup past its expiration instead of being reported dropped
+      PayoutEngine.Summary summary = run.get(5, TimeUnit.SECONDS);
+      Assert.assertEquals(40, summary.getPaid());
+      Assert.assertEquals(40, summary.getConfirmed());
+      Assert.assertEquals(0, summary.getDropped());
+      Assert.assertEquals(0, summary.getFailed());
+      Assert.assertEquals(0, tracker.getPending());
+    } finally {
+      executor.shutdownNow();
+      tracker.close();
+      follower.stop();
+      tracked.shutdown();
+    }
+  }
+}
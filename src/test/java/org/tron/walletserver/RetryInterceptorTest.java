@@ -0,0 +1,62 @@
+package org.tron.walletserver;
+
+import com.typesafe.config.ConfigFactory;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RetryInterceptorTest {
+
+  private FakeNode node;
+  private RpcOptions options;
+  private GrpcClient client;
+
+  @Before
+  public void setUp() throws Exception {
+    node = new FakeNode("retry-interceptor-test", new FakeChain(1000, 3, 100));
+    options = RpcOptions.fromConfig(ConfigFactory.parseString(
+        "rpc.policy.default { deadlineMs = 200, maxAttempts = 4, initialBackoffMs = 1 }"));
+    client = node.client(options, false);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    client.shutdown();
+    node.shutdown();
+  }
+
+  @Test
+  public void failedCallIsSentUntilMaxAttempts() {
+    node.setErrorRate(1);
+    try {
+      GrpcClient.await(client.getHeadBlockAsync());
+      Assert.fail();
+    } catch (StatusRuntimeException e) {
+      Assert.assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+    }
+    Assert.assertEquals(4, node.getCalls("GetNowBlock2"));
+
+    node.setErrorRate(0);
+    Assert.assertEquals(1000,
+        GrpcClient.await(client.getHeadBlockAsync()).getBlockHeader().getRawData().getNumber());
+    // the default does not replace what the broadcast policy sets itself
+    Assert.assertEquals(10, options.policyFor("BroadcastTransaction").getMaxAttempts());
+    Assert.assertEquals(200, options.policyFor("BroadcastTransaction").getInitialBackoffMs());
+  }
+
+  @Test
+  public void blockRangesOutliveTheDefaultDeadline() {
+    node.setLatency(400, 0);
+    try {
+      GrpcClient.await(client.getHeadBlockAsync());
+      Assert.fail();
+    } catch (StatusRuntimeException e) {
+      Assert.assertEquals(Status.Code.DEADLINE_EXCEEDED, e.getStatus().getCode());
+    }
+    Assert.assertEquals(100,
+        GrpcClient.await(client.getBlockByLimitNext2Async(0, 100)).getBlockCount());
+  }
+}
@@ -0,0 +1,51 @@
+package org.tron.walletserver;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.crypto.ECKey;
+import org.tron.common.utils.TransactionUtils;
+import org.tron.core.exception.CipherException;
+import org.tron.keystore.Wallet;
+import org.tron.keystore.WalletFile;
+import org.tron.protos.Protocol.Transaction;
+
+public class SignerSessionTest {
+
+  private static final byte[] PASSWORD = "session-test-1".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  public void unlockedKeySignsUntilLocked() throws Exception {
+    ECKey key = new ECKey();
+    WalletFile walletFile = Wallet.createLight(PASSWORD, key);
+    Transaction transaction = new FakeChain(10, 1, 10).transaction(5, 0);
+
+    SignerSession session = new SignerSession(true);
+    Assert.assertNull(session.sign(transaction, walletFile.getAddress()));
+    try {
+      session.unlock(walletFile, "wrong".getBytes(StandardCharsets.UTF_8), 60000);
+      Assert.fail();
+    } catch (CipherException e) {
+      Assert.assertFalse(session.isUnlocked(walletFile.getAddress()));
+    }
+
+    session.unlock(walletFile, PASSWORD, 60000);
+    Assert.assertEquals(TransactionUtils.sign(transaction, key),
+        session.sign(transaction, walletFile.getAddress()));
+    session.lock();
+    Assert.assertNull(session.sign(transaction, walletFile.getAddress()));
+  }
+
+  @Test
+  public void idleKeysAreLocked() throws Exception {
+    WalletFile walletFile = Wallet.createLight(PASSWORD, new ECKey());
+    SignerSession session = new SignerSession(true);
+    session.unlock(walletFile, PASSWORD, 100);
+    Assert.assertTrue(session.isUnlocked(walletFile.getAddress()));
+    long deadline = System.currentTimeMillis() + 5000;
+    while (session.isUnlocked(walletFile.getAddress()) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+    }
+    Assert.assertEquals(0, session.getUnlockedCount());
+  }
+}
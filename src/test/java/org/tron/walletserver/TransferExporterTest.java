@@ -0,0 +1,58 @@
+package org.tron.walletserver;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tron.common.utils.ByteArray;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.contract.BalanceContract.TransferContract;
+
+public class TransferExporterTest {
+
+  private FakeNode node;
+  private GrpcClient client;
+
+  @Before
+  public void setUp() throws Exception {
+    node = new FakeNode("transfer-exporter-test", new FakeChain(1000, 3, 100));
+    client = node.client(new RpcOptions(), false);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    client.shutdown();
+    node.shutdown();
+  }
+
+  @Test
+  public void transfersAreWrittenInBlockOrder() throws Exception {
+    ByteArrayOutputStream csv = new ByteArrayOutputStream();
+    long rows = new TransferExporter(client, 4, TransferExporter.Format.CSV).run(100, 350, csv);
+    Assert.assertEquals(750, rows);
+    String[] lines = new String(csv.toByteArray(), StandardCharsets.UTF_8).split("\n");
+    Assert.assertEquals(751, lines.length);
+    Assert.assertEquals("block,timestamp,txid,type,token,from,to,amount", lines[0]);
+
+    FakeChain chain = node.getChain();
+    Transaction transaction = chain.transaction(349, 2);
+    TransferContract transfer = transaction.getRawData().getContract(0).getParameter()
+        .unpack(TransferContract.class);
+    Assert.assertEquals(String.join(",", "349",
+        String.valueOf(chain.block(349).getBlockHeader().getRawData().getTimestamp()),
+        ByteArray.toHexString(FakeChain.transactionId(transaction)), "TRX", "",
+        WalletApi.encode58Check(transfer.getOwnerAddress().toByteArray()),
+        WalletApi.encode58Check(transfer.getToAddress().toByteArray()),
+        String.valueOf(transfer.getAmount())), lines[750]);
+
+    ByteArrayOutputStream columnar = new ByteArrayOutputStream();
+    Assert.assertEquals(750,
+        new TransferExporter(client, 4, TransferExporter.Format.COLUMNAR).run(100, 350, columnar));
+    byte[] bytes = columnar.toByteArray();
+    Assert.assertEquals("TRXCOL01", new String(bytes, 0, 8, StandardCharsets.US_ASCII));
+    Assert.assertEquals(0, bytes[bytes.length - 1]);
+    Assert.assertTrue(bytes.length < csv.size() / 2);
+  }
+}